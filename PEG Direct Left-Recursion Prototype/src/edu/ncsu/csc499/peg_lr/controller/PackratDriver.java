@@ -1,5 +1,6 @@
 package edu.ncsu.csc499.peg_lr.controller;
 
+import edu.ncsu.csc499.peg_lr.event.EventHistory;
 import edu.ncsu.csc499.peg_lr.event.ParseEvent;
 import edu.ncsu.csc499.peg_lr.event.control.ControlEvent;
 import edu.ncsu.csc499.peg_lr.pattern.Pattern;
@@ -40,8 +41,8 @@ public class PackratDriver {
 	 */
 	public static void doMatch(final String inputString, final Pattern matcher) {
 
-		// Create the Input context
-		final InputContext input = new InputContext(inputString);
+		// Create the Input context, recording its history for display
+		final InputContext input = new InputContext(inputString, new EventHistory());
 
 		// Attempt to match
 		final Result result = matcher.lazyMatch(input);
@@ -0,0 +1,71 @@
+package edu.ncsu.csc499.peg_lr.controller.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import edu.ncsu.csc499.peg_lr.pattern.BatchParser;
+import edu.ncsu.csc499.peg_lr.pattern.Pattern;
+import edu.ncsu.csc499.peg_lr.pattern.definition.DefinedNestedExpression;
+
+/**
+ * Times parsing a batch of inputs with one shared grammar on pools of more and
+ * more threads, up to one per core. As each parse only touches its own
+ * InputContext, the speedup should stay close to the number of threads until
+ * the cores run out.
+ */
+public class BatchBenchmark {
+
+	/** Pattern shared by every parse. */
+	private static final Pattern PATTERN = new DefinedNestedExpression();
+
+	/** Number of inputs in the batch. */
+	private static final int INPUTS = 2_000;
+
+	/** Number of terms in each input. */
+	private static final int TERMS = 100;
+
+	/**
+	 * Runs the benchmark, printing the time taken and speedup at each number of
+	 * threads.
+	 *
+	 * @param args command-line arguments, unused.
+	 */
+	public static void main(final String[] args) {
+		BenchmarkUtils.runWithLargeStack(BatchBenchmark::run);
+	}
+
+	/**
+	 * Times the batch at each number of threads, doubling up to the number of
+	 * cores.
+	 */
+	private static void run() {
+		// e.g. "1+(2-3)+(2-3)", varied so that the inputs aren't all the same
+		final List<String> inputs = new ArrayList<>(INPUTS);
+		for (int i = 0; i < INPUTS; i++) {
+			inputs.add((i % 10) + "+(2-3)".repeat(TERMS - 1));
+		}
+
+		final int cores = Runtime.getRuntime().availableProcessors();
+		System.out.println("Batches of " + INPUTS + " sums on " + cores + " cores");
+		BenchmarkUtils.printRow("threads", "batch (ms)", "speedup");
+
+		double singleTime = 0;
+		// Double the threads each time, finishing on one per core
+		for (int threads = 1; threads <= cores; threads = (threads < cores) ? Math.min(threads * 2, cores)
+				: (cores + 1)) {
+			final ForkJoinPool pool = new ForkJoinPool(threads);
+			try {
+				final BatchParser parser = new BatchParser(PATTERN, pool);
+				final double time = BenchmarkUtils.time(() -> parser.recognizeAll(inputs).length);
+				if (threads == 1) {
+					singleTime = time;
+				}
+				BenchmarkUtils.printRow(threads, time, singleTime / time);
+			} finally {
+				pool.shutdown();
+			}
+		}
+	}
+
+}
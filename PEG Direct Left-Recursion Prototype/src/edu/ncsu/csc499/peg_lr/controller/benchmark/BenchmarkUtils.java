@@ -0,0 +1,108 @@
+package edu.ncsu.csc499.peg_lr.controller.benchmark;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * Offers static helpers shared by the benchmark drivers: timing a task with
+ * warm-up rounds, and printing the measurements as aligned columns.
+ */
+public class BenchmarkUtils {
+
+	/** Number of untimed runs used to let the JIT compile the hot paths. */
+	private static final int WARMUP_RUNS = 3;
+
+	/** Number of timed runs, of which the median is reported. */
+	private static final int TIMED_RUNS = 5;
+
+	/** Number of nanoseconds in a millisecond. */
+	private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+	/**
+	 * Stack size given to benchmark threads, as deeply nested inputs recurse once
+	 * per nesting level while matching.
+	 */
+	private static final long BENCHMARK_STACK_SIZE = 1L << 30;
+
+	/**
+	 * Runs a benchmark on its own thread with a large stack, waiting for it to
+	 * finish.
+	 *
+	 * @param benchmark the benchmark to run
+	 */
+	public static void runWithLargeStack(final Runnable benchmark) {
+		final Thread thread = new Thread(null, benchmark, "benchmark", BENCHMARK_STACK_SIZE);
+		thread.start();
+		try {
+			thread.join();
+		} catch (final InterruptedException e) {
+			// Let the caller know that we were interrupted
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Times a task, reporting the median of several runs after a few warm-up runs.
+	 * The task's return value is kept so that the JIT cannot discard the work.
+	 *
+	 * @param task the work to time
+	 * @return the median time of a single run, in milliseconds
+	 */
+	public static double time(final Supplier<?> task) {
+		return time(task, WARMUP_RUNS, TIMED_RUNS);
+	}
+
+	/**
+	 * Times a task, reporting the median of the given number of runs after the
+	 * given number of warm-up runs.
+	 *
+	 * @param task    the work to time
+	 * @param warmups the number of untimed runs to do first
+	 * @param runs    the number of timed runs. Must be positive.
+	 * @return the median time of a single run, in milliseconds
+	 */
+	public static double time(final Supplier<?> task, final int warmups, final int runs) {
+		if (runs <= 0) {
+			throw new IllegalArgumentException("Benchmark needs at least one timed run.");
+		}
+
+		// Warm up, and keep every result reachable
+		Object sink = null;
+		for (int i = 0; i < warmups; i++) {
+			sink = task.get();
+		}
+
+		// Time each run separately
+		final long[] times = new long[runs];
+		for (int i = 0; i < runs; i++) {
+			final long start = System.nanoTime();
+			sink = task.get();
+			times[i] = System.nanoTime() - start;
+		}
+
+		// Make the final result observable
+		if (sink == null) {
+			System.out.print("");
+		}
+
+		// Report the median run
+		Arrays.sort(times);
+		return times[runs / 2] / NANOS_PER_MILLI;
+	}
+
+	/**
+	 * Prints one row of a results table, padding each column to the same width.
+	 *
+	 * @param columns the values to print, in order
+	 */
+	public static void printRow(final Object... columns) {
+		final StringBuilder row = new StringBuilder();
+		for (final Object column : columns) {
+			// Format decimals to a fixed precision
+			final String text = (column instanceof Double) ? String.format("%.3f", column) : String.valueOf(column);
+			row.append(String.format("%16s", text));
+		}
+		System.out.println(row);
+	}
+
+}
@@ -0,0 +1,57 @@
+package edu.ncsu.csc499.peg_lr.controller.benchmark;
+
+import edu.ncsu.csc499.peg_lr.pattern.ChunkedParser;
+import edu.ncsu.csc499.peg_lr.pattern.Pattern;
+import edu.ncsu.csc499.peg_lr.pattern.component.PatternString;
+import edu.ncsu.csc499.peg_lr.pattern.component.operator.PatternRepetition;
+import edu.ncsu.csc499.peg_lr.pattern.component.operator.PatternSequence;
+import edu.ncsu.csc499.peg_lr.pattern.definition.DefinedNestedExpression;
+import edu.ncsu.csc499.peg_lr.pattern.definition.DefinedPattern;
+import edu.ncsu.csc499.peg_lr.structure.InputContext;
+
+/**
+ * Compares matching a long list of statements with lazyMatch() against
+ * matching it in chunks on the common ForkJoinPool, on increasingly long
+ * inputs. The chunks only run side by side with more than one core; on one,
+ * this shows what checking and stitching them costs.
+ */
+public class ChunkedBenchmark {
+
+	/** Numbers of statements to time. */
+	private static final int[] STATEMENTS = { 1_000, 10_000, 100_000 };
+
+	/**
+	 * Runs the benchmark, printing the time taken each way at each length.
+	 *
+	 * @param args command-line arguments, unused.
+	 */
+	public static void main(final String[] args) {
+		BenchmarkUtils.runWithLargeStack(ChunkedBenchmark::run);
+	}
+
+	/**
+	 * Times each way of matching at each length.
+	 */
+	private static void run() {
+		// Statements <- (Expression ";")*
+		final Pattern statements = new DefinedPattern("Statements", new PatternRepetition(
+				new PatternSequence(new DefinedNestedExpression(), new PatternString(";")), 0, -1));
+		final ChunkedParser chunked = new ChunkedParser(statements);
+
+		System.out.println("Statements like \"12+(3-4);\" on " + Runtime.getRuntime().availableProcessors() + " cores");
+		BenchmarkUtils.printRow("statements", "lazyMatch (ms)", "chunked (ms)");
+		for (final int count : STATEMENTS) {
+			final StringBuilder builder = new StringBuilder();
+			for (int i = 0; i < count; i++) {
+				builder.append(i % 100).append("+(").append(i % 7).append("-4);");
+			}
+			final String input = builder.toString();
+
+			final double lazyTime = BenchmarkUtils
+					.time(() -> statements.lazyMatch(new InputContext(input)).getEndIdx());
+			final double chunkedTime = BenchmarkUtils.time(() -> chunked.match(new InputContext(input)).getEndIdx());
+			BenchmarkUtils.printRow(count, lazyTime, chunkedTime);
+		}
+	}
+
+}
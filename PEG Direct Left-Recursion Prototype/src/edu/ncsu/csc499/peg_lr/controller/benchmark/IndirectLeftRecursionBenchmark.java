@@ -0,0 +1,50 @@
+package edu.ncsu.csc499.peg_lr.controller.benchmark;
+
+import edu.ncsu.csc499.peg_lr.pattern.Pattern;
+import edu.ncsu.csc499.peg_lr.pattern.definition.DefinedIndirectExpression;
+import edu.ncsu.csc499.peg_lr.structure.InputContext;
+
+/**
+ * Times indirectly left-recursive sums reaching themselves through longer and
+ * longer chains of rules. Only the head of the recursion grows, and each rule in
+ * the chain is re-evaluated once per growing attempt, so the time should grow
+ * linearly with the chain length, rather than exponentially as it would if every
+ * rule in the chain grew its own seed.
+ */
+public class IndirectLeftRecursionBenchmark {
+
+	/** Numbers of links between the expression and itself to time. */
+	private static final int[] LINKS = { 1, 2, 4, 8, 16, 32, 64 };
+
+	/** Number of terms in each sum. */
+	private static final int TERMS = 2_000;
+
+	/**
+	 * Runs the benchmark, printing the time taken by each mode at each chain
+	 * length.
+	 *
+	 * @param args command-line arguments, unused.
+	 */
+	public static void main(final String[] args) {
+		BenchmarkUtils.runWithLargeStack(IndirectLeftRecursionBenchmark::run);
+	}
+
+	/**
+	 * Times each mode at each chain length.
+	 */
+	private static void run() {
+		// e.g. "1+2+2" for three terms
+		final String input = "1" + "+2".repeat(TERMS - 1);
+		BenchmarkUtils.printRow("links", "match (ms)", "recognize (ms)", "per link (ms)");
+
+		for (final int links : LINKS) {
+			final Pattern pattern = new DefinedIndirectExpression(links);
+
+			final double matchTime = BenchmarkUtils.time(() -> pattern.lazyMatch(new InputContext(input)).getEndIdx());
+			final double recognizeTime = BenchmarkUtils.time(() -> pattern.lazyRecognize(new InputContext(input)));
+
+			BenchmarkUtils.printRow(links, matchTime, recognizeTime, matchTime / links);
+		}
+	}
+
+}
@@ -0,0 +1,87 @@
+package edu.ncsu.csc499.peg_lr.controller.benchmark;
+
+import edu.ncsu.csc499.peg_lr.pattern.Pattern;
+import edu.ncsu.csc499.peg_lr.pattern.definition.DefinedExpression;
+import edu.ncsu.csc499.peg_lr.pattern.definition.DefinedIndirectExpression;
+import edu.ncsu.csc499.peg_lr.pattern.definition.DefinedNestedExpression;
+import edu.ncsu.csc499.peg_lr.pattern.definition.DefinedRightRecursiveExpression;
+import edu.ncsu.csc499.peg_lr.structure.InputContext;
+import edu.ncsu.csc499.peg_lr.structure.LeftRecursionStrategy;
+
+/**
+ * Compares Warth et al.'s seed growing, Medeiros et al.'s bounded left
+ * recursion and Tratt's direct left recursion on each grammar, at increasing
+ * numbers of terms, so that the fastest strategy can be picked for it. The
+ * right-recursive sum is both left- and right-recursive, which Tratt's
+ * strategy grows one term at a time; the indirect sum is left-recursive
+ * through several rules, which bounding grows once per rule.
+ */
+public class LeftRecursionStrategyBenchmark {
+
+	/** Numbers of terms to time. */
+	private static final int[] TERMS = { 1_000, 4_000, 16_000, 64_000 };
+
+	/** Number of links in the indirect sum. */
+	private static final int LINKS = 4;
+
+	/**
+	 * Runs the benchmark, printing the time taken by each strategy on each grammar
+	 * at each length.
+	 *
+	 * @param args command-line arguments, unused.
+	 */
+	public static void main(final String[] args) {
+		BenchmarkUtils.runWithLargeStack(LeftRecursionStrategyBenchmark::run);
+	}
+
+	/**
+	 * Times each grammar.
+	 */
+	private static void run() {
+		System.out.println("Left-recursive sums, e.g. \"1+2+3\"");
+		run(new DefinedExpression(), "+2");
+		System.out.println("Right-recursive sums, e.g. \"1+2+3\"");
+		run(new DefinedRightRecursiveExpression(), "+2");
+		System.out.println("Right-recursive sums with nested terms, e.g. \"1+(2-3)\"");
+		run(new DefinedNestedExpression(), "+(2-3)");
+		System.out.println("Left-recursive sums through " + LINKS + " links, e.g. \"1+2+3\"");
+		run(new DefinedIndirectExpression(LINKS), "+2");
+	}
+
+	/**
+	 * Times each strategy at each length on inputs made by repeating a term.
+	 *
+	 * @param pattern the pattern to match
+	 * @param term    the term to repeat after the initial "1"
+	 */
+	private static void run(final Pattern pattern, final String term) {
+		BenchmarkUtils.printRow("terms", "growing (ms)", "bounded (ms)", "direct (ms)");
+
+		for (final int terms : TERMS) {
+			final String input = "1" + term.repeat(terms - 1);
+
+			final double growingTime = time(pattern, input, LeftRecursionStrategy.SEED_GROWING);
+			final double boundedTime = time(pattern, input, LeftRecursionStrategy.BOUNDED);
+			final double directTime = time(pattern, input, LeftRecursionStrategy.DIRECT);
+
+			BenchmarkUtils.printRow(terms, growingTime, boundedTime, directTime);
+		}
+	}
+
+	/**
+	 * Times matching a pattern with a left recursion strategy.
+	 *
+	 * @param pattern  the pattern to match
+	 * @param input    the input to match it against
+	 * @param strategy the left recursion strategy to use
+	 * @return the average time taken, in milliseconds
+	 */
+	private static double time(final Pattern pattern, final String input, final LeftRecursionStrategy strategy) {
+		return BenchmarkUtils.time(() -> {
+			final InputContext context = new InputContext(input);
+			context.setLeftRecursionStrategy(strategy);
+			return pattern.lazyMatch(context).getEndIdx();
+		});
+	}
+
+}
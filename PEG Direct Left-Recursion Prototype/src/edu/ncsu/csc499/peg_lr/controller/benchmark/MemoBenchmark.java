@@ -0,0 +1,102 @@
+package edu.ncsu.csc499.peg_lr.controller.benchmark;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.ncsu.csc499.peg_lr.pattern.Grammar;
+import edu.ncsu.csc499.peg_lr.pattern.Pattern;
+import edu.ncsu.csc499.peg_lr.pattern.definition.DefinedNestedExpression;
+import edu.ncsu.csc499.peg_lr.structure.MemoTable;
+import edu.ncsu.csc499.peg_lr.structure.Result;
+
+/**
+ * Measures the cost of memo lookups alone, comparing the original growing map
+ * layout (a HashMap per position, keyed by Pattern equality) against the
+ * MemoTable keyed by dense rule index.
+ *
+ * Each run saves and then reads back a Result for every Pattern of a real
+ * grammar at every position, which is the access pattern of a full packrat
+ * parse.
+ */
+public class MemoBenchmark {
+
+	/** Input lengths to time, in positions. */
+	private static final int[] LENGTHS = { 1_000, 10_000, 100_000, 1_000_000 };
+
+	/**
+	 * Runs the benchmark, printing the time taken by each layout at each length.
+	 *
+	 * @param args command-line arguments, unused.
+	 */
+	public static void main(final String[] args) {
+		// Every Pattern of a grammar that mixes definitions and components
+		final List<Pattern> patterns = Grammar.freeze(new DefinedNestedExpression()).getPatterns();
+		final Result result = new Result(0);
+
+		System.out.println("Memo lookups for " + patterns.size() + " patterns per position");
+		BenchmarkUtils.printRow("positions", "HashMap (ms)", "MemoTable (ms)");
+
+		for (final int length : LENGTHS) {
+			final double legacy = BenchmarkUtils.time(() -> hashMaps(patterns, length, result));
+			final double table = BenchmarkUtils.time(() -> memoTable(patterns, length, result));
+			BenchmarkUtils.printRow(length, legacy, table);
+		}
+	}
+
+	/**
+	 * Saves and reads back every Pattern at every position using one HashMap per
+	 * position, allocated up front as the original InputContext did.
+	 *
+	 * @param patterns the Patterns to save
+	 * @param length   the number of positions
+	 * @param result   the Result to save
+	 * @return the number of Results read back
+	 */
+	private static Integer hashMaps(final List<Pattern> patterns, final int length, final Result result) {
+		final Map<Integer, Map<Pattern, Result>> memo = new HashMap<>();
+		for (int i = 0; i <= length; i++) {
+			memo.put(i, new HashMap<>());
+		}
+
+		int found = 0;
+		for (int pos = 0; pos < length; pos++) {
+			for (final Pattern p : patterns) {
+				memo.get(pos).put(p, result);
+			}
+			for (final Pattern p : patterns) {
+				if (memo.get(pos).get(p) != null) {
+					found++;
+				}
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Saves and reads back every Pattern at every position using a MemoTable keyed
+	 * by rule index.
+	 *
+	 * @param patterns the Patterns to save
+	 * @param length   the number of positions
+	 * @param result   the Result to save
+	 * @return the number of Results read back
+	 */
+	private static Integer memoTable(final List<Pattern> patterns, final int length, final Result result) {
+		final MemoTable memo = new MemoTable();
+
+		int found = 0;
+		for (int pos = 0; pos < length; pos++) {
+			for (final Pattern p : patterns) {
+				memo.put(p.getRuleIndex(), pos, result);
+			}
+			for (final Pattern p : patterns) {
+				if (memo.get(p.getRuleIndex(), pos) != null) {
+					found++;
+				}
+			}
+		}
+		return found;
+	}
+
+}
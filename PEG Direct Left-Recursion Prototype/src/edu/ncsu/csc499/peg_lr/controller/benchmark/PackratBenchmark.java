@@ -0,0 +1,75 @@
+package edu.ncsu.csc499.peg_lr.controller.benchmark;
+
+import edu.ncsu.csc499.peg_lr.pattern.Pattern;
+import edu.ncsu.csc499.peg_lr.pattern.definition.DefinedNestedExpression;
+import edu.ncsu.csc499.peg_lr.structure.InputContext;
+
+/**
+ * Compares the default matching mode against full packrat memoization on
+ * nested parentheses, an input on which every extra level of nesting makes the
+ * default mode re-match the whole inner expression several more times.
+ */
+public class PackratBenchmark {
+
+	/** Pattern whose alternatives all share a leading term. */
+	private static final Pattern PATTERN = new DefinedNestedExpression();
+
+	/** Deepest nesting that the default mode is still timed at. */
+	private static final int MAX_DEFAULT_DEPTH = 8;
+
+	/** Deepest nesting that packrat mode is timed at. */
+	private static final int MAX_PACKRAT_DEPTH = 1024;
+
+	/**
+	 * Runs the benchmark, printing the time taken by each mode at each depth.
+	 *
+	 * @param args command-line arguments, unused.
+	 */
+	public static void main(final String[] args) {
+		BenchmarkUtils.runWithLargeStack(PackratBenchmark::run);
+	}
+
+	/**
+	 * Times each mode at each depth.
+	 */
+	private static void run() {
+		BenchmarkUtils.printRow("depth", "default (ms)", "packrat (ms)");
+
+		// Double the depth each step to show the growth rate of each mode
+		for (int depth = 1; depth <= MAX_PACKRAT_DEPTH; depth *= 2) {
+			final String input = nested(depth);
+
+			// The default mode becomes far too slow to time past small depths
+			final Object defaultTime = depth <= MAX_DEFAULT_DEPTH ? BenchmarkUtils.time(() -> match(input, false))
+					: "-";
+			final double packratTime = BenchmarkUtils.time(() -> match(input, true));
+
+			BenchmarkUtils.printRow(depth, defaultTime, packratTime);
+		}
+	}
+
+	/**
+	 * Matches the benchmark pattern against the input in the given mode.
+	 *
+	 * @param input   the string to match
+	 * @param packrat whether to use full packrat memoization
+	 * @return the end index of the match
+	 */
+	private static Integer match(final String input, final boolean packrat) {
+		final InputContext context = new InputContext(input);
+		context.setPackrat(packrat);
+		return PATTERN.lazyMatch(context).getEndIdx();
+	}
+
+	/**
+	 * Builds an expression that nests a sum within the given number of
+	 * parentheses, e.g. "((1+2))" for a depth of two.
+	 *
+	 * @param depth the number of parentheses to nest
+	 * @return the nested expression
+	 */
+	static String nested(final int depth) {
+		return "(".repeat(depth) + "1+2" + ")".repeat(depth);
+	}
+
+}
@@ -0,0 +1,92 @@
+package edu.ncsu.csc499.peg_lr.controller.benchmark;
+
+import edu.ncsu.csc499.peg_lr.pattern.Pattern;
+import edu.ncsu.csc499.peg_lr.pattern.PikaParser;
+import edu.ncsu.csc499.peg_lr.pattern.definition.DefinedExpression;
+import edu.ncsu.csc499.peg_lr.pattern.definition.DefinedNestedExpression;
+import edu.ncsu.csc499.peg_lr.pattern.definition.DefinedRightRecursiveExpression;
+import edu.ncsu.csc499.peg_lr.structure.InputContext;
+
+/**
+ * Compares matching top-down with lazyMatch(), with and without packrat
+ * memoization, against pika parsing bottom-up, on increasingly long inputs.
+ *
+ * Nested terms make matching top-down backtrack into alternatives that are
+ * bound to fail, re-matching each term several times per level of nesting; the
+ * pika parse knows which alternatives fail before building the tree, so it
+ * never does. On a left-recursive sum, though, the pika parse grows a sum from
+ * every term rather than just the first, and falls behind.
+ */
+public class PikaBenchmark {
+
+	/** Numbers of terms to time. */
+	private static final int[] TERMS = { 1_000, 4_000, 16_000, 64_000 };
+
+	/** Numbers of terms to time the left-recursive sum at. */
+	private static final int[] LEFT_RECURSIVE_TERMS = { 250, 500, 1_000, 2_000 };
+
+	/** Levels of parentheses around each nested term. */
+	private static final int DEPTH = 4;
+
+	/**
+	 * Runs the benchmark, printing the time taken by each mode on each grammar at
+	 * each length.
+	 *
+	 * @param args command-line arguments, unused.
+	 */
+	public static void main(final String[] args) {
+		BenchmarkUtils.runWithLargeStack(PikaBenchmark::run);
+	}
+
+	/**
+	 * Times each grammar.
+	 */
+	private static void run() {
+		final String nested = PackratBenchmark.nested(DEPTH);
+		System.out.println("Sums of terms nested " + DEPTH + " deep, e.g. \"" + nested + "-" + nested + "\"");
+		run(new DefinedNestedExpression(), nested, "-" + nested, TERMS);
+		System.out.println("Right-recursive sums, e.g. \"1+2+3\"");
+		run(new DefinedRightRecursiveExpression(), "1", "+2", TERMS);
+		System.out.println("Left-recursive sums, e.g. \"1+2+3\"");
+		run(new DefinedExpression(), "1", "+2", LEFT_RECURSIVE_TERMS);
+	}
+
+	/**
+	 * Times each mode at each length on inputs made by repeating a term.
+	 *
+	 * @param pattern the pattern to match
+	 * @param first   the first term
+	 * @param term    the term to repeat after the first
+	 * @param lengths the numbers of terms to time
+	 */
+	private static void run(final Pattern pattern, final String first, final String term, final int[] lengths) {
+		final PikaParser pika = new PikaParser(pattern);
+		BenchmarkUtils.printRow("terms", "top-down (ms)", "packrat (ms)", "pika (ms)", "recognize (ms)");
+
+		for (final int terms : lengths) {
+			final String input = first + term.repeat(terms - 1);
+
+			final double topDownTime = BenchmarkUtils.time(() -> match(pattern, input, false));
+			final double packratTime = BenchmarkUtils.time(() -> match(pattern, input, true));
+			final double pikaTime = BenchmarkUtils.time(() -> pika.match(new InputContext(input)).getEndIdx());
+			final double recognizeTime = BenchmarkUtils.time(() -> pika.recognize(new InputContext(input)));
+
+			BenchmarkUtils.printRow(terms, topDownTime, packratTime, pikaTime, recognizeTime);
+		}
+	}
+
+	/**
+	 * Matches a pattern top-down in the given mode.
+	 *
+	 * @param pattern the pattern to match
+	 * @param input   the string to match
+	 * @param packrat whether to use full packrat memoization
+	 * @return the end index of the match
+	 */
+	private static Integer match(final Pattern pattern, final String input, final boolean packrat) {
+		final InputContext context = new InputContext(input);
+		context.setPackrat(packrat);
+		return pattern.lazyMatch(context).getEndIdx();
+	}
+
+}
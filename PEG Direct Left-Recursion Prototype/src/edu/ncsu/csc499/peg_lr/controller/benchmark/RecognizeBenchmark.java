@@ -0,0 +1,45 @@
+package edu.ncsu.csc499.peg_lr.controller.benchmark;
+
+import edu.ncsu.csc499.peg_lr.pattern.Pattern;
+import edu.ncsu.csc499.peg_lr.pattern.definition.DefinedNestedExpression;
+import edu.ncsu.csc499.peg_lr.structure.InputContext;
+
+/**
+ * Compares building a full Result tree against only recognizing how far the
+ * input matches, on long right-recursive sums with nested terms.
+ */
+public class RecognizeBenchmark {
+
+	/** Right-recursive pattern to match. */
+	private static final Pattern PATTERN = new DefinedNestedExpression();
+
+	/** Numbers of terms to time. */
+	private static final int[] TERMS = { 1_000, 4_000, 16_000, 64_000 };
+
+	/**
+	 * Runs the benchmark, printing the time taken by each mode at each length.
+	 *
+	 * @param args command-line arguments, unused.
+	 */
+	public static void main(final String[] args) {
+		BenchmarkUtils.runWithLargeStack(RecognizeBenchmark::run);
+	}
+
+	/**
+	 * Times each mode at each length.
+	 */
+	private static void run() {
+		BenchmarkUtils.printRow("terms", "match (ms)", "recognize (ms)");
+
+		for (final int terms : TERMS) {
+			// e.g. "1+(2-3)+(2-3)" for three terms
+			final String input = "1" + "+(2-3)".repeat(terms - 1);
+
+			final double matchTime = BenchmarkUtils.time(() -> PATTERN.lazyMatch(new InputContext(input)).getEndIdx());
+			final double recognizeTime = BenchmarkUtils.time(() -> PATTERN.lazyRecognize(new InputContext(input)));
+
+			BenchmarkUtils.printRow(terms, matchTime, recognizeTime);
+		}
+	}
+
+}
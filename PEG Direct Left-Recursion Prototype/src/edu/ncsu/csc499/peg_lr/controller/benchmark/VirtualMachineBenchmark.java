@@ -0,0 +1,61 @@
+package edu.ncsu.csc499.peg_lr.controller.benchmark;
+
+import edu.ncsu.csc499.peg_lr.pattern.Pattern;
+import edu.ncsu.csc499.peg_lr.pattern.definition.DefinedExpression;
+import edu.ncsu.csc499.peg_lr.pattern.definition.DefinedNestedExpression;
+import edu.ncsu.csc499.peg_lr.structure.InputContext;
+import edu.ncsu.csc499.peg_lr.vm.PatternCompiler;
+import edu.ncsu.csc499.peg_lr.vm.VirtualMachine;
+
+/**
+ * Compares the tree-walking matcher, both building Results and only
+ * recognizing, against the compiled grammar run by the VirtualMachine. Times a
+ * left-recursive sum, which exercises seed growing, and a right-recursive sum
+ * with nested terms, which exercises calls and backtracking.
+ */
+public class VirtualMachineBenchmark {
+
+	/** Numbers of terms to time. */
+	private static final int[] TERMS = { 1_000, 4_000, 16_000, 64_000 };
+
+	/**
+	 * Runs the benchmark, printing the time taken by each matcher at each length.
+	 *
+	 * @param args command-line arguments, unused.
+	 */
+	public static void main(final String[] args) {
+		BenchmarkUtils.runWithLargeStack(VirtualMachineBenchmark::run);
+	}
+
+	/**
+	 * Times each grammar.
+	 */
+	private static void run() {
+		System.out.println("Left-recursive sums, e.g. \"1+2+3\"");
+		run(new DefinedExpression(), "+2");
+		System.out.println("Right-recursive sums with nested terms, e.g. \"1+(2-3)\"");
+		run(new DefinedNestedExpression(), "+(2-3)");
+	}
+
+	/**
+	 * Times each matcher at each length on inputs made by repeating a term.
+	 *
+	 * @param pattern the pattern to match
+	 * @param term    the term to repeat after the initial "1"
+	 */
+	private static void run(final Pattern pattern, final String term) {
+		final VirtualMachine vm = new VirtualMachine(PatternCompiler.compile(pattern));
+		BenchmarkUtils.printRow("terms", "match (ms)", "recognize (ms)", "vm (ms)");
+
+		for (final int terms : TERMS) {
+			final String input = "1" + term.repeat(terms - 1);
+
+			final double matchTime = BenchmarkUtils.time(() -> pattern.lazyMatch(new InputContext(input)).getEndIdx());
+			final double recognizeTime = BenchmarkUtils.time(() -> pattern.lazyRecognize(new InputContext(input)));
+			final double vmTime = BenchmarkUtils.time(() -> vm.run(input, 0));
+
+			BenchmarkUtils.printRow(terms, matchTime, recognizeTime, vmTime);
+		}
+	}
+
+}
@@ -0,0 +1,84 @@
+package edu.ncsu.csc499.peg_lr.event;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * A ParseEventSink that keeps every event it receives in a list, so that the
+ * full history of a match can be filtered and printed afterwards.
+ */
+public class EventHistory implements ParseEventSink {
+
+	/**
+	 * List of all "events" that have happened in the context (matching,
+	 * backtracking, etc.)
+	 */
+	private final List<ParseEvent> history = new ArrayList<>();
+
+	/**
+	 * Adds the given entry to the end of the history list.
+	 *
+	 * @param event the entry to add to the end of the history.
+	 */
+	@Override
+	public void accept(final ParseEvent event) {
+		history.add(event);
+	}
+
+	/**
+	 * Returns a filtered list of the history, allowing a user to construct a string
+	 * with exactly the entries desired in the format they desire.
+	 * 
+	 * @param classFilter the class used for filtering. Will accept sub-classes,
+	 *                    too.
+	 * @return a filtered list of all ParseEvents that match the class given (or
+	 *         subclasses)
+	 */
+	public List<ParseEvent> getEvents(final Class<? extends ParseEvent> classFilter) {
+
+		if (classFilter == null) {
+			throw new NullPointerException("Cannot filter by a null filter!");
+		}
+
+		return history.stream().filter((final ParseEvent p) -> classFilter.isAssignableFrom(p.getClass()))
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Creates a String of the form "%4d:\t%s\n" for each entry in history, where
+	 * the number is a continuous incrementing counter, and the string is
+	 * historyEntry.toString(). Only includes entries that are valid objects or
+	 * sub-objects of the given filter class.
+	 * 
+	 * @param classFilter only history events that are inherited from this class
+	 *                    will be printed
+	 * @return a String containing all matching history entries
+	 */
+	public String print(final Class<? extends ParseEvent> classFilter) {
+		// Set up string builder for history
+		final StringBuilder historyString = new StringBuilder();
+
+		// Track which step of history we're on
+		int historyIdx = 0;
+
+		// Loop over all matching history events, from earliest to latest
+		for (final ParseEvent historyEntry : getEvents(classFilter)) {
+			// Append a new line with formatted columns for step and full event details
+			historyString.append(String.format("%4d:\t%s\n", historyIdx++, historyEntry.toString()));
+		}
+
+		// Return resulting string
+		return historyString.toString();
+	}
+
+	/**
+	 * Returns the number of events recorded so far.
+	 *
+	 * @return the size of the history
+	 */
+	public int size() {
+		return history.size();
+	}
+
+}
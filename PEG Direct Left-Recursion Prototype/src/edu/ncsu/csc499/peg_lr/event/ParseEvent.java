@@ -18,8 +18,11 @@ public abstract class ParseEvent {
 
 	// TODO: New feature - timestamps for profiling?
 
-	/** The portion of the input string that this Event occurs over. */
-	private final String affected;
+	/**
+	 * The context this Event occurred in. The affected part of the input string is
+	 * only read from it once it is asked for.
+	 */
+	private final InputContext context;
 
 	/** The start index of the substring that this Event occurs over. */
 	private final int startIdx;
@@ -27,7 +30,10 @@ public abstract class ParseEvent {
 	/** The end index of the substring that this Event occurs over. */
 	private final int endIdx;
 
-	/** The extra details of this ParseEvent. If null, won't be printed. */
+	/**
+	 * The extra details of this ParseEvent, if provided up front. If null, they are
+	 * described by the subclass on demand, and won't be printed if still null.
+	 */
 	private final String detail;
 
 	// Constants
@@ -43,9 +49,10 @@ public abstract class ParseEvent {
 
 	/**
 	 * Constructs this ParseEvent with the given range and detail. If detail is
-	 * null, will skip printing it.
+	 * null, it will be requested from {@link #describe()} when needed, and skipped
+	 * when printing if that is null too.
 	 * 
-	 * @param context  the InputContext used for parsing. Is used here to calculate
+	 * @param context  the InputContext used for parsing. Is used later to calculate
 	 *                 the substring of the input text that's affected
 	 * @param startIdx the first index of the input string that this Event occurs
 	 *                 over
@@ -57,7 +64,7 @@ public abstract class ParseEvent {
 		this.startIdx = startIdx;
 		this.endIdx = startIdx + length;
 		this.detail = detail;
-		this.affected = context.getInputString(true).substring(startIdx, startIdx + length);
+		this.context = context;
 	}
 
 	/**
@@ -156,7 +163,12 @@ public abstract class ParseEvent {
 	 * @return the component of the input string that this Event is applicable to
 	 */
 	public final String getAffectedPart() {
-		return affected;
+		final CharSequence input = context.getInput();
+		// The range can only pass the end of the string by the epsilon at its end
+		if ((endIdx == startIdx) || context.hasCharAt(endIdx - 1)) {
+			return input.subSequence(startIdx, endIdx).toString();
+		}
+		return input.subSequence(startIdx, endIdx - 1) + InputContext.CHAR_EPSILON;
 	}
 
 	/**
@@ -166,7 +178,19 @@ public abstract class ParseEvent {
 	 * @return a String indicating the full details of this ParseEvent.
 	 */
 	public final String getDetail() {
-		return detail;
+		return (detail != null) ? detail : describe();
+	}
+
+	/**
+	 * Describes the specific circumstances of this ParseEvent from whatever it
+	 * recorded when it occurred. Called only when the details are displayed, so
+	 * events stay cheap to record.
+	 *
+	 * @return a String with the full details of this ParseEvent, or null if there
+	 *         are none
+	 */
+	protected String describe() {
+		return null;
 	}
 
 	/**
@@ -0,0 +1,44 @@
+package edu.ncsu.csc499.peg_lr.event;
+
+/**
+ * Receives the ParseEvents that an InputContext reports while Patterns are
+ * matched over it.
+ *
+ * Reporting is guarded by {@link #isEnabled()}: when a sink is disabled, no
+ * events are constructed at all, so a parse that nobody is watching pays only
+ * for a single boolean check at each step.
+ */
+public interface ParseEventSink {
+
+	/** A sink that records nothing. Used by default for every InputContext. */
+	ParseEventSink NONE = new ParseEventSink() {
+
+		@Override
+		public void accept(final ParseEvent event) {
+			// Discard the event
+		}
+
+		@Override
+		public boolean isEnabled() {
+			return false;
+		}
+	};
+
+	/**
+	 * Receives a single event, in the order it occurred during matching.
+	 *
+	 * @param event the event that occurred
+	 */
+	void accept(ParseEvent event);
+
+	/**
+	 * Determines whether this sink wants events at all. If false, callers skip
+	 * constructing events for it.
+	 *
+	 * @return true if events should be reported to this sink, else false
+	 */
+	default boolean isEnabled() {
+		return true;
+	}
+
+}
@@ -55,6 +55,12 @@ public class GrowingEvent extends ControlEvent {
 	/** Which sub-type this event falls under. */
 	private final GrowingEventType type;
 
+	/** The left-recursive pattern being grown. */
+	private final Pattern pattern;
+
+	/** The grow iteration this event occurred on, or the total for TERMINATE. */
+	private final int iteration;
+
 	/**
 	 * Creates a GrowingEvent based on the provided context, type, pattern, and
 	 * index.
@@ -69,11 +75,22 @@ public class GrowingEvent extends ControlEvent {
 	 */
 	public GrowingEvent(final InputContext context, final GrowingEventType type, final Pattern pattern, final int index,
 			final int iteration) {
-		super(context, index, 0,
-				"for " + pattern.toString()
-						+ (type == GrowingEventType.TERMINATE ? " (total # valid grow iterations: " + iteration + ")"
-								: " (iteration #" + iteration + ")"));
+		super(context, index, 0, null);
 		this.type = type;
+		this.pattern = pattern;
+		this.iteration = iteration;
+	}
+
+	/**
+	 * Describes the pattern being grown and how far growing has progressed.
+	 *
+	 * @return the pattern and iteration of this grow step
+	 */
+	@Override
+	protected String describe() {
+		return "for " + pattern.toString()
+				+ (type == GrowingEventType.TERMINATE ? " (total # valid grow iterations: " + iteration + ")"
+						: " (iteration #" + iteration + ")");
 	}
 
 	/**
@@ -52,6 +52,18 @@ public class MemoryEvent extends ControlEvent {
 	/** Which sub-type this event falls under. */
 	private final MemoryEventType type;
 
+	/** The pattern that this memory event is using. */
+	private final Pattern pattern;
+
+	/** The Result saved in memory (may be null). */
+	private final Result result;
+
+	/**
+	 * The type of the Result when this event occurred. Saved seeds are renamed by
+	 * the pattern that assumes them, so the type can't be read back later.
+	 */
+	private final String resultType;
+
 	/**
 	 * Creates a MemoryEvent to be logged for checking, saving, or assuming a match
 	 * in memory. Should be called *before* making any position changes as part of
@@ -80,9 +92,29 @@ public class MemoryEvent extends ControlEvent {
 	 */
 	public MemoryEvent(final InputContext context, final MemoryEventType type, final Pattern pattern,
 			final Result result, final int index) {
-		super(context, index, (result == null ? 0 : result.getData().length()),
-				"grow(idx: " + index + ", pat:" + pattern.getType() + ") = " + result);
+		super(context, index, (result == null ? 0 : result.getEndIdx() - result.getStartIdx()), null);
 		this.type = type;
+		this.pattern = pattern;
+		this.result = result;
+		this.resultType = (result == null) ? null : result.getType();
+	}
+
+	/**
+	 * Describes the growing map entry that was used.
+	 *
+	 * @return the index, pattern type, and Result of the entry
+	 */
+	@Override
+	protected String describe() {
+		final String saved;
+		// Show the Result as it was at the time, like Result.toString() would have
+		if (result == null) {
+			saved = "null";
+		} else {
+			saved = "Result [success=" + result.isSuccess() + ", data=" + result.getData() + ", type=" + resultType
+					+ ", startIdx=" + result.getStartIdx() + ", endIdx=" + result.getEndIdx() + "]";
+		}
+		return "grow(idx: " + getStartIdx() + ", pat:" + pattern.getType() + ") = " + saved;
 	}
 
 	/**
@@ -49,10 +49,20 @@ public class PositionEvent extends ControlEvent {
 	private final PositionEventType type;
 
 	public PositionEvent(final InputContext context, final PositionEventType type) {
-		super(context, context.getPosition(), 1, "position to index " + context.getPosition());
+		super(context, context.getPosition(), 1, null);
 		this.type = type;
 	}
 
+	/**
+	 * Describes the position that the context moved to.
+	 *
+	 * @return the new position
+	 */
+	@Override
+	protected String describe() {
+		return "position to index " + getStartIdx();
+	}
+
 	/**
 	 * Returns this position event's PositionEventType.
 	 * 
@@ -19,7 +19,17 @@ public class CharacterAcceptEvent extends PatternEvent {
 	 * @param idx     the index of the accepted character in the input string
 	 */
 	public CharacterAcceptEvent(final InputContext context, final int idx) {
-		super(context, idx, 1, "character '" + context.getInputString().charAt(idx) + "'");
+		super(context, idx, 1, null);
+	}
+
+	/**
+	 * Describes the character that was accepted.
+	 *
+	 * @return the accepted character
+	 */
+	@Override
+	protected String describe() {
+		return "character '" + getAffectedPart() + "'";
 	}
 
 	/**
@@ -59,6 +59,12 @@ public class MetaMatchEvent extends PatternEvent {
 	 */
 	private final MetaMatchEventType type;
 
+	/** The pattern being matched. */
+	private final Pattern pattern;
+
+	/** The Result that was acquired, or null if there isn't one yet. */
+	private final Result result;
+
 	/**
 	 * Constructs a general MetaMatchEvent with the provided pattern, index, and
 	 * type.
@@ -70,8 +76,10 @@ public class MetaMatchEvent extends PatternEvent {
 	 */
 	public MetaMatchEvent(final InputContext context, final Pattern pattern, final int index,
 			final MetaMatchEventType type) {
-		super(context, index, 0, "for " + pattern.toString());
+		super(context, index, 0, null);
 		this.type = type;
+		this.pattern = pattern;
+		this.result = null;
 	}
 
 	/**
@@ -84,12 +92,25 @@ public class MetaMatchEvent extends PatternEvent {
 	 */
 	public MetaMatchEvent(final InputContext context, final Pattern pattern, final Result result,
 			final MetaMatchEventType type) {
-		super(context, result.getStartIdx(), result.getData().length(),
-				(type == MetaMatchEventType.ASSUME_RESULT
-						? "that pattern " + pattern.getType()
-								+ (result.isSuccess() ? " matches \"" + result.getData() + "\"" : " does not match")
-						: "for " + pattern.toString()));
+		super(context, result.getStartIdx(), result.getEndIdx() - result.getStartIdx(), null);
 		this.type = type;
+		this.pattern = pattern;
+		this.result = result;
+	}
+
+	/**
+	 * Describes the pattern being matched, or the saved Result that was assumed.
+	 *
+	 * @return the pattern, or the outcome of the assumed Result
+	 */
+	@Override
+	protected String describe() {
+		// Assumed results show what they matched
+		if ((type == MetaMatchEventType.ASSUME_RESULT) && (result != null)) {
+			return "that pattern " + pattern.getType()
+					+ (result.isSuccess() ? " matches \"" + result.getData() + "\"" : " does not match");
+		}
+		return "for " + pattern.toString();
 	}
 
 	/**
@@ -9,6 +9,12 @@ public class OrderedChoiceEvent extends PatternEvent {
 	/** PatternEventType indicating whether this was an accept or reject event. */
 	private final PatternEventType type;
 
+	/** The numbered ordered choice being attempted. */
+	private final int choiceIdx;
+
+	/** The pattern of the ordered choice being attempted. */
+	private final Pattern pattern;
+
 	/**
 	 * Constructs all necessary data for this Event from the match Result. Used for
 	 * constructing ATTEMPT OrderedChoiceEvents. The index of attempting is assumed
@@ -19,8 +25,10 @@ public class OrderedChoiceEvent extends PatternEvent {
 	 *                  choice, third choice, etc. (0-indexed)
 	 */
 	public OrderedChoiceEvent(final InputContext context, final int choiceIdx, final Pattern pattern) {
-		super(context, context.getPosition(), 0, "ordered choice option " + choiceIdx + ": " + pattern.toString());
+		super(context, context.getPosition(), 0, null);
 		this.type = PatternEventType.ATTEMPT;
+		this.choiceIdx = choiceIdx;
+		this.pattern = pattern;
 	}
 
 	/**
@@ -35,9 +43,20 @@ public class OrderedChoiceEvent extends PatternEvent {
 	 */
 	public OrderedChoiceEvent(final InputContext context, final int choiceIdx, final Pattern pattern,
 			final Result matchResult) {
-		super(context, matchResult.getStartIdx(), matchResult.getData().length(),
-				"ordered choice option " + choiceIdx + ": " + pattern.toString());
+		super(context, matchResult.getStartIdx(), matchResult.getEndIdx() - matchResult.getStartIdx(), null);
 		this.type = matchResult.isSuccess() ? PatternEventType.COMMIT : PatternEventType.REJECT;
+		this.choiceIdx = choiceIdx;
+		this.pattern = pattern;
+	}
+
+	/**
+	 * Describes which ordered choice option this event occurred for.
+	 *
+	 * @return the option number and pattern
+	 */
+	@Override
+	protected String describe() {
+		return "ordered choice option " + choiceIdx + ": " + pattern.toString();
 	}
 
 	/**
@@ -9,6 +9,12 @@ public class PatternMatchEvent extends PatternEvent {
 	/** PatternEventType indicating whether this was an accept or reject event. */
 	private final PatternEventType type;
 
+	/** The pattern that this Event occurs for. */
+	private final Pattern pattern;
+
+	/** The Result of the match, or null for an ATTEMPT. */
+	private final Result matchResult;
+
 	/**
 	 * Constructs all necessary data for this Event from the match Result. Used for
 	 * constructing
@@ -18,9 +24,10 @@ public class PatternMatchEvent extends PatternEvent {
 	 * @param type
 	 */
 	public PatternMatchEvent(final InputContext context, final Result matchResult, final Pattern pattern) {
-		super(context, matchResult.getStartIdx(), matchResult.getData().length(), pattern.getClass().getSimpleName()
-				+ (matchResult.isSuccess() ? " matches \"" + matchResult.getData() + "\"" : " does not match"));
+		super(context, matchResult.getStartIdx(), matchResult.getEndIdx() - matchResult.getStartIdx(), null);
 		this.type = matchResult.isSuccess() ? PatternEventType.ACCEPT : PatternEventType.REJECT;
+		this.pattern = pattern;
+		this.matchResult = matchResult;
 	}
 
 	/**
@@ -31,8 +38,25 @@ public class PatternMatchEvent extends PatternEvent {
 	 * @param pattern the pattern that this Event occurs for
 	 */
 	public PatternMatchEvent(final InputContext context, final int idx, final Pattern pattern) {
-		super(context, idx, 0, pattern.toString());
+		super(context, idx, 0, null);
 		type = PatternEventType.ATTEMPT;
+		this.pattern = pattern;
+		this.matchResult = null;
+	}
+
+	/**
+	 * Describes the pattern attempted, or whether and what it matched.
+	 *
+	 * @return the pattern definition for an ATTEMPT, else the outcome of the match
+	 */
+	@Override
+	protected String describe() {
+		// Attempts show the whole pattern
+		if (matchResult == null) {
+			return pattern.toString();
+		}
+		return pattern.getClass().getSimpleName()
+				+ (matchResult.isSuccess() ? " matches \"" + matchResult.getData() + "\"" : " does not match");
 	}
 
 	/**
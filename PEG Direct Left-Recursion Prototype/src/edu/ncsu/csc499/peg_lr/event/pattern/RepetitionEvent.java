@@ -19,6 +19,12 @@ public class RepetitionEvent extends PatternEvent {
 	 */
 	private final PatternEventType type;
 
+	/** The pattern being repeated. */
+	private final Pattern pattern;
+
+	/** The number of this repetition. */
+	private final int repetitionNum;
+
 	/**
 	 * Constructs a general RepetitionEvent for attempting a pattern repetition at a
 	 * given index. The index is assumed to be the context's current position.
@@ -30,8 +36,10 @@ public class RepetitionEvent extends PatternEvent {
 	 *                      repetition, etc.
 	 */
 	public RepetitionEvent(final InputContext context, final Pattern pattern, final int repetitionNum) {
-		super(context, context.getPosition(), 0, "repetition #" + repetitionNum + " of pattern " + pattern.toString());
+		super(context, context.getPosition(), 0, null);
 		this.type = PatternEventType.ATTEMPT;
+		this.pattern = pattern;
+		this.repetitionNum = repetitionNum;
 	}
 
 	/**
@@ -46,9 +54,21 @@ public class RepetitionEvent extends PatternEvent {
 	 */
 	public RepetitionEvent(final InputContext context, final Pattern pattern, final int repetitionNum,
 			final Result result, final PatternEventType type) {
-		super(context, result.getStartIdx(), result.getData().length(), (type == PatternEventType.LIMIT ? "at " : "")
-				+ "repetition #" + repetitionNum + " of pattern " + pattern.toString());
+		super(context, result.getStartIdx(), result.getEndIdx() - result.getStartIdx(), null);
 		this.type = type;
+		this.pattern = pattern;
+		this.repetitionNum = repetitionNum;
+	}
+
+	/**
+	 * Describes which repetition of which pattern this event occurred for.
+	 *
+	 * @return the repetition number and pattern
+	 */
+	@Override
+	protected String describe() {
+		return (type == PatternEventType.LIMIT ? "at " : "") + "repetition #" + repetitionNum + " of pattern "
+				+ pattern.toString();
 	}
 
 	/**
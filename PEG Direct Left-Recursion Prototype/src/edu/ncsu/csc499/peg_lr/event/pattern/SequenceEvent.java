@@ -9,6 +9,12 @@ public class SequenceEvent extends PatternEvent {
 	/** PatternEventType indicating whether this was an accept or reject event. */
 	private final PatternEventType type;
 
+	/** The numbered sequence component being attempted. */
+	private final int sequenceIdx;
+
+	/** The pattern of the sequence component being attempted. */
+	private final Pattern pattern;
+
 	/**
 	 * Constructs all necessary data for this Event from the match Result. Used for
 	 * constructing ATTEMPT SequenceEvents. The index of attempting is assumed to be
@@ -19,8 +25,10 @@ public class SequenceEvent extends PatternEvent {
 	 *                    first component, third component, etc. (0-indexed)
 	 */
 	public SequenceEvent(final InputContext context, final int sequenceIdx, final Pattern pattern) {
-		super(context, context.getPosition(), 0, "sequence step " + sequenceIdx + ": " + pattern.toString());
+		super(context, context.getPosition(), 0, null);
 		this.type = PatternEventType.ATTEMPT;
+		this.sequenceIdx = sequenceIdx;
+		this.pattern = pattern;
 	}
 
 	/**
@@ -34,9 +42,20 @@ public class SequenceEvent extends PatternEvent {
 	 */
 	public SequenceEvent(final InputContext context, final int sequenceIdx, final Pattern pattern,
 			final Result matchResult) {
-		super(context, matchResult.getStartIdx(), matchResult.getData().length(),
-				"sequence step " + sequenceIdx + ": " + pattern.toString());
+		super(context, matchResult.getStartIdx(), matchResult.getEndIdx() - matchResult.getStartIdx(), null);
 		this.type = matchResult.isSuccess() ? PatternEventType.ACCEPT : PatternEventType.REJECT;
+		this.sequenceIdx = sequenceIdx;
+		this.pattern = pattern;
+	}
+
+	/**
+	 * Describes which sequence step this event occurred for.
+	 *
+	 * @return the step number and pattern
+	 */
+	@Override
+	protected String describe() {
+		return "sequence step " + sequenceIdx + ": " + pattern.toString();
 	}
 
 	/**
@@ -0,0 +1,122 @@
+package edu.ncsu.csc499.peg_lr.pattern;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import edu.ncsu.csc499.peg_lr.structure.InputContext;
+import edu.ncsu.csc499.peg_lr.structure.Result;
+
+/**
+ * Parses many inputs with one grammar at once, each on its own task. The
+ * grammar is frozen when the BatchParser is constructed, after which nothing
+ * about it changes while matching, so every task can share it; all of the
+ * state of a single parse lives in the task's own InputContext.
+ *
+ * Any ExecutorService can run the tasks. A ForkJoinPool with one thread per
+ * core suits short inputs; matching recurses once per level of nesting in the
+ * input, so deeply nested inputs need threads with large stacks.
+ */
+public final class BatchParser {
+
+	/** The Pattern matched against each input. */
+	private final Pattern root;
+
+	/** Runs the task for each input. */
+	private final ExecutorService executor;
+
+	/** Configures each input's context before it's matched. */
+	private final Consumer<InputContext> setup;
+
+	/**
+	 * Constructs a BatchParser that parses on the common ForkJoinPool with
+	 * default InputContexts.
+	 *
+	 * @param root the Pattern to match against each input
+	 */
+	public BatchParser(final Pattern root) {
+		this(root, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Constructs a BatchParser that parses on the given executor with default
+	 * InputContexts.
+	 *
+	 * @param root     the Pattern to match against each input
+	 * @param executor the executor to run each parse on
+	 */
+	public BatchParser(final Pattern root, final ExecutorService executor) {
+		this(root, executor, context -> {
+			// Defaults are fine
+		});
+	}
+
+	/**
+	 * Constructs a BatchParser, freezing the grammar reachable from the root.
+	 *
+	 * @param root     the Pattern to match against each input
+	 * @param executor the executor to run each parse on
+	 * @param setup    configures each input's context before it's matched, e.g.
+	 *                 to enable packrat memoization. Called on the task's thread.
+	 */
+	public BatchParser(final Pattern root, final ExecutorService executor, final Consumer<InputContext> setup) {
+		if ((root == null) || (executor == null) || (setup == null)) {
+			throw new IllegalArgumentException("A BatchParser needs a pattern, an executor, and a setup.");
+		}
+		this.root = root;
+		this.executor = executor;
+		this.setup = setup;
+		root.freeze();
+	}
+
+	/**
+	 * Matches the root against every input concurrently.
+	 *
+	 * @param inputs the inputs to match
+	 * @return the Result for each input, in the same order
+	 */
+	public List<Result> matchAll(final List<String> inputs) {
+		return runAll(inputs, root::lazyMatch);
+	}
+
+	/**
+	 * Recognizes the root in every input concurrently, without building Results.
+	 *
+	 * @param inputs the inputs to recognize
+	 * @return the end position for each input, or NO_MATCH, in the same order
+	 */
+	public int[] recognizeAll(final List<String> inputs) {
+		return runAll(inputs, root::lazyRecognize).stream().mapToInt(Integer::intValue).toArray();
+	}
+
+	/**
+	 * Runs a parse of each input on the executor, waiting for all of them.
+	 *
+	 * @param <T>    the type each parse produces
+	 * @param inputs the inputs to parse
+	 * @param parse  parses a single input from its context
+	 * @return what each parse produced, in the same order as the inputs
+	 * @throws IllegalStateException if waiting is interrupted
+	 */
+	private <T> List<T> runAll(final List<String> inputs, final Function<InputContext, T> parse) {
+		final List<Future<T>> futures = new ArrayList<>(inputs.size());
+		for (final String input : inputs) {
+			futures.add(executor.submit(() -> {
+				final InputContext context = new InputContext(input);
+				setup.accept(context);
+				return parse.apply(context);
+			}));
+		}
+
+		final List<T> results = new ArrayList<>(inputs.size());
+		for (int i = 0; i < futures.size(); i++) {
+			results.add(ParserUtils.await(futures, i));
+		}
+		return results;
+	}
+
+}
@@ -0,0 +1,318 @@
+package edu.ncsu.csc499.peg_lr.pattern;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import edu.ncsu.csc499.peg_lr.pattern.component.charclass.PatternCharClass;
+import edu.ncsu.csc499.peg_lr.pattern.component.operator.PatternRepetition;
+import edu.ncsu.csc499.peg_lr.pattern.definition.DefinedPattern;
+import edu.ncsu.csc499.peg_lr.structure.InputContext;
+import edu.ncsu.csc499.peg_lr.structure.Result;
+
+/**
+ * Matches a grammar whose root is an unbounded repetition of records, such as
+ * a document made of lines, by splitting one long input into chunks and
+ * matching the records of each chunk concurrently.
+ *
+ * The input is cut into roughly equal chunks, each moved forward to the next
+ * place a record looks like it could begin: a character in the record's FIRST
+ * set that doesn't follow another. Each chunk then matches records from there
+ * on its own InputContext, until it reaches the start of the next chunk or a
+ * record fails. A guessed start may well be in the middle of a record, so the
+ * chunks are checked in order against where the records before them really
+ * ended: a chunk's records are only kept from the first one that starts
+ * exactly where the previous chunk left off. Records until then are matched
+ * again on the calling thread, until they line up with a record the chunk
+ * found or run past the chunk. A record always matches the same way at the
+ * same position, so the records kept are the ones lazyMatch() would have
+ * found, and are stitched into the same tree.
+ *
+ * Anything else is matched with lazyMatch() on the calling thread: inputs too
+ * short to be worth splitting, traced contexts, and roots that fail, so that
+ * their failed Results are the usual ones.
+ */
+public final class ChunkedParser {
+
+	/** The fewest characters worth matching as a chunk of their own. */
+	private static final int MIN_CHUNK = 1024;
+
+	/** The Pattern being matched. */
+	private final Pattern root;
+
+	/**
+	 * The DefinedPatterns wrapping the repetition, outermost first. Empty if the
+	 * root is the repetition itself.
+	 */
+	private final List<DefinedPattern> definitions;
+
+	/** The repetition of records. */
+	private final PatternRepetition repetition;
+
+	/** The record being repeated. */
+	private final Pattern record;
+
+	/** Runs the task for each chunk. */
+	private final ExecutorService executor;
+
+	/** Number of chunks to split an input into. */
+	private final int chunks;
+
+	/**
+	 * Constructs a ChunkedParser that splits inputs into a few chunks for each
+	 * thread of the common ForkJoinPool.
+	 *
+	 * @param root the Pattern to match, which must be an unbounded repetition
+	 */
+	public ChunkedParser(final Pattern root) {
+		this(root, ForkJoinPool.commonPool(), 4 * ForkJoinPool.getCommonPoolParallelism());
+	}
+
+	/**
+	 * Constructs a ChunkedParser, freezing the grammar reachable from the root.
+	 *
+	 * @param root     the Pattern to match. Must be an unbounded repetition, or
+	 *                 DefinedPatterns defined as one.
+	 * @param executor the executor to match chunks on
+	 * @param chunks   the most chunks to split an input into
+	 * @throws IllegalArgumentException if any argument is null, chunks isn't
+	 *                                  positive, or the root isn't an unbounded
+	 *                                  repetition
+	 */
+	public ChunkedParser(final Pattern root, final ExecutorService executor, final int chunks) {
+		if ((root == null) || (executor == null)) {
+			throw new IllegalArgumentException("A ChunkedParser needs a pattern and an executor.");
+		}
+		if (chunks < 1) {
+			throw new IllegalArgumentException("A ChunkedParser needs at least one chunk.");
+		}
+
+		final List<DefinedPattern> wrappers = new ArrayList<>();
+		this.repetition = ParserUtils.repetitionOf(root, wrappers, "ChunkedParser");
+		this.root = root;
+		this.definitions = List.copyOf(wrappers);
+		this.record = repetition.getPattern();
+		this.executor = executor;
+		this.chunks = chunks;
+		root.freeze();
+	}
+
+	/**
+	 * Matches the root at the context's position, producing the same Result as
+	 * lazyMatch() and leaving the context at the same position. A context that
+	 * doesn't hold its whole input as characters, or a repetition of a character
+	 * class, is matched without chunks.
+	 *
+	 * @param context the context to match in. Its packrat and left recursion
+	 *                settings are copied to the context of each chunk.
+	 * @return the Result of matching the root
+	 * @throws IllegalStateException if waiting for the chunks is interrupted
+	 */
+	public Result match(final InputContext context) {
+		final int start = context.getPosition();
+		// Chunks are matched on copies of the whole input, so anything else is
+		// matched in one go
+		if (!context.isCharInput()) {
+			return root.lazyMatch(context);
+		}
+		// A run of a character class is scanned as one span, with no records to
+		// stitch together
+		final int count = Math.min(chunks, (context.length() - start) / MIN_CHUNK);
+		if ((count < 2) || context.isTracing() || (record instanceof PatternCharClass)) {
+			return root.lazyMatch(context);
+		}
+
+		// Guess where each chunk's records begin, merging chunks with no guess
+		final CharSequence input = context.getInput();
+		final FirstSet first = record.getFirstSet();
+		final List<Integer> splits = new ArrayList<>(count + 1);
+		splits.add(start);
+		for (int i = 1; i < count; i++) {
+			final int split = guessSplit(input, first, start + (int) (((long) (input.length() - start) * i) / count),
+					splits.get(splits.size() - 1));
+			if (split != -1) {
+				splits.add(split);
+			}
+		}
+		splits.add(input.length());
+
+		// Match the records of each chunk concurrently
+		final List<Future<Chunk>> futures = new ArrayList<>(splits.size() - 1);
+		for (int i = 0; (i + 1) < splits.size(); i++) {
+			final int from = splits.get(i);
+			final int until = splits.get(i + 1);
+			futures.add(executor.submit(() -> matchChunk(context, from, until)));
+		}
+
+		// Keep each chunk's records from where the ones before it really ended
+		final Result repeated = new Result(start);
+		int matches = 0;
+		int position = start;
+		boolean failed = false;
+		for (int i = 0; !failed && (i < futures.size()); i++) {
+			final Chunk chunk = ParserUtils.await(futures, i);
+			while (true) {
+				final int aligned = chunk.indexOf(position);
+				// Lined up, so the rest of the chunk is right
+				if (aligned != -1) {
+					for (int r = aligned; r < chunk.records.size(); r++) {
+						repeated.addChild(chunk.records.get(r));
+						matches++;
+					}
+					position = repeated.getEndIdx();
+					failed = !chunk.reachedEnd;
+					break;
+				}
+				// Past the chunk without lining up with any of it
+				if (position >= chunk.until) {
+					break;
+				}
+				// Match the next record here instead
+				context.setPosition(position);
+				final Result result = record.lazyMatch(context);
+				if (!result.isSuccess()) {
+					failed = true;
+					break;
+				}
+				repeated.addChild(result);
+				matches++;
+				position = result.getEndIdx();
+			}
+		}
+		futures.forEach(future -> future.cancel(true));
+
+		// Failures are left to lazyMatch(), to build its failed Result
+		if (matches < repetition.getLowerBound()) {
+			context.setPosition(start);
+			return root.lazyMatch(context);
+		}
+		context.setPosition(position);
+
+		// Wrap the repetition the way each Pattern's match would
+		Result result = name(repeated, repetition);
+		for (int i = definitions.size() - 1; i >= 0; i--) {
+			result = name(new Result(start).addChild(result), definitions.get(i));
+		}
+		return result;
+	}
+
+	/**
+	 * Guesses where a record begins at or after a position, preferring a
+	 * character in the record's FIRST set that doesn't follow another.
+	 *
+	 * @param input    the whole input
+	 * @param first    the record's FIRST set
+	 * @param from     the position to start looking at
+	 * @param previous the start of the chunk before, which the guess must be after
+	 * @return the guessed start, or -1 if there's none before the end of the input
+	 */
+	private static int guessSplit(final CharSequence input, final FirstSet first, final int from, final int previous) {
+		int fallback = -1;
+		for (int p = Math.max(from, previous + 1); p < input.length(); p++) {
+			if (first.contains(input.charAt(p))) {
+				if (!first.contains(input.charAt(p - 1))) {
+					return p;
+				}
+				if (fallback == -1) {
+					fallback = p;
+				}
+			}
+			// Don't wander far past where the chunk was meant to begin
+			if ((fallback != -1) && ((p - from) >= MIN_CHUNK)) {
+				break;
+			}
+		}
+		return fallback;
+	}
+
+	/**
+	 * Matches records from the start of a chunk, on a context of its own.
+	 *
+	 * @param settings the context whose settings to copy
+	 * @param from     the guessed start of the chunk's first record
+	 * @param until    the start of the next chunk
+	 * @return the records matched
+	 */
+	private Chunk matchChunk(final InputContext settings, final int from, final int until) {
+		final InputContext context = new InputContext(settings.getInput());
+		context.setPackrat(settings.isPackrat());
+		context.setRetainingGrowth(settings.isRetainingGrowth());
+		context.setLeftRecursionStrategy(settings.getLeftRecursionStrategy());
+		context.setPosition(from);
+
+		final Chunk chunk = new Chunk(until);
+		while (context.getPosition() < until) {
+			final Result result = record.lazyMatch(context);
+			if (!result.isSuccess()) {
+				return chunk;
+			}
+			chunk.records.add(result);
+		}
+		chunk.reachedEnd = true;
+		return chunk;
+	}
+
+	/**
+	 * Gives a Result the type and alias of the Pattern that matched it.
+	 *
+	 * @param result  the Result
+	 * @param pattern the Pattern that matched it
+	 * @return the Result
+	 */
+	private static Result name(final Result result, final Pattern pattern) {
+		result.setType(pattern.getType());
+		result.setAlias(pattern.isAlias());
+		return result;
+	}
+
+	/**
+	 * The records matched in one chunk, starting from a guess.
+	 */
+	private static final class Chunk {
+
+		/** The start of the next chunk, where this one stopped. */
+		private final int until;
+
+		/** The records matched, in order. */
+		private final List<Result> records = new ArrayList<>();
+
+		/** Whether the records reached the next chunk, rather than one failing. */
+		private boolean reachedEnd;
+
+		/**
+		 * Constructs an empty Chunk.
+		 *
+		 * @param until the start of the next chunk
+		 */
+		private Chunk(final int until) {
+			this.until = until;
+		}
+
+		/**
+		 * Finds the record starting at a position.
+		 *
+		 * @param position the position
+		 * @return the index of the record, or -1 if none starts there
+		 */
+		private int indexOf(final int position) {
+			int low = 0;
+			int high = records.size() - 1;
+			while (low <= high) {
+				final int mid = (low + high) >>> 1;
+				final int recordStart = records.get(mid).getStartIdx();
+				if (recordStart < position) {
+					low = mid + 1;
+				} else if (recordStart > position) {
+					high = mid - 1;
+				} else {
+					return mid;
+				}
+			}
+			return -1;
+		}
+
+	}
+
+}
@@ -0,0 +1,171 @@
+package edu.ncsu.csc499.peg_lr.pattern;
+
+import java.util.BitSet;
+
+/**
+ * The characters that a Pattern's match may begin with: the FIRST set of the
+ * Pattern, as calculated by {@link Grammar}. Only characters a match consumes
+ * are counted, so a predicate's FIRST set is empty, and whether a Pattern can
+ * match without consuming anything is left to its nullability. A Pattern whose
+ * first character can't be worked out, such as one defined outside this
+ * package, may begin with any character.
+ *
+ * FirstSets are immutable, and combined with union() as the grammar is
+ * analyzed.
+ */
+public final class FirstSet {
+
+	/** No characters at all. */
+	public static final FirstSet EMPTY = new FirstSet(new BitSet(), false);
+
+	/** Every character. */
+	public static final FirstSet ANY = new FirstSet(new BitSet(), true);
+
+	/**
+	 * Every character that a code point Character.isDigit() accepts begins with:
+	 * the digit itself, or the high surrogate of one outside the Basic
+	 * Multilingual Plane.
+	 */
+	public static final FirstSet DIGITS;
+	static {
+		final BitSet digits = new BitSet();
+		for (int c = 0; c <= Character.MAX_CODE_POINT; c++) {
+			if (Character.isDigit(c)) {
+				digits.set(Character.isBmpCodePoint(c) ? c : Character.highSurrogate(c));
+			}
+		}
+		DIGITS = new FirstSet(digits, false);
+	}
+
+	/** The characters in the set, unless it holds every character. */
+	private final BitSet chars;
+
+	/** Whether the set holds every character. */
+	private final boolean any;
+
+	/**
+	 * Constructs a FirstSet. The BitSet must not be changed afterwards.
+	 *
+	 * @param chars the characters in the set
+	 * @param any   whether the set holds every character
+	 */
+	private FirstSet(final BitSet chars, final boolean any) {
+		this.chars = chars;
+		this.any = any;
+	}
+
+	/**
+	 * Creates a FirstSet holding a single character.
+	 *
+	 * @param c the character
+	 * @return the FirstSet
+	 */
+	public static FirstSet of(final char c) {
+		final BitSet chars = new BitSet(c + 1);
+		chars.set(c);
+		return new FirstSet(chars, false);
+	}
+
+	/**
+	 * Creates a FirstSet holding the characters that code points in some ranges
+	 * begin with: those in the Basic Multilingual Plane themselves, and the rest
+	 * their high surrogates.
+	 *
+	 * @param ranges the first and last code point of each range, in pairs
+	 * @return the FirstSet
+	 */
+	public static FirstSet ofCodePoints(final int[] ranges) {
+		final BitSet chars = new BitSet();
+		for (int i = 0; i < ranges.length; i += 2) {
+			final int first = ranges[i];
+			final int last = ranges[i + 1];
+			if (first <= Character.MAX_VALUE) {
+				chars.set(first, Math.min(last, Character.MAX_VALUE) + 1);
+			}
+			if (last > Character.MAX_VALUE) {
+				final int from = Math.max(first, Character.MIN_SUPPLEMENTARY_CODE_POINT);
+				chars.set(Character.highSurrogate(from), Character.highSurrogate(last) + 1);
+			}
+		}
+		return new FirstSet(chars, false);
+	}
+
+	/**
+	 * Combines this FirstSet with another.
+	 *
+	 * @param other the FirstSet to add
+	 * @return a FirstSet holding the characters of both, which is this one if it
+	 *         already holds all of the other's
+	 */
+	public FirstSet union(final FirstSet other) {
+		if (any || other.isEmpty()) {
+			return this;
+		} else if (other.any) {
+			return other;
+		}
+		final BitSet combined = (BitSet) chars.clone();
+		combined.or(other.chars);
+		return combined.equals(chars) ? this : new FirstSet(combined, false);
+	}
+
+	/**
+	 * Determines whether a match may begin with a character.
+	 *
+	 * @param c the character
+	 * @return true if the character is in the set, else false
+	 */
+	public boolean contains(final char c) {
+		return any || chars.get(c);
+	}
+
+	/**
+	 * @return true if the set holds every character, else false
+	 */
+	public boolean isAny() {
+		return any;
+	}
+
+	/**
+	 * @return true if the set holds no characters, else false
+	 */
+	public boolean isEmpty() {
+		return !any && chars.isEmpty();
+	}
+
+	/**
+	 * Two FirstSets are equal if they hold the same characters.
+	 */
+	@Override
+	public boolean equals(final Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof FirstSet)) {
+			return false;
+		}
+		final FirstSet other = (FirstSet) obj;
+		return (any == other.any) && (any || chars.equals(other.chars));
+	}
+
+	/**
+	 * Hashes the characters held.
+	 */
+	@Override
+	public int hashCode() {
+		return any ? 1 : chars.hashCode();
+	}
+
+	/**
+	 * Lists the characters held, e.g. [+-0123456789], or [any].
+	 */
+	@Override
+	public String toString() {
+		if (any) {
+			return "[any]";
+		}
+		final StringBuilder builder = new StringBuilder("[");
+		chars.stream().forEach(c -> builder.append((char) c));
+		return builder.append("]").toString();
+	}
+
+}
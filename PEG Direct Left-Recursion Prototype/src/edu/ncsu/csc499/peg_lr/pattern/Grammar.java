@@ -0,0 +1,417 @@
+package edu.ncsu.csc499.peg_lr.pattern;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import edu.ncsu.csc499.peg_lr.pattern.component.operator.PatternChoice;
+import edu.ncsu.csc499.peg_lr.pattern.component.operator.PatternSequence;
+import edu.ncsu.csc499.peg_lr.pattern.definition.DefinedPattern;
+
+/**
+ * Analyzes every Pattern reachable from a root Pattern as a single grammar,
+ * calculating whether each is nullable, which characters it may begin with,
+ * which components may be its leftmost match, and whether it is
+ * left-recursive.
+ *
+ * Nullability is found as a fixpoint: every Pattern starts as non-nullable, and
+ * each is re-evaluated from its components until nothing changes, so cycles in
+ * the grammar never cause infinite recursion. FIRST sets are found the same
+ * way, starting from every Pattern beginning with nothing. Left recursion is
+ * then found from the strongly connected components of the graph of leftmost
+ * components: a Pattern is left-recursive exactly when it is in a cycle of that
+ * graph.
+ *
+ * Patterns that were already frozen are not re-analyzed. Nothing they can reach
+ * can reach an unfrozen Pattern, so their saved properties still hold.
+ *
+ * Rule indices are numbered from 0 within each grammar. Newly frozen Patterns
+ * take the smallest indices that the frozen Patterns they reach don't already
+ * use, so a grammar built on an earlier one stays dense too. A frozen Pattern's
+ * index never changes, since engines and contexts keep it, so two grammars
+ * frozen separately can only be joined if none of their indices clash. Freeze
+ * the joined grammar before matching its parts instead.
+ */
+public final class Grammar {
+
+	/** Every Pattern reachable from the root, in the order they were found. */
+	private final List<Pattern> patterns;
+
+	/** Index of each Pattern in the patterns List. */
+	private final Map<Pattern, Integer> indices;
+
+	/** Properties calculated for each Pattern, by index. */
+	private final PatternProperties[] properties;
+
+	/**
+	 * Constructs a Grammar by analyzing every Pattern reachable from the root.
+	 *
+	 * @param root the Pattern to begin from
+	 */
+	private Grammar(final Pattern root) {
+		patterns = new ArrayList<>();
+		indices = new IdentityHashMap<>();
+		collect(root);
+		properties = new PatternProperties[patterns.size()];
+		analyze();
+	}
+
+	/**
+	 * Analyzes every Pattern reachable from the root without freezing them.
+	 *
+	 * @param root the Pattern to begin from
+	 * @return the analyzed Grammar
+	 */
+	public static Grammar analyze(final Pattern root) {
+		return new Grammar(root);
+	}
+
+	/**
+	 * Analyzes every Pattern reachable from the root and freezes them with the
+	 * calculated properties, assigning each newly frozen Pattern a rule index.
+	 * Only one grammar is frozen at a time, so threads racing to freeze the same
+	 * Patterns agree on their properties.
+	 *
+	 * @param root the Pattern to begin from
+	 * @return the analyzed Grammar
+	 * @throws IllegalStateException if the root reaches two frozen Patterns with
+	 *                               the same rule index, from grammars that were
+	 *                               frozen separately
+	 */
+	public static synchronized Grammar freeze(final Pattern root) {
+		final Grammar grammar = new Grammar(root);
+		final Map<Integer, Pattern> taken = grammar.takeFrozenRuleIndices();
+		int next = 0;
+		for (int i = 0; i < grammar.patterns.size(); i++) {
+			final Pattern p = grammar.patterns.get(i);
+			// Keep the properties of anything that was already frozen
+			if (!p.isFrozen()) {
+				while (taken.containsKey(next)) {
+					next++;
+				}
+				grammar.properties[i] = grammar.properties[i].withRuleIndex(next++);
+				p.setProperties(grammar.properties[i]);
+			}
+		}
+		return grammar;
+	}
+
+	/**
+	 * Finds the rule indices used by every frozen Pattern this Grammar reaches,
+	 * including the ones only they reach.
+	 *
+	 * @return the Pattern holding each taken rule index
+	 * @throws IllegalStateException if two of them have the same rule index
+	 */
+	private Map<Integer, Pattern> takeFrozenRuleIndices() {
+		final Map<Integer, Pattern> taken = new HashMap<>();
+		final Map<Pattern, Boolean> visited = new IdentityHashMap<>();
+		final Deque<Pattern> toVisit = new ArrayDeque<>();
+		for (final Pattern p : patterns) {
+			if (p.isFrozen()) {
+				toVisit.push(p);
+			}
+		}
+		while (!toVisit.isEmpty()) {
+			final Pattern p = toVisit.pop();
+			if (visited.put(p, Boolean.TRUE) != null) {
+				continue;
+			}
+			// Frozen separately from the holder, and renumbering it would break whatever
+			// has kept its index
+			final Pattern holder = taken.putIfAbsent(p.getProperties().getRuleIndex(), p);
+			if (holder != null) {
+				throw new IllegalStateException("Cannot join grammars frozen separately: " + holder.getType() + " and "
+						+ p.getType() + " both have rule index " + p.getProperties().getRuleIndex() + ".");
+			}
+			// A frozen Pattern's components are all frozen too
+			p.getPatternComponents().forEach(toVisit::push);
+		}
+		return taken;
+	}
+
+	/**
+	 * Retrieves every Pattern in this Grammar, starting with the root.
+	 *
+	 * @return an unmodifiable List of the reachable Patterns
+	 */
+	public List<Pattern> getPatterns() {
+		return Collections.unmodifiableList(patterns);
+	}
+
+	/**
+	 * Retrieves the properties calculated for a Pattern in this Grammar.
+	 *
+	 * @param pattern the Pattern to look up
+	 * @return the Pattern's properties
+	 * @throws IllegalArgumentException if the Pattern isn't in this Grammar
+	 */
+	public PatternProperties propertiesOf(final Pattern pattern) {
+		final Integer idx = indices.get(pattern);
+		if (idx == null) {
+			throw new IllegalArgumentException("Pattern is not part of this grammar.");
+		}
+		return properties[idx];
+	}
+
+	/**
+	 * Finds every Pattern reachable from the root, without descending into ones
+	 * that are already frozen.
+	 *
+	 * @param root the Pattern to begin from
+	 */
+	private void collect(final Pattern root) {
+		final Deque<Pattern> toVisit = new ArrayDeque<>();
+		add(root, toVisit);
+		while (!toVisit.isEmpty()) {
+			final Pattern p = toVisit.pop();
+			// A frozen Pattern's components are all frozen too
+			if (p.isFrozen()) {
+				continue;
+			}
+			for (final Pattern component : p.getPatternComponents()) {
+				add(component, toVisit);
+			}
+		}
+	}
+
+	/**
+	 * Adds a Pattern to this Grammar if it isn't already in it.
+	 *
+	 * @param p       the Pattern to add
+	 * @param toVisit the Patterns whose components still need to be found
+	 */
+	private void add(final Pattern p, final Deque<Pattern> toVisit) {
+		if (!indices.containsKey(p)) {
+			indices.put(p, patterns.size());
+			patterns.add(p);
+			toVisit.push(p);
+		}
+	}
+
+	/**
+	 * Calculates the properties of every unfrozen Pattern in this Grammar.
+	 */
+	private void analyze() {
+		final int n = patterns.size();
+
+		// Nullability, as a fixpoint starting from nothing being nullable
+		final boolean[] nullable = new boolean[n];
+		for (int i = 0; i < n; i++) {
+			final Pattern p = patterns.get(i);
+			if (p.isFrozen()) {
+				nullable[i] = p.getProperties().isNullable();
+			}
+		}
+		final Predicate<Pattern> isNullable = (final Pattern p) -> nullable[indices.get(p)];
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			for (int i = 0; i < n; i++) {
+				// Once nullable, always nullable
+				if (!nullable[i] && !patterns.get(i).isFrozen() && patterns.get(i).computeNullable(isNullable)) {
+					nullable[i] = true;
+					changed = true;
+				}
+			}
+		}
+
+		// FIRST sets, as a fixpoint starting from every Pattern beginning with nothing
+		final FirstSet[] first = new FirstSet[n];
+		for (int i = 0; i < n; i++) {
+			final Pattern p = patterns.get(i);
+			first[i] = p.isFrozen() ? p.getProperties().getFirstSet() : FirstSet.EMPTY;
+		}
+		final Function<Pattern, FirstSet> firstOf = (final Pattern p) -> first[indices.get(p)];
+		changed = true;
+		while (changed) {
+			changed = false;
+			for (int i = 0; i < n; i++) {
+				if (patterns.get(i).isFrozen()) {
+					continue;
+				}
+				// Sets only ever grow
+				final FirstSet grown = first[i].union(patterns.get(i).computeFirstSet(firstOf, isNullable));
+				if (grown != first[i]) {
+					first[i] = grown;
+					changed = true;
+				}
+			}
+		}
+
+		// Leftmost components, now that nullability is settled. Frozen Patterns keep
+		// their own, and can't lead back into this grammar's cycles.
+		final List<List<Pattern>> leftmost = new ArrayList<>(n);
+		for (int i = 0; i < n; i++) {
+			final Pattern p = patterns.get(i);
+			leftmost.add(p.isFrozen() ? List.of() : p.computeLeftmostComponents(isNullable));
+		}
+
+		// Left recursion, from the cycles of the leftmost component graph
+		final boolean[] leftRecursive = findCycles(leftmost);
+
+		// Save everything
+		for (int i = 0; i < n; i++) {
+			final Pattern p = patterns.get(i);
+			properties[i] = p.isFrozen() ? p.getProperties()
+					: new PatternProperties(nullable[i], leftRecursive[i], p.isHidden(), leftmost.get(i), first[i], -1,
+							leftRecursive[i] ? planGrowing(p, leftmost) : null);
+		}
+	}
+
+	/**
+	 * Makes a GrowingPlan for a left-recursive Pattern, if it is defined as a
+	 * choice whose left-recursive alternatives all come first and each begin with
+	 * a direct call to the Pattern.
+	 *
+	 * @param rule     the left-recursive Pattern
+	 * @param leftmost the leftmost components of each Pattern, by index
+	 * @return the plan, or null if the Pattern has to be grown from its whole
+	 *         definition
+	 */
+	private GrowingPlan planGrowing(final Pattern rule, final List<List<Pattern>> leftmost) {
+		if (rule.isHidden() || !(rule instanceof DefinedPattern)
+				|| !(((DefinedPattern) rule).getPattern() instanceof PatternChoice)) {
+			return null;
+		}
+		final PatternChoice choice = (PatternChoice) ((DefinedPattern) rule).getPattern();
+
+		final List<PatternSequence> alternatives = new ArrayList<>();
+		boolean otherSeen = false;
+		for (final Pattern alternative : choice.getPatternComponents()) {
+			final List<Pattern> elements = alternative.getPatternComponents();
+			if ((alternative instanceof PatternSequence) && (elements.size() > 1) && (elements.get(0) == rule)) {
+				// Growing alternatives must all come before the others
+				if (otherSeen) {
+					return null;
+				}
+				alternatives.add((PatternSequence) alternative);
+			} else if (reachesLeftmost(alternative, rule, leftmost)) {
+				// Left-recursive some other way
+				return null;
+			} else {
+				otherSeen = true;
+			}
+		}
+		return alternatives.isEmpty() ? null : new GrowingPlan(choice, alternatives);
+	}
+
+	/**
+	 * Determines whether a Pattern can begin with another, by following leftmost
+	 * components.
+	 *
+	 * @param from     the Pattern to begin from
+	 * @param target   the Pattern to look for
+	 * @param leftmost the leftmost components of each Pattern, by index
+	 * @return true if the target can be reached, else false
+	 */
+	private boolean reachesLeftmost(final Pattern from, final Pattern target, final List<List<Pattern>> leftmost) {
+		final boolean[] visited = new boolean[patterns.size()];
+		final Deque<Pattern> toVisit = new ArrayDeque<>();
+		toVisit.push(from);
+		while (!toVisit.isEmpty()) {
+			final Pattern p = toVisit.pop();
+			if (p == target) {
+				return true;
+			}
+			final int idx = indices.get(p);
+			if (!visited[idx]) {
+				visited[idx] = true;
+				leftmost.get(idx).forEach(toVisit::push);
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Finds which Patterns lie on a cycle of the graph where each Pattern points to
+	 * its leftmost components, using Tarjan's strongly connected components
+	 * algorithm. The search is iterative, so deep grammars can't overflow the
+	 * stack.
+	 *
+	 * @param leftmost the leftmost components of each Pattern, by index
+	 * @return whether each Pattern, by index, is on a cycle
+	 */
+	private boolean[] findCycles(final List<List<Pattern>> leftmost) {
+		final int n = patterns.size();
+		final boolean[] onCycle = new boolean[n];
+
+		// Order in which each Pattern was first reached, or -1 if not yet
+		final int[] order = new int[n];
+		Arrays.fill(order, -1);
+		// Earliest Pattern reachable from each Pattern that's still on the stack
+		final int[] low = new int[n];
+		// Which edge of each Pattern to follow next
+		final int[] nextEdge = new int[n];
+		final boolean[] onStack = new boolean[n];
+		final Deque<Integer> stack = new ArrayDeque<>();
+		final Deque<Integer> path = new ArrayDeque<>();
+		int counter = 0;
+
+		for (int start = 0; start < n; start++) {
+			if (order[start] != -1) {
+				continue;
+			}
+			path.push(start);
+			while (!path.isEmpty()) {
+				final int v = path.peek();
+				// First time here: number it and put it on the stack
+				if (order[v] == -1) {
+					order[v] = counter;
+					low[v] = counter;
+					counter++;
+					stack.push(v);
+					onStack[v] = true;
+				}
+
+				final List<Pattern> edges = leftmost.get(v);
+				if (nextEdge[v] < edges.size()) {
+					// Follow the next edge
+					final int w = indices.get(edges.get(nextEdge[v]++));
+					if (w == v) {
+						// A Pattern that begins with itself is its own cycle
+						onCycle[v] = true;
+					} else if (order[w] == -1) {
+						path.push(w);
+					} else if (onStack[w]) {
+						low[v] = Math.min(low[v], order[w]);
+					}
+				} else {
+					// All edges followed. If v is the root of a component, pop it off.
+					path.pop();
+					if (low[v] == order[v]) {
+						int w;
+						final List<Integer> component = new ArrayList<>();
+						do {
+							w = stack.pop();
+							onStack[w] = false;
+							component.add(w);
+						} while (w != v);
+						// Any component with more than one Pattern is a cycle
+						if (component.size() > 1) {
+							for (final int member : component) {
+								onCycle[member] = true;
+							}
+						}
+					}
+					// Pass the lowest reachable Pattern back to the parent
+					if (!path.isEmpty()) {
+						final int parent = path.peek();
+						low[parent] = Math.min(low[parent], low[v]);
+					}
+				}
+			}
+		}
+
+		return onCycle;
+	}
+
+}
@@ -0,0 +1,199 @@
+package edu.ncsu.csc499.peg_lr.pattern;
+
+import java.util.List;
+
+import edu.ncsu.csc499.peg_lr.pattern.component.operator.PatternChoice;
+import edu.ncsu.csc499.peg_lr.pattern.component.operator.PatternSequence;
+import edu.ncsu.csc499.peg_lr.structure.InputContext;
+import edu.ncsu.csc499.peg_lr.structure.LeftRecursionStrategy;
+import edu.ncsu.csc499.peg_lr.structure.Result;
+
+/**
+ * Describes how to grow a left-recursive rule without re-running its whole
+ * definition, as sketched in doc/left_recursion_algorithm.md.
+ *
+ * A plan is only made for a rule defined as a choice whose left-recursive
+ * alternatives all come first, and each begins with a direct call to the rule
+ * itself, e.g. expr <- expr "+" num / expr "-" num / num. The remaining
+ * alternatives can't reach the rule without consuming input, so they match the
+ * same way in every growing attempt as they did for the seed: one of them is
+ * where the seed came from, and can never match farther than it. A growing
+ * attempt therefore only needs to continue each left-recursive alternative
+ * from the end of the seed, in order, and fails if none of them match.
+ *
+ * The Result of a growing attempt is built the same way as if the whole
+ * definition had been matched, so the tree doesn't change. Under the DIRECT
+ * LeftRecursionStrategy, a call to the rule that ends an alternative only
+ * matches its seed, which is what makes Tratt's right recursion linear.
+ */
+final class GrowingPlan {
+
+	/** The choice defining the rule. */
+	private final PatternChoice choice;
+
+	/** The left-recursive alternatives, each beginning with the rule. */
+	private final List<PatternSequence> alternatives;
+
+	/** The elements of each alternative after the rule, by index. */
+	private final Pattern[][] continuations;
+
+	/** Whether each alternative also ends with the rule, by index. */
+	private final boolean[] rightRecursive;
+
+	/**
+	 * Constructs a GrowingPlan.
+	 *
+	 * @param choice       the choice defining the rule
+	 * @param alternatives the left-recursive alternatives, in order
+	 */
+	GrowingPlan(final PatternChoice choice, final List<PatternSequence> alternatives) {
+		this.choice = choice;
+		this.alternatives = List.copyOf(alternatives);
+		continuations = new Pattern[alternatives.size()][];
+		rightRecursive = new boolean[alternatives.size()];
+		for (int i = 0; i < continuations.length; i++) {
+			final List<Pattern> elements = alternatives.get(i).getPatternComponents();
+			continuations[i] = elements.subList(1, elements.size()).toArray(new Pattern[0]);
+			rightRecursive[i] = elements.get(elements.size() - 1) == elements.get(0);
+		}
+	}
+
+	/**
+	 * @return the left-recursive alternatives, each beginning with the rule
+	 */
+	List<PatternSequence> getAlternatives() {
+		return alternatives;
+	}
+
+	/**
+	 * Retrieves the elements of an alternative that follow the call to the rule.
+	 *
+	 * @param alternative the index of the alternative
+	 * @return the elements after the rule, which must not be modified
+	 */
+	Pattern[] getContinuation(final int alternative) {
+		return continuations[alternative];
+	}
+
+	/**
+	 * Determines whether an element of an alternative should only match the
+	 * rule's seed: under the DIRECT LeftRecursionStrategy, a call to the rule at
+	 * the end of an alternative doesn't grow.
+	 *
+	 * @param context     the input context
+	 * @param alternative the index of the alternative
+	 * @param element     the index of the element in the alternative's
+	 *                    continuation
+	 * @return true if the element is a right-recursive call to only match the
+	 *         seed of, else false
+	 */
+	boolean isSeedOnly(final InputContext context, final int alternative, final int element) {
+		return rightRecursive[alternative] && (element == continuations[alternative].length - 1)
+				&& (context.getLeftRecursionStrategy() == LeftRecursionStrategy.DIRECT);
+	}
+
+	/**
+	 * Attempts to grow the rule once, continuing each left-recursive alternative
+	 * from the end of its seed.
+	 *
+	 * @param rule            the rule being grown
+	 * @param context         the input context, with the rule's seed saved at the
+	 *                        initial position
+	 * @param initialPosition the position that the rule is being grown at
+	 * @return the Result of the rule's definition matching with the first
+	 *         alternative that continues, or a failed Result if none do
+	 */
+	Result grow(final Pattern rule, final InputContext context, final int initialPosition) {
+		final Result seed = context.resultFor(rule, initialPosition);
+
+		for (int a = 0; a < continuations.length; a++) {
+			// Matching the rule again would just return the seed
+			context.setPosition(seed.getEndIdx());
+			final Result sequence = new Result(initialPosition).addChild(seed);
+
+			// Match the rest of the alternative
+			boolean matched = true;
+			for (int i = 0; i < continuations[a].length; i++) {
+				final Pattern p = continuations[a][i];
+				final Result element = isSeedOnly(context, a, i) ? p.lazyMatchSeed(context) : p.lazyMatch(context);
+				matched = element.isSuccess();
+				if (!matched) {
+					break;
+				}
+				sequence.addChild(element);
+			}
+
+			if (matched) {
+				return wrap(rule, alternatives.get(a), sequence);
+			}
+		}
+
+		// Nothing continued the seed
+		context.setPosition(initialPosition);
+		return Result.FAIL(initialPosition);
+	}
+
+	/**
+	 * Attempts to grow the rule once, the same way as grow(), but only tracking
+	 * end positions.
+	 *
+	 * @param rule            the rule being grown
+	 * @param context         the input context, with the rule's seed end saved at
+	 *                        the initial position
+	 * @param initialPosition the position that the rule is being grown at
+	 * @return the end of the first alternative that continues, or
+	 *         Pattern.NO_MATCH if none do
+	 */
+	int growEnd(final Pattern rule, final InputContext context, final int initialPosition) {
+		final int seed = context.endFor(rule, initialPosition);
+
+		for (int a = 0; a < continuations.length; a++) {
+			final Pattern[] continuation = continuations[a];
+			context.setPosition(seed);
+			int end = seed;
+
+			// Recognize the rest of the alternative
+			for (int i = 0; (end != Pattern.NO_MATCH) && (i < continuation.length); i++) {
+				end = isSeedOnly(context, a, i) ? continuation[i].lazyRecognizeSeed(context)
+						: continuation[i].lazyRecognize(context);
+			}
+
+			if (end != Pattern.NO_MATCH) {
+				return end;
+			}
+		}
+
+		// Nothing continued the seed
+		context.setPosition(initialPosition);
+		return Pattern.NO_MATCH;
+	}
+
+	/**
+	 * Wraps the Result of a continued alternative the same way that matching the
+	 * rule's definition would have: in the choice's Result, then the rule's.
+	 *
+	 * @param rule        the rule being grown
+	 * @param alternative the alternative that matched
+	 * @param sequence    the alternative's Result, from the seed onwards
+	 * @return the Result for the rule
+	 */
+	Result wrap(final Pattern rule, final PatternSequence alternative, final Result sequence) {
+		name(sequence, alternative);
+		final Result chosen = name(new Result(sequence.getStartIdx()).addChild(sequence), choice);
+		return name(new Result(sequence.getStartIdx()).addChild(chosen), rule);
+	}
+
+	/**
+	 * Copies a Pattern's type and alias to a Result, as matching it would.
+	 *
+	 * @param r the Result to name
+	 * @param p the Pattern that matched it
+	 * @return the named Result
+	 */
+	private static Result name(final Result r, final Pattern p) {
+		r.setType(p.getType());
+		r.setAlias(p.isAlias());
+		return r;
+	}
+
+}
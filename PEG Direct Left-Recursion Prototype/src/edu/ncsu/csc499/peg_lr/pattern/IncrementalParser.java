@@ -0,0 +1,162 @@
+package edu.ncsu.csc499.peg_lr.pattern;
+
+import java.util.BitSet;
+
+import edu.ncsu.csc499.peg_lr.structure.EditLog;
+import edu.ncsu.csc499.peg_lr.structure.InputContext;
+import edu.ncsu.csc499.peg_lr.structure.Result;
+
+/**
+ * Parses a document that changes a little at a time, such as an editor
+ * buffer, re-matching only around each edit.
+ *
+ * Every parse memoizes each Result it matches, including those of
+ * left-recursive rules once they've finished growing, and each Result records
+ * how far matching looked to build it. When part of the document is replaced,
+ * a Result that looked only before the edit is kept where it is, and one that
+ * looked only after it is moved by the difference in length. Matching the
+ * root again then reuses them, so only the Results that looked at the edit
+ * are matched again: those that contain it, including left-recursive growth
+ * across it.
+ *
+ * The document is one buffer edited in place, and nothing is moved when it's
+ * edited. Results are memoized by where their text was first put into the
+ * document, so those after an edit are found again without rehashing, and
+ * each one catches up on the edits since it was saved only when it's next
+ * used. An edit therefore costs the same however much text follows it.
+ *
+ * Each edit invalidates the trees parsed before it. A Result handed out
+ * earlier whose match the edit changed throws IllegalStateException when it's
+ * next read, rather than report text it no longer matches, and the rest move
+ * with their text, as the Results reused from them do.
+ */
+public final class IncrementalParser {
+
+	/** The Pattern matched against the document. */
+	private final Pattern root;
+
+	/** The indices of the grammar's left-recursive rules. */
+	private final BitSet leftRecursive = new BitSet();
+
+	/** The document, edited in place. */
+	private final StringBuilder document;
+
+	/** The edits made to the document, through which Results are memoized. */
+	private final EditLog edits;
+
+	/** The context of the last parse, holding its memoized Results. */
+	private InputContext context;
+
+	/** The Result of the last parse. */
+	private Result result;
+
+	/**
+	 * Constructs an IncrementalParser, freezing the grammar reachable from the
+	 * root, and parses the document.
+	 *
+	 * @param root  the Pattern to match against the document
+	 * @param input the document
+	 * @throws IllegalArgumentException if root or input is null
+	 */
+	public IncrementalParser(final Pattern root, final String input) {
+		if ((root == null) || (input == null)) {
+			throw new IllegalArgumentException("An IncrementalParser needs a pattern and a document.");
+		}
+		this.root = root;
+		root.freeze();
+		for (final Pattern p : Grammar.analyze(root).getPatterns()) {
+			if (p.isLeftRecursive()) {
+				leftRecursive.set(p.getRuleIndex());
+			}
+		}
+		this.document = new StringBuilder(input);
+		this.edits = new EditLog(document);
+		this.context = newContext(document);
+		context.trackEdits(edits, leftRecursive);
+		this.result = root.lazyMatch(context);
+	}
+
+	/**
+	 * Constructs a context that memoizes every Result it can.
+	 *
+	 * @param text the document to match
+	 * @return the context
+	 */
+	private static InputContext newContext(final CharSequence text) {
+		final InputContext created = new InputContext(text);
+		created.setPackrat(true);
+		created.setRetainingGrowth(true);
+		return created;
+	}
+
+	/**
+	 * Replaces part of the document and parses it again, re-matching only the
+	 * Results that looked at the replaced part.
+	 *
+	 * @param start       the first position to replace
+	 * @param end         the position after the last one to replace
+	 * @param replacement the text to put in their place
+	 * @return the Result of matching the root against the edited document. Every
+	 *         Result returned before is invalidated: those whose match the edit
+	 *         changed throw IllegalStateException when read, and the rest move
+	 *         with their text.
+	 * @throws IndexOutOfBoundsException if the positions aren't within the
+	 *                                   document, or end is before start
+	 * @throws IllegalArgumentException  if replacement is null
+	 */
+	public Result edit(final int start, final int end, final String replacement) {
+		if ((start < 0) || (end > document.length()) || (start > end)) {
+			throw new IndexOutOfBoundsException("Cannot replace from " + start + " to " + end + ".");
+		}
+		if (replacement == null) {
+			throw new IllegalArgumentException("An edit needs replacement text.");
+		}
+		document.replace(start, end, replacement);
+		edits.replace(start, end, replacement.length());
+		final InputContext next = newContext(document);
+		next.keepResults(context);
+
+		context = next;
+		result = root.lazyMatch(next);
+		return result;
+	}
+
+	/**
+	 * Retrieves the document as of the last edit.
+	 *
+	 * @return a copy of the document
+	 */
+	public String getInput() {
+		return document.toString();
+	}
+
+	/**
+	 * Retrieves the Result of matching the root against the document.
+	 *
+	 * @return the Result of the last parse
+	 */
+	public Result getResult() {
+		return result;
+	}
+
+	/**
+	 * Retrieves how many Results are memoized for the next edit to reuse.
+	 *
+	 * @return the number of memoized Results
+	 */
+	public int getMemoized() {
+		return context.getMemoized();
+	}
+
+	/**
+	 * Retrieves how many memoized Results from the parse before the last edit
+	 * were used again to parse after it. Those inside a reused Result aren't
+	 * counted, since it wasn't matched again.
+	 *
+	 * @return the number of Results kept, or 0 before the first edit
+	 */
+	public int getKept() {
+		return context.getReused();
+	}
+
+}
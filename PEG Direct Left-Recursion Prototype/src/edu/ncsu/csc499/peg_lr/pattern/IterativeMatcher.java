@@ -0,0 +1,626 @@
+package edu.ncsu.csc499.peg_lr.pattern;
+
+import java.util.Arrays;
+import java.util.List;
+
+import edu.ncsu.csc499.peg_lr.pattern.component.charclass.PatternCharClass;
+import edu.ncsu.csc499.peg_lr.pattern.component.operator.PatternChoice;
+import edu.ncsu.csc499.peg_lr.pattern.component.operator.PatternPredicate;
+import edu.ncsu.csc499.peg_lr.pattern.component.operator.PatternRepetition;
+import edu.ncsu.csc499.peg_lr.pattern.component.operator.PatternSequence;
+import edu.ncsu.csc499.peg_lr.pattern.definition.DefinedPattern;
+import edu.ncsu.csc499.peg_lr.structure.InputContext;
+import edu.ncsu.csc499.peg_lr.structure.LeftRecursionHead;
+import edu.ncsu.csc499.peg_lr.structure.Result;
+
+/**
+ * Matches a Pattern the same way as Pattern.lazyMatch(), building the same
+ * Result tree, but keeps its work on a stack of frames in the heap instead of
+ * recursing on the Java stack, so the nesting depth of the input is limited
+ * only by memory.
+ *
+ * Each frame is either a lazy frame, which follows lazyMatch() (skipping known
+ * failures, recording how far the match looks, packrat memoization, and
+ * left-recursive seed growing with heads and involved rules, using a
+ * GrowingPlan when there is one), or a body frame, which follows
+ * a Pattern's match() and names its Result. A frame that needs a sub-match
+ * pushes a lazy frame for it and waits in a stage that resumes with the
+ * sub-match's Result. Patterns with no sub-matches, and Pattern types that this
+ * matcher doesn't know, are matched with their own match() method.
+ *
+ * No match events are recorded, although characters and positions still are.
+ */
+public final class IterativeMatcher {
+
+	/** Lazy frame, about to decide how to match its Pattern. */
+	private static final int LAZY = 0;
+	/**
+	 * Lazy frame, waiting for a packrat match, or an involved rule's
+	 * re-evaluation, to save.
+	 */
+	private static final int MEMO_SAVE = 1;
+	/** Lazy frame, waiting for a left-recursive seed. */
+	private static final int SEED = 2;
+	/** Lazy frame, waiting for a growing attempt. */
+	private static final int GROW = 3;
+	/** Body frame, about to begin matching its Pattern. */
+	private static final int BODY = 4;
+	/** Body frame of a DefinedPattern, waiting for its definition. */
+	private static final int DEFINED = 5;
+	/** Body frame of a PatternSequence, waiting for an element. */
+	private static final int SEQUENCE = 6;
+	/** Body frame of a PatternChoice, waiting for an alternative. */
+	private static final int CHOICE = 7;
+	/** Body frame of a PatternRepetition, waiting for a repetition. */
+	private static final int REPETITION = 8;
+	/** Body frame of a PatternPredicate, waiting for its pattern. */
+	private static final int PREDICATE = 9;
+	/** Lazy frame, waiting for an element of a growing plan's alternative. */
+	private static final int GROWING = 10;
+
+	/** Initial number of frames. */
+	private static final int INITIAL_DEPTH = 64;
+
+	/**
+	 * A unit of pending work. Frames are reused as the stack shrinks and grows.
+	 */
+	private static final class Frame {
+		/** The Pattern being matched. */
+		Pattern pattern;
+		/** What this frame will do next. */
+		int stage;
+		/** The position that this frame began matching at. */
+		int initial;
+		/** The farthest end that a growing seed has reached. */
+		int farthest;
+		/** The next element, alternative, or repetition count. */
+		int index;
+		/** The next element of a growing plan's continuation. */
+		int element;
+		/** The Result being built up from sub-matches. */
+		Result result;
+		/** The elements or alternatives of a sequence or choice. */
+		List<Pattern> components;
+		/** The head of the recursion being grown. */
+		LeftRecursionHead head;
+		/** The head that was being grown at the same position before. */
+		LeftRecursionHead outerHead;
+		/** Whether a left-recursive Pattern only matches its seed, without growing. */
+		boolean seedOnly;
+		/** Whether this frame is recording how far its match looks. */
+		boolean reaching;
+		/** How far the enclosing match had looked, while recording. */
+		int outerReach;
+	}
+
+	/** The context being matched against. */
+	private final InputContext context;
+
+	/** The stack of frames, reused from the bottom up. */
+	private Frame[] frames = new Frame[INITIAL_DEPTH];
+
+	/** Number of frames in use. */
+	private int depth;
+
+	/**
+	 * Constructs an IterativeMatcher over the given context.
+	 *
+	 * @param context the context to match against
+	 */
+	private IterativeMatcher(final InputContext context) {
+		this.context = context;
+	}
+
+	/**
+	 * Matches a Pattern at the context's current position, as lazyMatch() would.
+	 *
+	 * @param root    the Pattern to match
+	 * @param context the input context storing the input string, position, and
+	 *                growing map
+	 * @return the Result of the match
+	 */
+	public static Result match(final Pattern root, final InputContext context) {
+		return new IterativeMatcher(context).run(root);
+	}
+
+	/**
+	 * Works through frames until the root's frame finishes.
+	 *
+	 * @param root the Pattern to match
+	 * @return the Result of the match
+	 */
+	private Result run(final Pattern root) {
+		push(root, LAZY);
+		Result returned = null;
+
+		while (depth > 0) {
+			final Frame f = frames[depth - 1];
+			final Result r;
+			switch (f.stage) {
+			case LAZY:
+				r = lazy(f);
+				break;
+			case MEMO_SAVE:
+				context.setResultFor(f.pattern, returned, f.initial);
+				r = returned;
+				break;
+			case SEED:
+				r = seed(f, returned);
+				break;
+			case GROW:
+				r = grow(f, returned);
+				break;
+			case GROWING:
+				r = growing(f, returned);
+				break;
+			case BODY:
+				r = body(f);
+				break;
+			case DEFINED:
+				r = defined(f, returned);
+				break;
+			case SEQUENCE:
+				r = sequence(f, returned);
+				break;
+			case CHOICE:
+				r = choice(f, returned);
+				break;
+			case REPETITION:
+				r = repetition(f, returned);
+				break;
+			case PREDICATE:
+				r = predicate(f, returned);
+				break;
+			default:
+				throw new IllegalStateException("Unknown stage " + f.stage);
+			}
+
+			// A frame that didn't push a sub-match is finished
+			if (r != null) {
+				if (f.reaching) {
+					context.endReach(f.outerReach, r);
+					f.reaching = false;
+				}
+				f.result = null;
+				f.components = null;
+				f.head = null;
+				f.outerHead = null;
+				depth--;
+				returned = r;
+			}
+		}
+		return returned;
+	}
+
+	/**
+	 * Decides how to match a frame's Pattern, following lazyMatch().
+	 *
+	 * @param f the lazy frame
+	 * @return the Result if already known, or null if a frame was pushed
+	 */
+	private Result lazy(final Frame f) {
+		final Pattern p = f.pattern;
+		p.freeze();
+		final PatternProperties properties = p.getProperties();
+
+		// Skip anything a pika parse found to fail at this position
+		if (context.isKnownFailure(p)) {
+			final Result fail = Result.FAIL(context.getPosition());
+			fail.setType(p.getType());
+			fail.setAlias(p.isAlias());
+			return fail;
+		}
+		if (properties.isHidden()) {
+			return body(f);
+		}
+
+		// Record how far this match looks, so an edit past it can keep its Result
+		f.outerReach = context.beginReach();
+		f.reaching = true;
+
+		// Patterns that aren't memoized are just matched and named
+		if (!properties.isLeftRecursive() && !context.isPackrat()) {
+			return body(f);
+		}
+
+		f.initial = context.getPosition();
+
+		// An involved rule is re-evaluated once in each attempt to grow its head
+		if (properties.isLeftRecursive()) {
+			final LeftRecursionHead head = context.headAt(f.initial);
+			if ((head != null) && head.takeEvaluation(p)) {
+				f.stage = MEMO_SAVE;
+				push(p, BODY);
+				return null;
+			}
+		}
+
+		final Result saved = context.resultFor(p);
+		if (saved != null) {
+			// A packrat memo or a seed being grown. Only move if it matched.
+			if (properties.isLeftRecursive()) {
+				context.involve(p, f.initial);
+			}
+			if (saved.isSuccess()) {
+				context.setPosition(saved.getEndIdx());
+			}
+			return saved;
+		}
+
+		if (properties.isLeftRecursive()) {
+			// Plant a failed seed before matching
+			context.setResultFor(p, Result.FAIL(f.initial));
+			context.beginGrowing(p, f.initial);
+			f.stage = SEED;
+		} else {
+			f.stage = MEMO_SAVE;
+		}
+		push(p, BODY);
+		return null;
+	}
+
+	/**
+	 * Saves a left-recursive seed, and starts growing it if it matched and the
+	 * Pattern is the head of a recursion.
+	 *
+	 * @param f    the lazy frame
+	 * @param seed the Result of the first match
+	 * @return the seed, or null if growing began
+	 */
+	private Result seed(final Frame f, final Result seed) {
+		final LeftRecursionHead head = context.endSeed();
+		if (f.seedOnly) {
+			// A right-recursive call, following lazyMatchSeed()
+			if (head != null) {
+				context.finishHead(head, f.initial);
+			}
+			context.discardSeed(f.pattern, f.initial);
+			return seed;
+		}
+		context.setResultFor(f.pattern, seed, f.initial);
+		if (head == null) {
+			// Never reached itself again, so there's nothing to grow
+			context.finishGrowing(f.pattern, f.initial);
+			return seed;
+		} else if (head.getRule() != f.pattern) {
+			// Involved in another rule's recursion, which will grow it
+			return seed;
+		} else if (!seed.isSuccess()) {
+			context.finishHead(head, f.initial);
+			context.finishGrowing(f.pattern, f.initial);
+			return seed;
+		}
+		f.head = head;
+		f.outerHead = context.setHead(f.initial, head);
+		f.farthest = seed.getEndIdx();
+		return nextAttempt(f);
+	}
+
+	/**
+	 * Keeps a growing attempt if it matched farther and tries again, or finishes
+	 * growing with the farthest match, following growLeftRecursion().
+	 *
+	 * @param f       the lazy frame
+	 * @param attempt the Result of the latest attempt
+	 * @return the grown Result, or null if another attempt was pushed
+	 */
+	private Result grow(final Frame f, final Result attempt) {
+		if (!attempt.isSuccess() || (context.getPosition() <= f.farthest)) {
+			context.setPosition(f.farthest);
+			context.setHead(f.initial, f.outerHead);
+			final Result grown = context.resultFor(f.pattern, f.initial);
+			context.finishHead(f.head, f.initial);
+			context.finishGrowing(f.pattern, f.initial);
+			return grown;
+		}
+		context.setResultFor(f.pattern, attempt, f.initial);
+		f.farthest = attempt.getEndIdx();
+		return nextAttempt(f);
+	}
+
+	/**
+	 * Starts the next growing attempt: matching the whole body again, or following
+	 * the Pattern's GrowingPlan if it has one and no other rules are involved.
+	 *
+	 * @param f the lazy frame
+	 * @return the grown Result if the plan has nothing to continue, or null if a
+	 *         frame was pushed
+	 */
+	private Result nextAttempt(final Frame f) {
+		final GrowingPlan plan = f.pattern.getProperties().getGrowingPlan();
+		f.head.beginAttempt();
+		if ((plan == null) || !f.head.getInvolved().isEmpty()) {
+			f.stage = GROW;
+			context.setPosition(f.initial);
+			push(f.pattern, BODY);
+			return null;
+		}
+		f.stage = GROWING;
+		f.index = 0;
+		return nextGrowingAlternative(f, plan);
+	}
+
+	/**
+	 * Starts continuing the next left-recursive alternative of a GrowingPlan from
+	 * the seed, following GrowingPlan.grow().
+	 *
+	 * @param f    the lazy frame
+	 * @param plan the Pattern's GrowingPlan
+	 * @return the grown Result if no alternatives are left, or null if a frame was
+	 *         pushed
+	 */
+	private Result nextGrowingAlternative(final Frame f, final GrowingPlan plan) {
+		if (f.index == plan.getAlternatives().size()) {
+			// Nothing continued the seed
+			context.setPosition(f.initial);
+			f.stage = GROW;
+			return grow(f, Result.FAIL(f.initial));
+		}
+		final Result seed = context.resultFor(f.pattern, f.initial);
+		context.setPosition(seed.getEndIdx());
+		f.result = new Result(f.initial).addChild(seed);
+		f.element = 0;
+		pushElement(plan, f.index, 0);
+		return null;
+	}
+
+	/**
+	 * Adds an element's Result to the alternative being continued, finishing the
+	 * growing attempt once the alternative matches.
+	 *
+	 * @param f       the lazy frame
+	 * @param element the Result of the latest element
+	 * @return the grown Result if growing finished, or null if a frame was pushed
+	 */
+	private Result growing(final Frame f, final Result element) {
+		final GrowingPlan plan = f.pattern.getProperties().getGrowingPlan();
+		final Pattern[] continuation = plan.getContinuation(f.index);
+
+		if (!element.isSuccess()) {
+			f.index++;
+			return nextGrowingAlternative(f, plan);
+		}
+		f.result.addChild(element);
+		f.element++;
+		if (f.element < continuation.length) {
+			pushElement(plan, f.index, f.element);
+			return null;
+		}
+
+		// The alternative matched: this attempt is done
+		f.stage = GROW;
+		return grow(f, plan.wrap(f.pattern, plan.getAlternatives().get(f.index), f.result));
+	}
+
+	/**
+	 * Pushes a lazy frame for an element of a growing plan's alternative, which
+	 * only matches the seed if it is a right-recursive call under the DIRECT
+	 * strategy.
+	 *
+	 * @param plan        the GrowingPlan being followed
+	 * @param alternative the index of the alternative
+	 * @param element     the index of the element in its continuation
+	 */
+	private void pushElement(final GrowingPlan plan, final int alternative, final int element) {
+		push(plan.getContinuation(alternative)[element], LAZY);
+		frames[depth - 1].seedOnly = plan.isSeedOnly(context, alternative, element);
+	}
+
+	/**
+	 * Begins matching a frame's Pattern, following its match() method.
+	 *
+	 * @param f the frame
+	 * @return the named Result if it needed no sub-matches, or null if a frame was
+	 *         pushed
+	 */
+	private Result body(final Frame f) {
+		final Pattern p = f.pattern;
+		f.initial = context.getPosition();
+
+		if (p instanceof DefinedPattern) {
+			f.result = new Result(f.initial);
+			f.stage = DEFINED;
+			push(((DefinedPattern) p).getPattern(), LAZY);
+			return null;
+		} else if (p instanceof PatternSequence) {
+			f.result = new Result(f.initial);
+			f.components = p.getPatternComponents();
+			f.index = 0;
+			f.stage = SEQUENCE;
+			return nextElement(f);
+		} else if (p instanceof PatternChoice) {
+			f.result = new Result(f.initial);
+			f.components = p.getPatternComponents();
+			f.index = 0;
+			f.stage = CHOICE;
+			return nextAlternative(f);
+		} else if ((p instanceof PatternRepetition)
+				&& !(((PatternRepetition) p).getPattern() instanceof PatternCharClass)) {
+			f.result = new Result(f.initial);
+			f.index = 0;
+			f.stage = REPETITION;
+			return nextRepetition(f);
+		} else if (p instanceof PatternPredicate) {
+			f.result = new Result(f.initial);
+			f.stage = PREDICATE;
+			push(((PatternPredicate) p).getPattern(), LAZY);
+			return null;
+		}
+
+		// Nothing to push, as for a run of a character class, which is scanned
+		// without sub-matches: match it directly
+		return named(f, p.match(context));
+	}
+
+	/**
+	 * Finishes a DefinedPattern with the Result of its definition.
+	 *
+	 * @param f          the body frame
+	 * @param definition the Result of the definition
+	 * @return the named Result
+	 */
+	private Result defined(final Frame f, final Result definition) {
+		if (definition.isSuccess()) {
+			return named(f, f.result.addChild(definition));
+		}
+		return named(f, definition);
+	}
+
+	/**
+	 * Adds an element's Result to a sequence, failing if it didn't match.
+	 *
+	 * @param f       the body frame
+	 * @param element the Result of the latest element
+	 * @return the named Result if finished, or null if the next element was pushed
+	 */
+	private Result sequence(final Frame f, final Result element) {
+		if (!element.isSuccess()) {
+			context.setPosition(f.result.getStartIdx());
+			return named(f, element);
+		}
+		f.result.addChild(element);
+		f.index++;
+		return nextElement(f);
+	}
+
+	/**
+	 * Pushes the next element of a sequence, or finishes it if none are left.
+	 *
+	 * @param f the body frame
+	 * @return the named Result if finished, or null if an element was pushed
+	 */
+	private Result nextElement(final Frame f) {
+		if (f.index == f.components.size()) {
+			return named(f, f.result);
+		}
+		push(f.components.get(f.index), LAZY);
+		return null;
+	}
+
+	/**
+	 * Finishes a choice with an alternative that matched, or moves on to the next.
+	 *
+	 * @param f           the body frame
+	 * @param alternative the Result of the latest alternative
+	 * @return the named Result if finished, or null if the next alternative was
+	 *         pushed
+	 */
+	private Result choice(final Frame f, final Result alternative) {
+		if (alternative.isSuccess()) {
+			return named(f, f.result.addChild(alternative));
+		}
+		context.setPosition(f.result.getStartIdx());
+		f.index++;
+		return nextAlternative(f);
+	}
+
+	/**
+	 * Pushes the next alternative of a choice, or fails if none are left.
+	 *
+	 * @param f the body frame
+	 * @return the named failure if finished, or null if an alternative was pushed
+	 */
+	private Result nextAlternative(final Frame f) {
+		// Skip alternatives that can't begin with the next character
+		f.index = ((PatternChoice) f.pattern).nextCandidate(context, f.index);
+		if (f.index == f.components.size()) {
+			return named(f, Result.FAIL(context.getPosition()));
+		}
+		push(f.components.get(f.index), LAZY);
+		return null;
+	}
+
+	/**
+	 * Adds a repetition's Result, or finishes the repetition once one fails.
+	 *
+	 * @param f          the body frame
+	 * @param repetition the Result of the latest repetition
+	 * @return the named Result if finished, or null if another repetition was
+	 *         pushed
+	 */
+	private Result repetition(final Frame f, final Result repetition) {
+		final PatternRepetition p = (PatternRepetition) f.pattern;
+		if (repetition.isSuccess()) {
+			f.index++;
+			f.result.addChild(repetition);
+			return nextRepetition(f);
+		}
+		if (f.index >= p.getLowerBound()) {
+			return named(f, f.result);
+		}
+		context.setPosition(f.result.getStartIdx());
+		return named(f, Result.FAIL(context.getPosition()));
+	}
+
+	/**
+	 * Pushes another repetition, or finishes if the upper bound is reached.
+	 *
+	 * @param f the body frame
+	 * @return the named Result if finished, or null if a repetition was pushed
+	 */
+	private Result nextRepetition(final Frame f) {
+		final PatternRepetition p = (PatternRepetition) f.pattern;
+		if (f.index == p.getUpperBound()) {
+			return named(f, f.result);
+		}
+		push(p.getPattern(), LAZY);
+		return null;
+	}
+
+	/**
+	 * Finishes a predicate, which consumes nothing either way.
+	 *
+	 * @param f      the body frame
+	 * @param tested the Result of the predicate's pattern
+	 * @return the named Result
+	 */
+	private Result predicate(final Frame f, final Result tested) {
+		final Result pred = f.result;
+		if (((PatternPredicate) f.pattern).isExpectSuccess() == tested.isSuccess()) {
+			pred.addChild(tested);
+			pred.setData("");
+			pred.setEndIdx(pred.getStartIdx());
+		} else {
+			pred.setSuccess(false);
+		}
+		context.setPosition(f.initial);
+		return named(f, pred);
+	}
+
+	/**
+	 * Copies a frame's Pattern's type and alias to its Result, as matchAndName()
+	 * does.
+	 *
+	 * @param f the body frame
+	 * @param r the Result to name
+	 * @return the named Result
+	 */
+	private static Result named(final Frame f, final Result r) {
+		r.setType(f.pattern.getType());
+		r.setAlias(f.pattern.isAlias());
+		return r;
+	}
+
+	/**
+	 * Pushes a frame, reusing an old one if there is one.
+	 *
+	 * @param p     the Pattern for the frame to match
+	 * @param stage the frame's first stage
+	 */
+	private void push(final Pattern p, final int stage) {
+		if (depth == frames.length) {
+			frames = Arrays.copyOf(frames, depth * 2);
+		}
+		Frame f = frames[depth];
+		if (f == null) {
+			f = new Frame();
+			frames[depth] = f;
+		}
+		f.pattern = p;
+		f.stage = stage;
+		f.seedOnly = false;
+		f.reaching = false;
+		depth++;
+	}
+
+}
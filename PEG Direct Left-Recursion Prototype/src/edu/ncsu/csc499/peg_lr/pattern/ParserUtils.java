@@ -0,0 +1,81 @@
+package edu.ncsu.csc499.peg_lr.pattern;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import edu.ncsu.csc499.peg_lr.pattern.component.operator.PatternRepetition;
+import edu.ncsu.csc499.peg_lr.pattern.definition.DefinedPattern;
+
+/**
+ * Offers static helpers shared by the parsers that match records: finding the
+ * repetition of records a root is defined as, and waiting for work handed to
+ * an executor.
+ */
+final class ParserUtils {
+
+	/**
+	 * Not to be constructed.
+	 */
+	private ParserUtils() {
+	}
+
+	/**
+	 * Looks through the definitions a root is defined as for the unbounded
+	 * repetition of records beneath them.
+	 *
+	 * @param root     the root Pattern
+	 * @param wrappers receives the DefinedPatterns looked through, outermost
+	 *                 first, or null if they aren't needed
+	 * @param parser   the name of the parser, for the error message
+	 * @return the repetition
+	 * @throws IllegalArgumentException if the root isn't an unbounded repetition
+	 *                                  or DefinedPatterns defined as one
+	 */
+	static PatternRepetition repetitionOf(final Pattern root, final List<DefinedPattern> wrappers,
+			final String parser) {
+		Pattern current = root;
+		while (current instanceof DefinedPattern) {
+			if (wrappers != null) {
+				wrappers.add((DefinedPattern) current);
+			}
+			current = ((DefinedPattern) current).getPattern();
+		}
+		if (!(current instanceof PatternRepetition) || (((PatternRepetition) current).getUpperBound() != -1)) {
+			throw new IllegalArgumentException("A " + parser + "'s pattern must be an unbounded repetition.");
+		}
+		return (PatternRepetition) current;
+	}
+
+	/**
+	 * Waits for one of several pieces of work, cancelling all of them if it can't
+	 * be had.
+	 *
+	 * @param <T>     the type each piece of work produces
+	 * @param futures the work being done
+	 * @param index   the piece to wait for
+	 * @return what the piece produced
+	 * @throws IllegalStateException if waiting is interrupted, or the work threw
+	 *                               a checked exception
+	 */
+	static <T> T await(final List<Future<T>> futures, final int index) {
+		try {
+			return futures.get(index).get();
+		} catch (final InterruptedException e) {
+			futures.forEach(future -> future.cancel(true));
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while parsing.", e);
+		} catch (final ExecutionException e) {
+			futures.forEach(future -> future.cancel(true));
+			// Rethrow whatever went wrong in the work itself
+			final Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IllegalStateException("Parsing failed.", cause);
+		}
+	}
+
+}
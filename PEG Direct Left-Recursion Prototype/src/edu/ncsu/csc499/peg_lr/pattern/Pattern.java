@@ -1,7 +1,9 @@
 package edu.ncsu.csc499.peg_lr.pattern;
 
-import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 import edu.ncsu.csc499.peg_lr.event.control.GrowingEvent;
 import edu.ncsu.csc499.peg_lr.event.control.GrowingEvent.GrowingEventType;
@@ -9,83 +11,48 @@ import edu.ncsu.csc499.peg_lr.event.pattern.MetaMatchEvent;
 import edu.ncsu.csc499.peg_lr.event.pattern.MetaMatchEvent.MetaMatchEventType;
 import edu.ncsu.csc499.peg_lr.event.pattern.PatternMatchEvent;
 import edu.ncsu.csc499.peg_lr.structure.InputContext;
+import edu.ncsu.csc499.peg_lr.structure.LeftRecursionHead;
+import edu.ncsu.csc499.peg_lr.structure.MemoTable;
 import edu.ncsu.csc499.peg_lr.structure.Result;
 
 public abstract class Pattern {
 
-	/** Generates a series of unique IDs for each Pattern created. */
-	private static int nextPatternId = 0;
+	/** End position returned by recognizing when the pattern doesn't match. */
+	public static final int NO_MATCH = MemoTable.FAILED;
+
+	/**
+	 * Generates a series of unique IDs for each Pattern created, even when
+	 * Patterns are created on several threads at once.
+	 */
+	private static final AtomicInteger NEXT_PATTERN_ID = new AtomicInteger();
 
 	/** Stores this Pattern's id. */
 	private final int id;
 
+	/**
+	 * The properties of this Pattern within its grammar, fixed when it is frozen.
+	 * Null until then. Volatile, so that a thread that sees this Pattern frozen
+	 * also sees the definition it was frozen with.
+	 */
+	private volatile PatternProperties properties;
+
 	/**
 	 * Constructs a Pattern by assigning a unique ID.
 	 */
 	public Pattern() {
 		// Assign ID
-		id = nextPatternId++;
+		id = NEXT_PATTERN_ID.getAndIncrement();
 	}
 
 	/**
 	 * Determines whether this Pattern is left-recursive. This Pattern is
-	 * left-recursive if one of its productions begins with this same object.
+	 * left-recursive if one of its productions can begin with this same object,
+	 * either directly or through other Patterns.
 	 * 
 	 * @return true if this pattern is left recursive, else false.
 	 */
-	public boolean isLeftRecursive() {
-		// Just check this pattern's components for left-recursion. We don't want to
-		// check it against itself immediately!
-		return isSubMatchLeftRecursiveOf(this);
-	}
-
-	/**
-	 * Determines whether this Pattern is left-recursive with respect to the given
-	 * pattern. This Pattern is left-recursive if one of its productions begins with
-	 * the target object.
-	 * 
-	 * @param pattern the pattern to compare against this one for left recursion
-	 * @return true if this pattern is left recursive, else false.
-	 */
-	private boolean isLeftRecursiveOf(final Pattern pattern) {
-		// If this is the pattern itself, we know it's left recursive.
-		if (this == pattern) {
-			return true;
-		}
-
-		// Otherwise, check its components for left recursion
-		return isSubMatchLeftRecursiveOf(pattern);
-	}
-
-	/**
-	 * Checks all possible leftmost submatches of this pattern to see if they may be
-	 * left-recursive of a given pattern.
-	 *
-	 * @param pattern the pattern to compare against this one for left recursion
-	 * @return true if this pattern contains a left recursive component, else false.
-	 */
-	private boolean isSubMatchLeftRecursiveOf(final Pattern pattern) {
-
-		// Get the list of all sub-patterns that could possibly be the first sub-match
-		// of this pattern
-		final Iterator<Pattern> components = getPossibleLeftmostComponents();
-
-		// Run through this list. If any of those patterns are left-recursive of this
-		// one, then we have an overall LR pattern.
-		Pattern possibleLeftmost;
-		// While there's still more elements to check
-		while (components.hasNext()) {
-			// Calculate and retrieve the next possibly left recursive element
-			possibleLeftmost = components.next();
-			// If it's left recursive, then we are too.
-			if (possibleLeftmost.isLeftRecursiveOf(pattern)) {
-				return true;
-			}
-		}
-
-		// None of the possible leftmost patterns are left recursive.
-		// Thus, this pattern isn't left recursive.
-		return false;
+	public final boolean isLeftRecursive() {
+		return properties().isLeftRecursive();
 	}
 
 	/**
@@ -105,9 +72,11 @@ public abstract class Pattern {
 	 * the leftmost pattern is included; if that pattern is nullable, the one after
 	 * it is also included, and so on for the rest of the sequence.
 	 *
-	 * @return
+	 * @return an unmodifiable List of the possible leftmost sub-patterns
 	 */
-	protected abstract Iterator<Pattern> getPossibleLeftmostComponents();
+	public final List<Pattern> getLeftmostComponents() {
+		return properties().getLeftmostComponents();
+	}
 
 	/**
 	 * Determines whether this pattern can successfully match the empty string
@@ -115,7 +84,133 @@ public abstract class Pattern {
 	 *
 	 * @return true if this pattern can match a 0-length string, else false
 	 */
-	public abstract boolean isNullable();
+	public final boolean isNullable() {
+		return properties().isNullable();
+	}
+
+	/**
+	 * Retrieves the characters that a match of this pattern may begin with. A
+	 * pattern that isn't nullable can't match anywhere else.
+	 *
+	 * @return the pattern's FIRST set
+	 */
+	public final FirstSet getFirstSet() {
+		return properties().getFirstSet();
+	}
+
+	/**
+	 * Calculates the characters that a match of this pattern may begin with, given
+	 * those of its components. Called by {@link Grammar} until the answers for
+	 * every Pattern stop changing, like computeNullable(). By default a pattern
+	 * may begin with any character.
+	 *
+	 * @param first    the current FIRST set of a component
+	 * @param nullable whether a component is nullable
+	 * @return the characters that this pattern may begin with
+	 */
+	protected FirstSet computeFirstSet(final Function<Pattern, FirstSet> first, final Predicate<Pattern> nullable) {
+		return FirstSet.ANY;
+	}
+
+	/**
+	 * Calculates whether this pattern can match the empty string, given whether
+	 * each of its components can. Called by {@link Grammar} until the answers for
+	 * every Pattern stop changing, so it must not recurse into its components
+	 * itself.
+	 *
+	 * @param nullable the current answer for whether a component is nullable
+	 * @return true if this pattern can match a 0-length string, else false
+	 */
+	protected abstract boolean computeNullable(Predicate<Pattern> nullable);
+
+	/**
+	 * Calculates the possible leftmost sub-patterns of this pattern, given whether
+	 * each of its components can match the empty string. Called by {@link Grammar}
+	 * once nullability is known.
+	 *
+	 * @param nullable whether a component is nullable
+	 * @return a List of the sub-patterns that may be the leftmost match
+	 */
+	protected abstract List<Pattern> computeLeftmostComponents(Predicate<Pattern> nullable);
+
+	/**
+	 * Retrieves this Pattern's grammar properties. If it hasn't been frozen yet,
+	 * they are calculated for the Patterns it can reach without being saved, as
+	 * those Patterns may still change.
+	 *
+	 * @return the grammar properties of this Pattern
+	 */
+	private PatternProperties properties() {
+		final PatternProperties known = properties;
+		return (known != null) ? known : Grammar.analyze(this).propertiesOf(this);
+	}
+
+	/**
+	 * Saves this Pattern's grammar properties. Called by {@link Grammar} when
+	 * freezing this Pattern.
+	 *
+	 * @param properties the properties to save
+	 */
+	final void setProperties(final PatternProperties properties) {
+		this.properties = properties;
+	}
+
+	/**
+	 * Retrieves this Pattern's saved grammar properties.
+	 *
+	 * @return the properties saved when this Pattern was frozen, or null if it
+	 *         hasn't been yet
+	 */
+	final PatternProperties getProperties() {
+		return properties;
+	}
+
+	/**
+	 * Retrieves this Pattern's rule index: a small number assigned when it is
+	 * frozen, dense from 0 within its grammar, used to key its Results in memo
+	 * tables. Freezes this Pattern if it isn't already.
+	 *
+	 * @return this Pattern's rule index
+	 */
+	public final int getRuleIndex() {
+		freeze();
+		return properties.getRuleIndex();
+	}
+
+	/**
+	 * Freezes this Pattern and every Pattern it can reach, analyzing them as one
+	 * grammar so that their properties don't need to be recalculated on each
+	 * match. Frozen Patterns can no longer be modified. Happens automatically the
+	 * first time a Pattern is matched. Once frozen, a Pattern holds no state that
+	 * matching changes, so it can be matched on any number of threads at once, as
+	 * long as each uses its own InputContext.
+	 */
+	public final void freeze() {
+		if (properties == null) {
+			Grammar.freeze(this);
+		}
+	}
+
+	/**
+	 * Determines whether this Pattern has been frozen.
+	 *
+	 * @return true if this Pattern's grammar properties are fixed, else false
+	 */
+	public final boolean isFrozen() {
+		return properties != null;
+	}
+
+	/**
+	 * Ensures that this Pattern may still be modified. Should be called by any
+	 * method that changes what this Pattern matches.
+	 *
+	 * @throws IllegalStateException if this Pattern has been frozen
+	 */
+	protected final void requireNotFrozen() {
+		if (properties != null) {
+			throw new IllegalStateException("Cannot modify a Pattern after it has been frozen.");
+		}
+	}
 
 	/**
 	 * Determines if this Pattern should be skipped in left-recursion memoization
@@ -157,14 +252,18 @@ public abstract class Pattern {
 	 */
 	private Result matchAndName(final InputContext context) {
 		// Make an event saying we're attempting to match this pattern
-		context.addHistory(new PatternMatchEvent(context, context.getPosition(), this));
+		if (context.isTracing()) {
+			context.addHistory(new PatternMatchEvent(context, context.getPosition(), this));
+		}
 		// Retrieve the result
 		final Result r = this.match(context);
 		// Copy type and alias status to the Result
 		r.setType(getType());
 		r.setAlias(isAlias());
 		// Make an event saying whether it was accepted or rejected
-		context.addHistory(new PatternMatchEvent(context, r, this));
+		if (context.isTracing()) {
+			context.addHistory(new PatternMatchEvent(context, r, this));
+		}
 		// Return the updated Result
 		return r;
 	}
@@ -201,49 +300,68 @@ public abstract class Pattern {
 
 	/**
 	 * Grows left-recursive rules from a seed by iteratively re-calculating them
-	 * with more memoized results until they cannot match any more.
+	 * with more memoized results until they cannot match any more. Rules with a
+	 * GrowingPlan only continue their left-recursive alternatives from the seed,
+	 * rather than matching their whole definition again. Rules involved in the
+	 * recursion are re-evaluated once per attempt, and cleared afterwards.
 	 * 
 	 * @param context the derivation to begin growing from. This derivation should
 	 *                already have a seed planted for this pattern before calling
 	 *                this method.
+	 * @param initialPosition the position that the rule is being grown at
+	 * @param head            the head of the recursion, for this rule
 	 * @return the final Result of growing the left-recursive Pattern, also saved in
 	 *         the Derivation.
 	 */
-	private Result growLeftRecursion(final InputContext context, final int initialPosition) {
+	private Result growLeftRecursion(final InputContext context, final int initialPosition,
+			final LeftRecursionHead head) {
 
 		// Set up fields to be used in main loop
 		Result attempt = null;
 		int farthestMatchEndPos = context.resultFor(this, initialPosition).getEndIdx();
 		int iteration = 1;
+		final GrowingPlan plan = growingPlan(head);
+		final LeftRecursionHead outerHead = context.setHead(initialPosition, head);
 
 		// Loop until we find a special case
 		while (true) {
 			// Log beginning of step
-			context.addHistory(
-					new GrowingEvent(context, GrowingEventType.GROW_ATTEMPT, this, initialPosition, iteration));
+			if (context.isTracing()) {
+				context.addHistory(
+						new GrowingEvent(context, GrowingEventType.GROW_ATTEMPT, this, initialPosition, iteration));
+			}
 			// Reset to the beginning to check this case
 			context.setPosition(initialPosition);
+			head.beginAttempt();
 
 			// Start matching from this current derivation we're given
-			// Attempt to *match* the Pattern (this one) against the Derivation
-			attempt = matchAndName(context);
+			// Attempt to *match* the Pattern (this one) against the Derivation, or
+			// just continue its left-recursive alternatives if there's a plan for it
+			attempt = (plan != null) ? plan.grow(this, context, initialPosition) : matchAndName(context);
 
 			// If we didn't make any progress, then exit
 			if (!attempt.isSuccess()) {
-				context.addHistory(
-						new GrowingEvent(context, GrowingEventType.GROW_FAIL, this, initialPosition, iteration));
+				if (context.isTracing()) {
+					context.addHistory(
+							new GrowingEvent(context, GrowingEventType.GROW_FAIL, this, initialPosition, iteration));
+				}
 				break;
 			} else if (context.getPosition() <= farthestMatchEndPos) {
-				context.addHistory(
-						new GrowingEvent(context, GrowingEventType.GROW_REJECT, this, initialPosition, iteration));
+				if (context.isTracing()) {
+					context.addHistory(
+							new GrowingEvent(context, GrowingEventType.GROW_REJECT, this, initialPosition, iteration));
+				}
 				break;
 			}
 
 			// Add history event for succeeding this step
-			context.addHistory(
-					new GrowingEvent(context, GrowingEventType.GROW_ACCEPT, this, initialPosition, iteration));
+			if (context.isTracing()) {
+				context.addHistory(
+						new GrowingEvent(context, GrowingEventType.GROW_ACCEPT, this, initialPosition, iteration));
+			}
 			// Otherwise, update the Derivation's memoized Result with the one we just
 			// calculated, and try to match again!
+			attempt.extendReach(context.getReach());
 			context.setResultFor(this, attempt, initialPosition);
 			// Check the farthest match we've gotten so far
 			farthestMatchEndPos = attempt.getEndIdx();
@@ -252,97 +370,414 @@ public abstract class Pattern {
 		}
 
 		// Log exit from method. -1 ot iterations because last iteration is invalid
-		context.addHistory(new GrowingEvent(context, GrowingEventType.TERMINATE, this, initialPosition, iteration - 1));
+		if (context.isTracing()) {
+			context.addHistory(
+					new GrowingEvent(context, GrowingEventType.TERMINATE, this, initialPosition, iteration - 1));
+		}
 
 		// Set the context to rest at the end of the farthest match we were able to find
 		context.setPosition(farthestMatchEndPos);
+		context.setHead(initialPosition, outerHead);
 
 		// Retrieve the growing tree's result
 		final Result finalMatch = context.resultFor(this, initialPosition);
-		// Clear it from the tree
-		context.clearResult(this, initialPosition);
+		// Clear it from the tree along with anything involved, unless it's being
+		// retained
+		context.finishHead(head, initialPosition);
+		context.finishGrowing(this, initialPosition);
 
 		// Return the result for the overall match
 		return finalMatch;
 	}
 
 	/**
-	 * Lazily matches this pattern onto the provided position. If the pattern is
-	 * hidden or not left-recursive, will immediately delegate to matchAndName(). If
-	 * the pattern is left-recursive and there is a seed already saved, returns that
-	 * seed. If there's no seed, then begins a left-recursive match by calculating a
-	 * seed and, if successful, delegating to growLeftRecursion().
-	 * 
+	 * Retrieves the GrowingPlan to grow this rule with. A plan only covers direct
+	 * left recursion, so it isn't used if other rules are involved.
+	 *
+	 * @param head the head of the recursion being grown, for this rule
+	 * @return the plan, or null to re-match the whole definition
+	 */
+	private GrowingPlan growingPlan(final LeftRecursionHead head) {
+		return head.getInvolved().isEmpty() ? properties.getGrowingPlan() : null;
+	}
+
+	/**
+	 * Matches this non-left-recursive pattern using the growing map as a packrat
+	 * memo table. If a Result is already saved for this Pattern at the current
+	 * position, it is reused and the context is moved to its end; otherwise the
+	 * pattern is matched and its Result saved for the next attempt at this
+	 * position.
+	 *
+	 * @param context the input context storing the input string, position, and
+	 *                growing map
+	 * @return the memoized or freshly calculated Result for this position
+	 */
+	private Result memoizedMatch(final InputContext context) {
+
+		// Check to see if the growing map already knows the answer at this position
+		final Result memo = context.resultFor(this);
+
+		// If there's no result for this Pattern at this Position
+		if (memo == null) {
+			// Log that we're going to have to manually run a match
+			if (context.isTracing()) {
+				context.addHistory(
+						new MetaMatchEvent(context, this, context.getPosition(), MetaMatchEventType.RUN_MATCH));
+			}
+
+			// Save the initial position, as the match will move the context
+			final int initialPosition = context.getPosition();
+			// Evaluate the Pattern at this index
+			final Result ans = matchAndName(context);
+			// Remember the answer, successful or not, for any later attempt here
+			context.setResultFor(this, ans, initialPosition);
+
+			return ans;
+		} else {
+			// Log that we're going to delegate to using the saved result
+			if (context.isTracing()) {
+				context.addHistory(new MetaMatchEvent(context, this, memo, MetaMatchEventType.ASSUME_RESULT));
+			}
+
+			// A successful match moves the context to its end. A failed match leaves it
+			// where it started, which is where we already are.
+			if (memo.isSuccess()) {
+				context.setPosition(memo.getEndIdx());
+			}
+			return memo;
+		}
+	}
+
+	/**
+	 * Lazily matches this pattern onto the provided position. The first call
+	 * freezes the pattern and its grammar (see {@link #freeze()}). If the pattern is
+	 * hidden, will immediately delegate to matchAndName(). If it is not
+	 * left-recursive, will delegate to matchAndName() as well, unless the context
+	 * is in packrat mode, in which case the Result is memoized. If the pattern is
+	 * left-recursive and there is a seed already saved, returns that seed. If
+	 * there's no seed, then begins a left-recursive match by calculating a seed
+	 * and, if the pattern called itself while doing so and the seed matched,
+	 * delegating to growLeftRecursion(). Following Warth et al., when the
+	 * recursion passes through other left-recursive patterns (indirect left
+	 * recursion), only the pattern it began at (the head) grows; the others are
+	 * re-evaluated once per growing attempt instead of growing themselves, unless
+	 * the context's LeftRecursionStrategy is BOUNDED. A pattern that a PikaParser
+	 * has already found to fail here fails immediately.
+	 *
 	 * @param context the input context storing the input string, position, and
 	 *                growing map
 	 * @return
 	 */
 	public final Result lazyMatch(final InputContext context) {
 
-		// If this pattern is hidden or not left-recursive, delegate immediately to
-		// match()
-		if (this.isHidden() | !this.isLeftRecursive()) {
+		// Analyze the grammar the first time it's used
+		if (properties == null) {
+			freeze();
+		}
+
+		// Skip anything a pika parse found to fail at this position
+		if (context.isKnownFailure(this)) {
+			final Result fail = Result.FAIL(context.getPosition());
+			fail.setType(getType());
+			fail.setAlias(isAlias());
+			return fail;
+		}
+
+		// If this pattern is hidden, delegate immediately to match()
+		if (properties.isHidden()) {
 			// Skip left-recursion and memoization
 			return this.matchAndName(context);
 		}
 
-		// Otherwise, it's left-recursive.
-		else {
-			// Begin the main LR algorithm
+		// Record how far this match looks, so an edit past it can keep its Result
+		final int outerReach = context.beginReach();
+		final Result result;
+		if (!properties.isLeftRecursive()) {
+			// Not left-recursive, so it only needs the growing map for packrat
+			// memoization, and only if asked to
+			result = context.isPackrat() ? memoizedMatch(context) : this.matchAndName(context);
+		} else {
+			result = leftRecursiveMatch(context);
+		}
+		context.endReach(outerReach, result);
+		return result;
+	}
+
+	/**
+	 * Matches this left-recursive pattern at the current position, as described
+	 * by lazyMatch().
+	 *
+	 * @param context the input context storing the input string, position, and
+	 *                growing map
+	 * @return the Result of the match
+	 */
+	private Result leftRecursiveMatch(final InputContext context) {
+		// Begin the main LR algorithm
+
+		// Log it in the context
+		if (context.isTracing()) {
+			context.addHistory(
+					new MetaMatchEvent(context, this, context.getPosition(), MetaMatchEventType.BEGIN_PREP));
+		}
 
-			// Log it in the context
-			context.addHistory(new MetaMatchEvent(context, this, context.getPosition(), MetaMatchEventType.BEGIN_PREP));
+		// An involved rule is re-evaluated once in each attempt to grow its head
+		final int initialPosition = context.getPosition();
+		final LeftRecursionHead growingHead = context.headAt(initialPosition);
+		if ((growingHead != null) && growingHead.takeEvaluation(this)) {
+			final Result ans = matchAndName(context);
+			context.setResultFor(this, ans, initialPosition);
+			return ans;
+		}
 
-			// Check to see if the growing map is storing a seed at this position
-			final Result seed = context.resultFor(this);
+		// Check to see if the growing map is storing a seed at this position
+		final Result seed = context.resultFor(this);
 
-			// If there's no result for this Pattern at this Position
-			if (seed == null) {
-				// We're at the start of a (possibly) left-recursive match
-				// Log that we're going to have to manually run a match
+		// If there's no result for this Pattern at this Position
+		if (seed == null) {
+			// We're at the start of a (possibly) left-recursive match
+			// Log that we're going to have to manually run a match
+			if (context.isTracing()) {
 				context.addHistory(
 						new MetaMatchEvent(context, this, context.getPosition(), MetaMatchEventType.RUN_MATCH));
+			}
 
-				// Save the initial position before matching in case we need to grow the match
-				final int initialPosition = context.getPosition();
-				// Set the current Result for this match equal to a fail result
-				context.setResultFor(this, Result.FAIL(initialPosition));
-
-				// Evaluate the Pattern at this index, possibly matching a seed
-				final Result ans = matchAndName(context);
-				// Update the retrieved answer as the new answer in the growing map
-				context.setResultFor(this, ans, initialPosition);
+			// Set the current Result for this match equal to a fail result
+			context.setResultFor(this, Result.FAIL(initialPosition));
+			context.beginGrowing(this, initialPosition);
+
+			// Evaluate the Pattern at this index, possibly matching a seed
+			final Result ans = matchAndName(context);
+			final LeftRecursionHead head = context.endSeed();
+			// Update the retrieved answer as the new answer in the growing map. A
+			// recursive call that reuses it looks as far as this rule has so far.
+			ans.extendReach(context.getReach());
+			context.setResultFor(this, ans, initialPosition);
+
+			if (head == null) {
+				// Never reached itself again, so there's nothing to grow. Clear the
+				// Result, unless it's being retained
+				context.finishGrowing(this, initialPosition);
+				return ans;
+			} else if (head.getRule() != this) {
+				// Involved in another rule's recursion, which will grow it. Its Result
+				// stays saved until then.
+				return ans;
+			}
 
-				// If it was a successful match
-				if (ans.isSuccess()) {
-					// We have a seed! Time to attempt to grow
-					// Log that we're going to start growing this left-recursive call
+			// If it was a successful match
+			if (ans.isSuccess()) {
+				// We have a seed! Time to attempt to grow
+				// Log that we're going to start growing this left-recursive call
+				if (context.isTracing()) {
 					context.addHistory(new MetaMatchEvent(context, this, ans, MetaMatchEventType.BEGIN_GROW));
-
-					// Return the result of growing th left-recursive Pattern until it cannot be
-					// re-evaluated to consume any more input
-					return growLeftRecursion(context, initialPosition);
-
-				} else {
-					// Clear the failed growing seed
-					context.clearResult(this);
-					// Return the failed Result that we got from matching. No seed.
-					return ans;
 				}
 
+				// Return the result of growing th left-recursive Pattern until it cannot be
+				// re-evaluated to consume any more input
+				return growLeftRecursion(context, initialPosition, head);
+
 			} else {
-				// Log that we're going to delegate to using the saved result
+				// Clear the failed growing seed and anything involved in it, unless it's
+				// being retained
+				context.finishHead(head, initialPosition);
+				context.finishGrowing(this, initialPosition);
+				// Return the failed Result that we got from matching. No seed.
+				return ans;
+			}
+
+		} else {
+			// Log that we're going to delegate to using the saved result
+			if (context.isTracing()) {
 				context.addHistory(new MetaMatchEvent(context, this, seed, MetaMatchEventType.ASSUME_RESULT));
+			}
 
-				// Set the current position of the context equal to the seed's end index
-				context.setPosition(seed.getEndIdx());
-				// Return the result of applying the rule at this position
-				return seed;
+			// If the seed is still being evaluated, this is a recursive call
+			context.involve(this, initialPosition);
+			// Set the current position of the context equal to the seed's end index
+			context.setPosition(seed.getEndIdx());
+			// Return the result of applying the rule at this position
+			return seed;
 
+		}
+	}
+
+	/**
+	 * Grows a left-recursive rule from a recognized seed, the same way as
+	 * growLeftRecursion(), but only tracking end positions.
+	 *
+	 * @param context         the input context, with a seed end already saved for
+	 *                        this pattern at the initial position
+	 * @param initialPosition the position that the rule is being grown at
+	 * @param head            the head of the recursion, for this rule
+	 * @return the end position of the farthest match
+	 */
+	private int growLeftRecursionEnd(final InputContext context, final int initialPosition,
+			final LeftRecursionHead head) {
+		int farthestMatchEndPos = context.endFor(this, initialPosition);
+		final GrowingPlan plan = growingPlan(head);
+		final LeftRecursionHead outerHead = context.setHead(initialPosition, head);
+
+		// Re-recognize with the latest end saved until it stops making progress
+		while (true) {
+			context.setPosition(initialPosition);
+			head.beginAttempt();
+			final int attempt = (plan != null) ? plan.growEnd(this, context, initialPosition) : recognize(context);
+			if ((attempt == NO_MATCH) || (attempt <= farthestMatchEndPos)) {
+				break;
 			}
+			context.setEndFor(this, attempt, initialPosition);
+			farthestMatchEndPos = attempt;
+		}
+
+		// Rest at the end of the farthest match and clear the seed
+		context.setPosition(farthestMatchEndPos);
+		context.setHead(initialPosition, outerHead);
+		context.finishHead(head, initialPosition);
+		context.finishGrowing(this, initialPosition);
+		return farthestMatchEndPos;
+	}
+
+	/**
+	 * Recognizes this pattern at the current position, following the same rules as
+	 * lazyMatch(), but without building any Results. Hidden patterns recognize
+	 * directly; other non-left-recursive ones save their end in packrat mode, and
+	 * left-recursive ones plant and grow a seed end. Nothing is allocated once the
+	 * growing map has grown to fit, and no match events are recorded.
+	 *
+	 * @param context the input context storing the input string, position, and
+	 *                growing map
+	 * @return the position at which the match ends, with the context moved there,
+	 *         or NO_MATCH if it doesn't match, with the context left where it was
+	 */
+	public final int lazyRecognize(final InputContext context) {
+
+		// Analyze the grammar the first time it's used
+		if (properties == null) {
+			freeze();
+		}
+
+		// Hidden patterns skip left-recursion and memoization
+		if (properties.isHidden()) {
+			return recognize(context);
+		}
+
+		final int initialPosition = context.getPosition();
 
+		// An involved rule is re-evaluated once in each attempt to grow its head
+		if (properties.isLeftRecursive()) {
+			final LeftRecursionHead growingHead = context.headAt(initialPosition);
+			if ((growingHead != null) && growingHead.takeEvaluation(this)) {
+				final int end = recognize(context);
+				context.setEndFor(this, end, initialPosition);
+				return end;
+			}
 		}
 
+		final int saved = (properties.isLeftRecursive() || context.isPackrat())
+				? context.endFor(this, initialPosition)
+				: MemoTable.NOT_SAVED;
+
+		// Reuse a saved end or seed, moving to its end if it matched
+		if (saved != MemoTable.NOT_SAVED) {
+			if (properties.isLeftRecursive()) {
+				context.involve(this, initialPosition);
+			}
+			if (saved != NO_MATCH) {
+				context.setPosition(saved);
+			}
+			return saved;
+		}
+
+		// Not left-recursive, so it only needs the growing map in packrat mode
+		if (!properties.isLeftRecursive()) {
+			final int end = recognize(context);
+			if (context.isPackrat()) {
+				context.setEndFor(this, end, initialPosition);
+			}
+			return end;
+		}
+
+		// Left-recursive: plant a failed seed, then grow it if the first try matches
+		context.setEndFor(this, NO_MATCH, initialPosition);
+		context.beginGrowing(this, initialPosition);
+		final int seed = recognize(context);
+		final LeftRecursionHead head = context.endSeed();
+		context.setEndFor(this, seed, initialPosition);
+		if (head == null) {
+			// Never reached itself again, so its first end is final
+			context.finishGrowing(this, initialPosition);
+			return seed;
+		} else if (head.getRule() != this) {
+			// Involved in another rule's recursion, which will grow it
+			return seed;
+		} else if (seed == NO_MATCH) {
+			context.finishHead(head, initialPosition);
+			context.finishGrowing(this, initialPosition);
+			return NO_MATCH;
+		}
+		return growLeftRecursionEnd(context, initialPosition, head);
+	}
+
+	/**
+	 * Matches only the seed of this left-recursive pattern at the current
+	 * position, without growing it, for a right-recursive call under the DIRECT
+	 * LeftRecursionStrategy. A Result already saved here is reused, as
+	 * lazyMatch() would.
+	 *
+	 * @param context the input context storing the input string, position, and
+	 *                growing map
+	 * @return the seed's Result
+	 */
+	Result lazyMatchSeed(final InputContext context) {
+		final int initialPosition = context.getPosition();
+		final Result saved = context.resultFor(this);
+		if (saved != null) {
+			context.involve(this, initialPosition);
+			context.setPosition(saved.getEndIdx());
+			return saved;
+		}
+
+		// Plant a failed seed, and match once
+		context.setResultFor(this, Result.FAIL(initialPosition));
+		context.beginGrowing(this, initialPosition);
+		final Result ans = matchAndName(context);
+		final LeftRecursionHead head = context.endSeed();
+		if (head != null) {
+			context.finishHead(head, initialPosition);
+		}
+		context.discardSeed(this, initialPosition);
+		return ans;
+	}
+
+	/**
+	 * Recognizes only the seed of this left-recursive pattern at the current
+	 * position, the same way as lazyMatchSeed(), but only tracking end positions.
+	 *
+	 * @param context the input context storing the input string, position, and
+	 *                growing map
+	 * @return the end of the seed, or NO_MATCH if it doesn't match
+	 */
+	int lazyRecognizeSeed(final InputContext context) {
+		final int initialPosition = context.getPosition();
+		final int saved = context.endFor(this, initialPosition);
+		if (saved != MemoTable.NOT_SAVED) {
+			context.involve(this, initialPosition);
+			if (saved != NO_MATCH) {
+				context.setPosition(saved);
+			}
+			return saved;
+		}
+
+		// Plant a failed seed, and recognize once
+		context.setEndFor(this, NO_MATCH, initialPosition);
+		context.beginGrowing(this, initialPosition);
+		final int end = recognize(context);
+		final LeftRecursionHead head = context.endSeed();
+		if (head != null) {
+			context.finishHead(head, initialPosition);
+		}
+		context.discardSeed(this, initialPosition);
+		return end;
 	}
 
 	/**
@@ -354,14 +789,24 @@ public abstract class Pattern {
 	 */
 	protected abstract Result match(InputContext context);
 
+	/**
+	 * Any pattern should be able to decide how far it matches without building a
+	 * Result, recognizing its components with lazyRecognize().
+	 *
+	 * @param context the current context of the match
+	 * @return the position at which the match ends, with the context moved there,
+	 *         or NO_MATCH if it doesn't match, with the context left where it was
+	 */
+	protected abstract int recognize(InputContext context);
+
 	/**
 	 * Generates (the base of) a unique hash code for this Pattern. By default, all
-	 * Patterns are considered the same.
+	 * Patterns of the same class are considered the same, so the hash only
+	 * distinguishes classes; subclasses mix in whatever they compare.
 	 */
 	@Override
 	public int hashCode() {
-		final int result = 1;
-		return result;
+		return getClass().hashCode();
 	}
 
 	/**
@@ -0,0 +1,122 @@
+package edu.ncsu.csc499.peg_lr.pattern;
+
+import java.util.List;
+
+/**
+ * Holds the properties of a single Pattern within its grammar, as calculated by
+ * {@link Grammar}. Once a Pattern is frozen these never change, so matching can
+ * read them directly instead of walking the grammar again.
+ */
+public final class PatternProperties {
+
+	/** Whether the Pattern can match the empty string. */
+	private final boolean nullable;
+
+	/** Whether the Pattern can begin with itself. */
+	private final boolean leftRecursive;
+
+	/** Whether the Pattern is skipped in memoization and the Results tree. */
+	private final boolean hidden;
+
+	/** The sub-patterns that may be the leftmost match of the Pattern. */
+	private final List<Pattern> leftmostComponents;
+
+	/** The characters that the Pattern's match may begin with. */
+	private final FirstSet firstSet;
+
+	/**
+	 * Dense index identifying the Pattern in memo tables, or -1 if it hasn't been
+	 * frozen.
+	 */
+	private final int ruleIndex;
+
+	/**
+	 * How to grow the Pattern by continuing only its left-recursive alternatives,
+	 * or null if it has to be grown by matching its whole definition again.
+	 */
+	private final GrowingPlan growingPlan;
+
+	/**
+	 * Constructs a set of properties for a Pattern.
+	 *
+	 * @param nullable           whether the Pattern can match the empty string
+	 * @param leftRecursive      whether the Pattern can begin with itself
+	 * @param hidden             whether the Pattern is hidden
+	 * @param leftmostComponents the possible leftmost sub-patterns
+	 * @param firstSet           the characters the Pattern may begin with
+	 * @param ruleIndex          the Pattern's index in memo tables, or -1
+	 * @param growingPlan        how to grow the Pattern, or null
+	 */
+	PatternProperties(final boolean nullable, final boolean leftRecursive, final boolean hidden,
+			final List<Pattern> leftmostComponents, final FirstSet firstSet, final int ruleIndex,
+			final GrowingPlan growingPlan) {
+		this.nullable = nullable;
+		this.leftRecursive = leftRecursive;
+		this.hidden = hidden;
+		this.leftmostComponents = List.copyOf(leftmostComponents);
+		this.firstSet = firstSet;
+		this.ruleIndex = ruleIndex;
+		this.growingPlan = growingPlan;
+	}
+
+	/**
+	 * Copies these properties, assigning the Pattern a rule index.
+	 *
+	 * @param index the Pattern's index in memo tables
+	 * @return the same properties with the given rule index
+	 */
+	PatternProperties withRuleIndex(final int index) {
+		return new PatternProperties(nullable, leftRecursive, hidden, leftmostComponents, firstSet, index, growingPlan);
+	}
+
+	/**
+	 * @return true if the Pattern can match the empty string, else false
+	 */
+	public boolean isNullable() {
+		return nullable;
+	}
+
+	/**
+	 * @return true if the Pattern can begin with itself, else false
+	 */
+	public boolean isLeftRecursive() {
+		return leftRecursive;
+	}
+
+	/**
+	 * @return true if the Pattern is skipped in memoization and the Results tree
+	 */
+	public boolean isHidden() {
+		return hidden;
+	}
+
+	/**
+	 * @return an unmodifiable List of the possible leftmost sub-patterns
+	 */
+	public List<Pattern> getLeftmostComponents() {
+		return leftmostComponents;
+	}
+
+	/**
+	 * @return the characters that the Pattern's match may begin with
+	 */
+	public FirstSet getFirstSet() {
+		return firstSet;
+	}
+
+	/**
+	 * @return the Pattern's dense index in memo tables, or -1 if it isn't frozen
+	 */
+	public int getRuleIndex() {
+		return ruleIndex;
+	}
+
+	/**
+	 * @return how to grow the Pattern by continuing only its left-recursive
+	 *         alternatives, or null if its whole definition must be matched again
+	 */
+	GrowingPlan getGrowingPlan() {
+		return growingPlan;
+	}
+
+}
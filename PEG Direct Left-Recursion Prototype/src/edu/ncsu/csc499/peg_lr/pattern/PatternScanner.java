@@ -0,0 +1,306 @@
+package edu.ncsu.csc499.peg_lr.pattern;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import edu.ncsu.csc499.peg_lr.pattern.component.PatternString;
+import edu.ncsu.csc499.peg_lr.pattern.component.operator.PatternSequence;
+import edu.ncsu.csc499.peg_lr.pattern.definition.DefinedPattern;
+import edu.ncsu.csc499.peg_lr.structure.ByteInput;
+import edu.ncsu.csc499.peg_lr.structure.InputContext;
+import edu.ncsu.csc499.peg_lr.structure.Result;
+
+/**
+ * Finds every match of a Pattern in an input, wherever it starts, as a regular
+ * expression search does, rather than only at the context's position.
+ *
+ * One context slides across the input, trying the pattern at each position in
+ * turn. After a match, the search goes on from its end, or from the next
+ * position if it matched nothing. The context memoizes every Result, so a
+ * sub-match that an attempt at one position found is reused by attempts at
+ * later ones, and whatever is behind the search is discarded as it goes.
+ *
+ * Positions where the pattern can't begin are skipped without trying it. If
+ * every match begins with the same string, such as a keyword, the next place
+ * it occurs is found with Horspool's algorithm. Otherwise, positions whose
+ * character isn't in the pattern's FIRST set are passed over.
+ */
+public final class PatternScanner {
+
+	/** How far the search moves past its last discard before discarding again. */
+	private static final int DISCARD_DISTANCE = 1 << 16;
+
+	/** The Pattern searched for. */
+	private final Pattern pattern;
+
+	/** The string every match begins with, or null if there isn't one. */
+	private final String literal;
+
+	/**
+	 * Constructs a PatternScanner, freezing the grammar reachable from the
+	 * pattern.
+	 *
+	 * @param pattern the Pattern to search for
+	 * @throws IllegalArgumentException if pattern is null
+	 */
+	public PatternScanner(final Pattern pattern) {
+		if (pattern == null) {
+			throw new IllegalArgumentException("A PatternScanner needs a pattern.");
+		}
+		this.pattern = pattern;
+		pattern.freeze();
+		this.literal = literalPrefix(pattern);
+	}
+
+	/**
+	 * Finds the string that every match of a pattern begins with, by following
+	 * definitions and the first components of sequences down to a string.
+	 *
+	 * @param pattern the pattern
+	 * @return the string, or null if matches don't all begin with one
+	 */
+	private static String literalPrefix(final Pattern pattern) {
+		Pattern current = pattern;
+		while ((current instanceof DefinedPattern) || (current instanceof PatternSequence)) {
+			// A component that may match nothing doesn't have to begin the match
+			if (current.isNullable() || current.getPatternComponents().isEmpty()) {
+				return null;
+			}
+			current = current.getPatternComponents().get(0);
+		}
+		if ((current instanceof PatternString) && !current.isNullable()) {
+			return ((PatternString) current).getMatchString();
+		}
+		return null;
+	}
+
+	/**
+	 * Finds the next match at or after the context's position, leaving the
+	 * context at its end. Packrat memoization is turned on for the context.
+	 *
+	 * @param context the context to search in
+	 * @return the match, or a failed Result where the search stopped if there are
+	 *         no more
+	 */
+	public Result find(final InputContext context) {
+		context.setPackrat(true);
+		return new Search(context).next();
+	}
+
+	/**
+	 * Finds every match from the context's position onwards, one at a time as
+	 * the stream is read. Packrat memoization is turned on for the context, and
+	 * the context must not be used for anything else until the stream is done
+	 * with.
+	 *
+	 * @param context the context to search in
+	 * @return the matches, in order
+	 */
+	public Stream<Result> findAll(final InputContext context) {
+		context.setPackrat(true);
+		final Search search = new Search(context);
+		return StreamSupport.stream(new Spliterators.AbstractSpliterator<Result>(Long.MAX_VALUE,
+				Spliterator.ORDERED | Spliterator.NONNULL) {
+
+			@Override
+			public boolean tryAdvance(final Consumer<? super Result> action) {
+				final Result match = search.next();
+				if (!match.isSuccess()) {
+					return false;
+				}
+				action.accept(match);
+				return true;
+			}
+
+		}, false);
+	}
+
+	/**
+	 * The state of a search through one context.
+	 */
+	private final class Search {
+
+		/** The context being searched. */
+		private final InputContext context;
+
+		/** The input read as bytes, or null if it's read as characters. */
+		private final ByteInput bytes;
+
+		/**
+		 * The units of the literal prefix: its characters, or for a byte input, its
+		 * UTF-8 bytes. Null if there isn't one.
+		 */
+		private final int[] units;
+
+		/**
+		 * How far Horspool's algorithm may move past a window, by the low byte of
+		 * the unit at its last position.
+		 */
+		private final int[] shifts;
+
+		/** Where the search last discarded what was behind it. */
+		private int discarded;
+
+		/** Whether the search has reached the end of the input. */
+		private boolean finished;
+
+		/**
+		 * Constructs a Search from the context's position.
+		 *
+		 * @param context the context to search in
+		 */
+		private Search(final InputContext context) {
+			this.context = context;
+			this.bytes = context.getBytes();
+			this.discarded = context.getPosition();
+			if (literal == null) {
+				this.units = null;
+				this.shifts = null;
+				return;
+			}
+
+			// Encode the literal as the input is indexed
+			if (bytes != null) {
+				final byte[] encoded = literal.getBytes(StandardCharsets.UTF_8);
+				units = new int[encoded.length];
+				for (int i = 0; i < encoded.length; i++) {
+					units[i] = encoded[i] & 0xFF;
+				}
+			} else {
+				units = literal.chars().toArray();
+			}
+
+			// A unit that's nowhere in the literal but its end lets the window skip past
+			// it. Units sharing a low byte share the smallest shift.
+			shifts = new int[256];
+			Arrays.fill(shifts, units.length);
+			for (int i = 0; i < (units.length - 1); i++) {
+				shifts[units[i] & 0xFF] = units.length - 1 - i;
+			}
+		}
+
+		/**
+		 * Finds the next match, leaving the context at its end.
+		 *
+		 * @return the match, or a failed Result where the search stopped if there are
+		 *         no more
+		 */
+		private Result next() {
+			while (!finished) {
+				final int candidate = nextCandidate(context.getPosition());
+				if (candidate == Pattern.NO_MATCH) {
+					break;
+				}
+				context.setPosition(candidate);
+				discardBehind();
+				// Discarding may have moved the origin of a segmented input
+				final int start = context.getPosition();
+				final Result match = pattern.lazyMatch(context);
+				if (match.isSuccess()) {
+					// An empty match would be found again, so go on from the next position
+					if (match.getEndIdx() == start) {
+						step(start);
+					}
+					return match;
+				}
+				step(start);
+			}
+			finished = true;
+			return Result.FAIL(context.getPosition());
+		}
+
+		/**
+		 * Moves the context past the character at a position, or finishes the search
+		 * if it's at the end.
+		 *
+		 * @param position the position to move past
+		 */
+		private void step(final int position) {
+			if (!context.hasCharAt(position)) {
+				finished = true;
+				context.setPosition(position);
+				return;
+			}
+			context.setPosition(position + ((bytes == null) ? 1 : bytes.charLength(position)));
+		}
+
+		/**
+		 * Drops what's behind the context's position once the search has moved far
+		 * enough, as no later attempt can reach back to it.
+		 */
+		private void discardBehind() {
+			if ((context.getPosition() - discarded) >= DISCARD_DISTANCE) {
+				context.discardBefore(context.getPosition());
+				discarded = context.getPosition();
+			}
+		}
+
+		/**
+		 * Finds the first position at or after one where the pattern may begin.
+		 *
+		 * @param from the position to search from
+		 * @return the position, or NO_MATCH if there's none before the end
+		 */
+		private int nextCandidate(final int from) {
+			if (units != null) {
+				return findLiteral(from);
+			}
+			// Anything may begin a match that can be empty, even the end
+			if (pattern.isNullable() || pattern.getFirstSet().isAny()) {
+				return from;
+			}
+			final FirstSet first = pattern.getFirstSet();
+			int position = from;
+			while (context.hasCharAt(position)) {
+				if (first.contains(context.getInput().charAt(position))) {
+					return position;
+				}
+				position += (bytes == null) ? 1 : bytes.charLength(position);
+			}
+			return Pattern.NO_MATCH;
+		}
+
+		/**
+		 * Finds the next place the literal prefix occurs with Horspool's algorithm,
+		 * comparing a window of the input against it from its last unit backwards.
+		 *
+		 * @param from the position to search from
+		 * @return the position of the next occurrence, or NO_MATCH if there's none
+		 */
+		private int findLiteral(final int from) {
+			final int last = units.length - 1;
+			int window = from;
+			while (context.hasCharAt(window + last)) {
+				final int end = unitAt(window + last);
+				if (end == units[last]) {
+					int i = last - 1;
+					while ((i >= 0) && (unitAt(window + i) == units[i])) {
+						i--;
+					}
+					if (i < 0) {
+						return window;
+					}
+				}
+				window += shifts[end & 0xFF];
+			}
+			return Pattern.NO_MATCH;
+		}
+
+		/**
+		 * Reads the unit at a position: a byte of a byte input, or a character.
+		 *
+		 * @param position the position
+		 * @return the unit
+		 */
+		private int unitAt(final int position) {
+			return (bytes != null) ? (bytes.byteAt(position) & 0xFF) : context.getInput().charAt(position);
+		}
+
+	}
+
+}
@@ -0,0 +1,601 @@
+package edu.ncsu.csc499.peg_lr.pattern;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import edu.ncsu.csc499.peg_lr.pattern.component.operator.PatternChoice;
+import edu.ncsu.csc499.peg_lr.pattern.component.operator.PatternPredicate;
+import edu.ncsu.csc499.peg_lr.pattern.component.operator.PatternRepetition;
+import edu.ncsu.csc499.peg_lr.pattern.component.operator.PatternSequence;
+import edu.ncsu.csc499.peg_lr.pattern.definition.DefinedPattern;
+import edu.ncsu.csc499.peg_lr.structure.InputContext;
+import edu.ncsu.csc499.peg_lr.structure.MemoTable;
+import edu.ncsu.csc499.peg_lr.structure.Result;
+
+/**
+ * Matches a grammar bottom-up, following Hutchinson's pika parsing (see the
+ * README). Every Pattern reachable from the root is a clause, and the clauses
+ * are sorted so that each comes after its components, apart from the cycles of
+ * left recursion. The input is then swept from its end back to the start; at
+ * each position, the clauses that may have matched there are evaluated in
+ * sorted order from the ends already found, and whenever a clause's end
+ * changes, every clause it may be the leftmost match of is evaluated again.
+ * Left recursion needs no seeds: a left-recursive clause only ever keeps a
+ * longer end, so it grows on its own until it stops getting longer.
+ *
+ * Terminals have no components, so they can be matched at every position
+ * independently. They're matched first, in chunks of positions spread over a
+ * ForkJoinPool; the rest of the sweep depends on the clauses before it, so it
+ * runs on the calling thread.
+ *
+ * Result trees are built by matching the root top-down with lazyMatch(), while
+ * every Pattern that the sweep found to fail where it's attempted fails
+ * immediately. The tree is the one lazyMatch() builds on its own, but without
+ * the backtracking into alternatives that were bound to fail, which is what
+ * makes matching exponential on grammars like DefinedNestedExpression when
+ * they aren't memoized. Patterns reached from a not-predicate are never
+ * skipped, as the failed Results they build are kept in the tree, and nothing
+ * is skipped when the root fails, as its failed Result records how far the
+ * match got.
+ *
+ * Every clause is evaluated at every position it may match at, including ones
+ * a top-down match never reaches, so a left-recursive sum is grown from every
+ * one of its terms, in time quadratic in their number.
+ */
+public final class PikaParser {
+
+	/** Number of positions whose terminals are matched by a single task. */
+	private static final int CHUNK = 4096;
+
+	/** How each clause is evaluated from the ends of its components. */
+	private enum Kind {
+		/** No components, matched directly. */
+		TERMINAL,
+		/** A DefinedPattern, ending wherever its definition does. */
+		DEFINED,
+		/** A PatternSequence. */
+		SEQUENCE,
+		/** A PatternChoice. */
+		CHOICE,
+		/** A PatternRepetition. */
+		REPETITION,
+		/** A PatternPredicate expecting its pattern to match. */
+		AND,
+		/** A PatternPredicate expecting its pattern not to match. */
+		NOT,
+		/** Any other Pattern with components, recognized top-down. */
+		OPAQUE
+	}
+
+	/** The Pattern being matched. */
+	private final Pattern root;
+
+	/** Pool that terminals are matched on. */
+	private final ForkJoinPool pool;
+
+	/** Every clause, each after its components apart from left recursion. */
+	private final Pattern[] clauses;
+
+	/** Rule index of each clause. */
+	private final int[] rules;
+
+	/** How each clause is evaluated. */
+	private final Kind[] kinds;
+
+	/** Clause indices of each clause's components, in order. */
+	private final int[][] components;
+
+	/**
+	 * Clause indices of the clauses each clause may be the leftmost match of, to
+	 * be evaluated again when its end changes.
+	 */
+	private final int[][] seedParents;
+
+	/** Whether each clause is left-recursive, and so only ever grows. */
+	private final boolean[] growing;
+
+	/**
+	 * Clauses evaluated at every position: terminals, nullable clauses, which may
+	 * match without any component matching first, and opaque clauses.
+	 */
+	private final BitSet seeded = new BitSet();
+
+	/** Clause indices of the terminals. */
+	private final int[] terminals;
+
+	/** Rule indices of the clauses that a top-down match may skip. */
+	private final BitSet skippable = new BitSet();
+
+	/**
+	 * Constructs a PikaParser for the grammar reachable from a root Pattern,
+	 * matching terminals on the common ForkJoinPool.
+	 *
+	 * @param root the Pattern to match
+	 */
+	public PikaParser(final Pattern root) {
+		this(root, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Constructs a PikaParser for the grammar reachable from a root Pattern,
+	 * freezing it, and sorts its clauses.
+	 *
+	 * @param root the Pattern to match
+	 * @param pool the pool to match terminals on
+	 */
+	public PikaParser(final Pattern root, final ForkJoinPool pool) {
+		this.root = root;
+		this.pool = pool;
+		root.freeze();
+
+		// Sort the clauses by the order their depth-first search finishes in
+		final List<Pattern> sorted = new ArrayList<>();
+		final Map<Pattern, Integer> indices = new IdentityHashMap<>();
+		final Map<Pattern, Iterator<Pattern>> visiting = new IdentityHashMap<>();
+		final Deque<Pattern> stack = new ArrayDeque<>();
+		visiting.put(root, root.getPatternComponents().iterator());
+		stack.push(root);
+		while (!stack.isEmpty()) {
+			final Iterator<Pattern> remaining = visiting.get(stack.peek());
+			if (remaining.hasNext()) {
+				final Pattern component = remaining.next();
+				// A component still being visited is a cycle, which is left alone
+				if (!visiting.containsKey(component)) {
+					visiting.put(component, component.getPatternComponents().iterator());
+					stack.push(component);
+				}
+			} else {
+				final Pattern p = stack.pop();
+				indices.put(p, sorted.size());
+				sorted.add(p);
+			}
+		}
+
+		final int size = sorted.size();
+		clauses = sorted.toArray(new Pattern[size]);
+		rules = new int[size];
+		kinds = new Kind[size];
+		components = new int[size][];
+		growing = new boolean[size];
+		final List<List<Integer>> parents = new ArrayList<>(size);
+		final List<Integer> terminalList = new ArrayList<>();
+		for (int c = 0; c < size; c++) {
+			parents.add(new ArrayList<>(2));
+		}
+
+		for (int c = 0; c < size; c++) {
+			final Pattern p = clauses[c];
+			rules[c] = p.getRuleIndex();
+			kinds[c] = kindOf(p);
+			growing[c] = p.isLeftRecursive();
+
+			final List<Pattern> subclauses = p.getPatternComponents();
+			components[c] = new int[subclauses.size()];
+			for (int i = 0; i < components[c].length; i++) {
+				components[c][i] = indices.get(subclauses.get(i));
+			}
+			for (final Pattern leftmost : p.getLeftmostComponents()) {
+				parents.get(indices.get(leftmost)).add(c);
+			}
+
+			if (kinds[c] == Kind.TERMINAL) {
+				terminalList.add(c);
+			}
+			if ((kinds[c] == Kind.TERMINAL) || (kinds[c] == Kind.OPAQUE) || p.isNullable()) {
+				seeded.set(c);
+			}
+		}
+
+		seedParents = new int[size][];
+		for (int c = 0; c < size; c++) {
+			seedParents[c] = parents.get(c).stream().mapToInt(Integer::intValue).toArray();
+		}
+		terminals = terminalList.stream().mapToInt(Integer::intValue).toArray();
+
+		// Anything a not-predicate reaches keeps its failed Results, so it can't be
+		// skipped
+		final BitSet unskippable = new BitSet(size);
+		for (int c = 0; c < size; c++) {
+			if (kinds[c] == Kind.NOT) {
+				markReachable(components[c][0], unskippable);
+			}
+		}
+		for (int c = 0; c < size; c++) {
+			if (!unskippable.get(c)) {
+				skippable.set(rules[c]);
+			}
+		}
+	}
+
+	/**
+	 * Decides how a clause is evaluated.
+	 *
+	 * @param p the clause
+	 * @return the clause's Kind
+	 */
+	private static Kind kindOf(final Pattern p) {
+		if (p.getPatternComponents().isEmpty()) {
+			return Kind.TERMINAL;
+		} else if (p instanceof DefinedPattern) {
+			return Kind.DEFINED;
+		} else if (p instanceof PatternSequence) {
+			return Kind.SEQUENCE;
+		} else if (p instanceof PatternChoice) {
+			return Kind.CHOICE;
+		} else if (p instanceof PatternRepetition) {
+			return Kind.REPETITION;
+		} else if (p instanceof PatternPredicate) {
+			return ((PatternPredicate) p).isExpectSuccess() ? Kind.AND : Kind.NOT;
+		}
+		return Kind.OPAQUE;
+	}
+
+	/**
+	 * Marks a clause and every clause reachable from it.
+	 *
+	 * @param from   the clause to begin from
+	 * @param marked the clauses marked so far, updated in place
+	 */
+	private void markReachable(final int from, final BitSet marked) {
+		final Deque<Integer> toVisit = new ArrayDeque<>();
+		toVisit.push(from);
+		while (!toVisit.isEmpty()) {
+			final int c = toVisit.pop();
+			if (!marked.get(c)) {
+				marked.set(c);
+				for (final int component : components[c]) {
+					toVisit.push(component);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Recognizes the root at the context's position by sweeping the input
+	 * bottom-up, without building any Results.
+	 *
+	 * @param context the input context to recognize
+	 * @return the position at which the match ends, with the context moved there,
+	 *         or NO_MATCH if it doesn't match, with the context left where it was
+	 * @throws IllegalArgumentException if the context doesn't hold its whole input
+	 *                                  as characters
+	 */
+	public int recognize(final InputContext context) {
+		final int start = context.getPosition();
+		final MemoTable ends = new Sweep(charInput(context), start).run();
+		final int end = ends.getEnd(root.getRuleIndex(), start);
+		if (end < 0) {
+			return Pattern.NO_MATCH;
+		}
+		context.setPosition(end);
+		return end;
+	}
+
+	/**
+	 * Matches the root at the context's position, sweeping the input bottom-up
+	 * and then building the Result tree top-down, skipping every Pattern found to
+	 * fail. If the root itself fails, it's matched top-down without skipping
+	 * anything, so that the failed Result is the same.
+	 *
+	 * @param context the input context to match
+	 * @return the same Result as lazyMatch(), with the context moved to its end
+	 * @throws IllegalArgumentException if the context doesn't hold its whole input
+	 *                                  as characters
+	 */
+	public Result match(final InputContext context) {
+		final int start = context.getPosition();
+		final MemoTable ends = new Sweep(charInput(context), start).run();
+
+		// Where a failed match gives up depends on everything it tried, so nothing can
+		// be skipped
+		if (ends.getEnd(root.getRuleIndex(), start) < 0) {
+			return root.lazyMatch(context);
+		}
+
+		context.setKnownEnds(ends, skippable);
+		try {
+			return root.lazyMatch(context);
+		} finally {
+			context.setKnownEnds(null, null);
+		}
+	}
+
+	/**
+	 * Retrieves the whole input of a context to sweep.
+	 *
+	 * @param context the context to sweep
+	 * @return the context's input
+	 * @throws IllegalArgumentException if the context doesn't hold its whole input
+	 *                                  as characters
+	 */
+	private static CharSequence charInput(final InputContext context) {
+		// The sweep starts from the end, so a window or byte offsets won't do
+		if (!context.isCharInput()) {
+			throw new IllegalArgumentException("A PikaParser needs the whole input as characters, not streamed, "
+					+ "segmented or read as bytes.");
+		}
+		return context.getInput();
+	}
+
+	/**
+	 * The state of a single sweep over an input.
+	 */
+	private final class Sweep {
+
+		/** The input being swept. */
+		private final CharSequence input;
+
+		/** The position the sweep ends at. */
+		private final int start;
+
+		/** End of each clause's match, by rule index and position. */
+		private final MemoTable ends = new MemoTable();
+
+		/**
+		 * End of each unbounded repetition's longest run of its pattern, by rule
+		 * index and position, even if it's shorter than the lower bound.
+		 */
+		private final MemoTable runs = new MemoTable();
+
+		/** Ends of the terminals, in one table per chunk of positions. */
+		private final MemoTable[] terminalEnds;
+
+		/** Context for recognizing opaque clauses. */
+		private final InputContext context;
+
+		/**
+		 * Constructs a Sweep over an input.
+		 *
+		 * @param input the input to sweep
+		 * @param start the position to sweep back to
+		 */
+		Sweep(final CharSequence input, final int start) {
+			this.input = input;
+			this.start = start;
+			terminalEnds = new MemoTable[((input.length() - start) / CHUNK) + 1];
+			context = new InputContext(input);
+		}
+
+		/**
+		 * Sweeps every position from the end of the input back to the start.
+		 *
+		 * @return the end of each clause's match, by rule index and position
+		 */
+		MemoTable run() {
+			// Match terminals ahead of time, in parallel if there's more than one chunk
+			if (terminalEnds.length == 1) {
+				matchTerminals(0);
+			} else {
+				pool.invoke(new TerminalTask(0, terminalEnds.length));
+			}
+
+			final BitSet queue = new BitSet(clauses.length);
+			for (int position = input.length(); position >= start; position--) {
+				queue.or(seeded);
+				// Evaluate the lowest clause waiting, so components come before the clauses
+				// they're in
+				for (int c = queue.nextSetBit(0); c >= 0; c = queue.nextSetBit(0)) {
+					queue.clear(c);
+					if (store(c, position, evaluate(c, position))) {
+						for (final int parent : seedParents[c]) {
+							queue.set(parent);
+						}
+					}
+				}
+				// The sweep has passed this chunk of terminals
+				if (((position - start) % CHUNK) == 0) {
+					terminalEnds[(position - start) / CHUNK] = null;
+				}
+			}
+			return ends;
+		}
+
+		/**
+		 * Matches every terminal at every position in a chunk.
+		 *
+		 * @param chunk the index of the chunk
+		 */
+		void matchTerminals(final int chunk) {
+			final MemoTable table = new MemoTable();
+			final InputContext terminalContext = new InputContext(input);
+			final int from = start + (chunk * CHUNK);
+			final int to = Math.min(from + CHUNK, input.length() + 1);
+			for (int position = from; position < to; position++) {
+				for (final int c : terminals) {
+					terminalContext.setPosition(position);
+					final int end = clauses[c].recognize(terminalContext);
+					if (end != Pattern.NO_MATCH) {
+						table.putEnd(rules[c], position, end);
+					}
+				}
+			}
+			terminalEnds[chunk] = table;
+		}
+
+		/**
+		 * Retrieves the end of a clause's match found so far.
+		 *
+		 * @param c        the clause
+		 * @param position the position it's matched at
+		 * @return the end position, or NO_MATCH if it hasn't matched there
+		 */
+		private int endOf(final int c, final int position) {
+			final int end = ends.getEnd(rules[c], position);
+			return (end < 0) ? Pattern.NO_MATCH : end;
+		}
+
+		/**
+		 * Evaluates a clause at a position from the ends of its components.
+		 *
+		 * @param c        the clause
+		 * @param position the position to evaluate it at
+		 * @return the end position, or NO_MATCH if it doesn't match
+		 */
+		private int evaluate(final int c, final int position) {
+			final int[] subclauses = components[c];
+			switch (kinds[c]) {
+			case TERMINAL: {
+				final int end = terminalEnds[(position - start) / CHUNK].getEnd(rules[c], position);
+				return (end < 0) ? Pattern.NO_MATCH : end;
+			}
+			case DEFINED:
+				return endOf(subclauses[0], position);
+			case SEQUENCE: {
+				int end = position;
+				for (final int element : subclauses) {
+					end = endOf(element, end);
+					if (end == Pattern.NO_MATCH) {
+						break;
+					}
+				}
+				return end;
+			}
+			case CHOICE:
+				for (final int alternative : subclauses) {
+					final int end = endOf(alternative, position);
+					if (end != Pattern.NO_MATCH) {
+						return end;
+					}
+				}
+				return Pattern.NO_MATCH;
+			case REPETITION:
+				return evaluateRepetition(c, position);
+			case AND:
+				return (endOf(subclauses[0], position) != Pattern.NO_MATCH) ? position : Pattern.NO_MATCH;
+			case NOT:
+				return (endOf(subclauses[0], position) == Pattern.NO_MATCH) ? position : Pattern.NO_MATCH;
+			default:
+				context.setPosition(position);
+				return clauses[c].lazyRecognize(context);
+			}
+		}
+
+		/**
+		 * Evaluates a repetition at a position. A bounded repetition counts its
+		 * matches one at a time; an unbounded one continues the run it found at the
+		 * end of its first match, so that a long run isn't counted again at every
+		 * position inside it.
+		 *
+		 * @param c        the repetition
+		 * @param position the position to evaluate it at
+		 * @return the end position, or NO_MATCH if it doesn't match
+		 */
+		private int evaluateRepetition(final int c, final int position) {
+			final PatternRepetition repetition = (PatternRepetition) clauses[c];
+			final int pattern = components[c][0];
+			final int lowerBound = repetition.getLowerBound();
+			final int upperBound = repetition.getUpperBound();
+
+			if (upperBound != -1) {
+				int end = position;
+				int matches = 0;
+				while (matches != upperBound) {
+					final int next = endOf(pattern, end);
+					if (next == Pattern.NO_MATCH) {
+						break;
+					}
+					end = next;
+					matches++;
+				}
+				return (matches < lowerBound) ? Pattern.NO_MATCH : end;
+			}
+
+			// The pattern isn't nullable, so the run it starts ends where the run at the
+			// end of its first match does
+			final int first = endOf(pattern, position);
+			int run = position;
+			if (first != Pattern.NO_MATCH) {
+				final int rest = runs.getEnd(rules[c], first);
+				run = (rest < 0) ? first : rest;
+			}
+			runs.putEnd(rules[c], position, run);
+
+			// Only the lower bound needs counting
+			int end = position;
+			for (int matches = 0; matches < lowerBound; matches++) {
+				end = endOf(pattern, end);
+				if (end == Pattern.NO_MATCH) {
+					return Pattern.NO_MATCH;
+				}
+			}
+			return run;
+		}
+
+		/**
+		 * Saves a clause's end at a position if it changed. A left-recursive clause
+		 * only ever saves a longer end; any other clause saves whatever it found,
+		 * which only changes when a left-recursive component grew.
+		 *
+		 * @param c        the clause
+		 * @param position the position it was evaluated at
+		 * @param end      the end it was evaluated to
+		 * @return true if the saved end changed, else false
+		 */
+		private boolean store(final int c, final int position, final int end) {
+			final int saved = ends.getEnd(rules[c], position);
+			if (end == Pattern.NO_MATCH) {
+				// Failures aren't saved
+				if ((saved < 0) || growing[c]) {
+					return false;
+				}
+				ends.remove(rules[c], position);
+				return true;
+			}
+			if (growing[c] ? (end <= saved) : (end == saved)) {
+				return false;
+			}
+			ends.putEnd(rules[c], position, end);
+			return true;
+		}
+
+		/**
+		 * Matches the terminals of a range of chunks, splitting it in half until
+		 * there's a single chunk left.
+		 */
+		private final class TerminalTask extends RecursiveAction {
+
+			/** Serial version, as RecursiveAction is Serializable. */
+			private static final long serialVersionUID = 1L;
+
+			/** The first chunk to match. */
+			private final int from;
+
+			/** The chunk after the last one to match. */
+			private final int to;
+
+			/**
+			 * Constructs a TerminalTask over a range of chunks.
+			 *
+			 * @param from the first chunk to match
+			 * @param to   the chunk after the last one to match
+			 */
+			TerminalTask(final int from, final int to) {
+				this.from = from;
+				this.to = to;
+			}
+
+			/**
+			 * Matches the range, forking for each half if it has more than one chunk.
+			 */
+			@Override
+			protected void compute() {
+				if ((to - from) == 1) {
+					matchTerminals(from);
+				} else {
+					final int middle = (from + to) >>> 1;
+					invokeAll(new TerminalTask(from, middle), new TerminalTask(middle, to));
+				}
+			}
+		}
+
+	}
+
+}
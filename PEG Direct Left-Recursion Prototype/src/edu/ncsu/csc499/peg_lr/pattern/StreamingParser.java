@@ -0,0 +1,84 @@
+package edu.ncsu.csc499.peg_lr.pattern;
+
+import java.util.function.Consumer;
+
+import edu.ncsu.csc499.peg_lr.pattern.component.operator.PatternRepetition;
+import edu.ncsu.csc499.peg_lr.structure.InputContext;
+import edu.ncsu.csc499.peg_lr.structure.Result;
+import edu.ncsu.csc499.peg_lr.structure.SegmentedInput;
+import edu.ncsu.csc499.peg_lr.structure.StreamingInput;
+
+/**
+ * Matches a grammar whose root is an unbounded repetition of records, such as
+ * a log made of lines, handing over each record as soon as it's matched rather
+ * than building one tree for the whole input.
+ *
+ * A repetition never goes back into a record it has matched: if the next
+ * record fails, the repetition ends where the last one did. So once a record
+ * is matched, nothing before its end is reached again, and the context
+ * discards it: memoized Results there, and for a {@link StreamingInput}, the
+ * characters too. Over a streamed input, memory only has to hold the record
+ * being matched and whatever it looks ahead at, however long the input is.
+ *
+ * Each record is the Result that lazyMatch() of the root would have built for
+ * it, but its text can only be read while it's being handed over, before its
+ * characters are discarded. Events are still recorded if the context is
+ * traced, so a traced context keeps growing.
+ *
+ * Over a {@link SegmentedInput}, the context's origin moves up as records are
+ * discarded, so inputs longer than 2^31 characters can be matched. A record's
+ * positions are then counted from the context's origin while it's handed
+ * over.
+ */
+public final class StreamingParser {
+
+	/** The repetition of records. */
+	private final PatternRepetition repetition;
+
+	/** The record being repeated. */
+	private final Pattern record;
+
+	/**
+	 * Constructs a StreamingParser, freezing the grammar reachable from the root.
+	 *
+	 * @param root the Pattern to match. Must be an unbounded repetition, or
+	 *             DefinedPatterns defined as one.
+	 * @throws IllegalArgumentException if the root is null or isn't an unbounded
+	 *                                  repetition
+	 */
+	public StreamingParser(final Pattern root) {
+		this.repetition = ParserUtils.repetitionOf(root, null, "StreamingParser");
+		this.record = repetition.getPattern();
+		root.freeze();
+	}
+
+	/**
+	 * Matches records from the context's position until one fails, handing each
+	 * over as it's matched and discarding everything before its end. The context
+	 * is left after the last record.
+	 *
+	 * @param context the context to match in
+	 * @param records receives each record's Result, in order
+	 * @return where the root's match ends, counting from the start of a segmented
+	 *         input, or NO_MATCH if there were fewer records than the repetition
+	 *         needs. The records are handed over either way.
+	 */
+	public long parse(final InputContext context, final Consumer<Result> records) {
+		int matches = 0;
+		while (true) {
+			final Result result = record.lazyMatch(context);
+			if (!result.isSuccess()) {
+				break;
+			}
+			records.accept(result);
+			matches++;
+			// The repetition can't come back before the end of this record
+			context.discardBefore(context.getPosition());
+		}
+		if (matches < repetition.getLowerBound()) {
+			return Pattern.NO_MATCH;
+		}
+		return context.getOrigin() + context.getPosition();
+	}
+
+}
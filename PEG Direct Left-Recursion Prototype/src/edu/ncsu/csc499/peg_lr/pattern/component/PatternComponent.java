@@ -18,6 +18,9 @@ import edu.ncsu.csc499.peg_lr.pattern.Pattern;
  */
 public abstract class PatternComponent extends Pattern {
 
+	/** Name of this component's class, looked up once since every match uses it. */
+	private final String type = this.getClass().getSimpleName();
+
 	/**
 	 * Declares all Pattern Components to be aliases, thus having a name but being
 	 * filtered from the main result display.
@@ -33,7 +36,7 @@ public abstract class PatternComponent extends Pattern {
 	 */
 	@Override
 	public String getType() {
-		return this.getClass().getSimpleName();
+		return type;
 	}
 
 }
@@ -3,11 +3,15 @@
  */
 package edu.ncsu.csc499.peg_lr.pattern.component;
 
-import java.util.Iterator;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 import edu.ncsu.csc499.peg_lr.event.pattern.CharacterAcceptEvent;
+import edu.ncsu.csc499.peg_lr.pattern.FirstSet;
 import edu.ncsu.csc499.peg_lr.pattern.Pattern;
+import edu.ncsu.csc499.peg_lr.structure.ByteInput;
 import edu.ncsu.csc499.peg_lr.structure.InputContext;
 import edu.ncsu.csc499.peg_lr.structure.Result;
 
@@ -20,6 +24,9 @@ public class PatternString extends PatternComponent {
 	/** The string we're expecting to match. */
 	private final String matchString;
 
+	/** The UTF-8 encoding of the string, compared directly against byte input. */
+	private final byte[] encoded;
+
 	/**
 	 * Constructs a PatternString with a string to match.
 	 * 
@@ -27,6 +34,7 @@ public class PatternString extends PatternComponent {
 	 */
 	public PatternString(final String matchString) {
 		this.matchString = matchString;
+		this.encoded = (matchString == null) ? null : matchString.getBytes(StandardCharsets.UTF_8);
 	}
 
 	/**
@@ -38,8 +46,23 @@ public class PatternString extends PatternComponent {
 		// Save initial position
 		final int initialPosition = context.getPosition();
 
-		// Use iterative solution
-		final Result match = new Result(initialPosition);
+		// Bytes are compared all at once, by the string's encoding
+		final ByteInput bytes = context.getBytes();
+		if (bytes != null) {
+			if (!bytes.startsWith(encoded, initialPosition)) {
+				return Result.FAIL(initialPosition);
+			}
+			if (context.isTracing()) {
+				for (int i = initialPosition; i < (initialPosition + encoded.length); i += bytes.charLength(i)) {
+					context.addHistory(new CharacterAcceptEvent(context, i));
+				}
+			}
+			context.setPosition(initialPosition + encoded.length);
+			return new Result(bytes, initialPosition, context.getPosition());
+		}
+
+		// Use iterative solution, spanning the input rather than copying it
+		final Result match = new Result(context.getInput(), initialPosition, initialPosition);
 
 		// Loop for each character of the target string
 		for (final char c : matchString.toCharArray()) {
@@ -47,7 +70,9 @@ public class PatternString extends PatternComponent {
 			if (!context.isAtEnd() && (c == context.next())) {
 				// Add character to Result
 				match.addChar(c);
-				context.addHistory(new CharacterAcceptEvent(context, context.getPosition() - 1));
+				if (context.isTracing()) {
+					context.addHistory(new CharacterAcceptEvent(context, context.getPosition() - 1));
+				}
 			}
 			// Else, character doesn't match.
 			else {
@@ -63,6 +88,22 @@ public class PatternString extends PatternComponent {
 		return match;
 	}
 
+	/**
+	 * Recognizes this pattern string by comparing it against the input in place.
+	 */
+	@Override
+	protected int recognize(final InputContext context) {
+		final int initialPosition = context.getPosition();
+		final ByteInput bytes = context.getBytes();
+		// Out-of-range comparisons simply don't match
+		if ((bytes != null) ? !bytes.startsWith(encoded, initialPosition)
+				: !context.startsWith(matchString, initialPosition)) {
+			return NO_MATCH;
+		}
+		context.setPosition(initialPosition + ((bytes != null) ? encoded.length : matchString.length()));
+		return context.getPosition();
+	}
+
 	/**
 	 * Generates a display string that shows the PatternString's match string
 	 */
@@ -116,6 +157,15 @@ public class PatternString extends PatternComponent {
 		return "\"" + matchString + "\"";
 	}
 
+	/**
+	 * Retrieves the string that this pattern matches.
+	 *
+	 * @return the match string
+	 */
+	public String getMatchString() {
+		return matchString;
+	}
+
 	/**
 	 * {@inheritDoc} This is always nothing for a PatternString.
 	 */
@@ -128,8 +178,8 @@ public class PatternString extends PatternComponent {
 	 * {@inheritDoc} This is always nothing for a PatternString.
 	 */
 	@Override
-	protected Iterator<Pattern> getPossibleLeftmostComponents() {
-		return List.<Pattern>of().iterator();
+	protected List<Pattern> computeLeftmostComponents(final Predicate<Pattern> nullable) {
+		return List.of();
 	}
 
 	/**
@@ -137,8 +187,17 @@ public class PatternString extends PatternComponent {
 	 * string.
 	 */
 	@Override
-	public boolean isNullable() {
+	protected boolean computeNullable(final Predicate<Pattern> nullable) {
 		return matchString.equals("");
 	}
 
+	/**
+	 * {@inheritDoc} This is the first character of the string, or nothing for the
+	 * empty string.
+	 */
+	@Override
+	protected FirstSet computeFirstSet(final Function<Pattern, FirstSet> first, final Predicate<Pattern> nullable) {
+		return matchString.isEmpty() ? FirstSet.EMPTY : FirstSet.of(matchString.charAt(0));
+	}
+
 }
@@ -0,0 +1,488 @@
+package edu.ncsu.csc499.peg_lr.pattern.component.charclass;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+import edu.ncsu.csc499.peg_lr.event.pattern.CharacterAcceptEvent;
+import edu.ncsu.csc499.peg_lr.pattern.FirstSet;
+import edu.ncsu.csc499.peg_lr.pattern.Pattern;
+import edu.ncsu.csc499.peg_lr.pattern.component.PatternComponent;
+import edu.ncsu.csc499.peg_lr.structure.ByteInput;
+import edu.ncsu.csc499.peg_lr.structure.InputContext;
+import edu.ncsu.csc499.peg_lr.structure.Result;
+
+/**
+ * Matches a single character from a set of code points: a range such as
+ * [a-z], a POSIX-style named class such as [:digit:], or unions and negations
+ * of them.
+ *
+ * The set is kept as sorted ranges of code points, which are binary searched,
+ * while ASCII characters are looked up in a 128-bit bitmap. A character outside
+ * the Basic Multilingual Plane is read as the code point its surrogate pair, or
+ * its UTF-8 sequence, makes up, and is as many positions long.
+ *
+ * A PatternRepetition of a character class scans the run of characters in one
+ * loop through {@link #scan(InputContext, int, int)}, without calling match(),
+ * and its Result is a single span rather than one Result per character.
+ */
+public class PatternCharClass extends PatternComponent {
+
+	/** The number of ASCII characters. */
+	private static final int ASCII = 128;
+
+	/** The POSIX character classes, as ranges of ASCII characters, by name. */
+	private static final Map<String, int[]> NAMED = Map.ofEntries(
+			Map.entry("alnum", new int[] { '0', '9', 'A', 'Z', 'a', 'z' }),
+			Map.entry("alpha", new int[] { 'A', 'Z', 'a', 'z' }),
+			Map.entry("blank", new int[] { '\t', '\t', ' ', ' ' }),
+			Map.entry("cntrl", new int[] { 0, 31, 127, 127 }),
+			Map.entry("digit", new int[] { '0', '9' }),
+			Map.entry("graph", new int[] { '!', '~' }),
+			Map.entry("lower", new int[] { 'a', 'z' }),
+			Map.entry("print", new int[] { ' ', '~' }),
+			Map.entry("punct", new int[] { '!', '/', ':', '@', '[', '`', '{', '~' }),
+			Map.entry("space", new int[] { '\t', '\r', ' ', ' ' }),
+			Map.entry("upper", new int[] { 'A', 'Z' }),
+			Map.entry("word", new int[] { '0', '9', 'A', 'Z', '_', '_', 'a', 'z' }),
+			Map.entry("xdigit", new int[] { '0', '9', 'A', 'F', 'a', 'f' }));
+
+	/**
+	 * The first and last code point of each range in the set, in pairs. The
+	 * ranges are sorted, and neither overlap nor touch.
+	 */
+	private final int[] ranges;
+
+	/** Which of the characters 0-63 are in the set, a bit each. */
+	private final long lowAscii;
+
+	/** Which of the characters 64-127 are in the set, a bit each. */
+	private final long highAscii;
+
+	/** The class's definition, in RPL's bracket syntax. */
+	private final String definition;
+
+	/**
+	 * Constructs a PatternCharClass over some ranges of code points, which may
+	 * be in any order and overlap.
+	 *
+	 * @param ranges     the first and last code point of each range, in pairs
+	 * @param definition the class's definition
+	 * @throws IllegalArgumentException if ranges is null or isn't made of valid
+	 *                                  pairs of code points
+	 */
+	protected PatternCharClass(final int[] ranges, final String definition) {
+		this.ranges = normalize(ranges);
+		this.definition = definition;
+
+		// Set a bit for each ASCII character, which sort first
+		long low = 0;
+		long high = 0;
+		for (int i = 0; (i < this.ranges.length) && (this.ranges[i] < ASCII); i += 2) {
+			for (int c = this.ranges[i]; c <= Math.min(this.ranges[i + 1], ASCII - 1); c++) {
+				if (c < 64) {
+					low |= 1L << c;
+				} else {
+					high |= 1L << (c - 64);
+				}
+			}
+		}
+		this.lowAscii = low;
+		this.highAscii = high;
+	}
+
+	/**
+	 * Sorts ranges of code points and merges those that overlap or touch.
+	 *
+	 * @param ranges the first and last code point of each range, in pairs
+	 * @return the merged ranges, in a new array
+	 * @throws IllegalArgumentException if ranges is null or isn't made of valid
+	 *                                  pairs of code points
+	 */
+	private static int[] normalize(final int[] ranges) {
+		if ((ranges == null) || ((ranges.length % 2) != 0)) {
+			throw new IllegalArgumentException("A character class needs pairs of code points.");
+		}
+		final long[] sorted = new long[ranges.length / 2];
+		for (int i = 0; i < ranges.length; i += 2) {
+			if ((ranges[i] < 0) || (ranges[i] > ranges[i + 1]) || (ranges[i + 1] > Character.MAX_CODE_POINT)) {
+				throw new IllegalArgumentException("Invalid range of code points: " + ranges[i] + "-" + ranges[i + 1]);
+			}
+			// Pack each pair into a long that sorts by its first code point
+			sorted[i / 2] = ((long) ranges[i] << 32) | ranges[i + 1];
+		}
+		Arrays.sort(sorted);
+
+		final int[] merged = new int[ranges.length];
+		int size = 0;
+		for (final long range : sorted) {
+			final int first = (int) (range >>> 32);
+			final int last = (int) range;
+			if ((size > 0) && (first <= (merged[size - 1] + 1))) {
+				merged[size - 1] = Math.max(merged[size - 1], last);
+			} else {
+				merged[size++] = first;
+				merged[size++] = last;
+			}
+		}
+		return Arrays.copyOf(merged, size);
+	}
+
+	/**
+	 * Finds the ranges of code points that a test accepts, by trying every one.
+	 *
+	 * @param test the test
+	 * @return the first and last code point of each range, in pairs
+	 */
+	protected static int[] rangesOf(final IntPredicate test) {
+		int[] found = new int[16];
+		int size = 0;
+		for (int c = 0; c <= Character.MAX_CODE_POINT; c++) {
+			if (!test.test(c)) {
+				continue;
+			}
+			if ((size > 0) && (found[size - 1] == (c - 1))) {
+				found[size - 1] = c;
+			} else {
+				if (size == found.length) {
+					found = Arrays.copyOf(found, size * 2);
+				}
+				found[size++] = c;
+				found[size++] = c;
+			}
+		}
+		return Arrays.copyOf(found, size);
+	}
+
+	/**
+	 * Creates a class matching a range of code points, such as [a-z].
+	 *
+	 * @param first the first code point in the range
+	 * @param last  the last code point in the range
+	 * @return the class
+	 * @throws IllegalArgumentException if the range isn't valid
+	 */
+	public static PatternCharClass range(final int first, final int last) {
+		final StringBuilder text = new StringBuilder("[");
+		appendCodePoint(text, first);
+		if (last != first) {
+			appendCodePoint(text.append('-'), last);
+		}
+		return new PatternCharClass(new int[] { first, last }, text.append(']').toString());
+	}
+
+	/**
+	 * Creates a class matching any one of the code points in a string, such as
+	 * [+-*].
+	 *
+	 * @param chars the code points to match
+	 * @return the class
+	 * @throws IllegalArgumentException if chars is null
+	 */
+	public static PatternCharClass of(final String chars) {
+		if (chars == null) {
+			throw new IllegalArgumentException("A character class needs its characters.");
+		}
+		final int[] codePoints = chars.codePoints().toArray();
+		final int[] ranges = new int[codePoints.length * 2];
+		final StringBuilder text = new StringBuilder("[");
+		for (int i = 0; i < codePoints.length; i++) {
+			ranges[2 * i] = codePoints[i];
+			ranges[(2 * i) + 1] = codePoints[i];
+			appendCodePoint(text, codePoints[i]);
+		}
+		return new PatternCharClass(ranges, text.append(']').toString());
+	}
+
+	/**
+	 * Creates one of the POSIX character classes, such as [:digit:]. These hold
+	 * ASCII characters only: alnum, alpha, blank, cntrl, digit, graph, lower,
+	 * print, punct, space, upper, word, and xdigit.
+	 *
+	 * @param name the name of the class, without its brackets and colons
+	 * @return the class
+	 * @throws IllegalArgumentException if there's no class with the name
+	 */
+	public static PatternCharClass named(final String name) {
+		final int[] ranges = (name == null) ? null : NAMED.get(name);
+		if (ranges == null) {
+			throw new IllegalArgumentException("No character class is named " + name + ".");
+		}
+		return new PatternCharClass(ranges, "[:" + name + ":]");
+	}
+
+	/**
+	 * Creates a class matching any code point that any of some classes match,
+	 * such as [[a-z][:digit:]].
+	 *
+	 * @param classes the classes to combine
+	 * @return the class
+	 * @throws IllegalArgumentException if classes is null or holds null
+	 */
+	public static PatternCharClass union(final PatternCharClass... classes) {
+		if ((classes == null) || Arrays.asList(classes).contains(null)) {
+			throw new IllegalArgumentException("A union needs the classes to combine.");
+		}
+		final StringBuilder text = new StringBuilder("[");
+		int[] ranges = new int[0];
+		for (final PatternCharClass c : classes) {
+			final int size = ranges.length;
+			ranges = Arrays.copyOf(ranges, size + c.ranges.length);
+			System.arraycopy(c.ranges, 0, ranges, size, c.ranges.length);
+			text.append(c.definition);
+		}
+		return new PatternCharClass(ranges, text.append(']').toString());
+	}
+
+	/**
+	 * Creates a class matching every code point that this one doesn't, such as
+	 * [^[a-z]].
+	 *
+	 * @return the class
+	 */
+	public PatternCharClass negate() {
+		final int[] complement = new int[ranges.length + 2];
+		int size = 0;
+		int next = 0;
+		for (int i = 0; i < ranges.length; i += 2) {
+			if (ranges[i] > next) {
+				complement[size++] = next;
+				complement[size++] = ranges[i] - 1;
+			}
+			next = ranges[i + 1] + 1;
+		}
+		if (next <= Character.MAX_CODE_POINT) {
+			complement[size++] = next;
+			complement[size++] = Character.MAX_CODE_POINT;
+		}
+		return new PatternCharClass(Arrays.copyOf(complement, size), "[^" + definition + "]");
+	}
+
+	/**
+	 * Appends a code point to a definition, escaping those that are special
+	 * inside brackets or aren't printable ASCII.
+	 *
+	 * @param text      the definition so far
+	 * @param codePoint the code point to append
+	 */
+	private static void appendCodePoint(final StringBuilder text, final int codePoint) {
+		if ("\\[]^-".indexOf(codePoint) >= 0) {
+			text.append('\\').append((char) codePoint);
+		} else if ((codePoint < ' ') || (codePoint > '~')) {
+			text.append(String.format(Character.isBmpCodePoint(codePoint) ? "\\u%04X" : "\\U%08X", codePoint));
+		} else {
+			text.append((char) codePoint);
+		}
+	}
+
+	/**
+	 * Determines whether a code point is in the set.
+	 *
+	 * @param codePoint the code point
+	 * @return true if the class matches it, else false
+	 */
+	public boolean contains(final int codePoint) {
+		if ((codePoint >= 0) && (codePoint < ASCII)) {
+			return containsAscii(codePoint);
+		}
+		// Between a range's first and last code point, the insertion point is odd
+		final int found = Arrays.binarySearch(ranges, codePoint);
+		return (found >= 0) || (((-found - 1) & 1) == 1);
+	}
+
+	/**
+	 * Looks an ASCII character up in the bitmap.
+	 *
+	 * @param c the character, from 0 to 127
+	 * @return true if the class matches it, else false
+	 */
+	private boolean containsAscii(final int c) {
+		return (((c < 64) ? (lowAscii >>> c) : (highAscii >>> (c - 64))) & 1L) != 0;
+	}
+
+	/**
+	 * Retrieves the ranges of code points in the set.
+	 *
+	 * @return the first and last code point of each range, in pairs, sorted
+	 */
+	public int[] getRanges() {
+		return ranges.clone();
+	}
+
+	/**
+	 * Finds how many positions long the character at a position is, if it's in
+	 * the set. ASCII bytes and characters are only looked up in the bitmap.
+	 *
+	 * @param context  the context to read
+	 * @param position the position of the character
+	 * @return the length of the character, or 0 if there's no character there or
+	 *         it isn't in the set
+	 */
+	private int widthAt(final InputContext context, final int position) {
+		if (!context.hasCharAt(position)) {
+			return 0;
+		}
+		final ByteInput bytes = context.getBytes();
+		if (bytes != null) {
+			final byte b = bytes.byteAt(position);
+			if (b >= 0) {
+				return containsAscii(b) ? 1 : 0;
+			}
+			return contains(bytes.codePointAt(position)) ? bytes.charLength(position) : 0;
+		}
+
+		final CharSequence input = context.getInput();
+		final char c = input.charAt(position);
+		if (c < ASCII) {
+			return containsAscii(c) ? 1 : 0;
+		}
+		// A surrogate pair is read as the code point it makes up
+		if (Character.isHighSurrogate(c) && context.hasCharAt(position + 1)) {
+			final char low = input.charAt(position + 1);
+			if (Character.isLowSurrogate(low)) {
+				return contains(Character.toCodePoint(c, low)) ? 2 : 0;
+			}
+		}
+		return contains(c) ? 1 : 0;
+	}
+
+	/**
+	 * Moves the context past a character it's at.
+	 *
+	 * @param context the context to move
+	 * @param width   the length of the character
+	 */
+	private static void step(final InputContext context, final int width) {
+		// advance() only moves past half of a surrogate pair
+		if ((width == 1) || (context.getBytes() != null)) {
+			context.advance();
+		} else {
+			context.setPosition(context.getPosition() + width);
+		}
+	}
+
+	/**
+	 * Matches a single character if it's in the set.
+	 */
+	@Override
+	protected Result match(final InputContext context) {
+		final int startPos = context.getPosition();
+		final int width = widthAt(context, startPos);
+		if (width == 0) {
+			return Result.FAIL(startPos);
+		}
+		if (context.isTracing()) {
+			context.addHistory(new CharacterAcceptEvent(context, startPos));
+		}
+		step(context, width);
+		return new Result(context.getInput(), startPos, context.getPosition());
+	}
+
+	/**
+	 * Recognizes a single character if it's in the set.
+	 */
+	@Override
+	protected int recognize(final InputContext context) {
+		final int width = widthAt(context, context.getPosition());
+		if (width == 0) {
+			return NO_MATCH;
+		}
+		step(context, width);
+		return context.getPosition();
+	}
+
+	/**
+	 * Moves the context past as many characters in the set as there are in a
+	 * row, up to an upper bound, as a PatternRepetition of the class would.
+	 *
+	 * @param context    the context to scan
+	 * @param lowerBound the fewest characters to match
+	 * @param upperBound the most characters to match, or -1 for no limit
+	 * @return the position after the last character matched, or NO_MATCH with
+	 *         the context left where it was if there were fewer than lowerBound
+	 */
+	public int scan(final InputContext context, final int lowerBound, final int upperBound) {
+		int position = context.getPosition();
+		int matches = 0;
+		while (matches != upperBound) {
+			final int width = widthAt(context, position);
+			if (width == 0) {
+				break;
+			}
+			position += width;
+			matches++;
+		}
+		if (matches < lowerBound) {
+			return NO_MATCH;
+		}
+		context.setPosition(position);
+		return position;
+	}
+
+	/**
+	 * A PatternCharClass is declared unique by the code points in its set.
+	 */
+	@Override
+	public int hashCode() {
+		return (31 * super.hashCode()) + Arrays.hashCode(ranges);
+	}
+
+	/**
+	 * Declares that PatternCharClasses are equal if they hold the same code
+	 * points.
+	 */
+	@Override
+	public boolean equals(final Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!super.equals(obj)) {
+			return false;
+		}
+		return Arrays.equals(ranges, ((PatternCharClass) obj).ranges);
+	}
+
+	/**
+	 * {@inheritDoc} Returns the class in bracket syntax.
+	 */
+	@Override
+	public String getDefinition(final boolean component) {
+		return definition;
+	}
+
+	/**
+	 * {@inheritDoc} This is always nothing for a single PatternCharClass.
+	 */
+	@Override
+	public List<Pattern> getPatternComponents() {
+		return List.of();
+	}
+
+	/**
+	 * {@inheritDoc} This is always nothing for a single PatternCharClass.
+	 */
+	@Override
+	protected List<Pattern> computeLeftmostComponents(final Predicate<Pattern> nullable) {
+		return List.of();
+	}
+
+	/**
+	 * {@inheritDoc} This is always false for a single PatternCharClass.
+	 */
+	@Override
+	protected boolean computeNullable(final Predicate<Pattern> nullable) {
+		return false;
+	}
+
+	/**
+	 * {@inheritDoc} This is the first character of each code point in the set.
+	 */
+	@Override
+	protected FirstSet computeFirstSet(final Function<Pattern, FirstSet> first, final Predicate<Pattern> nullable) {
+		return FirstSet.ofCodePoints(ranges);
+	}
+
+}
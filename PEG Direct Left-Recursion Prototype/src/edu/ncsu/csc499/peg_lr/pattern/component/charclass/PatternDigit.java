@@ -3,74 +3,34 @@
  */
 package edu.ncsu.csc499.peg_lr.pattern.component.charclass;
 
-import java.util.Iterator;
-import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
-import edu.ncsu.csc499.peg_lr.event.pattern.CharacterAcceptEvent;
+import edu.ncsu.csc499.peg_lr.pattern.FirstSet;
 import edu.ncsu.csc499.peg_lr.pattern.Pattern;
-import edu.ncsu.csc499.peg_lr.pattern.component.PatternComponent;
-import edu.ncsu.csc499.peg_lr.structure.InputContext;
-import edu.ncsu.csc499.peg_lr.structure.Result;
 
 /**
  * @author Melody Griesen
  *
  */
-public class PatternDigit extends PatternComponent {
+public class PatternDigit extends PatternCharClass {
 
-	/**
-	 * Matches a single digit as determined by Character.isDigit()
-	 */
-	@Override
-	protected Result match(final InputContext context) {
-		// Ensure input remaining
-		if (context.isAtEnd()) {
-			return Result.FAIL(context.getPosition());
-		}
-		// Retrieve character
-		final char ch = context.currentChar();
-		// Determines if the derivation character is a digit
-		if (Character.isDigit(ch)) {
-			// Is a digit! Success
-			final int startPos = context.getPosition();
-			context.addHistory(new CharacterAcceptEvent(context, startPos));
-			context.advance();
-			return new Result(ch, startPos);
-		} else {
-			// Not a digit. Failure
-			return Result.FAIL(context.getPosition());
-		}
-	}
+	/** Every code point that Character.isDigit() accepts, as ranges. */
+	private static final int[] DIGITS = rangesOf(Character::isDigit);
 
 	/**
-	 * {@inheritDoc} Returns character set for 0-9.
+	 * Constructs a PatternDigit, which matches a single digit as determined by
+	 * Character.isDigit(), including those outside the Basic Multilingual Plane.
 	 */
-	@Override
-	public String getDefinition(final boolean component) {
-		return "[0-9]";
-	}
-
-	/**
-	 * {@inheritDoc} This is always nothing for a single PatternDigit.
-	 */
-	@Override
-	public List<Pattern> getPatternComponents() {
-		return List.of();
-	}
-
-	/**
-	 * {@inheritDoc} This is always nothing for a single PatternDigit.
-	 */
-	@Override
-	protected Iterator<Pattern> getPossibleLeftmostComponents() {
-		return List.<Pattern>of().iterator();
+	public PatternDigit() {
+		super(DIGITS, "[0-9]");
 	}
 
 	/**
-	 * {@inheritDoc} This is always false for a single PatternDigit.
+	 * {@inheritDoc} This is every digit.
 	 */
 	@Override
-	public boolean isNullable() {
-		return false;
+	protected FirstSet computeFirstSet(final Function<Pattern, FirstSet> first, final Predicate<Pattern> nullable) {
+		return FirstSet.DIGITS;
 	}
 }
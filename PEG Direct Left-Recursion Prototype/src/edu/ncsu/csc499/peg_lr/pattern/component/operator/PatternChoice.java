@@ -4,10 +4,13 @@
 package edu.ncsu.csc499.peg_lr.pattern.component.operator;
 
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.BitSet;
 import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 import edu.ncsu.csc499.peg_lr.event.pattern.OrderedChoiceEvent;
+import edu.ncsu.csc499.peg_lr.pattern.FirstSet;
 import edu.ncsu.csc499.peg_lr.pattern.Pattern;
 import edu.ncsu.csc499.peg_lr.pattern.component.PatternComponent;
 import edu.ncsu.csc499.peg_lr.structure.InputContext;
@@ -20,13 +23,26 @@ import edu.ncsu.csc499.peg_lr.structure.Result;
 public class PatternChoice extends PatternComponent {
 
 	/** List of patterns to match in ordered choice alternatives. */
-	private List<Pattern> patterns;
+	private final List<Pattern> patterns;
 
 	{
 		// Initialize the List
 		patterns = new ArrayList<>();
 	}
 
+	/** Number of characters, from zero, that the dispatch table covers. */
+	private static final int DISPATCH_SIZE = 128;
+
+	/**
+	 * The alternatives that may match before each character in the dispatch
+	 * table: those that are nullable or may begin with it. Built the first time
+	 * the choice is matched, once the grammar is frozen; null until then.
+	 */
+	private volatile BitSet[] dispatch;
+
+	/** The alternatives that may match at the end of input: the nullable ones. */
+	private BitSet atEnd;
+
 	/**
 	 * Constructs a PatternChoice from all patterns provided. This pattern will be
 	 * matched by an ordered choice of all patterns provided.
@@ -59,8 +75,12 @@ public class PatternChoice extends PatternComponent {
 	 * @return this PatternChoice object for multiple chainings of this method
 	 */
 	public PatternChoice add(final Pattern toAdd) {
+		// The grammar can't change once it's been analyzed
+		requireNotFrozen();
 		// Add the new pattern to the end of the list
 		patterns.add(toAdd);
+		// Any dispatch table built so far no longer covers every pattern
+		dispatch = null;
 		// Return this object for method chaining
 		return this;
 	}
@@ -79,20 +99,23 @@ public class PatternChoice extends PatternComponent {
 		// Track the initial starting position
 		final Result choice = new Result(context.getPosition());
 
-		// Run through the list of patterns to match
-		// Keep track of the previous pattern's result
-		Result result;
-		// Choice index for event reporting
-		int choiceIdx = 0;
-		// Loop over all patterns
-		for (final Pattern p : patterns) {
+		// Run through the alternatives that may match, in order. Their Results are all
+		// attempted at the initial position, so the next character doesn't change.
+		final int choices = patterns.size();
+		for (int choiceIdx = nextCandidate(context, 0); choiceIdx < choices; choiceIdx = nextCandidate(context,
+				choiceIdx + 1)) {
+			final Pattern p = patterns.get(choiceIdx);
 			// Log attempt to match
-			context.addHistory(new OrderedChoiceEvent(context, choiceIdx, p));
+			if (context.isTracing()) {
+				context.addHistory(new OrderedChoiceEvent(context, choiceIdx, p));
+			}
 
 			// Attempt to match this pattern
-			result = p.lazyMatch(context);
+			final Result result = p.lazyMatch(context);
 			// Report result
-			context.addHistory(new OrderedChoiceEvent(context, choiceIdx, p, result));
+			if (context.isTracing()) {
+				context.addHistory(new OrderedChoiceEvent(context, choiceIdx, p, result));
+			}
 
 			// If success, save and return the choice result
 			if (result.isSuccess()) {
@@ -102,14 +125,96 @@ public class PatternChoice extends PatternComponent {
 
 			// Otherwise, try the next pattern instead. Reset the context!
 			context.setPosition(choice.getStartIdx());
-			// Increment choice index for next step
-			choiceIdx++;
 		}
 
-		// Looped over all patterns successfully, none matched. Send it back!
+		// None of the patterns matched. Send it back!
 		return Result.FAIL(context.getPosition());
 	}
 
+	/**
+	 * Recognizes the first pattern that matches, trying each that may match in
+	 * order.
+	 */
+	@Override
+	protected int recognize(final InputContext context) {
+		final int initialPosition = context.getPosition();
+		final int choices = patterns.size();
+		for (int i = nextCandidate(context, 0); i < choices; i = nextCandidate(context, i + 1)) {
+			final int end = patterns.get(i).lazyRecognize(context);
+			if (end != NO_MATCH) {
+				return end;
+			}
+			// Otherwise, try the next pattern instead. Reset the context!
+			context.setPosition(initialPosition);
+		}
+		return NO_MATCH;
+	}
+
+	/**
+	 * Finds the next alternative that may match at the context's position: one
+	 * that is nullable, or whose FIRST set holds the next character. Any other
+	 * alternative is bound to fail without consuming anything, so skipping it
+	 * doesn't change which alternative the ordered choice picks.
+	 *
+	 * @param context the input context, at the position the choice is matched at
+	 * @param from    the index of the first alternative to consider
+	 * @return the index of the next alternative that may match, or the number of
+	 *         alternatives if none are left
+	 */
+	public int nextCandidate(final InputContext context, final int from) {
+		BitSet[] table = dispatch;
+		if (table == null) {
+			table = buildDispatch();
+		}
+
+		final BitSet candidates;
+		if (context.isAtEnd()) {
+			candidates = atEnd;
+		} else {
+			final char c = context.currentChar();
+			if (c >= DISPATCH_SIZE) {
+				// Outside the table, so check each alternative in turn
+				for (int i = from; i < patterns.size(); i++) {
+					final Pattern p = patterns.get(i);
+					if (p.isNullable() || p.getFirstSet().contains(c)) {
+						return i;
+					}
+				}
+				return patterns.size();
+			}
+			candidates = table[c];
+		}
+		final int next = candidates.nextSetBit(from);
+		return (next < 0) ? patterns.size() : next;
+	}
+
+	/**
+	 * Builds the dispatch table from the FIRST set of each alternative.
+	 *
+	 * @return the dispatch table
+	 */
+	private BitSet[] buildDispatch() {
+		final BitSet[] table = new BitSet[DISPATCH_SIZE];
+		final BitSet nullable = new BitSet(patterns.size());
+		for (int i = 0; i < patterns.size(); i++) {
+			if (patterns.get(i).isNullable()) {
+				nullable.set(i);
+			}
+		}
+		for (char c = 0; c < DISPATCH_SIZE; c++) {
+			table[c] = (BitSet) nullable.clone();
+			for (int i = 0; i < patterns.size(); i++) {
+				if (patterns.get(i).getFirstSet().contains(c)) {
+					table[c].set(i);
+				}
+			}
+		}
+		// The table is only published once complete
+		atEnd = nullable;
+		dispatch = table;
+		return table;
+	}
+
 	/**
 	 * Assigns a unique hash code based on the contents of the patterns list.
 	 */
@@ -187,19 +292,19 @@ public class PatternChoice extends PatternComponent {
 	 * {@inheritDoc} Returns a copied list of all ordered choices in this pattern.
 	 */
 	@Override
-	protected Iterator<Pattern> getPossibleLeftmostComponents() {
-		return new ArrayList<>(patterns).iterator();
+	protected List<Pattern> computeLeftmostComponents(final Predicate<Pattern> nullable) {
+		return patterns;
 	}
 
 	/**
 	 * {@inheritDoc} Returns true if any of its choices are nullable.
 	 */
 	@Override
-	public boolean isNullable() {
+	protected boolean computeNullable(final Predicate<Pattern> nullable) {
 		// Iterate over our choices
 		for (final Pattern choice : patterns) {
 			// If this pattern is nullable
-			if (choice.isNullable()) {
+			if (nullable.test(choice)) {
 				// The overall pattern is nullable
 				return true;
 			}
@@ -208,4 +313,16 @@ public class PatternChoice extends PatternComponent {
 		return false;
 	}
 
+	/**
+	 * {@inheritDoc} Combines every choice.
+	 */
+	@Override
+	protected FirstSet computeFirstSet(final Function<Pattern, FirstSet> first, final Predicate<Pattern> nullable) {
+		FirstSet firstSet = FirstSet.EMPTY;
+		for (final Pattern choice : patterns) {
+			firstSet = firstSet.union(first.apply(choice));
+		}
+		return firstSet;
+	}
+
 }
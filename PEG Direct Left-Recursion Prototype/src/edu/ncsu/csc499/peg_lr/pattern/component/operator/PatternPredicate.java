@@ -3,9 +3,11 @@
  */
 package edu.ncsu.csc499.peg_lr.pattern.component.operator;
 
-import java.util.Iterator;
 import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
+import edu.ncsu.csc499.peg_lr.pattern.FirstSet;
 import edu.ncsu.csc499.peg_lr.pattern.Pattern;
 import edu.ncsu.csc499.peg_lr.pattern.component.PatternComponent;
 import edu.ncsu.csc499.peg_lr.structure.InputContext;
@@ -76,6 +78,18 @@ public class PatternPredicate extends PatternComponent {
 		return pred;
 	}
 
+	/**
+	 * Recognizes an empty match if the pattern's success is as expected. Resets
+	 * the InputContext to its original position regardless of result.
+	 */
+	@Override
+	protected int recognize(final InputContext context) {
+		final int startPos = context.getPosition();
+		final boolean success = pattern.lazyRecognize(context) != NO_MATCH;
+		context.setPosition(startPos);
+		return (expectSuccess == success) ? startPos : NO_MATCH;
+	}
+
 	/**
 	 * {@inheritDoc} Prepends > or ! based on expected success.
 	 */
@@ -84,6 +98,25 @@ public class PatternPredicate extends PatternComponent {
 		return (expectSuccess ? ">" : "!") + pattern.getDefinition(true);
 	}
 
+	/**
+	 * Retrieves the pattern that this predicate tests.
+	 *
+	 * @return the predicate's match pattern
+	 */
+	public Pattern getPattern() {
+		return pattern;
+	}
+
+	/**
+	 * Determines whether this predicate accepts when its pattern matches, rather
+	 * than when it doesn't.
+	 *
+	 * @return true for an and-predicate, false for a not-predicate
+	 */
+	public boolean isExpectSuccess() {
+		return expectSuccess;
+	}
+
 	/**
 	 * {@inheritDoc} Returns the predicate's match pattern.
 	 */
@@ -96,16 +129,25 @@ public class PatternPredicate extends PatternComponent {
 	 * {@inheritDoc} Returns the predicate's match pattern.
 	 */
 	@Override
-	protected Iterator<Pattern> getPossibleLeftmostComponents() {
-		return List.of(pattern).iterator();
+	protected List<Pattern> computeLeftmostComponents(final Predicate<Pattern> nullable) {
+		return List.of(pattern);
 	}
 
 	/**
 	 * {@inheritDoc} Always returns true, as a predicate does not consume any input.
 	 */
 	@Override
-	public boolean isNullable() {
+	protected boolean computeNullable(final Predicate<Pattern> nullable) {
 		return true;
 	}
 
+	/**
+	 * {@inheritDoc} This is always nothing, as a predicate does not consume any
+	 * input.
+	 */
+	@Override
+	protected FirstSet computeFirstSet(final Function<Pattern, FirstSet> first, final Predicate<Pattern> nullable) {
+		return FirstSet.EMPTY;
+	}
+
 }
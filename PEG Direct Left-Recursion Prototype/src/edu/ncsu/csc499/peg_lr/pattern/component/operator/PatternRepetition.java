@@ -3,13 +3,16 @@
  */
 package edu.ncsu.csc499.peg_lr.pattern.component.operator;
 
-import java.util.Iterator;
 import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 import edu.ncsu.csc499.peg_lr.event.pattern.PatternEvent.PatternEventType;
 import edu.ncsu.csc499.peg_lr.event.pattern.RepetitionEvent;
+import edu.ncsu.csc499.peg_lr.pattern.FirstSet;
 import edu.ncsu.csc499.peg_lr.pattern.Pattern;
 import edu.ncsu.csc499.peg_lr.pattern.component.PatternComponent;
+import edu.ncsu.csc499.peg_lr.pattern.component.charclass.PatternCharClass;
 import edu.ncsu.csc499.peg_lr.structure.InputContext;
 import edu.ncsu.csc499.peg_lr.structure.Result;
 
@@ -58,6 +61,15 @@ public class PatternRepetition extends PatternComponent {
 	 */
 	@Override
 	protected Result match(final InputContext context) {
+		// A run of a character class is scanned in one loop, as a single span
+		if ((pattern instanceof PatternCharClass) && !context.isTracing()) {
+			final int start = context.getPosition();
+			if (((PatternCharClass) pattern).scan(context, lowerBound, upperBound) == NO_MATCH) {
+				return Result.FAIL(start);
+			}
+			return new Result(context.getInput(), start, context.getPosition());
+		}
+
 		// Create an overall result to track starting position
 		final Result repetition = new Result(context.getPosition());
 		// Track the number of successful iterations
@@ -67,7 +79,9 @@ public class PatternRepetition extends PatternComponent {
 		while (matches != upperBound) {
 
 			// Log attempt to match
-			context.addHistory(new RepetitionEvent(context, pattern, matches));
+			if (context.isTracing()) {
+				context.addHistory(new RepetitionEvent(context, pattern, matches));
+			}
 
 			// Attempt to match at this iteration
 			final Result result = pattern.lazyMatch(context);
@@ -75,7 +89,10 @@ public class PatternRepetition extends PatternComponent {
 			// If we succeeded in matching
 			if (result.isSuccess()) {
 				// Log that we expanded this repetition
-				context.addHistory(new RepetitionEvent(context, pattern, matches, repetition, PatternEventType.EXPAND));
+				if (context.isTracing()) {
+					context.addHistory(
+							new RepetitionEvent(context, pattern, matches, repetition, PatternEventType.EXPAND));
+				}
 				// Increment our match count
 				matches++;
 				// Add as a child of our matches
@@ -84,12 +101,15 @@ public class PatternRepetition extends PatternComponent {
 			// Otherwise, we failed in matching
 			else {
 				// Fail this repeition
-				context.addHistory(new RepetitionEvent(context, pattern, matches, repetition, PatternEventType.REJECT));
+				if (context.isTracing()) {
+					context.addHistory(
+							new RepetitionEvent(context, pattern, matches, repetition, PatternEventType.REJECT));
+				}
 
 				// Did we meet the minimum count?
 				if (matches >= lowerBound) {
 					// If yes, return a success
-					return repetition;
+					return finish(context, repetition);
 				}
 				// We did not meet the minimum count.
 				else {
@@ -103,12 +123,56 @@ public class PatternRepetition extends PatternComponent {
 
 		// We exited matching because we reached our maximum number of matches.
 		// Log this to the history
-		context.addHistory(new RepetitionEvent(context, pattern, matches - 1, repetition, PatternEventType.LIMIT));
+		if (context.isTracing()) {
+			context.addHistory(new RepetitionEvent(context, pattern, matches - 1, repetition, PatternEventType.LIMIT));
+		}
 
 		// Success!
+		return finish(context, repetition);
+	}
+
+	/**
+	 * Finishes a successful repetition matched one repetition at a time, as it is
+	 * while tracing.
+	 *
+	 * @param context    the context matched against
+	 * @param repetition the Result holding each repetition
+	 * @return the Result, or a single span in its place for a run of a character
+	 *         class, the same as when it's scanned
+	 */
+	private Result finish(final InputContext context, final Result repetition) {
+		if (pattern instanceof PatternCharClass) {
+			return new Result(context.getInput(), repetition.getStartIdx(), repetition.getEndIdx());
+		}
 		return repetition;
 	}
 
+	/**
+	 * Recognizes the pattern as many times as it matches, up to the upper bound,
+	 * failing if that is fewer than the lower bound.
+	 */
+	@Override
+	protected int recognize(final InputContext context) {
+		if ((pattern instanceof PatternCharClass) && !context.isTracing()) {
+			return ((PatternCharClass) pattern).scan(context, lowerBound, upperBound);
+		}
+		final int initialPosition = context.getPosition();
+		int matches = 0;
+		while (matches != upperBound) {
+			if (pattern.lazyRecognize(context) == NO_MATCH) {
+				break;
+			}
+			matches++;
+		}
+
+		// Did we meet the minimum count?
+		if (matches < lowerBound) {
+			context.setPosition(initialPosition);
+			return NO_MATCH;
+		}
+		return context.getPosition();
+	}
+
 	/**
 	 * A PatternRepetition is declared unique by all of its fields - Pattern, lower
 	 * bound, and upper bound.
@@ -214,6 +278,33 @@ public class PatternRepetition extends PatternComponent {
 
 	}
 
+	/**
+	 * Retrieves the pattern that this repetition repeats.
+	 *
+	 * @return the repeated pattern
+	 */
+	public Pattern getPattern() {
+		return pattern;
+	}
+
+	/**
+	 * Retrieves the minimum number of times that the pattern must match.
+	 *
+	 * @return the lower bound
+	 */
+	public int getLowerBound() {
+		return lowerBound;
+	}
+
+	/**
+	 * Retrieves the maximum number of times that the pattern may match.
+	 *
+	 * @return the upper bound, or -1 if there is no limit
+	 */
+	public int getUpperBound() {
+		return upperBound;
+	}
+
 	/**
 	 * {@inheritDoc} Returns the single repeated component of this repetition.
 	 */
@@ -226,8 +317,8 @@ public class PatternRepetition extends PatternComponent {
 	 * {@inheritDoc} Returns the single repeated component of this repetition.
 	 */
 	@Override
-	protected Iterator<Pattern> getPossibleLeftmostComponents() {
-		return List.of(pattern).iterator();
+	protected List<Pattern> computeLeftmostComponents(final Predicate<Pattern> nullable) {
+		return List.of(pattern);
 	}
 
 	/**
@@ -235,8 +326,16 @@ public class PatternRepetition extends PatternComponent {
 	 * repetition is nullable.
 	 */
 	@Override
-	public boolean isNullable() {
-		return (lowerBound == 0) || pattern.isNullable();
+	protected boolean computeNullable(final Predicate<Pattern> nullable) {
+		return (lowerBound == 0) || nullable.test(pattern);
+	}
+
+	/**
+	 * {@inheritDoc} This is the repeated pattern's.
+	 */
+	@Override
+	protected FirstSet computeFirstSet(final Function<Pattern, FirstSet> first, final Predicate<Pattern> nullable) {
+		return first.apply(pattern);
 	}
 
 }
@@ -4,11 +4,12 @@
 package edu.ncsu.csc499.peg_lr.pattern.component.operator;
 
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
-import java.util.NoSuchElementException;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 import edu.ncsu.csc499.peg_lr.event.pattern.SequenceEvent;
+import edu.ncsu.csc499.peg_lr.pattern.FirstSet;
 import edu.ncsu.csc499.peg_lr.pattern.Pattern;
 import edu.ncsu.csc499.peg_lr.pattern.component.PatternComponent;
 import edu.ncsu.csc499.peg_lr.structure.InputContext;
@@ -21,7 +22,7 @@ import edu.ncsu.csc499.peg_lr.structure.Result;
 public class PatternSequence extends PatternComponent {
 
 	/** List of patterns to match one after another. */
-	private List<Pattern> patterns;
+	private final List<Pattern> patterns;
 
 	{
 		// Initialize the List
@@ -59,6 +60,8 @@ public class PatternSequence extends PatternComponent {
 	 * @return this PatternSequence object for multiple chainings of this method
 	 */
 	public PatternSequence add(final Pattern toAdd) {
+		// The grammar can't change once it's been analyzed
+		requireNotFrozen();
 		// Add the new pattern to the end of the list
 		patterns.add(toAdd);
 		// Return this object for method chaining
@@ -85,11 +88,15 @@ public class PatternSequence extends PatternComponent {
 		// Loop over all patterns
 		for (final Pattern p : patterns) {
 			// Log attempt to match
-			context.addHistory(new SequenceEvent(context, sequenceIdx, p));
+			if (context.isTracing()) {
+				context.addHistory(new SequenceEvent(context, sequenceIdx, p));
+			}
 			// Attempt to match this pattern
 			result = p.lazyMatch(context);
 			// Report result
-			context.addHistory(new SequenceEvent(context, sequenceIdx, p, result));
+			if (context.isTracing()) {
+				context.addHistory(new SequenceEvent(context, sequenceIdx, p, result));
+			}
 			// If fail, return it
 			if (!result.isSuccess()) {
 				// Reset the context first
@@ -107,6 +114,22 @@ public class PatternSequence extends PatternComponent {
 		return sequence;
 	}
 
+	/**
+	 * Recognizes each pattern in turn, failing as soon as one doesn't match.
+	 */
+	@Override
+	protected int recognize(final InputContext context) {
+		final int initialPosition = context.getPosition();
+		for (int i = 0; i < patterns.size(); i++) {
+			// If fail, reset the context and fail the whole sequence
+			if (patterns.get(i).lazyRecognize(context) == NO_MATCH) {
+				context.setPosition(initialPosition);
+				return NO_MATCH;
+			}
+		}
+		return context.getPosition();
+	}
+
 	/**
 	 * Assigns a unique hash code based on the contents of the patterns list.
 	 */
@@ -185,64 +208,27 @@ public class PatternSequence extends PatternComponent {
 	 * patterns that are preceded by all nullable patterns.
 	 */
 	@Override
-	protected Iterator<Pattern> getPossibleLeftmostComponents() {
-
-		// Return a custom Iterator over the patterns in this sequence.
-		// Elements are returned from next() if all leftward elements are nullable.
-		return new Iterator<>() {
-
-			/** List to return elements from */
-			List<Pattern> sequenceComponents = patterns;
-
-			/** Current position in the list */
-			int idx = 0;
-
-			/**
-			 * The next element is returnable if it's at the front of the list, or the
-			 * element to its left is nullable
-			 * 
-			 * @return true if the iterator is at the front of the list, or if the previous
-			 *         element is nullable.
-			 */
-			@Override
-			public boolean hasNext() {
-				return (idx == 0) || patterns.get(idx - 1).isNullable();
-			}
-
-			/**
-			 * If there is another element to retrieve, returns it and advances the iterator
-			 * one position.
-			 * 
-			 * @return the next possibly left-recursive element in the list
-			 * @throws NoSuchElementException if there are no more left-recursive elements
-			 *                                in the list
-			 */
-			@Override
-			public Pattern next() {
-				// Check for no more elements
-				if (!hasNext()) {
-					throw new NoSuchElementException("No more left-recursive elements in sequence");
-				}
-
-				// Return the next element and increment the position
-				return sequenceComponents.get(idx++);
+	protected List<Pattern> computeLeftmostComponents(final Predicate<Pattern> nullable) {
+		final List<Pattern> leftmost = new ArrayList<>();
+		// Take elements until one of them must consume input
+		for (final Pattern pattern : patterns) {
+			leftmost.add(pattern);
+			if (!nullable.test(pattern)) {
+				break;
 			}
-		};
+		}
+		return leftmost;
 	}
 
 	/**
 	 * {@inheritDoc} Returns true only if all elements in the sequence are nullable.
 	 */
 	@Override
-	public boolean isNullable() {
+	protected boolean computeNullable(final Predicate<Pattern> nullable) {
 		// Loop over the sequence
 		for (final Pattern pattern : patterns) {
-			// If this pattern is left-recursive, skip it
-			if (pattern.isLeftRecursive()) {
-				continue;
-			}
 			// If this pattern is not nullable
-			if (!pattern.isNullable()) {
+			if (!nullable.test(pattern)) {
 				// The overall sequence isn't nullable
 				return false;
 			}
@@ -252,4 +238,20 @@ public class PatternSequence extends PatternComponent {
 		return true;
 	}
 
+	/**
+	 * {@inheritDoc} Combines the elements up to the first one that must consume
+	 * input.
+	 */
+	@Override
+	protected FirstSet computeFirstSet(final Function<Pattern, FirstSet> first, final Predicate<Pattern> nullable) {
+		FirstSet firstSet = FirstSet.EMPTY;
+		for (final Pattern pattern : patterns) {
+			firstSet = firstSet.union(first.apply(pattern));
+			if (!nullable.test(pattern)) {
+				break;
+			}
+		}
+		return firstSet;
+	}
+
 }
@@ -0,0 +1,46 @@
+package edu.ncsu.csc499.peg_lr.pattern.definition;
+
+import edu.ncsu.csc499.peg_lr.pattern.Pattern;
+import edu.ncsu.csc499.peg_lr.pattern.component.PatternString;
+import edu.ncsu.csc499.peg_lr.pattern.component.operator.PatternChoice;
+import edu.ncsu.csc499.peg_lr.pattern.component.operator.PatternSequence;
+
+/**
+ * expr <- link1; link1 <- link2; ...; linkN <- { expr + num / num }
+ *
+ * An indirectly left-recursive sum, reaching itself through a chain of links.
+ * Every link is involved in the recursion, so each growing attempt re-evaluates
+ * the whole chain once.
+ */
+public class DefinedIndirectExpression extends DefinedPattern {
+
+	/** Pattern type to provide the display or reference name. */
+	private static final String TYPE = "IndirectExpression";
+
+	/** Pattern type of each link, followed by its number. */
+	private static final String LINK_TYPE = "Link";
+
+	/**
+	 * IndirectExpression constructor that provides the type, and builds the chain
+	 * of links defining it.
+	 *
+	 * @param links the number of links between the expression and itself, at least
+	 *              one
+	 * @throws IllegalArgumentException if there are no links
+	 */
+	public DefinedIndirectExpression(final int links) {
+		super(TYPE);
+		if (links < 1) {
+			throw new IllegalArgumentException("An indirect expression needs at least one link.");
+		}
+
+		// Build the chain from its last link, which calls back to this expression
+		Pattern link = new DefinedPattern(LINK_TYPE + links, new PatternChoice(
+				new PatternSequence(this, new PatternString("+"), new DefinedNumber()), new DefinedNumber()));
+		for (int i = links - 1; i >= 1; i--) {
+			link = new DefinedPattern(LINK_TYPE + i, link);
+		}
+		super.setDefinition(link);
+	}
+
+}
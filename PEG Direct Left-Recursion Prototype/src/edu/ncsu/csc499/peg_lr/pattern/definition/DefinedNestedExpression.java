@@ -0,0 +1,36 @@
+package edu.ncsu.csc499.peg_lr.pattern.definition;
+
+import edu.ncsu.csc499.peg_lr.pattern.Pattern;
+import edu.ncsu.csc499.peg_lr.pattern.component.PatternString;
+import edu.ncsu.csc499.peg_lr.pattern.component.operator.PatternChoice;
+import edu.ncsu.csc499.peg_lr.pattern.component.operator.PatternSequence;
+
+/**
+ * expr <- { term "+" expr / term "-" expr / term }
+ * 
+ * Every alternative begins with the same term, so without memoization a
+ * failing alternative throws away a term that the next alternative matches all
+ * over again. With nested parentheses this repeats at every level, and the
+ * match time grows exponentially with the nesting depth.
+ */
+public class DefinedNestedExpression extends DefinedPattern {
+
+	/** Pattern type to provide the display or reference name. */
+	private static final String TYPE = "NestedExpression";
+
+	/** The term shared by every alternative. */
+	private final Pattern term = new DefinedTerm(this);
+
+	/** Internal definition used when matching. */
+	private final Pattern pattern = new PatternChoice(new PatternSequence(term, new PatternString("+"), this),
+			new PatternSequence(term, new PatternString("-"), this), term);
+
+	/**
+	 * NestedExpression constructor that provides the type and pattern definition.
+	 */
+	public DefinedNestedExpression() {
+		super(TYPE);
+		super.setDefinition(pattern);
+	}
+
+}
@@ -3,9 +3,11 @@
  */
 package edu.ncsu.csc499.peg_lr.pattern.definition;
 
-import java.util.Iterator;
 import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
+import edu.ncsu.csc499.peg_lr.pattern.FirstSet;
 import edu.ncsu.csc499.peg_lr.pattern.Pattern;
 import edu.ncsu.csc499.peg_lr.structure.InputContext;
 import edu.ncsu.csc499.peg_lr.structure.Result;
@@ -67,12 +69,22 @@ public class DefinedPattern extends Pattern {
 		}
 	}
 
+	/**
+	 * Delegates recognition to the defining pattern.
+	 */
+	@Override
+	protected int recognize(final InputContext context) {
+		return getPattern().lazyRecognize(context);
+	}
+
 	/**
 	 * Sets this Pattern's type.
 	 *
 	 * @param type the type to set. Cannot be null or blank.
 	 */
 	protected void setType(final String type) {
+		// The grammar can't change once it's been analyzed
+		requireNotFrozen();
 		if ((type == null) || type.isBlank()) {
 			throw new IllegalArgumentException("Pattern type cannot be null or empty.");
 		}
@@ -86,6 +98,8 @@ public class DefinedPattern extends Pattern {
 	 * @param definition the pattern that this one will delegate to upon matching
 	 */
 	protected void setDefinition(final Pattern definition) {
+		// The grammar can't change once it's been analyzed
+		requireNotFrozen();
 		if (definition == null) {
 			throw new IllegalArgumentException("Pattern definition cannot be null.");
 		}
@@ -138,34 +152,43 @@ public class DefinedPattern extends Pattern {
 	 */
 	@Override
 	public List<Pattern> getPatternComponents() {
-		return List.of(getPattern());
+		// Recursive definitions may not be set yet
+		return (getPattern() == null) ? List.of() : List.of(getPattern());
 	}
 
 	/**
 	 * {@inheritDoc} Returns the definition for this DefinedPattern.
 	 */
 	@Override
-	protected Iterator<Pattern> getPossibleLeftmostComponents() {
-		return List.of(getPattern()).iterator();
+	protected List<Pattern> computeLeftmostComponents(final Predicate<Pattern> nullable) {
+		return getPatternComponents();
+	}
+
+	/**
+	 * {@inheritDoc} Delegates to this pattern's definition for nullability. A
+	 * pattern whose definition hasn't been set yet can't match anything.
+	 */
+	@Override
+	protected boolean computeNullable(final Predicate<Pattern> nullable) {
+		return (getPattern() != null) && nullable.test(getPattern());
 	}
 
 	/**
-	 * {@inheritDoc} Delegates to this pattern's definition for nullability.
+	 * {@inheritDoc} Delegates to this pattern's definition.
 	 */
 	@Override
-	public boolean isNullable() {
-		return getPattern().isNullable();
+	protected FirstSet computeFirstSet(final Function<Pattern, FirstSet> first, final Predicate<Pattern> nullable) {
+		return (getPattern() == null) ? FirstSet.EMPTY : first.apply(getPattern());
 	}
 
 	/**
 	 * Implements hashCode to compare based on ID, as definitions should *always* be
-	 * singly created.
+	 * singly created. Never looks into the definition, so hashing a component that
+	 * refers to this pattern stays shallow.
 	 */
 	@Override
 	public int hashCode() {
-		final int prime = 31;
-		final int hash = (prime * super.hashCode()) + super.getID();
-		return hash;
+		return Integer.hashCode(getID());
 	}
 
 	/**
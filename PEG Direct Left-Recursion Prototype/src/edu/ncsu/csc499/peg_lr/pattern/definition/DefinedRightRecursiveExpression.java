@@ -24,7 +24,7 @@ public class DefinedRightRecursiveExpression extends DefinedPattern {
 	 * Instantiates a RightRecursiveExpression with its pattern type name and
 	 * definition
 	 */
-	protected DefinedRightRecursiveExpression() {
+	public DefinedRightRecursiveExpression() {
 		super(TYPE);
 		super.setDefinition(pattern);
 	}
@@ -0,0 +1,56 @@
+package edu.ncsu.csc499.peg_lr.pattern.definition;
+
+import edu.ncsu.csc499.peg_lr.pattern.Pattern;
+import edu.ncsu.csc499.peg_lr.pattern.component.PatternString;
+import edu.ncsu.csc499.peg_lr.pattern.component.operator.PatternRepetition;
+import edu.ncsu.csc499.peg_lr.pattern.component.operator.PatternSequence;
+
+/**
+ * Statements <- (Expression ";")+
+ *
+ * A list of statements, each an expression ended by a semicolon. As an
+ * unbounded repetition of records, it can be matched a record at a time, in
+ * chunks, or incrementally.
+ */
+public class DefinedStatements extends DefinedPattern {
+
+	/** Pattern type to provide the display or reference name. */
+	private static final String TYPE = "Statements";
+
+	/** A single statement: Expression ";" */
+	private final Pattern statement;
+
+	/**
+	 * Statements constructor that provides the type, with a DefinedExpression for
+	 * each statement's expression.
+	 */
+	public DefinedStatements() {
+		this(new DefinedExpression());
+	}
+
+	/**
+	 * Statements constructor that provides the type, with the given pattern for
+	 * each statement's expression.
+	 *
+	 * @param expression the pattern each statement begins with
+	 * @throws IllegalArgumentException if expression is null
+	 */
+	public DefinedStatements(final Pattern expression) {
+		super(TYPE);
+		if (expression == null) {
+			throw new IllegalArgumentException("Statements need an expression.");
+		}
+		statement = new PatternSequence(expression, new PatternString(";"));
+		super.setDefinition(new PatternRepetition(statement, 1, -1));
+	}
+
+	/**
+	 * Retrieves the pattern for a single statement, which is repeated.
+	 *
+	 * @return the statement pattern
+	 */
+	public Pattern getStatement() {
+		return statement;
+	}
+
+}
@@ -0,0 +1,31 @@
+package edu.ncsu.csc499.peg_lr.pattern.definition;
+
+import edu.ncsu.csc499.peg_lr.pattern.Pattern;
+import edu.ncsu.csc499.peg_lr.pattern.component.PatternString;
+import edu.ncsu.csc499.peg_lr.pattern.component.operator.PatternChoice;
+import edu.ncsu.csc499.peg_lr.pattern.component.operator.PatternSequence;
+
+/**
+ * term <- { "(" expr ")" / num }
+ * 
+ * The expression matched between the parentheses is provided by whichever
+ * Pattern owns this term.
+ */
+public class DefinedTerm extends DefinedPattern {
+
+	/** Pattern type to provide the display or reference name. */
+	private static final String TYPE = "Term";
+
+	/**
+	 * Term constructor that provides the type and builds the pattern definition
+	 * around the given parenthesized expression.
+	 *
+	 * @param expression the Pattern that may be matched between parentheses
+	 */
+	public DefinedTerm(final Pattern expression) {
+		super(TYPE);
+		super.setDefinition(new PatternChoice(
+				new PatternSequence(new PatternString("("), expression, new PatternString(")")), new DefinedNumber()));
+	}
+
+}
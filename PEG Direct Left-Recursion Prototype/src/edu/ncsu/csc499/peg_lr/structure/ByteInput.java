@@ -0,0 +1,232 @@
+package edu.ncsu.csc499.peg_lr.structure;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * UTF-8 input read straight from bytes, such as a file mapped into memory,
+ * without decoding it into a String first. Positions are byte offsets, so the
+ * span of a Result is the span of its bytes in the file.
+ *
+ * ASCII bytes are characters of their own. A multi-byte sequence is only
+ * decoded when a character is asked for at its first byte, and counts as one
+ * character that's as many positions long as it has bytes; a code point outside
+ * the Basic Multilingual Plane is read as its high surrogate, as String.charAt()
+ * reads the first half of a pair. A byte that doesn't start a valid sequence is
+ * read as U+FFFD, one position long.
+ *
+ * As a CharSequence, its length is the number of bytes, and its subsequences
+ * decode the bytes between two positions.
+ *
+ * Subclasses may read their bytes from somewhere other than a single buffer,
+ * such as the segments of a {@link SegmentedInput}, by overriding byteAt(),
+ * length() and subSequence().
+ */
+public class ByteInput implements CharSequence {
+
+	/** The character read in place of bytes that aren't valid UTF-8. */
+	private static final char REPLACEMENT = '\uFFFD';
+
+	/** The bytes, from position 0 to their limit, or null for a subclass. */
+	private final ByteBuffer bytes;
+
+	/**
+	 * Constructs a ByteInput over the remaining bytes of a buffer. The buffer's
+	 * position becomes position 0 of the input, and its contents must not change
+	 * while matching.
+	 *
+	 * @param buffer the bytes to read
+	 * @throws IllegalArgumentException if buffer is null
+	 */
+	public ByteInput(final ByteBuffer buffer) {
+		if (buffer == null) {
+			throw new IllegalArgumentException("A ByteInput needs a buffer.");
+		}
+		this.bytes = buffer.slice();
+	}
+
+	/**
+	 * Constructs a ByteInput for a subclass that reads its bytes itself.
+	 */
+	ByteInput() {
+		this.bytes = null;
+	}
+
+	/**
+	 * Constructs a ByteInput over a byte array.
+	 *
+	 * @param bytes the bytes to read
+	 */
+	public ByteInput(final byte[] bytes) {
+		this(ByteBuffer.wrap(bytes));
+	}
+
+	/**
+	 * Maps a file into memory read-only, to be read as a ByteInput. The operating
+	 * system pages the file in as it's read, so the file is never copied onto the
+	 * heap.
+	 *
+	 * @param file the file to map
+	 * @return a ByteInput over the file's bytes
+	 * @throws IOException              if the file can't be mapped
+	 * @throws IllegalArgumentException if the file is too large for int positions
+	 */
+	public static ByteInput map(final Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IllegalArgumentException("Cannot map a file of more than 2^31 bytes.");
+			}
+			// The mapping stays valid once the channel is closed
+			return new ByteInput(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/**
+	 * Retrieves the byte at a position.
+	 *
+	 * @param index the position
+	 * @return the byte there
+	 */
+	public byte byteAt(final int index) {
+		return bytes.get(index);
+	}
+
+	/**
+	 * Retrieves the character starting at a position, decoding it if it's more
+	 * than one byte long.
+	 */
+	@Override
+	public char charAt(final int index) {
+		final byte b = byteAt(index);
+		// ASCII is the same in UTF-8
+		if (b >= 0) {
+			return (char) b;
+		}
+		final int codePoint = codePointAt(index);
+		return Character.isBmpCodePoint(codePoint) ? (char) codePoint : Character.highSurrogate(codePoint);
+	}
+
+	/**
+	 * Decodes the code point starting at a position in full, including one
+	 * outside the Basic Multilingual Plane.
+	 *
+	 * @param index the position
+	 * @return the code point, or U+FFFD if the bytes there aren't valid UTF-8
+	 */
+	public int codePointAt(final int index) {
+		final byte b = byteAt(index);
+		if (b >= 0) {
+			return b;
+		}
+		final int length = charLength(index);
+		return (length == 1) ? REPLACEMENT : decode(index, length);
+	}
+
+	/**
+	 * Calculates how many bytes the character starting at a position takes up.
+	 *
+	 * @param index the position
+	 * @return the length of the UTF-8 sequence starting there, or 1 if it isn't
+	 *         valid
+	 */
+	public int charLength(final int index) {
+		final int b = byteAt(index) & 0xFF;
+		final int length;
+		if (b < 0x80) {
+			return 1;
+		} else if ((b >= 0xC2) && (b < 0xE0)) {
+			length = 2;
+		} else if ((b >= 0xE0) && (b < 0xF0)) {
+			length = 3;
+		} else if ((b >= 0xF0) && (b < 0xF5)) {
+			length = 4;
+		} else {
+			return 1;
+		}
+
+		// Every byte after the first must continue the sequence
+		if ((index + length) > length()) {
+			return 1;
+		}
+		for (int i = 1; i < length; i++) {
+			if ((byteAt(index + i) & 0xC0) != 0x80) {
+				return 1;
+			}
+		}
+
+		// Overlong, surrogate, and out-of-range sequences aren't valid either
+		final int codePoint = decode(index, length);
+		if (((length == 3) && ((codePoint < 0x800) || Character.isSurrogate((char) codePoint)))
+				|| ((length == 4) && ((codePoint < 0x10000) || (codePoint > Character.MAX_CODE_POINT)))) {
+			return 1;
+		}
+		return length;
+	}
+
+	/**
+	 * Decodes the code point of a multi-byte sequence, once it's known to be well
+	 * formed.
+	 *
+	 * @param index  the position of its first byte
+	 * @param length the number of bytes in the sequence
+	 * @return the code point
+	 */
+	private int decode(final int index, final int length) {
+		// The lead byte keeps 7 - length bits, and each continuation byte adds 6
+		int codePoint = byteAt(index) & (0x7F >> length);
+		for (int i = 1; i < length; i++) {
+			codePoint = (codePoint << 6) | (byteAt(index + i) & 0x3F);
+		}
+		return codePoint;
+	}
+
+	/**
+	 * Determines whether the input continues with some bytes at a position.
+	 *
+	 * @param prefix   the bytes to look for
+	 * @param position the position to look at
+	 * @return true if the input has the bytes at the position, else false
+	 */
+	public boolean startsWith(final byte[] prefix, final int position) {
+		if ((position < 0) || ((position + prefix.length) > length())) {
+			return false;
+		}
+		for (int i = 0; i < prefix.length; i++) {
+			if (byteAt(position + i) != prefix[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the number of bytes.
+	 */
+	@Override
+	public int length() {
+		return bytes.limit();
+	}
+
+	/**
+	 * Decodes the bytes from one position to another.
+	 */
+	@Override
+	public CharSequence subSequence(final int start, final int end) {
+		final byte[] copy = new byte[end - start];
+		bytes.duplicate().position(start).get(copy);
+		return new String(copy, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Decodes every byte.
+	 */
+	@Override
+	public String toString() {
+		return subSequence(0, length()).toString();
+	}
+
+}
@@ -0,0 +1,239 @@
+package edu.ncsu.csc499.peg_lr.structure;
+
+import java.util.Arrays;
+
+/**
+ * The edits made to an input that is parsed again after each one, so that the
+ * Results memoized before an edit can be kept without moving any of them when
+ * it's made.
+ *
+ * Memo tables are keyed by where a character was first put into the input,
+ * rather than by where it is now: the original characters are numbered from 1,
+ * each edit numbers the characters it inserts after every number used so far,
+ * and the end of the input is always 0. Characters an edit doesn't touch keep
+ * their keys, so entries after it need no rehashing. Positions are turned into
+ * keys through a table of pieces, each a run of characters whose keys are
+ * consecutive, which only grows by a piece or two for each edit.
+ *
+ * Each edit is also linked after the one before it. A Result remembers the
+ * last edit its positions account for, and catches up on those after it only
+ * when it's next read: moving by the difference in length if it's after an
+ * edit, or becoming stale if matching looked at what an edit replaced to build
+ * it. An edit therefore costs nothing for the text after it, and each Result
+ * kept is moved only once it's used again.
+ */
+public final class EditLog {
+
+	/** The key of the end of the input, wherever it is. */
+	static final int END = 0;
+
+	/** The edit that Results matched before an edit they looked at end at. */
+	static final Edit STALE = new Edit(null, 0, 0, 0, new int[0]);
+
+	/** The input, edited in place. */
+	private final CharSequence input;
+
+	/** The number of characters in the input. */
+	private int length;
+
+	/** The first key that no character has been given yet. */
+	private int nextKey;
+
+	/** The position at which each piece begins, in order. */
+	private int[] pieceStarts = new int[4];
+
+	/** The key of the first character of each piece. */
+	private int[] pieceKeys = new int[4];
+
+	/** The number of pieces. */
+	private int pieces;
+
+	/** The last edit made, or one that changed nothing before the first. */
+	private Edit last;
+
+	/**
+	 * Constructs an EditLog for an input that hasn't been edited yet.
+	 *
+	 * @param input the input, which must only be changed in place, with each
+	 *              change logged by replace()
+	 * @throws IllegalArgumentException if input is null
+	 */
+	public EditLog(final CharSequence input) {
+		if (input == null) {
+			throw new IllegalArgumentException("An EditLog needs an input.");
+		}
+		this.input = input;
+		this.length = input.length();
+		this.nextKey = length + 1;
+		if (length > 0) {
+			pieceStarts[0] = 0;
+			pieceKeys[0] = 1;
+			pieces = 1;
+		}
+		this.last = new Edit(input, 0, 0, 0, new int[0]);
+	}
+
+	/**
+	 * Logs that the positions from one to another were replaced with some number
+	 * of new ones.
+	 *
+	 * @param start       the first position replaced
+	 * @param end         the position after the last one replaced
+	 * @param replacement the number of positions that replaced them
+	 * @throws IndexOutOfBoundsException if the positions aren't within the input,
+	 *                                   or end is before start
+	 * @throws IllegalArgumentException  if replacement is negative
+	 */
+	public void replace(final int start, final int end, final int replacement) {
+		if ((start < 0) || (end > length) || (start > end)) {
+			throw new IndexOutOfBoundsException("Cannot replace from " + start + " to " + end + ".");
+		}
+		if (replacement < 0) {
+			throw new IllegalArgumentException("Cannot replace with a negative length.");
+		}
+		final int delta = replacement - (end - start);
+
+		// Keep what's before the edit, then the new characters, then what's after it,
+		// moved. Pieces are only split where the edit falls inside them.
+		final int[] starts = new int[pieces + 2];
+		final int[] keys = new int[pieces + 2];
+		int[] removed = new int[0];
+		int count = 0;
+		for (int i = 0; i < pieces; i++) {
+			// The keys of the replaced characters in this piece, which no position has
+			// any more
+			final int pieceEnd = ((i + 1) < pieces) ? pieceStarts[i + 1] : length;
+			final int from = Math.max(pieceStarts[i], start);
+			final int to = Math.min(pieceEnd, end);
+			if (from < to) {
+				removed = Arrays.copyOf(removed, removed.length + 2);
+				removed[removed.length - 2] = pieceKeys[i] + (from - pieceStarts[i]);
+				removed[removed.length - 1] = pieceKeys[i] + (to - pieceStarts[i]);
+			}
+			if (pieceStarts[i] < start) {
+				starts[count] = pieceStarts[i];
+				keys[count++] = pieceKeys[i];
+			}
+		}
+		if (replacement > 0) {
+			starts[count] = start;
+			keys[count++] = nextKey;
+			nextKey += replacement;
+		}
+		for (int i = 0; i < pieces; i++) {
+			final int pieceEnd = ((i + 1) < pieces) ? pieceStarts[i + 1] : length;
+			if (pieceEnd > end) {
+				final int from = Math.max(pieceStarts[i], end);
+				starts[count] = from + delta;
+				keys[count++] = pieceKeys[i] + (from - pieceStarts[i]);
+			}
+		}
+
+		// Join pieces whose keys carry on from each other, as typing does
+		pieces = 0;
+		for (int i = 0; i < count; i++) {
+			if ((pieces > 0) && ((keys[i] - pieceKeys[pieces - 1]) == (starts[i] - pieceStarts[pieces - 1]))) {
+				continue;
+			}
+			if (pieces == pieceStarts.length) {
+				pieceStarts = Arrays.copyOf(pieceStarts, pieces * 2);
+				pieceKeys = Arrays.copyOf(pieceKeys, pieces * 2);
+			}
+			pieceStarts[pieces] = starts[i];
+			pieceKeys[pieces++] = keys[i];
+		}
+
+		length += delta;
+		final Edit edit = new Edit(input, start, end, delta, removed);
+		last.next = edit;
+		last = edit;
+	}
+
+	/**
+	 * Finds the memo key of a position.
+	 *
+	 * @param position the position, from 0 to the length of the input
+	 * @return the key of the character there, or END at the end of the input
+	 */
+	int keyOf(final int position) {
+		if (position >= length) {
+			return END;
+		}
+		// The last piece starting at or before the position
+		int low = 0;
+		int high = pieces - 1;
+		while (low < high) {
+			final int mid = (low + high + 1) >>> 1;
+			if (pieceStarts[mid] <= position) {
+				low = mid;
+			} else {
+				high = mid - 1;
+			}
+		}
+		return pieceKeys[low] + (position - pieceStarts[low]);
+	}
+
+	/**
+	 * Retrieves the last edit made, which new Results account for.
+	 *
+	 * @return the last edit
+	 */
+	Edit last() {
+		return last;
+	}
+
+	/**
+	 * Returns the number of pieces that keys are looked up through.
+	 *
+	 * @return the number of pieces
+	 */
+	int pieces() {
+		return pieces;
+	}
+
+	/**
+	 * A single edit, linked to the one made after it.
+	 */
+	static final class Edit {
+
+		/** The input edited, whose Results don't have text of their own. */
+		final CharSequence input;
+
+		/** The first position replaced. */
+		final int start;
+
+		/** The position after the last one replaced. */
+		final int end;
+
+		/** The difference in length the edit made. */
+		final int delta;
+
+		/**
+		 * The keys of the characters the edit replaced, as runs from a first key to
+		 * the one after the last, in pairs.
+		 */
+		final int[] removed;
+
+		/** The next edit made, or null if this is the last so far. */
+		Edit next;
+
+		/**
+		 * Constructs an Edit.
+		 *
+		 * @param input   the input edited
+		 * @param start   the first position replaced
+		 * @param end     the position after the last one replaced
+		 * @param delta   the difference in length the edit made
+		 * @param removed the runs of keys of the characters it replaced
+		 */
+		Edit(final CharSequence input, final int start, final int end, final int delta, final int[] removed) {
+			this.input = input;
+			this.start = start;
+			this.end = end;
+			this.delta = delta;
+			this.removed = removed;
+		}
+
+	}
+
+}
@@ -3,13 +3,16 @@
  */
 package edu.ncsu.csc499.peg_lr.structure;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
-
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import edu.ncsu.csc499.peg_lr.event.EventHistory;
 import edu.ncsu.csc499.peg_lr.event.ParseEvent;
+import edu.ncsu.csc499.peg_lr.event.ParseEventSink;
 import edu.ncsu.csc499.peg_lr.event.control.MemoryEvent;
 import edu.ncsu.csc499.peg_lr.event.control.MemoryEvent.MemoryEventType;
 import edu.ncsu.csc499.peg_lr.event.control.PositionEvent;
@@ -21,6 +24,9 @@ import edu.ncsu.csc499.peg_lr.pattern.Pattern;
  * operations on the input string such as character retrieval and position
  * navigation.
  * 
+ * Results are memoized by rule index, which is only unique within a grammar,
+ * so one InputContext should only be matched against a single grammar.
+ * 
  * @author Melody Griesen
  *
  */
@@ -32,9 +38,48 @@ public class InputContext {
 
 	// Parse fields
 
-	/** Original input string, stored for useful methods like substring. */
+	/**
+	 * Original input string, stored for useful methods like substring. Null if the
+	 * input isn't a String.
+	 */
 	private final String inputString;
 
+	/**
+	 * The input, whether held as a String, streamed, read as bytes, or a window of
+	 * a SegmentedInput.
+	 */
+	private CharSequence input;
+
+	/** The streamed input, or null if it isn't streamed. */
+	private final StreamingInput stream;
+
+	/**
+	 * The input read as bytes, or null if it isn't. For a segmented input, the
+	 * same window as the input.
+	 */
+	private ByteInput bytes;
+
+	/** The segmented input the window is of, or null if there isn't one. */
+	private final SegmentedInput segments;
+
+	/**
+	 * The position in a segmented input that is position 0 here. Always 0 for
+	 * other inputs.
+	 */
+	private long origin;
+
+	/**
+	 * How far past the origin a segmented input's context must discard before the
+	 * origin moves up, which clears every memoized Result.
+	 */
+	private static final int REBASE_DISTANCE = 1 << 20;
+
+	/**
+	 * The position before which everything has been discarded, as matching will
+	 * never return there.
+	 */
+	private int discarded;
+
 	/**
 	 * Tracks the current "position" of the Context. The character at [position] is
 	 * the next one to be consumed.
@@ -45,19 +90,111 @@ public class InputContext {
 		position = 0;
 	}
 
-	/** The Growing Map of Results identified by Pattern. */
-	private Map<Integer, Map<Pattern, Result>> patterns;
+	/**
+	 * The position after the last one looked at since the innermost lazyMatch()
+	 * began, so that its Result can record how far it looked.
+	 */
+	private int reach;
+
+	/**
+	 * The Growing Map of Results identified by Pattern rule index and position.
+	 * Storage for a position is only allocated once a Result is saved there.
+	 */
+	private MemoTable patterns = new MemoTable();
+
+	/**
+	 * Whether every non-hidden Pattern's Result should be memoized in the growing
+	 * map (full packrat parsing), rather than only left-recursive seeds.
+	 */
+	private boolean packrat;
 	{
-		this.patterns = new HashMap<>();
+		// Packrat memoization is opt-in
+		packrat = false;
 	}
 
+	/**
+	 * Whether a left-recursive Pattern's Result is kept in the growing map once it
+	 * has finished growing, rather than cleared.
+	 */
+	private boolean retainingGrowth;
+
+	/** How left-recursive Patterns are matched. */
+	private LeftRecursionStrategy leftRecursionStrategy = LeftRecursionStrategy.SEED_GROWING;
+
+	/**
+	 * Number of left-recursive seeds being grown at each position, while retaining
+	 * growth. Null until the first seed is planted.
+	 */
+	private int[] growing;
+
+	/**
+	 * Left-recursive Patterns whose first match at a position is being evaluated,
+	 * innermost last, as in Warth et al.'s LR stack: the rules, their positions,
+	 * and the heads they've been found to be involved in.
+	 */
+	private Pattern[] invocationRules = new Pattern[16];
+
+	/** The position of each invocation on the left-recursion stack. */
+	private int[] invocationPositions = new int[16];
+
+	/** The head each invocation on the left-recursion stack is involved in. */
+	private LeftRecursionHead[] invocationHeads = new LeftRecursionHead[16];
+
+	/** Number of invocations on the left-recursion stack. */
+	private int invocations;
+
+	/**
+	 * The head of the recursion being grown at each position. Null until the
+	 * first head is grown.
+	 */
+	private LeftRecursionHead[] heads;
+
+	/**
+	 * End positions found bottom-up by a PikaParser, by rule index and position.
+	 * Null unless a PikaParser is building a Result tree.
+	 */
+	private MemoTable knownEnds;
+
+	/** Rule indices of the Patterns whose ends are known. */
+	private BitSet knownRules;
+
+	/**
+	 * The edits made to the input, through which memo keys are looked up, or null
+	 * if it isn't being edited and they're its positions.
+	 */
+	private EditLog edits;
+
+	/**
+	 * Rule indices of the grammar's left-recursive Patterns, whose Results at a
+	 * position are dropped together. Null unless the input is being edited.
+	 */
+	private BitSet leftRecursive;
+
+	/**
+	 * Ends saved without Results while the input is being edited, by rule index and
+	 * position, which aren't kept across an edit. Null unless it's being edited.
+	 */
+	private MemoTable recognized;
+
+	/** Number of Results memoized before the last edit that have been used again. */
+	private int reused;
+
+	/** The last edit whose replaced characters' Results have been evicted. */
+	private EditLog.Edit evicted;
+
+	/** Number of edits since the memoized Results were last compacted. */
+	private int uncompacted;
+
 	// Display fields
 
 	/**
-	 * List of all "events" that have happened in the context (matching,
-	 * backtracking, etc.)
+	 * Receives all "events" that happen in the context (matching, backtracking,
+	 * etc.) Discards them unless a recording sink is provided.
 	 */
-	private final List<ParseEvent> history = new ArrayList<>();
+	private ParseEventSink eventSink;
+
+	/** Cached from the event sink, checked before constructing every event. */
+	private boolean tracing;
 
 	/**
 	 * How far the InputContext will print to either side when running toString()
@@ -83,18 +220,112 @@ public class InputContext {
 	 * @param input the input string that this object will contain
 	 */
 	public InputContext(final String input) {
-		// Save the raw string
-		this.inputString = input;
+		this(input, ParseEventSink.NONE);
+	}
 
-		// For each character of the input String, create an empty HashMap for the
-		// growing map
-		for (int i = 0; i < input.length(); i++) {
-			// Set an empty hash map for each index
-			patterns.put(i, new HashMap<>());
-		}
+	/**
+	 * Constructs an {@link InputContext} object that reports every event that
+	 * happens while matching over it to the given sink.
+	 * 
+	 * @param input     the input string that this object will contain
+	 * @param eventSink the sink to report events to
+	 */
+	public InputContext(final String input, final ParseEventSink eventSink) {
+		this(input, input, null, null, null, 0, eventSink);
+	}
+
+	/**
+	 * Constructs an {@link InputContext} object over an input read as it's
+	 * needed. Only a window of it is held in memory, and parts of it that
+	 * matching can't return to can be dropped with discardBefore(). The input
+	 * isn't available as a whole, so getInputString() and length() can't be used.
+	 *
+	 * @param input the streamed input that this object will contain
+	 */
+	public InputContext(final StreamingInput input) {
+		this(null, input, input, null, null, 0, ParseEventSink.NONE);
+	}
 
-		// For the last index, set it to an empty map
-		patterns.put(input.length(), new HashMap<>());
+	/**
+	 * Constructs an {@link InputContext} object over UTF-8 bytes, such as a file
+	 * mapped into memory. Positions are byte offsets, and advancing past a
+	 * character moves over all of its bytes. The input isn't held as a String, so
+	 * getInputString() can't be used.
+	 *
+	 * @param input the bytes that this object will contain
+	 */
+	public InputContext(final ByteInput input) {
+		this(null, input, null, input, null, 0, ParseEventSink.NONE);
+	}
+
+	/**
+	 * Constructs an {@link InputContext} object over any sequence of characters,
+	 * such as a buffer being edited between parses. Its contents must not change
+	 * while matching. Unless it's a String, the input isn't held as one, so
+	 * getInputString() can't be used. A String, {@link StreamingInput} or
+	 * {@link ByteInput} is read just as its own constructor would read it.
+	 *
+	 * @param input the characters that this object will contain
+	 */
+	public InputContext(final CharSequence input) {
+		this((input instanceof String) ? (String) input : null, input,
+				(input instanceof StreamingInput) ? (StreamingInput) input : null,
+				(input instanceof ByteInput) ? (ByteInput) input : null, null, 0, ParseEventSink.NONE);
+	}
+
+	/**
+	 * Constructs an {@link InputContext} object over a segmented input, from its
+	 * start.
+	 *
+	 * @param input the segmented input that this object will contain
+	 */
+	public InputContext(final SegmentedInput input) {
+		this(input, 0);
+	}
+
+	/**
+	 * Constructs an {@link InputContext} object over a segmented input, from a
+	 * position in it. Positions are counted from the origin, which starts at that
+	 * position and moves up as the context discards what it's matched, so they
+	 * stay within an int however long the input is. A segmented input of
+	 * {@link ByteInput}s is read as bytes, just as a single ByteInput is. The
+	 * input isn't held as a String, so getInputString() can't be used.
+	 *
+	 * Matching can't reach more than 2^31 positions past the origin, so the
+	 * context must discard what it has matched as it goes, as
+	 * a StreamingParser does.
+	 *
+	 * @param input  the segmented input that this object will contain
+	 * @param origin the position in the input to start from
+	 */
+	public InputContext(final SegmentedInput input, final long origin) {
+		this(null, input.window(origin), null, null, input, origin, ParseEventSink.NONE);
+	}
+
+	/**
+	 * Constructs an {@link InputContext} object over any kind of input. A window
+	 * of a segmented input is read as bytes if it's a {@link ByteInput}.
+	 *
+	 * @param inputString the input as a String, or null if it isn't one
+	 * @param input       the input, or the window of a segmented input
+	 * @param stream      the streamed input, or null if it isn't streamed
+	 * @param bytes       the input read as bytes, or null if it isn't
+	 * @param segments    the segmented input the window is of, or null
+	 * @param origin      the position in a segmented input that is position 0
+	 * @param eventSink   the sink to report events to
+	 */
+	private InputContext(final String inputString, final CharSequence input, final StreamingInput stream,
+			final ByteInput bytes, final SegmentedInput segments, final long origin,
+			final ParseEventSink eventSink) {
+		this.inputString = inputString;
+		this.input = input;
+		this.stream = stream;
+		this.segments = segments;
+		this.bytes = ((segments != null) && (input instanceof ByteInput)) ? (ByteInput) input : bytes;
+		this.origin = origin;
+
+		// Start reporting events
+		setEventSink(eventSink);
 
 		// Start the print range off at the default
 		printRange = DEFAUT_PRINT_RANGE;
@@ -118,7 +349,19 @@ public class InputContext {
 	 */
 	public void setPosition(final int position) {
 		this.position = position;
-		addHistory(new PositionEvent(this, PositionEventType.SET));
+		if (tracing) {
+			addHistory(new PositionEvent(this, PositionEventType.SET));
+		}
+	}
+
+	/**
+	 * Retrieves the position in a segmented input that positions here are counted
+	 * from. A Result's positions are relative to the origin when it was matched.
+	 *
+	 * @return the origin, or 0 if the input isn't segmented
+	 */
+	public long getOrigin() {
+		return origin;
 	}
 
 	/**
@@ -128,16 +371,49 @@ public class InputContext {
 	 *         character to consume)
 	 */
 	public boolean isAtEnd() {
-		return this.position == this.inputString.length();
+		return !hasCharAt(this.position);
+	}
+
+	/**
+	 * Determines whether the input has a character at a position. A streamed
+	 * input is read ahead to it.
+	 *
+	 * @param index the position to check
+	 * @return true if the input is longer than the position, else false
+	 * @throws IllegalStateException if a segmented input continues past the
+	 *                               furthest position its window reaches
+	 */
+	public boolean hasCharAt(final int index) {
+		if (index >= reach) {
+			reach = index + 1;
+		}
+		if (stream != null) {
+			return stream.reaches(index);
+		}
+		if (index < input.length()) {
+			return true;
+		}
+		// A segmented input's window can end before the input does, which mustn't be
+		// mistaken for the end
+		if ((segments != null) && ((origin + input.length()) < segments.length())) {
+			throw new IllegalStateException("Cannot match more than 2^31 positions past the origin of a segmented "
+					+ "input. Discard what has been matched to move the origin up.");
+		}
+		return false;
 	}
 
 	/**
 	 * Returns the total length of the input string.
 	 *
-	 * @return the number of characters in the input string
+	 * @return the number of characters in the input string, or of bytes if it's
+	 *         read as bytes
+	 * @throws IllegalStateException if the input is streamed
 	 */
 	public int length() {
-		return inputString.length();
+		if (stream != null) {
+			throw new IllegalStateException("A streamed input's length isn't known.");
+		}
+		return input.length();
 	}
 
 	/**
@@ -150,8 +426,11 @@ public class InputContext {
 		if (isAtEnd()) {
 			throw new IllegalStateException("Cannot advance when already at end of input");
 		}
-		position++;
-		addHistory(new PositionEvent(this, PositionEventType.ADVANCE));
+		// A character read from bytes may be several of them long
+		position += (bytes == null) ? 1 : bytes.charLength(position);
+		if (tracing) {
+			addHistory(new PositionEvent(this, PositionEventType.ADVANCE));
+		}
 		return this;
 	}
 
@@ -173,11 +452,299 @@ public class InputContext {
 	 * Retrieves the input string that this InputContext holds.
 	 *
 	 * @return the inputString
+	 * @throws IllegalStateException if the input is streamed
 	 */
 	public String getInputString() {
 		return getInputString(false);
 	}
 
+	/**
+	 * Retrieves the input read as bytes, which patterns can compare against
+	 * directly.
+	 *
+	 * @return the bytes, or null if the input isn't read as bytes
+	 */
+	public ByteInput getBytes() {
+		return bytes;
+	}
+
+	/**
+	 * Retrieves the input, which Results can span without copying it. A streamed
+	 * input only holds the characters that haven't been discarded.
+	 *
+	 * @return the input, indexed by position
+	 */
+	public CharSequence getInput() {
+		return input;
+	}
+
+	/**
+	 * Determines whether the whole input is held as characters, indexed by
+	 * position, so that getInput() can be read from anywhere. Streamed and
+	 * segmented inputs only hold a window of it, and byte inputs are indexed by
+	 * byte.
+	 *
+	 * @return true if getInput() holds the whole input as characters, else false
+	 */
+	public boolean isCharInput() {
+		return (stream == null) && (bytes == null) && (segments == null);
+	}
+
+	/**
+	 * Determines whether the input continues with a string at a position.
+	 *
+	 * @param prefix   the string to look for
+	 * @param position the position to look at
+	 * @return true if the input has the string at the position, else false
+	 */
+	public boolean startsWith(final String prefix, final int position) {
+		reach = Math.max(reach, position + Math.max(prefix.length(), 1));
+		if (bytes != null) {
+			return bytes.startsWith(prefix.getBytes(StandardCharsets.UTF_8), position);
+		}
+		if (inputString != null) {
+			return inputString.startsWith(prefix, position);
+		}
+		// The position can be at the end, but not past it
+		if ((position < 0) || ((position > 0) && !hasCharAt(position - 1))) {
+			return false;
+		}
+		// Read ahead to the end of the prefix
+		if (!prefix.isEmpty() && !hasCharAt((position + prefix.length()) - 1)) {
+			return false;
+		}
+		for (int i = 0; i < prefix.length(); i++) {
+			if (input.charAt(position + i) != prefix.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Forgets everything before a position, which matching must never return to:
+	 * memoized Results there, and for a streamed input, the characters. Results
+	 * already built over those characters can no longer produce their text.
+	 *
+	 * Over a segmented input, once the position is far enough from the origin,
+	 * the origin moves up to it: the position becomes 0, and every memoized Result
+	 * is forgotten, as its positions were counted from the old origin.
+	 *
+	 * @param position the first position that matching may still reach
+	 * @throws IllegalArgumentException if the position is before one already
+	 *                                  discarded, or past the current position
+	 * @throws IllegalStateException    if a left-recursive match is in progress
+	 */
+	public void discardBefore(final int position) {
+		if ((position < discarded) || (position > this.position)) {
+			throw new IllegalArgumentException("Cannot discard before position " + position + ".");
+		}
+		if (invocations != 0) {
+			throw new IllegalStateException("Cannot discard input while a left-recursive match is in progress.");
+		}
+		patterns.discardBefore(position);
+		// Nothing is growing, so there are no heads or seeds to keep
+		heads = null;
+		growing = null;
+		discarded = position;
+		if (stream != null) {
+			stream.discardBefore(position);
+		}
+		if ((segments != null) && (position >= REBASE_DISTANCE)) {
+			origin += position;
+			input = segments.window(origin);
+			bytes = (input instanceof ByteInput) ? (ByteInput) input : null;
+			patterns = new MemoTable();
+			discarded = 0;
+			this.position -= position;
+		}
+	}
+
+	/**
+	 * Memoizes Results by where their text was first put into the input rather than
+	 * by position, so that they can be kept when it's edited. Must be called before
+	 * anything is memoized.
+	 *
+	 * @param edits         the log of the edits that will be made to the input
+	 * @param leftRecursive the indices of the grammar's left-recursive rules
+	 * @throws IllegalArgumentException if either is null
+	 */
+	public void trackEdits(final EditLog edits, final BitSet leftRecursive) {
+		if ((edits == null) || (leftRecursive == null)) {
+			throw new IllegalArgumentException("Tracking edits needs their log and the left-recursive rules.");
+		}
+		this.edits = edits;
+		this.leftRecursive = leftRecursive;
+		this.recognized = new MemoTable();
+		this.evicted = edits.last();
+	}
+
+	/**
+	 * Takes over the memoized Results of a context over the same input before an
+	 * edit. Nothing is moved or copied: each Result catches up on the edit when
+	 * it's next looked up, and is dropped then if matching looked at what the edit
+	 * replaced to build it.
+	 *
+	 * The Results memoized at the characters an edit replaced are evicted, since
+	 * nothing can look them up again. Those elsewhere that went stale are only
+	 * found when they're looked up, so once there have been as many edits as there
+	 * are characters, every memoized Result is caught up and the stale ones
+	 * dropped. Results a compaction catches up aren't counted by getReused().
+	 *
+	 * @param previous the context over the input before the edit, which must be
+	 *                 tracking edits and isn't used again
+	 * @throws IllegalArgumentException if previous isn't tracking edits
+	 */
+	public void keepResults(final InputContext previous) {
+		if (previous.edits == null) {
+			throw new IllegalArgumentException("Results can only be kept from a context tracking edits.");
+		}
+		patterns = previous.patterns;
+		trackEdits(previous.edits, previous.leftRecursive);
+		uncompacted = previous.uncompacted;
+		for (EditLog.Edit e = previous.evicted.next; e != null; e = e.next) {
+			for (int i = 0; i < e.removed.length; i += 2) {
+				for (int key = e.removed[i]; key < e.removed[i + 1]; key++) {
+					patterns.removeAll(key);
+				}
+			}
+			uncompacted++;
+		}
+		if (uncompacted > length()) {
+			compact();
+		}
+	}
+
+	/**
+	 * Drops every memoized Result that an edit left stale, along with the other
+	 * left-recursive Results memoized by the same key, and catches up the rest,
+	 * so that none hold on to old edits.
+	 */
+	private void compact() {
+		final BitSet staleKeys = new BitSet();
+		patterns.removeIf((rule, key, r) -> {
+			final boolean stale = (r != null) && r.isStale();
+			if (stale && leftRecursive.get(rule)) {
+				staleKeys.set(key);
+			}
+			return stale;
+		});
+		final Set<Result> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+		patterns.removeIf((rule, key, r) -> {
+			if (leftRecursive.get(rule) && staleKeys.get(key)) {
+				return true;
+			}
+			if (r != null) {
+				r.catchUpTree(visited);
+			}
+			return false;
+		});
+		uncompacted = 0;
+	}
+
+	/**
+	 * Returns the number of Results memoized, including those kept from before
+	 * edits.
+	 *
+	 * @return the number of memoized Results
+	 */
+	public int getMemoized() {
+		return patterns.size();
+	}
+
+	/**
+	 * Returns the number of lookups that found a Result memoized before the last
+	 * edit, the first time each was used again.
+	 *
+	 * @return the number of Results reused
+	 */
+	public int getReused() {
+		return reused;
+	}
+
+	/**
+	 * Finds the memo key of a position.
+	 *
+	 * @param index the position
+	 * @return the key that Results at the position are memoized by
+	 */
+	private int keyOf(final int index) {
+		return (edits == null) ? index : edits.keyOf(index);
+	}
+
+	/**
+	 * Checks that a memoized Result still holds after the edits since it was saved,
+	 * catching it up on them, and drops it if it doesn't. A left-recursive rule's
+	 * Result is only kept if every other left-recursive Result memoized by the same
+	 * key is, since they were grown together.
+	 *
+	 * @param rule the rule index of the Result's Pattern
+	 * @param key  the key it's memoized by
+	 * @param r    the Result
+	 * @return the Result, or null if it was dropped
+	 */
+	private Result kept(final int rule, final int key, final Result r) {
+		if (r.getEdit() == edits.last()) {
+			return r;
+		}
+		if (r.isStale()) {
+			patterns.remove(rule, key);
+			if (!leftRecursive.get(rule)) {
+				return null;
+			}
+		} else if (leftRecursive.get(rule)) {
+			boolean stale = false;
+			for (int i = leftRecursive.nextSetBit(0); (i >= 0) && !stale; i = leftRecursive.nextSetBit(i + 1)) {
+				final Result other = patterns.get(i, key);
+				stale = (other != null) && other.isStale();
+			}
+			if (!stale) {
+				reused++;
+				return r;
+			}
+		} else {
+			reused++;
+			return r;
+		}
+		for (int i = leftRecursive.nextSetBit(0); i >= 0; i = leftRecursive.nextSetBit(i + 1)) {
+			patterns.remove(i, key);
+		}
+		return null;
+	}
+
+	/**
+	 * Begins recording how far a lazyMatch() looks, from the current position.
+	 *
+	 * @return how far the enclosing match had looked, to be passed to endReach()
+	 */
+	public int beginReach() {
+		final int outer = reach;
+		reach = position;
+		return outer;
+	}
+
+	/**
+	 * Finishes recording how far a lazyMatch() looked, saving it in the Result it
+	 * returned, and counts it towards the enclosing match.
+	 *
+	 * @param outer  how far the enclosing match had looked, from beginReach()
+	 * @param result the Result that lazyMatch() returned. A memoized Result may
+	 *               have looked farther than this call did.
+	 */
+	public void endReach(final int outer, final Result result) {
+		result.extendReach(reach);
+		reach = Math.max(outer, result.getReach());
+	}
+
+	/**
+	 * Retrieves how far the current lazyMatch() has looked so far.
+	 *
+	 * @return the position after the last one looked at
+	 */
+	public int getReach() {
+		return reach;
+	}
+
 	/**
 	 * Retrieves the input string, optionally adding an epsilon character to
 	 * represent the end of input.
@@ -188,7 +755,10 @@ public class InputContext {
 	 *         end-of-string epsilon character
 	 */
 	public String getInputString(final boolean addEpsilon) {
-		return inputString + (addEpsilon ? CHAR_EPSILON : "");
+		if (inputString == null) {
+			throw new IllegalStateException("The input isn't held as a String.");
+		}
+		return addEpsilon ? inputString + CHAR_EPSILON : inputString;
 	}
 
 	/**
@@ -201,7 +771,7 @@ public class InputContext {
 		if (isAtEnd()) {
 			throw new IllegalStateException();
 		}
-		return this.inputString.charAt(position);
+		return this.input.charAt(position);
 	}
 
 	/**
@@ -258,8 +828,13 @@ public class InputContext {
 	 * @return the previous Result stored at the location in the growing map
 	 */
 	public Result setResultFor(final Pattern pattern, final Result result, final int index) {
-		addHistory(new MemoryEvent(this, MemoryEventType.SAVE, pattern, result, index));
-		return patterns.get(index).put(pattern, result);
+		if (tracing) {
+			addHistory(new MemoryEvent(this, MemoryEventType.SAVE, pattern, result, index));
+		}
+		if (edits != null) {
+			result.trackEdits(edits.last());
+		}
+		return patterns.put(pattern.getRuleIndex(), keyOf(index), result);
 	}
 
 	// Getters
@@ -285,8 +860,14 @@ public class InputContext {
 	 * @return the Result saved for the specified index and pattern
 	 */
 	public Result resultFor(final Pattern p, final int index) {
-		final Result r = this.patterns.get(index).get(p);
-		addHistory(new MemoryEvent(this, MemoryEventType.CHECK, p, r, index));
+		final int key = keyOf(index);
+		Result r = this.patterns.get(p.getRuleIndex(), key);
+		if ((r != null) && (edits != null)) {
+			r = kept(p.getRuleIndex(), key, r);
+		}
+		if (tracing) {
+			addHistory(new MemoryEvent(this, MemoryEventType.CHECK, p, r, index));
+		}
 		return r;
 	}
 
@@ -306,8 +887,56 @@ public class InputContext {
 	 * @param index the index to clear of the pattern
 	 */
 	public void clearResult(final Pattern p, final int index) {
-		addHistory(new MemoryEvent(this, MemoryEventType.CLEAR, p, null, index));
-		patterns.get(index).remove(p);
+		if (tracing) {
+			addHistory(new MemoryEvent(this, MemoryEventType.CLEAR, p, null, index));
+		}
+		patterns.remove(p.getRuleIndex(), keyOf(index));
+	}
+
+	/**
+	 * Saves only the end position of a match for a given Pattern in the growing
+	 * map, for recognizing without Results. Isn't recorded in the history.
+	 *
+	 * @param pattern the pattern that will be used to access this end
+	 * @param end     the position at which the match ends, or MemoTable.FAILED
+	 * @param index   the index at which to save the end
+	 */
+	public void setEndFor(final Pattern pattern, final int end, final int index) {
+		// Ends are positions, which an edit would move, so they're kept apart
+		if (edits != null) {
+			recognized.putEnd(pattern.getRuleIndex(), index, end);
+			return;
+		}
+		patterns.putEnd(pattern.getRuleIndex(), index, end);
+	}
+
+	/**
+	 * Retrieves the end position of the match the growing map knows of for the
+	 * specified pattern and position, whether it was saved with a Result or on its
+	 * own. Isn't recorded in the history.
+	 *
+	 * @param p     the pattern that should be used to retrieve a growing end
+	 * @param index the index that should be used to retrieve a growing end
+	 * @return the saved end position, MemoTable.FAILED if the saved match failed,
+	 *         or MemoTable.NOT_SAVED if nothing is saved
+	 */
+	public int endFor(final Pattern p, final int index) {
+		if (edits != null) {
+			final int end = recognized.getEnd(p.getRuleIndex(), index);
+			if (end != MemoTable.NOT_SAVED) {
+				return end;
+			}
+			final int key = keyOf(index);
+			Result r = patterns.get(p.getRuleIndex(), key);
+			if (r != null) {
+				r = kept(p.getRuleIndex(), key, r);
+			}
+			if (r == null) {
+				return MemoTable.NOT_SAVED;
+			}
+			return r.isSuccess() ? r.getEndIdx() : MemoTable.FAILED;
+		}
+		return patterns.getEnd(p.getRuleIndex(), index);
 	}
 
 	/**
@@ -328,7 +957,7 @@ public class InputContext {
 	 * @return the number of patterns that have a saved seed at this index
 	 */
 	public int getResultCount(final int index) {
-		return patterns.get(index).size();
+		return patterns.count(keyOf(index));
 	}
 
 	/**
@@ -354,6 +983,288 @@ public class InputContext {
 		return resultFor(p, index) != null;
 	}
 
+	// Packrat mode
+
+	/**
+	 * Determines whether this InputContext memoizes the Result of every non-hidden
+	 * Pattern at every position it is matched at.
+	 *
+	 * @return true if full packrat memoization is enabled, else false
+	 */
+	public boolean isPackrat() {
+		return packrat;
+	}
+
+	/**
+	 * Enables or disables full packrat memoization. When enabled, the Result of
+	 * every non-hidden Pattern is saved in the growing map at the position it was
+	 * matched at and reused whenever that Pattern is attempted there again, which
+	 * bounds matching to linear time at the cost of keeping those Results in
+	 * memory. When disabled, only left-recursive seeds are stored, and only while
+	 * they are being grown.
+	 *
+	 * @param packrat whether to memoize every non-hidden Pattern's Result
+	 */
+	public void setPackrat(final boolean packrat) {
+		this.packrat = packrat;
+	}
+
+	// Left recursion strategy
+
+	/**
+	 * Retrieves how this InputContext matches left-recursive Patterns.
+	 *
+	 * @return the left recursion strategy
+	 */
+	public LeftRecursionStrategy getLeftRecursionStrategy() {
+		return leftRecursionStrategy;
+	}
+
+	/**
+	 * Sets how this InputContext matches left-recursive Patterns. Should be set
+	 * before matching.
+	 *
+	 * @param leftRecursionStrategy the left recursion strategy
+	 */
+	public void setLeftRecursionStrategy(final LeftRecursionStrategy leftRecursionStrategy) {
+		this.leftRecursionStrategy = leftRecursionStrategy;
+	}
+
+	// Known ends
+
+	/**
+	 * Supplies the end positions that a PikaParser found bottom-up, so that
+	 * matching top-down can skip every Pattern known to fail where it's
+	 * attempted. A known Pattern with no end saved at a position fails there.
+	 *
+	 * @param ends  end positions by rule index and position, or null to stop
+	 *              skipping
+	 * @param rules rule indices of the Patterns whose ends are known
+	 */
+	public void setKnownEnds(final MemoTable ends, final BitSet rules) {
+		knownEnds = ends;
+		knownRules = rules;
+	}
+
+	/**
+	 * Determines whether a Pattern is known to fail at the current position, from
+	 * the ends supplied to setKnownEnds().
+	 *
+	 * @param p the Pattern about to be matched
+	 * @return true if the Pattern's ends are known and it has none here, else false
+	 */
+	public boolean isKnownFailure(final Pattern p) {
+		return (knownEnds != null) && knownRules.get(p.getRuleIndex())
+				&& (knownEnds.getEnd(p.getRuleIndex(), position) < 0);
+	}
+
+	// Retaining growth
+
+	/**
+	 * Determines whether this InputContext keeps the Results of left-recursive
+	 * Patterns in the growing map after they finish growing.
+	 *
+	 * @return true if grown Results are retained, else false
+	 */
+	public boolean isRetainingGrowth() {
+		return retainingGrowth;
+	}
+
+	/**
+	 * Enables or disables retaining grown Results. When enabled, a left-recursive
+	 * Pattern's final Result at a position, or its failure, stays in the growing
+	 * map as an ordinary memo entry, so matching it there again (for example,
+	 * after an enclosing choice backtracks) doesn't have to grow it from scratch.
+	 * A Result grown while another seed was being grown at the same position may
+	 * depend on that seed, so it is still cleared. Should be set before matching.
+	 *
+	 * @param retainingGrowth whether to retain grown Results
+	 */
+	public void setRetainingGrowth(final boolean retainingGrowth) {
+		this.retainingGrowth = retainingGrowth;
+	}
+
+	/**
+	 * Notes that a left-recursive Pattern's seed has been planted at a position,
+	 * and that its first match there is about to be evaluated. Must be paired with
+	 * endSeed() once that match finishes.
+	 *
+	 * @param p     the Pattern whose seed was planted
+	 * @param index the position of the seed
+	 */
+	public void beginGrowing(final Pattern p, final int index) {
+		// Push the invocation onto the left-recursion stack
+		if (invocations == invocationRules.length) {
+			invocationRules = Arrays.copyOf(invocationRules, invocations * 2);
+			invocationPositions = Arrays.copyOf(invocationPositions, invocations * 2);
+			invocationHeads = Arrays.copyOf(invocationHeads, invocations * 2);
+		}
+		invocationRules[invocations] = p;
+		invocationPositions[invocations] = index;
+		invocationHeads[invocations] = null;
+		invocations++;
+
+		// Only needed to decide what to retain
+		if (retainingGrowth) {
+			if ((growing == null) || ((index - discarded) >= growing.length)) {
+				growing = Arrays.copyOf((growing == null) ? new int[0] : growing, capacityFor(index));
+			}
+			growing[index - discarded]++;
+		}
+	}
+
+	/**
+	 * Ends the first match of the most recently planted seed, popping it from the
+	 * left-recursion stack.
+	 *
+	 * @return the head of the recursion that the seed's Pattern turned out to be
+	 *         part of, or null if it was never reached again while its seed was
+	 *         planted, in which case its first match is final. When bounding left
+	 *         recursion, every Pattern is its own head, and grows its bound even
+	 *         if it wasn't reached again.
+	 */
+	public LeftRecursionHead endSeed() {
+		invocations--;
+		LeftRecursionHead head = invocationHeads[invocations];
+		if ((head == null) && (leftRecursionStrategy == LeftRecursionStrategy.BOUNDED)) {
+			head = new LeftRecursionHead(invocationRules[invocations]);
+		}
+		invocationRules[invocations] = null;
+		invocationHeads[invocations] = null;
+		return head;
+	}
+
+	/**
+	 * Notes that a left-recursive Pattern's saved seed has been reused at a
+	 * position. If its first match there is still being evaluated, the Pattern has
+	 * called itself, so it becomes the head of a recursion, and every Pattern whose
+	 * first match at that position began since then is involved in it. When
+	 * bounding left recursion, nothing is involved.
+	 *
+	 * @param p     the Pattern whose seed was reused
+	 * @param index the position of the seed
+	 */
+	public void involve(final Pattern p, final int index) {
+		// Invocations at a position are all on top of the stack, since every
+		// invocation above them began at or after it, and none is past the current
+		// position
+		int i = invocations - 1;
+		while ((i >= 0) && (invocationPositions[i] == index) && (invocationRules[i] != p)) {
+			i--;
+		}
+		if ((i < 0) || (invocationPositions[i] != index)) {
+			// Not in progress, so the seed is just a saved Result
+			return;
+		}
+
+		if (leftRecursionStrategy == LeftRecursionStrategy.BOUNDED) {
+			// Nothing is involved, and every Pattern grows anyway
+			return;
+		}
+
+		// Mark every invocation since the head's as involved in it
+		if (invocationHeads[i] == null) {
+			invocationHeads[i] = new LeftRecursionHead(p);
+		}
+		final LeftRecursionHead head = invocationHeads[i];
+		for (int j = invocations - 1; invocationHeads[j] != head; j--) {
+			invocationHeads[j] = head;
+			head.involve(invocationRules[j]);
+		}
+	}
+
+	/**
+	 * Retrieves the head of the recursion being grown at a position.
+	 *
+	 * @param index the position to check
+	 * @return the head being grown there, or null if there is none
+	 */
+	public LeftRecursionHead headAt(final int index) {
+		return ((heads == null) || ((index - discarded) >= heads.length)) ? null : heads[index - discarded];
+	}
+
+	/**
+	 * Sets the head of the recursion being grown at a position, while it grows.
+	 *
+	 * @param index the position the head is grown at
+	 * @param head  the head, or null once it has finished growing
+	 * @return the head that was being grown there before, or null
+	 */
+	public LeftRecursionHead setHead(final int index, final LeftRecursionHead head) {
+		if ((heads == null) || ((index - discarded) >= heads.length)) {
+			if (head == null) {
+				return null;
+			}
+			heads = Arrays.copyOf((heads == null) ? new LeftRecursionHead[0] : heads, capacityFor(index));
+		}
+		final LeftRecursionHead previous = heads[index - discarded];
+		heads[index - discarded] = head;
+		return previous;
+	}
+
+	/**
+	 * Calculates how many positions an array kept for each position since the
+	 * last discarded one must hold to reach a position. That's twice as far as
+	 * the position, but never past the end of an input whose length is known, so
+	 * a context that's discarded as it goes only holds what's ahead of it.
+	 *
+	 * @param index the position the array must reach
+	 * @return the length for the array
+	 */
+	private int capacityFor(final int index) {
+		final int wanted = 2 * ((index - discarded) + 1);
+		return (stream == null) ? Math.min(wanted, (input.length() + 1) - discarded) : wanted;
+	}
+
+	/**
+	 * Clears the Results of the rules involved in a recursion, once its head has
+	 * finished growing at a position. They were evaluated against the head's
+	 * seed, so they are never retained.
+	 *
+	 * @param head  the head that finished growing
+	 * @param index the position it was grown at
+	 */
+	public void finishHead(final LeftRecursionHead head, final int index) {
+		for (final Pattern p : head.getInvolved()) {
+			if (retainingGrowth && (growing != null)) {
+				growing[index - discarded]--;
+			}
+			clearResult(p, index);
+		}
+	}
+
+	/**
+	 * Finishes growing a left-recursive Pattern's seed at a position. Its Result
+	 * is kept as a memo entry if retaining growth and no other seed is being grown
+	 * there, and cleared otherwise.
+	 *
+	 * @param p     the Pattern that finished growing
+	 * @param index the position it was grown at
+	 */
+	public void finishGrowing(final Pattern p, final int index) {
+		if (retainingGrowth && (growing != null)) {
+			growing[index - discarded]--;
+			if (growing[index - discarded] == 0) {
+				return;
+			}
+		}
+		clearResult(p, index);
+	}
+
+	/**
+	 * Finishes a left-recursive Pattern's seed at a position without growing it.
+	 * It isn't the Pattern's final Result there, so it is always cleared.
+	 *
+	 * @param p     the Pattern whose seed was matched
+	 * @param index the position of the seed
+	 */
+	public void discardSeed(final Pattern p, final int index) {
+		if (retainingGrowth && (growing != null)) {
+			growing[index - discarded]--;
+		}
+		clearResult(p, index);
+	}
+
 	// Print range
 
 	/**
@@ -379,12 +1290,46 @@ public class InputContext {
 	// History
 
 	/**
-	 * Adds the given entry into the context's history list.
+	 * Retrieves the sink that this context reports its events to.
+	 *
+	 * @return the event sink
+	 */
+	public ParseEventSink getEventSink() {
+		return eventSink;
+	}
+
+	/**
+	 * Sets the sink that this context reports its events to. Use
+	 * {@link ParseEventSink#NONE} to stop recording, or an {@link EventHistory} to
+	 * keep every event for later inspection.
+	 *
+	 * @param eventSink the event sink to report to
+	 */
+	public void setEventSink(final ParseEventSink eventSink) {
+		if (eventSink == null) {
+			throw new NullPointerException("Cannot report events to a null sink!");
+		}
+		this.eventSink = eventSink;
+		this.tracing = eventSink.isEnabled();
+	}
+
+	/**
+	 * Determines whether events are being recorded. Callers should check this
+	 * before constructing an event to pass to {@link #addHistory(ParseEvent)}.
+	 *
+	 * @return true if the event sink wants events, else false
+	 */
+	public boolean isTracing() {
+		return tracing;
+	}
+
+	/**
+	 * Adds the given entry into the context's history.
 	 *
 	 * @param entry the entry to add to the end of the history.
 	 */
 	public void addHistory(final ParseEvent entry) {
-		this.history.add(entry);
+		this.eventSink.accept(entry);
 	}
 
 	/**
@@ -400,7 +1345,8 @@ public class InputContext {
 	/**
 	 * Returns a filtered list of the context history in Iterable form, allowing a
 	 * user to construct a string with exactly the entries desired in the format
-	 * they desire.
+	 * they desire. Only an {@link EventHistory} sink keeps its events, so any other
+	 * sink provides an empty history.
 	 * 
 	 * @param filterName the class name used for filtering. Will accept sub-classes,
 	 *                   too.
@@ -413,11 +1359,12 @@ public class InputContext {
 			throw new NullPointerException("Cannot filter by a null filter!");
 		}
 
-		final List<ParseEvent> filtered = history.stream()
-				.filter((final ParseEvent p) -> classFilter.isAssignableFrom(p.getClass()))
-				.collect(Collectors.toList());
+		// Nothing was kept if we weren't recording a history
+		if (!(eventSink instanceof EventHistory)) {
+			return Collections.emptyList();
+		}
 
-		return filtered;
+		return ((EventHistory) eventSink).getEvents(classFilter);
 
 	}
 
@@ -443,20 +1390,11 @@ public class InputContext {
 	 * @return a String containing all history entries
 	 */
 	public String printHistory(final Class<? extends ParseEvent> classFilter) {
-		// Set up string builder for history
-		final StringBuilder historyString = new StringBuilder();
-
-		// Track which step of history we're on
-		int historyIdx = 0;
-
-		// Loop over all history events, from earliest to latest
-		for (final ParseEvent historyEntry : getHistory()) {
-			// Append a new line with formatted columns for step and full event details
-			historyString.append(String.format("%4d:\t%s\n", historyIdx++, historyEntry.toString()));
+		// Nothing to print if we weren't recording a history
+		if (!(eventSink instanceof EventHistory)) {
+			return "";
 		}
-
-		// Return resulting string
-		return historyString.toString();
+		return ((EventHistory) eventSink).print(classFilter);
 	}
 
 	// Overall
@@ -477,10 +1415,10 @@ public class InputContext {
 
 		// We're gonna print brackets just at the start and end of the String
 
-		// Determine the start index to print from
-		final int beginIndex = Integer.max(-1, this.position - this.printRange);
+		// Determine the start index to print from, which can't have been discarded
+		final int beginIndex = Integer.max((discarded == 0) ? -1 : discarded, this.position - this.printRange);
 		// Determine the end index to print to
-		final int endIndex = Integer.min(inputString.length(), this.position + this.printRange);
+		final int endIndex = this.position + this.printRange;
 
 		// Main loop from beginning to end of the print range
 		for (int i = beginIndex; i <= endIndex; i++) {
@@ -489,12 +1427,13 @@ public class InputContext {
 				builder.append("[");
 			}
 			// If it's after the end of the string, do a right bracket
-			else if (i == inputString.length()) {
+			else if (!hasCharAt(i)) {
 				builder.append("]");
+				break;
 			}
 			// If it's somewhere in the string, just print that character
 			else {
-				builder.append(inputString.charAt(i));
+				builder.append(input.charAt(i));
 			}
 		}
 
@@ -0,0 +1,111 @@
+package edu.ncsu.csc499.peg_lr.structure;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+import edu.ncsu.csc499.peg_lr.pattern.Pattern;
+
+/**
+ * The head of a left recursion being grown at one position, as described by
+ * Warth et al. in "Packrat Parsers Can Support Left Recursion" (see the
+ * README). The head is the rule whose seed is grown; the rules it passed
+ * through before calling itself again at the same position are involved in
+ * the recursion, e.g. B in A <- B "x" / "y"; B <- A "z".
+ *
+ * Only the head grows. Each growing attempt re-evaluates each involved rule at
+ * most once, the first time it's reached, and then reuses that Result for the
+ * rest of the attempt, so an attempt costs time linear in the number of rules
+ * in the cycle.
+ */
+public final class LeftRecursionHead {
+
+	/** The rule being grown. */
+	private final Pattern rule;
+
+	/** The rules involved in the recursion, in the order they were found. */
+	private List<Pattern> involved = Collections.emptyList();
+
+	/** Rule indices of the involved rules. */
+	private final BitSet involvedIndices = new BitSet();
+
+	/** Rule indices of the involved rules not yet re-evaluated this attempt. */
+	private final BitSet evaluating = new BitSet();
+
+	/**
+	 * Constructs a LeftRecursionHead with no involved rules.
+	 *
+	 * @param rule the rule being grown
+	 */
+	LeftRecursionHead(final Pattern rule) {
+		this.rule = rule;
+	}
+
+	/**
+	 * @return the rule being grown
+	 */
+	public Pattern getRule() {
+		return rule;
+	}
+
+	/**
+	 * @return the rules involved in the recursion, other than the head itself
+	 */
+	public List<Pattern> getInvolved() {
+		return Collections.unmodifiableList(involved);
+	}
+
+	/**
+	 * Determines whether a rule is involved in the recursion.
+	 *
+	 * @param p the rule to check
+	 * @return true if the rule is involved, else false
+	 */
+	public boolean isInvolved(final Pattern p) {
+		return involvedIndices.get(p.getRuleIndex());
+	}
+
+	/**
+	 * Adds a rule to the involved set.
+	 *
+	 * @param p the involved rule
+	 */
+	void involve(final Pattern p) {
+		if (!involvedIndices.get(p.getRuleIndex())) {
+			if (involved.isEmpty()) {
+				involved = new ArrayList<>(2);
+			}
+			involved.add(p);
+			involvedIndices.set(p.getRuleIndex());
+		}
+	}
+
+	/**
+	 * Begins a growing attempt, so that every involved rule is re-evaluated the
+	 * next time it's reached.
+	 */
+	public void beginAttempt() {
+		evaluating.clear();
+		evaluating.or(involvedIndices);
+	}
+
+	/**
+	 * Determines whether a rule should be re-evaluated in this growing attempt,
+	 * rather than reusing its saved Result. A rule is only re-evaluated once per
+	 * attempt.
+	 *
+	 * @param p the rule about to be matched at the head's position
+	 * @return true if the rule is involved and hasn't been re-evaluated yet this
+	 *         attempt, else false
+	 */
+	public boolean takeEvaluation(final Pattern p) {
+		final int index = p.getRuleIndex();
+		if (evaluating.get(index)) {
+			evaluating.clear(index);
+			return true;
+		}
+		return false;
+	}
+
+}
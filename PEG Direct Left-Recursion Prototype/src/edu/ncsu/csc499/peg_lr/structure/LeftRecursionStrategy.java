@@ -0,0 +1,41 @@
+package edu.ncsu.csc499.peg_lr.structure;
+
+/**
+ * How an InputContext matches left-recursive Patterns. Every strategy plants a
+ * failed seed and matches again with the latest Result saved until it stops
+ * getting longer. They differ in how a cycle through several rules is grown,
+ * and in whether a rule that is also right-recursive grows at its right end.
+ */
+public enum LeftRecursionStrategy {
+
+	/**
+	 * Warth et al.'s seed growing, from "Packrat Parsers Can Support Left
+	 * Recursion". The rule a cycle began at is its head, and is the only one
+	 * grown; the other rules in the cycle are re-evaluated once per growing
+	 * attempt, so an attempt costs time linear in the length of the cycle.
+	 */
+	SEED_GROWING,
+
+	/**
+	 * Medeiros et al.'s bounded left recursion, from "Left Recursion in Parsing
+	 * Expression Grammars". Each call to a left-recursive rule increments its own
+	 * recursion bound, matching again with the Result for the previous bound
+	 * saved, until the match stops getting longer. Rules in a cycle bound
+	 * themselves independently, so growing is nested once per rule in the cycle,
+	 * but no heads or involved rules are tracked. This is also how the
+	 * VirtualMachine grows left recursion.
+	 */
+	BOUNDED,
+
+	/**
+	 * Tratt's direct left recursion, from "Direct Left-Recursive Parsing
+	 * Expression Grammars". Grows the same way as SEED_GROWING, except that
+	 * while a rule with a GrowingPlan is grown, a call to itself at the end of one
+	 * of its left-recursive alternatives, as in expr <- expr "+" expr / num, only
+	 * matches its seed rather than growing too. Each growing attempt then adds a
+	 * single term, so rules that are both left- and right-recursive grow in
+	 * linear time, and associate to the left.
+	 */
+	DIRECT;
+
+}
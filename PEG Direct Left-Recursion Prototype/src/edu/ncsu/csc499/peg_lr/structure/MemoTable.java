@@ -0,0 +1,455 @@
+package edu.ncsu.csc499.peg_lr.structure;
+
+import java.util.Arrays;
+
+/**
+ * Stores Results keyed by a (rule, position) pair, backing the growing map of an
+ * InputContext.
+ *
+ * Both halves of the key are packed into a single primitive long, and entries
+ * are kept in an open-addressed table with linear probing, so a lookup costs a
+ * multiply and a few array reads without boxing either half of the key. The
+ * whole key is hashed with a multiplicative mix, so that however many rules are
+ * memoized at one position, their entries don't pile up into one cluster. The
+ * number of entries at each position is tracked in pages of counters that are
+ * only allocated once a position inside them is first written to.
+ *
+ * Each entry also records the end position of its match, so that recognizing
+ * without building Results can memoize with nothing but primitives. An entry
+ * saved by end alone has no Result.
+ */
+public class MemoTable {
+
+	/** End position recorded for a failed match. */
+	public static final int FAILED = -1;
+
+	/** End position returned when nothing is saved for a key. */
+	public static final int NOT_SAVED = -2;
+
+	/** Key marking an empty slot. Packed keys are never negative. */
+	private static final long EMPTY = -1L;
+
+	/** Initial number of slots in the table. Must be a power of two. */
+	private static final int INITIAL_CAPACITY = 16;
+
+	/** Fraction of slots that may be filled before the table is doubled. */
+	private static final float LOAD_FACTOR = 0.5f;
+
+	/** Number of bits of the position used to index inside a counter page. */
+	private static final int PAGE_BITS = 10;
+
+	/** Number of positions counted by a single counter page. */
+	private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+	/** Multiplier used to scatter packed keys over the table (2^64 / phi). */
+	private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+	/** Packed (rule, position) key stored in each slot, or EMPTY. */
+	private long[] keys;
+
+	/** Result stored in each slot, or null if only the end was saved. */
+	private Result[] values;
+
+	/** End position of the match stored in each slot, or FAILED. */
+	private int[] ends;
+
+	/** Number of filled slots. */
+	private int size;
+
+	/** One more than the highest rule index stored so far. */
+	private int rules;
+
+	/** Number of filled slots at which the table will be doubled. */
+	private int resizeThreshold;
+
+	/** Number of bits to shift a hash right by to fit the table's capacity. */
+	private int hashShift;
+
+	/** Lazily allocated pages counting the number of entries at each position. */
+	private int[][] countPages;
+
+	/**
+	 * The page counting the first position of countPages[0]. Pages before it
+	 * were dropped with discardBefore().
+	 */
+	private int firstPage;
+
+	/**
+	 * Constructs an empty MemoTable. The table itself is small until entries are
+	 * added, and no per-position storage is allocated until it is written to.
+	 */
+	public MemoTable() {
+		allocate(INITIAL_CAPACITY);
+		countPages = new int[0][];
+	}
+
+	/**
+	 * Packs a rule and a position into a single key.
+	 *
+	 * @param rule     the non-negative index of the rule
+	 * @param position the non-negative position in the input
+	 * @return the packed key
+	 */
+	private static long key(final int rule, final int position) {
+		return ((long) rule << Integer.SIZE) | position;
+	}
+
+	/**
+	 * Finds the slot at which a key's probe sequence begins, from the top bits of
+	 * the key multiplied by a large odd constant, which depend on every bit of
+	 * both the rule and the position.
+	 *
+	 * @param key the packed key to hash
+	 * @return the index of the key's home slot
+	 */
+	private int home(final long key) {
+		return (int) ((key * HASH_MULTIPLIER) >>> hashShift);
+	}
+
+	/**
+	 * Finds the slot holding the given key, or the empty slot that ends its probe
+	 * sequence if it isn't present.
+	 *
+	 * @param key the packed key to look for
+	 * @return the index of the key's slot, or of the empty slot where it belongs
+	 */
+	private int slot(final long key) {
+		final int mask = keys.length - 1;
+		int slot = home(key);
+		// Probe forward until we find the key or a gap
+		while ((keys[slot] != EMPTY) && (keys[slot] != key)) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	/**
+	 * Retrieves the Result stored for a rule at a position.
+	 *
+	 * @param rule     the index of the rule
+	 * @param position the position in the input
+	 * @return the stored Result, or null if there is none
+	 */
+	public Result get(final int rule, final int position) {
+		return values[slot(key(rule, position))];
+	}
+
+	/**
+	 * Retrieves the end position saved for a rule at a position, whether it was
+	 * saved with a Result or on its own.
+	 *
+	 * @param rule     the index of the rule
+	 * @param position the position in the input
+	 * @return the saved end position, FAILED if the match failed, or NOT_SAVED if
+	 *         there is nothing saved
+	 */
+	public int getEnd(final int rule, final int position) {
+		final int slot = slot(key(rule, position));
+		return (keys[slot] == EMPTY) ? NOT_SAVED : ends[slot];
+	}
+
+	/**
+	 * Stores the Result for a rule at a position, replacing any previous one.
+	 *
+	 * @param rule     the index of the rule
+	 * @param position the position in the input
+	 * @param result   the Result to store
+	 * @return the Result previously stored, or null if there was none
+	 */
+	public Result put(final int rule, final int position, final Result result) {
+		return store(rule, position, result, result.isSuccess() ? result.getEndIdx() : FAILED);
+	}
+
+	/**
+	 * Stores only the end position for a rule at a position, replacing any
+	 * previous entry.
+	 *
+	 * @param rule     the index of the rule
+	 * @param position the position in the input
+	 * @param end      the end position of the match, or FAILED
+	 */
+	public void putEnd(final int rule, final int position, final int end) {
+		store(rule, position, null, end);
+	}
+
+	/**
+	 * Stores an entry for a rule at a position, replacing any previous one.
+	 *
+	 * @param rule     the index of the rule
+	 * @param position the position in the input
+	 * @param result   the Result to store, or null for none
+	 * @param end      the end position of the match, or FAILED
+	 * @return the Result previously stored, or null if there was none
+	 */
+	private Result store(final int rule, final int position, final Result result, final int end) {
+		final long key = key(rule, position);
+		final int slot = slot(key);
+
+		// Replace an existing entry in place
+		if (keys[slot] == key) {
+			final Result previous = values[slot];
+			values[slot] = result;
+			ends[slot] = end;
+			return previous;
+		}
+
+		// Otherwise, fill the gap we found
+		rules = Math.max(rules, rule + 1);
+		keys[slot] = key;
+		values[slot] = result;
+		ends[slot] = end;
+		size++;
+		adjustCount(position, 1);
+
+		// Keep the table sparse enough for short probe sequences
+		if (size > resizeThreshold) {
+			resize(keys.length * 2);
+		}
+		return null;
+	}
+
+	/**
+	 * Removes the Result stored for a rule at a position, if any.
+	 *
+	 * @param rule     the index of the rule
+	 * @param position the position in the input
+	 * @return the Result that was removed, or null if there was none
+	 */
+	public Result remove(final int rule, final int position) {
+		final long key = key(rule, position);
+		int gap = slot(key);
+
+		// Nothing to remove
+		if (keys[gap] != key) {
+			return null;
+		}
+		final Result removed = values[gap];
+		size--;
+		adjustCount(position, -1);
+
+		// Shift later entries of the probe sequence back into the gap so that lookups
+		// never stop early at it
+		final int mask = keys.length - 1;
+		int next = (gap + 1) & mask;
+		while (keys[next] != EMPTY) {
+			// An entry may only move back if its home slot isn't between the gap and it
+			final int home = home(keys[next]);
+			if (((next - home) & mask) >= ((next - gap) & mask)) {
+				keys[gap] = keys[next];
+				values[gap] = values[next];
+				ends[gap] = ends[next];
+				gap = next;
+			}
+			next = (next + 1) & mask;
+		}
+		keys[gap] = EMPTY;
+		values[gap] = null;
+
+		return removed;
+	}
+
+	/**
+	 * Removes every entry stored at a position, whatever its rule.
+	 *
+	 * @param position the position in the input
+	 */
+	public void removeAll(final int position) {
+		for (int rule = 0; (rule < rules) && (count(position) > 0); rule++) {
+			remove(rule, position);
+		}
+	}
+
+	/**
+	 * Removes every entry that a filter accepts, shrinking the table to fit what's
+	 * left.
+	 *
+	 * @param filter accepts the entries to remove
+	 * @throws IllegalArgumentException if filter is null
+	 */
+	public void removeIf(final EntryFilter filter) {
+		if (filter == null) {
+			throw new IllegalArgumentException("Removing entries needs a filter.");
+		}
+		int kept = size;
+		for (int i = 0; i < keys.length; i++) {
+			if ((keys[i] != EMPTY) && filter.test((int) (keys[i] >>> Integer.SIZE), (int) keys[i], values[i])) {
+				adjustCount((int) keys[i], -1);
+				keys[i] = EMPTY;
+				kept--;
+			}
+		}
+		refill(kept);
+	}
+
+	/**
+	 * Returns the number of entries stored at a position.
+	 *
+	 * @param position the position in the input
+	 * @return the number of rules with a Result stored at this position
+	 */
+	public int count(final int position) {
+		final int page = (position >>> PAGE_BITS) - firstPage;
+		// Pages that were never touched or were dropped hold no entries
+		if ((page < 0) || (page >= countPages.length) || (countPages[page] == null)) {
+			return 0;
+		}
+		return countPages[page][position & (PAGE_SIZE - 1)];
+	}
+
+	/**
+	 * Returns the total number of entries stored in this table.
+	 *
+	 * @return the number of stored Results
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Finds the longest distance any entry sits from its home slot, which is how
+	 * many slots a lookup of it has to probe.
+	 *
+	 * @return the longest probe distance, or 0 if the table is empty
+	 */
+	int longestProbe() {
+		final int mask = keys.length - 1;
+		int longest = 0;
+		for (int slot = 0; slot < keys.length; slot++) {
+			if (keys[slot] != EMPTY) {
+				longest = Math.max(longest, (slot - home(keys[slot])) & mask);
+			}
+		}
+		return longest;
+	}
+
+	/**
+	 * Adds to the counter of entries at a position, allocating its page if needed.
+	 *
+	 * @param position the position whose count changes
+	 * @param delta    the amount to change the count by
+	 */
+	private void adjustCount(final int position, final int delta) {
+		final int page = (position >>> PAGE_BITS) - firstPage;
+		// Grow the page directory to reach this position
+		if (page >= countPages.length) {
+			countPages = Arrays.copyOf(countPages, Math.max(page + 1, countPages.length * 2));
+		}
+		// Allocate the page on first touch
+		if (countPages[page] == null) {
+			countPages[page] = new int[PAGE_SIZE];
+		}
+		countPages[page][position & (PAGE_SIZE - 1)] += delta;
+	}
+
+	/**
+	 * Removes every entry at a position before the given one, shrinking the table
+	 * to fit what's left and dropping the counter pages before it. Nothing may be
+	 * stored before the position afterwards.
+	 *
+	 * @param position the first position whose entries are kept
+	 */
+	public void discardBefore(final int position) {
+		if (size > 0) {
+			int kept = size;
+			for (int i = 0; i < keys.length; i++) {
+				if ((keys[i] != EMPTY) && ((int) keys[i] < position)) {
+					keys[i] = EMPTY;
+					kept--;
+				}
+			}
+			refill(kept);
+		}
+
+		// Drop the pages wholly before the position, and clear the rest of its own
+		final int page = position >>> PAGE_BITS;
+		if (page > firstPage) {
+			countPages = Arrays.copyOfRange(countPages, Math.min(page - firstPage, countPages.length),
+					countPages.length);
+			firstPage = page;
+		}
+		if ((countPages.length > 0) && (countPages[0] != null)) {
+			Arrays.fill(countPages[0], 0, position & (PAGE_SIZE - 1), 0);
+		}
+	}
+
+	/**
+	 * Moves the entries left in the table into one sized to fit them, after some
+	 * were emptied without shifting the rest back. Counts don't change.
+	 *
+	 * @param kept the number of entries left
+	 */
+	private void refill(final int kept) {
+		final long[] oldKeys = keys;
+		final Result[] oldValues = values;
+		final int[] oldEnds = ends;
+		int capacity = INITIAL_CAPACITY;
+		while (kept > (capacity * LOAD_FACTOR)) {
+			capacity *= 2;
+		}
+		allocate(capacity);
+		size = kept;
+
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != EMPTY) {
+				final int slot = slot(oldKeys[i]);
+				keys[slot] = oldKeys[i];
+				values[slot] = oldValues[i];
+				ends[slot] = oldEnds[i];
+			}
+		}
+	}
+
+	/**
+	 * Allocates empty storage with the given number of slots.
+	 *
+	 * @param capacity the number of slots. Must be a power of two.
+	 */
+	private void allocate(final int capacity) {
+		keys = new long[capacity];
+		Arrays.fill(keys, EMPTY);
+		values = new Result[capacity];
+		ends = new int[capacity];
+		resizeThreshold = (int) (capacity * LOAD_FACTOR);
+		hashShift = Long.SIZE - Integer.numberOfTrailingZeros(capacity);
+	}
+
+	/**
+	 * Moves every entry into a table with the given number of slots.
+	 *
+	 * @param capacity the new number of slots. Must be a power of two.
+	 */
+	private void resize(final int capacity) {
+		final long[] oldKeys = keys;
+		final Result[] oldValues = values;
+		final int[] oldEnds = ends;
+		allocate(capacity);
+
+		// Re-insert every filled slot. Counts and size don't change.
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != EMPTY) {
+				final int slot = slot(oldKeys[i]);
+				keys[slot] = oldKeys[i];
+				values[slot] = oldValues[i];
+				ends[slot] = oldEnds[i];
+			}
+		}
+	}
+
+	/**
+	 * Decides whether an entry is to be removed.
+	 */
+	public interface EntryFilter {
+
+		/**
+		 * Tests an entry.
+		 *
+		 * @param rule     the index of the entry's rule
+		 * @param position the position it's stored at
+		 * @param result   the Result stored, or null if only the end was saved
+		 * @return true to remove the entry, else false
+		 */
+		boolean test(int rule, int position, Result result);
+
+	}
+
+}
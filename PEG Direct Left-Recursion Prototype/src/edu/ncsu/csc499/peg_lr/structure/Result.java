@@ -1,14 +1,43 @@
 package edu.ncsu.csc499.peg_lr.structure;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
-
+import java.util.Set;
+
+/**
+ * The outcome of matching a Pattern at a position in the input, along with the
+ * sub-matches that it was built from.
+ *
+ * A Result doesn't hold its own copy of the text it matched. It refers to a
+ * source sequence, usually the whole input, and only cuts its data out of that
+ * when asked, so building up a tree of Results never copies text.
+ *
+ * A Result memoized while parsing an input whose edits go in an
+ * {@link EditLog} catches up on the edits made since whenever it's read. It
+ * moves along with its text if that came after an edit, and otherwise keeps
+ * its positions, unless matching looked at what the edit replaced, which
+ * leaves it stale. A stale Result throws IllegalStateException when it's read,
+ * rather than report text it no longer matches.
+ */
 public class Result {
 
 	/** The success of this result. */
 	private boolean success;
 
-	/** The syntactic value of this Result. */
+	/**
+	 * The text that this Result's data is cut from. Position i of the input is at
+	 * index i - offset of the source.
+	 */
+	private CharSequence source;
+
+	/** The position in the input at which the source begins. */
+	private int offset;
+
+	/** The syntactic value of this Result, or null if not yet cut from the source. */
 	private String data;
 
 	/** The "type" of the pattern that matched this Result. */
@@ -26,11 +55,25 @@ public class Result {
 	 */
 	private boolean alias;
 
-	/** The sub-matches within this Result. */
-	private final List<Result> children;
-	{
-		this.children = new ArrayList<>();
-	}
+	/**
+	 * The position after the last one that matching looked at to build this
+	 * Result, which may be past its end. Only recorded for Results that
+	 * lazyMatch() returns.
+	 */
+	private int reach;
+
+	/**
+	 * The sub-matches within this Result. Shared and empty until the first child
+	 * is added, since most Results have few children and many have none.
+	 */
+	private List<Result> children = Collections.emptyList();
+
+	/**
+	 * The last edit of the input that this Result's positions account for,
+	 * EditLog.STALE if an edit changed what it looked at, or null if its input
+	 * isn't being edited.
+	 */
+	private EditLog.Edit edit;
 
 	/**
 	 * Generates a new fail Result with the given index for quick use in pattern
@@ -89,9 +132,29 @@ public class Result {
 	 */
 	public Result(final boolean success, final String data, final int startIdx) {
 		setSuccess(success);
-		setData(data);
 		setStartIdx(startIdx);
 		setEndIdx(startIdx + data.length());
+		setData(data);
+	}
+
+	/**
+	 * Constructs a successful Result spanning part of the input, without copying
+	 * any of it.
+	 *
+	 * @param input    the whole input, indexed by position
+	 * @param startIdx the index at which the match for this Result begins
+	 * @param endIdx   the index at which the match for this Result ends, exclusive
+	 * @throws NullPointerException if input is null
+	 */
+	public Result(final CharSequence input, final int startIdx, final int endIdx) {
+		if (input == null) {
+			throw new NullPointerException();
+		}
+		setSuccess(true);
+		setStartIdx(startIdx);
+		setEndIdx(endIdx);
+		this.source = input;
+		this.offset = 0;
 	}
 
 	/**
@@ -101,8 +164,18 @@ public class Result {
 	 * @param nextData
 	 */
 	public void addChar(final char nextData) {
-		this.data += nextData;
-		this.endIdx++;
+		requireCurrent();
+		// The source already holds this character next, so just extend over it
+		final int next = endIdx - offset;
+		if ((next < source.length()) && (source.charAt(next) == nextData)) {
+			setEndIdx(endIdx + 1);
+		}
+		// Otherwise, this Result's text has to be built up on its own
+		else {
+			final String text = getData() + nextData;
+			setEndIdx(endIdx + 1);
+			setData(text);
+		}
 	}
 
 	/**
@@ -112,6 +185,8 @@ public class Result {
 	 * @param child
 	 */
 	public Result addChild(final Result child) {
+		requireCurrent();
+		child.requireCurrent();
 
 		// Check that this child's start idx matches this parent Result's end idx
 		if (this.getEndIdx() != child.getStartIdx()) {
@@ -119,14 +194,28 @@ public class Result {
 					"Child does not start at the parent's current end position - not a valid child.");
 		}
 
-		// Add the child to the children list
+		// Add the child to the children list, making room for it if this is the first
+		if (children.isEmpty()) {
+			children = new ArrayList<>(1);
+		}
 		children.add(child);
 
-		// Append the child's data to our own
-		setData(this.getData() + child.getData());
-
-		// Set end index equal to child's end index
-		setEndIdx(child.getEndIdx());
+		// Append the child's data to our own. When both come from the same source,
+		// extending the span is enough.
+		if ((this.startIdx == this.endIdx) && (child.startIdx != child.endIdx)) {
+			// Nothing matched yet, so take on the child's source
+			this.source = child.source;
+			this.offset = child.offset;
+			setEndIdx(child.getEndIdx());
+		} else if ((child.startIdx == child.endIdx)
+				|| ((child.source == this.source) && (child.offset == this.offset))) {
+			setEndIdx(child.getEndIdx());
+		} else {
+			// The texts are separate, so they have to be joined
+			final String text = this.getData() + child.getData();
+			setEndIdx(child.getEndIdx());
+			setData(text);
+		}
 
 		// Return this object so that you can add multiple children in sequence
 		return this;
@@ -150,14 +239,23 @@ public class Result {
 	 * @return the value
 	 */
 	public String getData() {
+		requireCurrent();
+		// Cut the text out of the source the first time it's asked for
+		if (data == null) {
+			data = source.subSequence(startIdx - offset, endIdx - offset).toString();
+		}
 		return data;
 	}
 
 	/**
+	 * Replaces the text of this Result, which then becomes its own source.
+	 *
 	 * @param data the value to set
 	 */
 	public void setData(final String data) {
 		this.data = data;
+		this.source = data;
+		this.offset = startIdx;
 	}
 
 	/**
@@ -178,6 +276,7 @@ public class Result {
 	 * @return the startIdx
 	 */
 	public int getStartIdx() {
+		requireCurrent();
 		return startIdx;
 	}
 
@@ -185,6 +284,7 @@ public class Result {
 	 * @param startIdx the startIdx to set
 	 */
 	public void setStartIdx(final int startIdx) {
+		requireCurrent();
 		this.startIdx = startIdx;
 	}
 
@@ -192,6 +292,7 @@ public class Result {
 	 * @return the endIdx
 	 */
 	public int getEndIdx() {
+		requireCurrent();
 		return endIdx;
 	}
 
@@ -199,7 +300,130 @@ public class Result {
 	 * @param endIdx the endIdx to set
 	 */
 	public void setEndIdx(final int endIdx) {
+		requireCurrent();
 		this.endIdx = endIdx;
+		// The span changed, so any text cut from the source is stale
+		this.data = null;
+	}
+
+	/**
+	 * Retrieves how far matching looked to build this Result. Its text and its
+	 * success depend on nothing from its start up to here.
+	 *
+	 * @return the position after the last one looked at, or 0 if it wasn't
+	 *         recorded
+	 */
+	public int getReach() {
+		requireCurrent();
+		return reach;
+	}
+
+	/**
+	 * Records that matching looked as far as a position to build this Result, if
+	 * that's farther than already recorded.
+	 *
+	 * @param reach the position after the last one looked at
+	 */
+	public void extendReach(final int reach) {
+		requireCurrent();
+		this.reach = Math.max(this.reach, reach);
+	}
+
+	/**
+	 * Records that this Result, and any of its sub-matches that haven't been
+	 * already, account for every edit up to the given one.
+	 *
+	 * @param last the last edit made to the input
+	 */
+	void trackEdits(final EditLog.Edit last) {
+		// Sub-matches memoized earlier already track their own edits
+		final Deque<Result> pending = new ArrayDeque<>();
+		pending.push(this);
+		while (!pending.isEmpty()) {
+			final Result next = pending.pop();
+			if (next.edit == null) {
+				next.edit = last;
+				next.children.forEach(pending::push);
+			}
+		}
+	}
+
+	/**
+	 * Retrieves the last edit this Result has caught up on, without catching up on
+	 * any made since.
+	 *
+	 * @return the last edit its positions account for, EditLog.STALE, or null
+	 */
+	EditLog.Edit getEdit() {
+		return edit;
+	}
+
+	/**
+	 * Catches up on the edits made since this Result last did, if its input is
+	 * being edited.
+	 */
+	private void catchUp() {
+		if (edit == null) {
+			return;
+		}
+		while (edit.next != null) {
+			edit = edit.next;
+			if (startIdx >= edit.end) {
+				// After the edit, so it moves with its text
+				startIdx += edit.delta;
+				endIdx += edit.delta;
+				reach += edit.delta;
+				if (source != edit.input) {
+					offset += edit.delta;
+				}
+			} else if (Math.max(Math.max(reach, endIdx), startIdx) > edit.start) {
+				// Hidden sub-matches don't record their reach, but looked at their span
+				edit = EditLog.STALE;
+			}
+		}
+	}
+
+	/**
+	 * Catches up on the edits made since this Result last did, and refuses to be
+	 * read if one of them changed what it matched.
+	 *
+	 * @throws IllegalStateException if this Result is stale
+	 */
+	private void requireCurrent() {
+		catchUp();
+		if (edit == EditLog.STALE) {
+			throw new IllegalStateException("Result was matched before an edit that changed it.");
+		}
+	}
+
+	/**
+	 * Catches up this Result and every Result beneath it that hasn't been already,
+	 * so that none of them hold on to the edits before the last.
+	 *
+	 * @param visited the Results already caught up, which are skipped, and to which
+	 *                these are added
+	 */
+	void catchUpTree(final Set<Result> visited) {
+		final Deque<Result> pending = new ArrayDeque<>();
+		pending.push(this);
+		while (!pending.isEmpty()) {
+			final Result next = pending.pop();
+			if (visited.add(next)) {
+				next.catchUp();
+				next.children.forEach(pending::push);
+			}
+		}
+	}
+
+	/**
+	 * Determines whether an edit changed what matching looked at to build this
+	 * Result, so that it no longer holds.
+	 *
+	 * @return true if this Result is stale, else false
+	 */
+	boolean isStale() {
+		catchUp();
+		return edit == EditLog.STALE;
 	}
 
 	/**
@@ -238,7 +462,10 @@ public class Result {
 	 */
 	@Override
 	public String toString() {
-		return "Result [success=" + success + ", data=" + data + ", type=" + type + ", startIdx=" + startIdx
+		if (isStale()) {
+			return "Result [stale]";
+		}
+		return "Result [success=" + success + ", data=" + getData() + ", type=" + type + ", startIdx=" + startIdx
 				+ ", endIdx=" + endIdx + "]";
 	}
 
@@ -246,26 +473,40 @@ public class Result {
 	 * Returns a list of non-hidden children. Only meant for use in
 	 * printResultTree().
 	 *
+	 * Hidden children are replaced by their own non-hidden children, however
+	 * deeply they are nested. The nesting is walked with a stack of iterators
+	 * rather than by recursion, so it may be arbitrarily deep.
+	 *
 	 * @return the list of non-hidden children
 	 */
 	private List<Result> nonHiddenChildren() {
 
-		// Start counting from zero
+		// Start with an empty list
 		final List<Result> nonHiddenChildren = new ArrayList<>();
 
-		// Loop over all children in this Result
-		for (final Result child : this.children) {
-			// Child is hidden. Recurse down to count its non-hidden children
+		// Iterators over the children of this Result and the hidden ones inside it
+		final Deque<Iterator<Result>> levels = new ArrayDeque<>();
+		levels.push(this.children.iterator());
+
+		while (!levels.isEmpty()) {
+			final Iterator<Result> level = levels.peek();
+			// This level is done. Go back up to the Result containing it
+			if (!level.hasNext()) {
+				levels.pop();
+				continue;
+			}
+			final Result child = level.next();
+			// Child is hidden. Descend to collect its non-hidden children
 			if (child.isHidden()) {
-				nonHiddenChildren.addAll(child.nonHiddenChildren());
+				levels.push(child.children.iterator());
 			}
-			// Child is not hidden. Increment counter for non-hidden children
+			// Child is not hidden. Add it to the list
 			else {
 				nonHiddenChildren.add(child);
 			}
 		}
 
-		// Return our total count
+		// Return our list
 		return nonHiddenChildren;
 	}
 
@@ -291,66 +532,133 @@ public class Result {
 	}
 
 	/**
-	 * Recursive helper to printResultTree(). Prints the tree at this level, and
-	 * recurses for each child.
+	 * Helper to printResultTree(). Prints the tree at this level, and queues up
+	 * each child to be printed in its place.
+	 *
+	 * Pending output is kept on a stack holding either text, or a Result to be
+	 * printed at some indent, so that arbitrarily deep trees can be printed
+	 * without recursion.
 	 *
 	 * @param indentLevel the level of indentation that this subtree should print at
 	 * @return a StringBuilder yielding the sub-tree for this Result
 	 */
 	private StringBuilder printResultSubTree(final int indentLevel, final boolean includeHidden) {
+		// Create the StringBuilder that this method will build from
+		final StringBuilder tree = new StringBuilder();
+
+		// Output still to be written, next item on top
+		final Deque<Object> pending = new ArrayDeque<>();
+		pending.push(new PendingSubTree(this, indentLevel));
+
+		while (!pending.isEmpty()) {
+			final Object next = pending.pop();
+			if (next instanceof String) {
+				tree.append((String) next);
+			} else {
+				final PendingSubTree sub = (PendingSubTree) next;
+				// Queue up this subtree's output in reverse, so it's written in order
+				final List<Object> items = sub.result.printItems(sub.indentLevel, includeHidden);
+				for (int i = items.size() - 1; i >= 0; i--) {
+					pending.push(items.get(i));
+				}
+			}
+		}
+
+		return tree;
+	}
+
+	/**
+	 * Lists the output for this Result at one level: text, and the children to be
+	 * printed between it.
+	 *
+	 * @param indentLevel   the level of indentation that this Result prints at
+	 * @param includeHidden whether to include hidden Results
+	 * @return the text and PendingSubTrees for this Result, in order
+	 */
+	private List<Object> printItems(final int indentLevel, final boolean includeHidden) {
+		requireCurrent();
 		// Find list of non-hidden children
 		final List<Result> nonHiddenChildren = this.nonHiddenChildren();
 
-		// Create the StringBuilder that this method will build from
-		final StringBuilder tree = new StringBuilder();
+		// Create the list that this method will build up
+		final List<Object> items = new ArrayList<>();
 
 		// Special case to handle the hidden Results
 		if (!includeHidden && this.isHidden()) {
-
 			// Delegate to its children
-			for (final Result child : nonHiddenChildren) {
-				tree.append(child.printResultSubTree(indentLevel, includeHidden));
-
-				// If it's a non-final child in a list, mark it down here
-				if (child != nonHiddenChildren.get(nonHiddenChildren.size() - 1)) {
-					tree.append(",");
-				}
-
-				tree.append("\n");
-			}
+			addChildItems(items, nonHiddenChildren, indentLevel);
 		}
 
-		tree.append(tabs(indentLevel)).append("{\n");
+		final StringBuilder text = new StringBuilder();
 
-		tree.append(tabs(indentLevel + 1)).append("\"type\": \"").append(type).append("\",\n");
+		text.append(tabs(indentLevel)).append("{\n");
 
-		tree.append(tabs(indentLevel + 1)).append("\"data\": \"").append(data).append("\",\n");
+		text.append(tabs(indentLevel + 1)).append("\"type\": \"").append(type).append("\",\n");
 
-		tree.append(tabs(indentLevel + 1)).append("\"s\": ").append(startIdx + 1).append(",\n");
+		text.append(tabs(indentLevel + 1)).append("\"data\": \"").append(getData()).append("\",\n");
 
-		tree.append(tabs(indentLevel + 1)).append("\"e\": ").append(endIdx + 1).append(children.isEmpty() ? "" : ",")
+		text.append(tabs(indentLevel + 1)).append("\"s\": ").append(startIdx + 1).append(",\n");
+
+		text.append(tabs(indentLevel + 1)).append("\"e\": ").append(endIdx + 1).append(children.isEmpty() ? "" : ",")
 				.append("\n");
 
-//		tree.append(tabs(indentLevel + 1)).append("end: ").append(derivation?).append("\n");
+//		text.append(tabs(indentLevel + 1)).append("end: ").append(derivation?).append("\n");
 
 		final List<Result> childrenToPrint = includeHidden ? children : nonHiddenChildren;
 
 		if (!childrenToPrint.isEmpty()) {
-			tree.append(tabs(indentLevel + 1)).append("\"subs\": [\n");
-			for (final Result child : childrenToPrint) {
-				tree.append(child.printResultSubTree(indentLevel + 2, includeHidden));
+			text.append(tabs(indentLevel + 1)).append("\"subs\": [\n");
+			items.add(text.toString());
+			addChildItems(items, childrenToPrint, indentLevel + 2);
+			text.setLength(0);
+			text.append(tabs(indentLevel + 1)).append("]\n");
+		}
 
-				if (child != childrenToPrint.get(childrenToPrint.size() - 1)) {
-					tree.append(",");
-				}
+		text.append(tabs(indentLevel) + "}");
+		items.add(text.toString());
+		return items;
+	}
+
+	/**
+	 * Lists the output for a list of children: each child's subtree, separated by
+	 * commas, one per line.
+	 *
+	 * @param items       the list to add to
+	 * @param children    the children to print
+	 * @param indentLevel the level of indentation that the children print at
+	 */
+	private static void addChildItems(final List<Object> items, final List<Result> children, final int indentLevel) {
+		for (final Result child : children) {
+			items.add(new PendingSubTree(child, indentLevel));
 
-				tree.append("\n");
+			// If it's a non-final child in a list, mark it down here
+			if (child != children.get(children.size() - 1)) {
+				items.add(",");
 			}
-			tree.append(tabs(indentLevel + 1)).append("]\n");
+
+			items.add("\n");
 		}
+	}
 
-		tree.append(tabs(indentLevel) + "}");
-		return tree;
+	/**
+	 * A Result waiting to be printed by printResultSubTree(), with its indent.
+	 */
+	private static final class PendingSubTree {
+		/** The Result to print. */
+		private final Result result;
+		/** The level of indentation to print it at. */
+		private final int indentLevel;
+
+		/**
+		 * Constructs a PendingSubTree.
+		 *
+		 * @param result      the Result to print
+		 * @param indentLevel the level of indentation to print it at
+		 */
+		private PendingSubTree(final Result result, final int indentLevel) {
+			this.result = result;
+			this.indentLevel = indentLevel;
+		}
 	}
 
 	private String tabs(final int num) {
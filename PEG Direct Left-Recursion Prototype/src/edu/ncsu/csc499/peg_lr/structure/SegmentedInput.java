@@ -0,0 +1,350 @@
+package edu.ncsu.csc499.peg_lr.structure;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Input made of a series of segments read one after another, such as the
+ * regions of a file too large to map at once, with long positions so that it
+ * can be longer than 2^31 characters.
+ *
+ * Matching is done with int positions, so an InputContext over it matches
+ * within a window: the characters from an origin onwards, as a CharSequence
+ * whose position 0 is the origin. The context moves its origin up as it
+ * discards what it's matched, so the whole input can be matched a window at a
+ * time however long it is. A window still ends where int positions do, so a
+ * single match can't reach more than 2^31 characters past the origin.
+ *
+ * If every segment is a {@link ByteInput}, the input is read as UTF-8 the way
+ * a ByteInput is: positions are byte offsets, and windows are ByteInputs too.
+ * Each segment must then begin at the start of a character.
+ */
+public final class SegmentedInput {
+
+	/** How many bytes of a file each mapped segment holds. */
+	private static final int MAPPED_SEGMENT = 1 << 30;
+
+	/** The segments, in order. */
+	private final CharSequence[] segments;
+
+	/**
+	 * The position each segment starts at, with the total length after the last
+	 * one.
+	 */
+	private final long[] starts;
+
+	/** Whether every segment is read as bytes. */
+	private final boolean bytes;
+
+	/**
+	 * Constructs a SegmentedInput over some segments. Their contents must not
+	 * change while matching.
+	 *
+	 * @param segments the segments, in order
+	 * @throws IllegalArgumentException if segments is null or holds null
+	 */
+	public SegmentedInput(final List<? extends CharSequence> segments) {
+		if ((segments == null) || segments.contains(null)) {
+			throw new IllegalArgumentException("A SegmentedInput needs its segments.");
+		}
+		this.segments = segments.toArray(new CharSequence[0]);
+		this.starts = new long[this.segments.length + 1];
+		boolean allBytes = this.segments.length > 0;
+		for (int i = 0; i < this.segments.length; i++) {
+			starts[i + 1] = starts[i] + this.segments[i].length();
+			allBytes &= this.segments[i] instanceof ByteInput;
+		}
+		this.bytes = allBytes;
+	}
+
+	/**
+	 * Maps a file into memory read-only, a region at a time, as a SegmentedInput
+	 * of any length. Each region is a {@link ByteInput}, so the file is read as
+	 * UTF-8 just as ByteInput.map() reads it, with positions that are byte
+	 * offsets into the file. Regions are split between characters, never inside
+	 * one.
+	 *
+	 * @param file the file to map
+	 * @return a SegmentedInput over the file's bytes
+	 * @throws IOException if the file can't be mapped
+	 */
+	public static SegmentedInput map(final Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			final long size = channel.size();
+			final List<ByteInput> segments = new ArrayList<>();
+			long start = 0;
+			while (start < size) {
+				long end = Math.min(start + MAPPED_SEGMENT, size);
+				// Back up over the continuation bytes of a character split at the end. A
+				// sequence has at most 3; any more aren't valid, and read as U+FFFD anyway.
+				final ByteBuffer probe = ByteBuffer.allocate(1);
+				for (int i = 0; (i < 3) && (end < size); i++) {
+					probe.clear();
+					channel.read(probe, end);
+					if ((probe.get(0) & 0xC0) != 0x80) {
+						break;
+					}
+					end--;
+				}
+				// The mappings stay valid once the channel is closed
+				segments.add(new ByteInput(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start)));
+				start = end;
+			}
+			return new SegmentedInput(segments);
+		}
+	}
+
+	/**
+	 * Returns the number of characters in every segment, or of bytes if they're
+	 * read as bytes.
+	 *
+	 * @return the length of the input
+	 */
+	public long length() {
+		return starts[segments.length];
+	}
+
+	/**
+	 * Finds the segment holding a position.
+	 *
+	 * @param index the position
+	 * @return the index of the last segment starting at or before it
+	 * @throws IndexOutOfBoundsException if the position is outside the input
+	 */
+	private int segmentOf(final long index) {
+		if ((index < 0) || (index >= length())) {
+			throw new IndexOutOfBoundsException("Position " + index + " is outside the input.");
+		}
+		final int found = Arrays.binarySearch(starts, index);
+		if (found >= 0) {
+			// Skip past any empty segments starting here too
+			int segment = found;
+			while (starts[segment + 1] == index) {
+				segment++;
+			}
+			return segment;
+		}
+		return -found - 2;
+	}
+
+	/**
+	 * Retrieves the character at a position.
+	 *
+	 * @param index the position
+	 * @return the character there
+	 * @throws IndexOutOfBoundsException if the position is outside the input
+	 */
+	public char charAt(final long index) {
+		final int segment = segmentOf(index);
+		return segments[segment].charAt((int) (index - starts[segment]));
+	}
+
+	/**
+	 * Copies the characters from one position to another.
+	 *
+	 * @param start the first position
+	 * @param end   the position after the last
+	 * @return the characters between them
+	 * @throws IndexOutOfBoundsException if the span is outside the input or too
+	 *                                   long for a String
+	 */
+	public String substring(final long start, final long end) {
+		if ((start < 0) || (end > length()) || (start > end) || ((end - start) > Integer.MAX_VALUE)) {
+			throw new IndexOutOfBoundsException("Cannot copy from " + start + " to " + end + ".");
+		}
+		final StringBuilder builder = new StringBuilder((int) (end - start));
+		long position = start;
+		while (position < end) {
+			final int segment = segmentOf(position);
+			final int from = (int) (position - starts[segment]);
+			final int to = (int) (Math.min(end, starts[segment + 1]) - starts[segment]);
+			// A segment of bytes has to decode them itself
+			builder.append(segments[segment].subSequence(from, to));
+			position += to - from;
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Views the input from a position onwards as a CharSequence, as far as int
+	 * positions reach.
+	 *
+	 * @param origin the position that becomes position 0 of the view
+	 * @return the view, which is a ByteInput if every segment is
+	 * @throws IndexOutOfBoundsException if the origin is outside the input
+	 */
+	public CharSequence window(final long origin) {
+		if ((origin < 0) || (origin > length())) {
+			throw new IndexOutOfBoundsException("Position " + origin + " is outside the input.");
+		}
+		return bytes ? new ByteWindow(origin) : new Window(origin);
+	}
+
+	/**
+	 * Calculates how many characters a window from an origin sees.
+	 *
+	 * @param origin the position in the whole input that is position 0 of the
+	 *               window
+	 * @return the window's length
+	 */
+	private int windowLength(final long origin) {
+		// One short of the largest int, so that a position after the end still fits
+		return (int) Math.min(length() - origin, Integer.MAX_VALUE - 1);
+	}
+
+	/**
+	 * Finds the segment holding a position, checking the segment a window last
+	 * read from first.
+	 *
+	 * @param last  the segment last read from
+	 * @param index the position, within the input
+	 * @return the index of the segment holding it
+	 */
+	private int segmentOf(final int last, final long index) {
+		return ((index >= starts[last]) && (index < starts[last + 1])) ? last : segmentOf(index);
+	}
+
+	/**
+	 * The input from an origin onwards. It remembers the last segment it read
+	 * from, as matching reads the same segment over and over.
+	 */
+	private final class Window implements CharSequence {
+
+		/** The position in the whole input that is position 0 here. */
+		private final long origin;
+
+		/** The number of characters seen through the window. */
+		private final int length;
+
+		/** The segment last read from. */
+		private int segment;
+
+		/**
+		 * Constructs a Window.
+		 *
+		 * @param origin the position in the whole input that is position 0 here
+		 */
+		private Window(final long origin) {
+			this.origin = origin;
+			this.length = windowLength(origin);
+			this.segment = (origin < SegmentedInput.this.length()) ? segmentOf(origin) : 0;
+		}
+
+		/**
+		 * Returns the number of characters seen through the window.
+		 */
+		@Override
+		public int length() {
+			return length;
+		}
+
+		/**
+		 * Retrieves the character at a position from the origin.
+		 */
+		@Override
+		public char charAt(final int index) {
+			if ((index < 0) || (index >= length)) {
+				throw new IndexOutOfBoundsException("Position " + index + " is outside the window.");
+			}
+			final long absolute = origin + index;
+			segment = segmentOf(segment, absolute);
+			return segments[segment].charAt((int) (absolute - starts[segment]));
+		}
+
+		/**
+		 * Copies the characters between two positions from the origin.
+		 */
+		@Override
+		public CharSequence subSequence(final int start, final int end) {
+			if ((start < 0) || (end > length) || (start > end)) {
+				throw new IndexOutOfBoundsException("Cannot copy from " + start + " to " + end + ".");
+			}
+			return substring(origin + start, origin + end);
+		}
+
+		/**
+		 * Copies every character seen through the window.
+		 */
+		@Override
+		public String toString() {
+			return substring(origin, origin + length);
+		}
+
+	}
+
+	/**
+	 * The input from an origin onwards, when every segment is read as bytes. It
+	 * remembers the last segment it read from, as matching reads the same segment
+	 * over and over.
+	 */
+	private final class ByteWindow extends ByteInput {
+
+		/** The position in the whole input that is position 0 here. */
+		private final long origin;
+
+		/** The number of bytes seen through the window. */
+		private final int length;
+
+		/** The segment last read from. */
+		private int segment;
+
+		/**
+		 * Constructs a ByteWindow.
+		 *
+		 * @param origin the position in the whole input that is position 0 here
+		 */
+		private ByteWindow(final long origin) {
+			this.origin = origin;
+			this.length = windowLength(origin);
+			this.segment = (origin < SegmentedInput.this.length()) ? segmentOf(origin) : 0;
+		}
+
+		/**
+		 * Retrieves the byte at a position from the origin.
+		 */
+		@Override
+		public byte byteAt(final int index) {
+			if ((index < 0) || (index >= length)) {
+				throw new IndexOutOfBoundsException("Position " + index + " is outside the window.");
+			}
+			final long absolute = origin + index;
+			segment = segmentOf(segment, absolute);
+			return ((ByteInput) segments[segment]).byteAt((int) (absolute - starts[segment]));
+		}
+
+		/**
+		 * Returns the number of bytes seen through the window.
+		 */
+		@Override
+		public int length() {
+			return length;
+		}
+
+		/**
+		 * Decodes the bytes between two positions from the origin.
+		 */
+		@Override
+		public CharSequence subSequence(final int start, final int end) {
+			if ((start < 0) || (end > length) || (start > end)) {
+				throw new IndexOutOfBoundsException("Cannot copy from " + start + " to " + end + ".");
+			}
+			return substring(origin + start, origin + end);
+		}
+
+		/**
+		 * Decodes every byte seen through the window.
+		 */
+		@Override
+		public String toString() {
+			return substring(origin, origin + length);
+		}
+
+	}
+
+}
@@ -0,0 +1,200 @@
+package edu.ncsu.csc499.peg_lr.structure;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Input read from a Reader as it's needed, keeping only a window of it in
+ * memory. Characters are indexed by their position in the whole input, and are
+ * read ahead in blocks whenever a position past the window is asked for. Once
+ * matching can no longer go back before a position, everything before it may
+ * be discarded, so the window only ever holds what matching can still reach.
+ *
+ * As a CharSequence, its length is the number of characters read so far, and
+ * its characters and subsequences may only be taken from the window.
+ */
+public class StreamingInput implements CharSequence {
+
+	/** Number of characters read from the Reader at once. */
+	private static final int BLOCK = 8192;
+
+	/** The Reader the input comes from. */
+	private final Reader reader;
+
+	/** The characters in the window, from the first one kept. */
+	private char[] buffer = new char[2 * BLOCK];
+
+	/** The position of buffer[0] in the whole input. */
+	private int base;
+
+	/** Number of characters in the buffer. */
+	private int count;
+
+	/** The position before which characters may be dropped from the buffer. */
+	private int discarded;
+
+	/** Whether the Reader has run out. */
+	private boolean ended;
+
+	/**
+	 * Constructs a StreamingInput reading from a Reader. Nothing is read until a
+	 * character is asked for.
+	 *
+	 * @param reader the Reader to read from
+	 * @throws IllegalArgumentException if reader is null
+	 */
+	public StreamingInput(final Reader reader) {
+		if (reader == null) {
+			throw new IllegalArgumentException("A StreamingInput needs a Reader.");
+		}
+		this.reader = reader;
+	}
+
+	/**
+	 * Constructs a StreamingInput decoding bytes from a channel.
+	 *
+	 * @param channel the channel to read from
+	 * @param charset the encoding of the bytes
+	 */
+	public StreamingInput(final ReadableByteChannel channel, final Charset charset) {
+		this(Channels.newReader(channel, charset));
+	}
+
+	/**
+	 * Determines whether the input has a character at a position, reading ahead
+	 * to it if needed.
+	 *
+	 * @param index the position in the whole input
+	 * @return true if the input is longer than the position, else false
+	 * @throws UncheckedIOException if reading fails
+	 */
+	public boolean reaches(final int index) {
+		while ((index >= (base + count)) && !ended) {
+			fill();
+		}
+		return index < (base + count);
+	}
+
+	/**
+	 * Retrieves the character at a position, reading ahead to it if needed.
+	 *
+	 * @throws IllegalStateException     if the position has been discarded
+	 * @throws IndexOutOfBoundsException if the input ends before the position
+	 * @throws UncheckedIOException      if reading fails
+	 */
+	@Override
+	public char charAt(final int index) {
+		requireKept(index);
+		if (!reaches(index)) {
+			throw new IndexOutOfBoundsException("The input ends before position " + index + ".");
+		}
+		return buffer[index - base];
+	}
+
+	/**
+	 * Returns the number of characters read so far, including those discarded.
+	 * Reading ahead makes it longer, and it's the length of the whole input once
+	 * the Reader has run out.
+	 */
+	@Override
+	public int length() {
+		return base + count;
+	}
+
+	/**
+	 * Copies part of the window, reading ahead to its end if needed.
+	 *
+	 * @throws IllegalStateException     if the start has been discarded
+	 * @throws IndexOutOfBoundsException if the input ends before the end
+	 * @throws UncheckedIOException      if reading fails
+	 */
+	@Override
+	public CharSequence subSequence(final int start, final int end) {
+		requireKept(start);
+		if ((end < start) || ((end > start) && !reaches(end - 1))) {
+			throw new IndexOutOfBoundsException("No characters from " + start + " to " + end + ".");
+		}
+		return new String(buffer, start - base, end - start);
+	}
+
+	/**
+	 * Lets every character before a position be dropped, the next time the
+	 * window has to make room.
+	 *
+	 * @param position the first position that may still be read
+	 * @throws IllegalArgumentException if the position is before one already
+	 *                                  discarded, or past what has been read
+	 */
+	public void discardBefore(final int position) {
+		if ((position < discarded) || (position > length())) {
+			throw new IllegalArgumentException("Cannot discard before position " + position + ".");
+		}
+		discarded = position;
+	}
+
+	/**
+	 * Retrieves the number of characters held in memory, including any that were
+	 * discarded but not yet dropped.
+	 *
+	 * @return the size of the window
+	 */
+	public int getWindowSize() {
+		return count;
+	}
+
+	/**
+	 * Returns the characters in the window.
+	 */
+	@Override
+	public String toString() {
+		return new String(buffer, discarded - base, count - (discarded - base));
+	}
+
+	/**
+	 * Ensures that a position hasn't been discarded.
+	 *
+	 * @param index the position
+	 * @throws IllegalStateException if the position has been discarded
+	 */
+	private void requireKept(final int index) {
+		if (index < discarded) {
+			throw new IllegalStateException("Position " + index + " of the input has been discarded.");
+		}
+	}
+
+	/**
+	 * Reads the next block, first dropping the discarded characters if the buffer
+	 * is full, and growing it if that isn't enough.
+	 *
+	 * @throws UncheckedIOException if reading fails
+	 */
+	private void fill() {
+		if ((buffer.length - count) < BLOCK) {
+			// Drop what's been discarded
+			final int drop = discarded - base;
+			System.arraycopy(buffer, drop, buffer, 0, count - drop);
+			base = discarded;
+			count -= drop;
+			// Still too full, so the window itself has grown
+			if ((buffer.length - count) < BLOCK) {
+				buffer = Arrays.copyOf(buffer, buffer.length * 2);
+			}
+		}
+		try {
+			final int read = reader.read(buffer, count, buffer.length - count);
+			if (read == -1) {
+				ended = true;
+			} else {
+				count += read;
+			}
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+}
@@ -0,0 +1,142 @@
+package edu.ncsu.csc499.peg_lr.vm;
+
+/**
+ * The instructions understood by the {@link VirtualMachine}, following the
+ * instruction set sketched in doc/left_recursion_algorithm.md.
+ *
+ * Each instruction is packed into a single int: the opcode in the low byte, and
+ * its operand (a character, an address, or an index) in the rest. Opcodes are
+ * plain int constants so that the VM can dispatch on them with a single
+ * switch.
+ */
+public final class Opcode {
+
+	/** Matches the single character given by the operand. */
+	public static final int CHAR = 0;
+
+	/** Matches one character accepted by the character set at the operand index. */
+	public static final int CHARSET = 1;
+
+	/** Pushes a backtrack entry that resumes at the operand address. */
+	public static final int CHOICE = 2;
+
+	/** Pops the top backtrack entry and jumps to the operand address. */
+	public static final int COMMIT = 3;
+
+	/**
+	 * Moves the top backtrack entry to the current position and jumps to the
+	 * operand address, for looping repetitions.
+	 */
+	public static final int PARTIALCOMMIT = 4;
+
+	/**
+	 * Pops the top backtrack entry, restoring its position, and jumps to the
+	 * operand address, for and-predicates.
+	 */
+	public static final int BACKCOMMIT = 5;
+
+	/** Pops the top backtrack entry and fails, for not-predicates. */
+	public static final int FAILTWICE = 6;
+
+	/** Fails, backtracking to the most recent choice. */
+	public static final int FAIL = 7;
+
+	/** Jumps to the operand address. */
+	public static final int JUMP = 8;
+
+	/** Pushes the return address and jumps to the rule at the operand address. */
+	public static final int CALL = 9;
+
+	/** Pops a call entry and returns to its address. */
+	public static final int RET = 10;
+
+	/**
+	 * Begins a left-recursive rule, whose index is the operand. If the rule
+	 * already has a seed at this position, returns with it, or fails if the seed
+	 * failed. Otherwise plants a failed seed and continues into the rule.
+	 */
+	public static final int OPENGROW = 11;
+
+	/**
+	 * Ends one growing attempt of a left-recursive rule, whose body begins at the
+	 * operand address. If the body matched farther than the seed, the seed is
+	 * replaced and the body is run again from the start. Otherwise, the backtrack
+	 * entry pushed before the body is popped and growing finishes.
+	 */
+	public static final int GROW = 12;
+
+	/**
+	 * Finishes growing the left-recursive rule whose index is the operand, moving
+	 * to the end of its farthest match and clearing its seed, or failing if it
+	 * never matched.
+	 */
+	public static final int CLOSEGROW = 13;
+
+	/** Stops, having matched successfully. */
+	public static final int END = 14;
+
+	/** Name of each opcode, for listings. */
+	private static final String[] NAMES = { "CHAR", "CHARSET", "CHOICE", "COMMIT", "PARTIALCOMMIT", "BACKCOMMIT",
+			"FAILTWICE", "FAIL", "JUMP", "CALL", "RET", "OPENGROW", "GROW", "CLOSEGROW", "END" };
+
+	/** Number of low bits of an instruction holding its opcode. */
+	static final int OPCODE_BITS = 8;
+
+	/** Mask selecting the opcode of an instruction. */
+	static final int OPCODE_MASK = (1 << OPCODE_BITS) - 1;
+
+	/** Largest operand that fits in an instruction. */
+	static final int MAX_OPERAND = (1 << (Integer.SIZE - OPCODE_BITS - 1)) - 1;
+
+	/**
+	 * Opcodes are only used through their constants.
+	 */
+	private Opcode() {
+	}
+
+	/**
+	 * Packs an opcode and an operand into an instruction.
+	 *
+	 * @param opcode  the instruction's opcode
+	 * @param operand the instruction's operand
+	 * @return the packed instruction
+	 * @throws IllegalArgumentException if the operand doesn't fit
+	 */
+	static int encode(final int opcode, final int operand) {
+		if ((operand < 0) || (operand > MAX_OPERAND)) {
+			throw new IllegalArgumentException("Operand " + operand + " does not fit in an instruction.");
+		}
+		return (operand << OPCODE_BITS) | opcode;
+	}
+
+	/**
+	 * Retrieves the opcode of an instruction.
+	 *
+	 * @param instruction the packed instruction
+	 * @return its opcode
+	 */
+	static int of(final int instruction) {
+		return instruction & OPCODE_MASK;
+	}
+
+	/**
+	 * Retrieves the name of an opcode.
+	 *
+	 * @param opcode the opcode
+	 * @return its name
+	 */
+	static String name(final int opcode) {
+		return NAMES[opcode];
+	}
+
+	/**
+	 * Retrieves the operand of an instruction.
+	 *
+	 * @param instruction the packed instruction
+	 * @return its operand
+	 */
+	static int operand(final int instruction) {
+		return instruction >>> OPCODE_BITS;
+	}
+
+}
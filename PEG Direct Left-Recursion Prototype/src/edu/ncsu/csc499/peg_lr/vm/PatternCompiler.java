@@ -0,0 +1,460 @@
+package edu.ncsu.csc499.peg_lr.vm;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import edu.ncsu.csc499.peg_lr.pattern.Pattern;
+import edu.ncsu.csc499.peg_lr.pattern.component.PatternString;
+import edu.ncsu.csc499.peg_lr.pattern.component.charclass.PatternCharClass;
+import edu.ncsu.csc499.peg_lr.pattern.component.operator.PatternChoice;
+import edu.ncsu.csc499.peg_lr.pattern.component.operator.PatternPredicate;
+import edu.ncsu.csc499.peg_lr.pattern.component.operator.PatternRepetition;
+import edu.ncsu.csc499.peg_lr.pattern.component.operator.PatternSequence;
+import edu.ncsu.csc499.peg_lr.pattern.definition.DefinedPattern;
+import edu.ncsu.csc499.peg_lr.structure.InputContext.CharCheckable;
+
+/**
+ * Compiles a Pattern graph into a {@link Program} for the
+ * {@link VirtualMachine}.
+ *
+ * Every non-hidden Pattern becomes a rule, a subroutine that is entered with
+ * CALL and left with RET, so that rules can refer to each other. Hidden
+ * Patterns are compiled inline where they are used. A left-recursive rule is
+ * wrapped in OPENGROW, GROW, and CLOSEGROW instructions, which plant a failed
+ * seed and re-run the rule's body for as long as it matches farther, the same
+ * way that Pattern.lazyMatch() grows a seed:
+ *
+ * <pre>
+ * Rule:  OPENGROW  Rule
+ *        CHOICE    Done
+ * Body:  ...
+ *        GROW      Body
+ * Done:  CLOSEGROW Rule
+ *        RET
+ * </pre>
+ */
+public final class PatternCompiler {
+
+	/** Instructions emitted so far. */
+	private int[] code = new int[64];
+
+	/** Number of instructions emitted so far. */
+	private int size;
+
+	/** Character sets referred to by CHARSET instructions, by index. */
+	private final List<CharCheckable> charsets = new ArrayList<>();
+
+	/**
+	 * Character set of each character class compiled so far, for the characters
+	 * it matches on their own.
+	 */
+	private final Map<PatternCharClass, CharCheckable> classCharsets = new IdentityHashMap<>();
+
+	/** Index of each rule found so far. */
+	private final Map<Pattern, Integer> rules = new IdentityHashMap<>();
+
+	/** Every rule found so far, by index. */
+	private final List<Pattern> ruleList = new ArrayList<>();
+
+	/** Rules that have been found but not yet compiled. */
+	private final Deque<Pattern> toCompile = new ArrayDeque<>();
+
+	/** Address of the CALL instructions to each rule, by rule index. */
+	private final List<List<Integer>> callSites = new ArrayList<>();
+
+	/** Hidden Patterns that are currently being compiled inline. */
+	private final Map<Pattern, Boolean> inlining = new IdentityHashMap<>();
+
+	/**
+	 * Constructs a PatternCompiler. Use {@link #compile(Pattern)}.
+	 */
+	private PatternCompiler() {
+	}
+
+	/**
+	 * Compiles every Pattern reachable from the root into a Program that matches
+	 * the root, freezing them if they aren't already.
+	 *
+	 * @param root the Pattern to compile
+	 * @return the compiled Program
+	 * @throws IllegalArgumentException if a Pattern has no compiled form, or a
+	 *                                  hidden Pattern contains itself
+	 */
+	public static Program compile(final Pattern root) {
+		root.freeze();
+		return new PatternCompiler().compileProgram(root);
+	}
+
+	/**
+	 * Compiles the root and then every rule it refers to.
+	 *
+	 * @param root the Pattern to compile
+	 * @return the compiled Program
+	 */
+	private Program compileProgram(final Pattern root) {
+		// Match the root, then stop
+		compileInline(root);
+		emit(Opcode.END, 0);
+
+		// Compile each rule once, resolving the calls to it afterwards
+		final List<Integer> entryList = new ArrayList<>();
+		while (!toCompile.isEmpty()) {
+			final Pattern rule = toCompile.poll();
+			entryList.add(size);
+			compileRule(rule, rules.get(rule));
+		}
+		for (int rule = 0; rule < ruleList.size(); rule++) {
+			for (final int site : callSites.get(rule)) {
+				code[site] = Opcode.encode(Opcode.CALL, entryList.get(rule));
+			}
+		}
+
+		final String[] names = new String[ruleList.size()];
+		for (int rule = 0; rule < names.length; rule++) {
+			names[rule] = ruleList.get(rule).getType();
+		}
+		return new Program(Arrays.copyOf(code, size), charsets.toArray(new CharCheckable[0]), names);
+	}
+
+	/**
+	 * Compiles the body of a rule, along with the instructions to grow it if it is
+	 * left-recursive.
+	 *
+	 * @param rule  the rule to compile
+	 * @param index the rule's index
+	 */
+	private void compileRule(final Pattern rule, final int index) {
+		if (!rule.isLeftRecursive()) {
+			compileBody(rule);
+			emit(Opcode.RET, 0);
+			return;
+		}
+
+		// Plant a failed seed, then grow the body for as long as it matches farther
+		emit(Opcode.OPENGROW, index);
+		final int choice = emit(Opcode.CHOICE, 0);
+		final int body = size;
+		compileBody(rule);
+		emit(Opcode.GROW, body);
+		patch(choice, Opcode.CHOICE, size);
+		emit(Opcode.CLOSEGROW, index);
+		emit(Opcode.RET, 0);
+	}
+
+	/**
+	 * Compiles what a rule matches, without treating the rule itself as a call.
+	 *
+	 * @param rule the rule to compile
+	 */
+	private void compileBody(final Pattern rule) {
+		if (rule instanceof DefinedPattern) {
+			compileDefinition((DefinedPattern) rule);
+		} else {
+			compileComponent(rule);
+		}
+	}
+
+	/**
+	 * Compiles a Pattern where it is used: a call if it is a rule, or its
+	 * instructions if it is hidden.
+	 *
+	 * @param p the Pattern to compile
+	 */
+	private void compileInline(final Pattern p) {
+		if (!p.isHidden()) {
+			emitCall(p);
+			return;
+		}
+
+		// A hidden Pattern has nowhere to call back into, so it can't contain itself
+		if (inlining.put(p, Boolean.TRUE) != null) {
+			throw new IllegalArgumentException("Hidden " + p.getClass().getSimpleName() + " contains itself.");
+		}
+		compileComponent(p);
+		inlining.remove(p);
+	}
+
+	/**
+	 * Compiles a DefinedPattern by compiling its definition.
+	 *
+	 * @param p the DefinedPattern to compile
+	 */
+	private void compileDefinition(final DefinedPattern p) {
+		// A DefinedPattern without a definition can't match anything
+		if (p.getPattern() == null) {
+			emit(Opcode.FAIL, 0);
+		} else {
+			compileInline(p.getPattern());
+		}
+	}
+
+	/**
+	 * Compiles the instructions of a single Pattern.
+	 *
+	 * @param p the Pattern to compile
+	 * @throws IllegalArgumentException if the Pattern has no compiled form
+	 */
+	private void compileComponent(final Pattern p) {
+		if (p instanceof DefinedPattern) {
+			compileDefinition((DefinedPattern) p);
+		} else if (p instanceof PatternString) {
+			for (final char c : ((PatternString) p).getMatchString().toCharArray()) {
+				emit(Opcode.CHAR, c);
+			}
+		} else if (p instanceof PatternCharClass) {
+			compileCharClass((PatternCharClass) p);
+		} else if (p instanceof PatternSequence) {
+			for (final Pattern element : p.getPatternComponents()) {
+				compileInline(element);
+			}
+		} else if (p instanceof PatternChoice) {
+			compileChoice(p.getPatternComponents());
+		} else if (p instanceof PatternRepetition) {
+			compileRepetition((PatternRepetition) p);
+		} else if (p instanceof PatternPredicate) {
+			compilePredicate((PatternPredicate) p);
+		} else {
+			throw new IllegalArgumentException("Cannot compile " + p.getClass().getSimpleName());
+		}
+	}
+
+	/**
+	 * Compiles an ordered choice. Every alternative but the last is guarded by a
+	 * CHOICE that tries the next one, and commits to the end on success.
+	 *
+	 * @param alternatives the alternatives in order
+	 */
+	private void compileChoice(final List<Pattern> alternatives) {
+		final List<Runnable> compilers = new ArrayList<>();
+		for (final Pattern alternative : alternatives) {
+			compilers.add(() -> compileInline(alternative));
+		}
+		emitChoice(compilers);
+	}
+
+	/**
+	 * Emits an ordered choice between alternatives that are emitted by running
+	 * each in turn.
+	 *
+	 * @param alternatives the alternatives in order
+	 */
+	private void emitChoice(final List<Runnable> alternatives) {
+		// A choice with nothing to choose from fails
+		if (alternatives.isEmpty()) {
+			emit(Opcode.FAIL, 0);
+			return;
+		}
+
+		final List<Integer> commits = new ArrayList<>();
+		for (int i = 0; i < (alternatives.size() - 1); i++) {
+			final int choice = emit(Opcode.CHOICE, 0);
+			alternatives.get(i).run();
+			commits.add(emit(Opcode.COMMIT, 0));
+			patch(choice, Opcode.CHOICE, size);
+		}
+		alternatives.get(alternatives.size() - 1).run();
+		for (final int commit : commits) {
+			patch(commit, Opcode.COMMIT, size);
+		}
+	}
+
+	/**
+	 * Compiles a character class. The virtual machine reads a character at a
+	 * time, so each range of code points outside the Basic Multilingual Plane is
+	 * matched as surrogate pairs, split into pieces whose high surrogates are
+	 * followed by the same range of low surrogates. A high surrogate in the class
+	 * only matches on its own if no low surrogate follows it, as the pair would
+	 * be read as one code point.
+	 *
+	 * @param p the character class to compile
+	 */
+	private void compileCharClass(final PatternCharClass p) {
+		final List<Runnable> alternatives = new ArrayList<>();
+		final int[] ranges = p.getRanges();
+		for (int i = 0; i < ranges.length; i += 2) {
+			if (ranges[i + 1] >= Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+				addSurrogatePairs(alternatives, Math.max(ranges[i], Character.MIN_SUPPLEMENTARY_CODE_POINT),
+						ranges[i + 1]);
+			}
+		}
+
+		if (IntStream.rangeClosed(Character.MIN_HIGH_SURROGATE, Character.MAX_HIGH_SURROGATE).anyMatch(p::contains)) {
+			alternatives.add(() -> {
+				emit(Opcode.CHARSET, charset(c -> Character.isHighSurrogate(c) && p.contains(c)));
+				final int choice = emit(Opcode.CHOICE, 0);
+				emit(Opcode.CHARSET, charset(Character::isLowSurrogate));
+				emit(Opcode.FAILTWICE, 0);
+				patch(choice, Opcode.CHOICE, size);
+			});
+		}
+
+		final CharCheckable single = classCharsets.computeIfAbsent(p,
+				key -> c -> !Character.isHighSurrogate(c) && key.contains(c));
+		alternatives.add(() -> emit(Opcode.CHARSET, charset(single)));
+		emitChoice(alternatives);
+	}
+
+	/**
+	 * Adds alternatives matching the surrogate pairs of a range of code points
+	 * outside the Basic Multilingual Plane.
+	 *
+	 * @param alternatives the alternatives to add to
+	 * @param first        the first code point in the range
+	 * @param last         the last code point in the range
+	 */
+	private void addSurrogatePairs(final List<Runnable> alternatives, final int first, final int last) {
+		final char firstHigh = Character.highSurrogate(first);
+		final char lastHigh = Character.highSurrogate(last);
+		final char firstLow = Character.lowSurrogate(first);
+		final char lastLow = Character.lowSurrogate(last);
+		if (firstHigh == lastHigh) {
+			addSurrogatePair(alternatives, firstHigh, lastHigh, firstLow, lastLow);
+			return;
+		}
+		// A partial run of low surrogates at either end, and every one in between
+		addSurrogatePair(alternatives, firstHigh, firstHigh, firstLow, Character.MAX_LOW_SURROGATE);
+		if ((firstHigh + 1) < lastHigh) {
+			addSurrogatePair(alternatives, (char) (firstHigh + 1), (char) (lastHigh - 1), Character.MIN_LOW_SURROGATE,
+					Character.MAX_LOW_SURROGATE);
+		}
+		addSurrogatePair(alternatives, lastHigh, lastHigh, Character.MIN_LOW_SURROGATE, lastLow);
+	}
+
+	/**
+	 * Adds an alternative matching a high surrogate in one range followed by a
+	 * low surrogate in another.
+	 *
+	 * @param alternatives the alternatives to add to
+	 * @param firstHigh    the first high surrogate
+	 * @param lastHigh     the last high surrogate
+	 * @param firstLow     the first low surrogate
+	 * @param lastLow      the last low surrogate
+	 */
+	private void addSurrogatePair(final List<Runnable> alternatives, final char firstHigh, final char lastHigh,
+			final char firstLow, final char lastLow) {
+		alternatives.add(() -> {
+			emit(Opcode.CHARSET, charset(c -> (c >= firstHigh) && (c <= lastHigh)));
+			emit(Opcode.CHARSET, charset(c -> (c >= firstLow) && (c <= lastLow)));
+		});
+	}
+
+	/**
+	 * Compiles a repetition: the required matches in sequence, then either a loop
+	 * or a chain of optional matches that all exit to the end.
+	 *
+	 * @param p the repetition to compile
+	 */
+	private void compileRepetition(final PatternRepetition p) {
+		for (int i = 0; i < p.getLowerBound(); i++) {
+			compileInline(p.getPattern());
+		}
+
+		if (p.getUpperBound() == -1) {
+			// Loop, moving the backtrack entry forward after each match
+			final int choice = emit(Opcode.CHOICE, 0);
+			final int body = size;
+			compileInline(p.getPattern());
+			emit(Opcode.PARTIALCOMMIT, body);
+			patch(choice, Opcode.CHOICE, size);
+		} else {
+			// Each optional match commits to the next one, and any failure exits
+			final List<Integer> choices = new ArrayList<>();
+			for (int i = p.getLowerBound(); i < p.getUpperBound(); i++) {
+				choices.add(emit(Opcode.CHOICE, 0));
+				compileInline(p.getPattern());
+				emit(Opcode.COMMIT, size + 1);
+			}
+			for (final int choice : choices) {
+				patch(choice, Opcode.CHOICE, size);
+			}
+		}
+	}
+
+	/**
+	 * Compiles a predicate, which never consumes input.
+	 *
+	 * @param p the predicate to compile
+	 */
+	private void compilePredicate(final PatternPredicate p) {
+		final int choice = emit(Opcode.CHOICE, 0);
+		compileInline(p.getPattern());
+		if (p.isExpectSuccess()) {
+			// Matched: go back to the start and carry on. Didn't: fail.
+			final int backCommit = emit(Opcode.BACKCOMMIT, 0);
+			patch(choice, Opcode.CHOICE, size);
+			emit(Opcode.FAIL, 0);
+			patch(backCommit, Opcode.BACKCOMMIT, size);
+		} else {
+			// Matched: fail past the choice. Didn't: carry on from the start.
+			emit(Opcode.FAILTWICE, 0);
+			patch(choice, Opcode.CHOICE, size);
+		}
+	}
+
+	/**
+	 * Emits a call to a rule, registering the rule to be compiled if it is new.
+	 *
+	 * @param rule the rule to call
+	 */
+	private void emitCall(final Pattern rule) {
+		Integer index = rules.get(rule);
+		if (index == null) {
+			index = ruleList.size();
+			rules.put(rule, index);
+			ruleList.add(rule);
+			callSites.add(new ArrayList<>());
+			toCompile.add(rule);
+		}
+		// The rule's address is filled in once every rule has been compiled
+		callSites.get(index).add(emit(Opcode.CALL, 0));
+	}
+
+	/**
+	 * Finds the index of a character set, adding it if it is new.
+	 *
+	 * @param set the character set
+	 * @return its index
+	 */
+	private int charset(final CharCheckable set) {
+		final int index = charsets.indexOf(set);
+		if (index != -1) {
+			return index;
+		}
+		charsets.add(set);
+		return charsets.size() - 1;
+	}
+
+	/**
+	 * Appends an instruction.
+	 *
+	 * @param op      the instruction's opcode
+	 * @param operand the instruction's operand
+	 * @return the address of the instruction
+	 */
+	private int emit(final int op, final int operand) {
+		if (size == code.length) {
+			code = Arrays.copyOf(code, code.length * 2);
+		}
+		code[size] = Opcode.encode(op, operand);
+		return size++;
+	}
+
+	/**
+	 * Replaces the operand of an instruction that was emitted before its target
+	 * was known.
+	 *
+	 * @param address the address of the instruction
+	 * @param op      the instruction's opcode
+	 * @param operand the instruction's operand
+	 */
+	private void patch(final int address, final int op, final int operand) {
+		code[address] = Opcode.encode(op, operand);
+	}
+
+}
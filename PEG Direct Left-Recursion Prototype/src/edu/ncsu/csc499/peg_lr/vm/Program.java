@@ -0,0 +1,109 @@
+package edu.ncsu.csc499.peg_lr.vm;
+
+import edu.ncsu.csc499.peg_lr.structure.InputContext.CharCheckable;
+
+/**
+ * A grammar compiled by the {@link PatternCompiler} into instructions for the
+ * {@link VirtualMachine}. Execution begins at address 0.
+ */
+public final class Program {
+
+	/** The packed instructions. */
+	private final int[] code;
+
+	/** The character sets referred to by CHARSET instructions. */
+	private final CharCheckable[] charsets;
+
+	/** The type of each rule, by rule index, for display. */
+	private final String[] ruleNames;
+
+	/**
+	 * Constructs a Program. Called by the {@link PatternCompiler}.
+	 *
+	 * @param code      the packed instructions
+	 * @param charsets  the character sets referred to by CHARSET instructions
+	 * @param ruleNames the type of each rule, by rule index
+	 */
+	Program(final int[] code, final CharCheckable[] charsets, final String[] ruleNames) {
+		this.code = code;
+		this.charsets = charsets;
+		this.ruleNames = ruleNames;
+	}
+
+	/**
+	 * Retrieves the packed instructions. Not copied, as the VM reads them on every
+	 * step.
+	 *
+	 * @return the instructions
+	 */
+	int[] getCode() {
+		return code;
+	}
+
+	/**
+	 * Retrieves the character sets referred to by CHARSET instructions.
+	 *
+	 * @return the character sets, by index
+	 */
+	CharCheckable[] getCharsets() {
+		return charsets;
+	}
+
+	/**
+	 * Returns the number of instructions in this Program.
+	 *
+	 * @return the length of the code
+	 */
+	public int size() {
+		return code.length;
+	}
+
+	/**
+	 * Returns the number of rules in this Program.
+	 *
+	 * @return the number of compiled rules
+	 */
+	public int getRuleCount() {
+		return ruleNames.length;
+	}
+
+	/**
+	 * Lists every instruction of this Program, one per line, with its address.
+	 */
+	@Override
+	public String toString() {
+		final StringBuilder listing = new StringBuilder();
+		for (int pc = 0; pc < code.length; pc++) {
+			final int op = Opcode.of(code[pc]);
+			final int operand = Opcode.operand(code[pc]);
+			final String shown;
+			switch (op) {
+			case Opcode.CHAR:
+				shown = "'" + (char) operand + "'";
+				break;
+			case Opcode.CHARSET:
+				shown = "#" + operand;
+				break;
+			case Opcode.OPENGROW:
+			case Opcode.CLOSEGROW:
+				shown = ruleNames[operand];
+				break;
+			case Opcode.CHOICE:
+			case Opcode.COMMIT:
+			case Opcode.PARTIALCOMMIT:
+			case Opcode.BACKCOMMIT:
+			case Opcode.JUMP:
+			case Opcode.CALL:
+			case Opcode.GROW:
+				shown = "-> " + operand;
+				break;
+			default:
+				shown = "";
+				break;
+			}
+			listing.append(String.format("%5d  %-14s%s", pc, Opcode.name(op), shown).stripTrailing()).append('\n');
+		}
+		return listing.toString();
+	}
+
+}
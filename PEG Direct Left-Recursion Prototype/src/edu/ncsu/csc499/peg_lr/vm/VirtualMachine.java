@@ -0,0 +1,228 @@
+package edu.ncsu.csc499.peg_lr.vm;
+
+import java.util.Arrays;
+
+import edu.ncsu.csc499.peg_lr.pattern.Pattern;
+import edu.ncsu.csc499.peg_lr.structure.InputContext;
+import edu.ncsu.csc499.peg_lr.structure.InputContext.CharCheckable;
+import edu.ncsu.csc499.peg_lr.structure.MemoTable;
+
+/**
+ * Runs a compiled {@link Program} against an input, recognizing how far the
+ * grammar matches it, as Pattern.lazyRecognize() does but without recursing on
+ * the Java stack.
+ *
+ * Calls and choices share one backtrack stack, held in two int arrays: the
+ * address to continue at, and the position to restore, which is CALL_FRAME for
+ * a call. A failure pops entries until it reaches a choice, and resumes there.
+ * Seeds of left-recursive rules are kept in a MemoTable keyed by the rule's
+ * index in the Program, and are always cleared by the time the rule returns.
+ *
+ * A VirtualMachine reuses its stacks between runs, so it must not be shared
+ * between threads.
+ */
+public class VirtualMachine {
+
+	/** Position marking a backtrack stack entry as a call rather than a choice. */
+	private static final int CALL_FRAME = -1;
+
+	/** Initial number of backtrack stack entries. */
+	private static final int INITIAL_STACK_SIZE = 64;
+
+	/** The Program to run. */
+	private final Program program;
+
+	/** Address to continue at for each backtrack stack entry. */
+	private int[] stackAddress = new int[INITIAL_STACK_SIZE];
+
+	/** Position to restore for each backtrack stack entry, or CALL_FRAME. */
+	private int[] stackPosition = new int[INITIAL_STACK_SIZE];
+
+	/** Seeds of the left-recursive rules being grown. */
+	private final MemoTable seeds = new MemoTable();
+
+	/**
+	 * Constructs a VirtualMachine to run the given Program.
+	 *
+	 * @param program the Program to run
+	 */
+	public VirtualMachine(final Program program) {
+		this.program = program;
+	}
+
+	/**
+	 * Runs the Program from the context's current position, moving the context to
+	 * the end of the match if there is one.
+	 *
+	 * @param context the input context to match against
+	 * @return the position at which the match ends, or Pattern.NO_MATCH
+	 * @throws IllegalArgumentException if the context doesn't hold its whole input
+	 *                                  as characters
+	 */
+	public int run(final InputContext context) {
+		// Programs index the input by character, and can backtrack anywhere
+		if (!context.isCharInput()) {
+			throw new IllegalArgumentException("A VirtualMachine needs the whole input as characters, not streamed, "
+					+ "segmented or read as bytes.");
+		}
+		final int end = run(context.getInput(), context.getPosition());
+		if (end != Pattern.NO_MATCH) {
+			context.setPosition(end);
+		}
+		return end;
+	}
+
+	/**
+	 * Runs the Program against an input, starting at the given position.
+	 *
+	 * @param input the input to match
+	 * @param start the position to start matching at
+	 * @return the position at which the match ends, or Pattern.NO_MATCH
+	 */
+	public int run(final CharSequence input, final int start) {
+		final int[] code = program.getCode();
+		final CharCheckable[] charsets = program.getCharsets();
+		final int length = input.length();
+
+		int pc = 0;
+		int pos = start;
+		int top = 0;
+
+		while (true) {
+			final int instruction = code[pc];
+			final int operand = Opcode.operand(instruction);
+			boolean fail = false;
+
+			switch (Opcode.of(instruction)) {
+			case Opcode.CHAR:
+				if ((pos < length) && (input.charAt(pos) == operand)) {
+					pos++;
+					pc++;
+				} else {
+					fail = true;
+				}
+				break;
+			case Opcode.CHARSET:
+				if ((pos < length) && charsets[operand].check(input.charAt(pos))) {
+					pos++;
+					pc++;
+				} else {
+					fail = true;
+				}
+				break;
+			case Opcode.CHOICE:
+				top = push(top, operand, pos);
+				pc++;
+				break;
+			case Opcode.COMMIT:
+				top--;
+				pc = operand;
+				break;
+			case Opcode.PARTIALCOMMIT:
+				stackPosition[top - 1] = pos;
+				pc = operand;
+				break;
+			case Opcode.BACKCOMMIT:
+				pos = stackPosition[--top];
+				pc = operand;
+				break;
+			case Opcode.FAILTWICE:
+				top--;
+				fail = true;
+				break;
+			case Opcode.FAIL:
+				fail = true;
+				break;
+			case Opcode.JUMP:
+				pc = operand;
+				break;
+			case Opcode.CALL:
+				top = push(top, pc + 1, CALL_FRAME);
+				pc = operand;
+				break;
+			case Opcode.RET:
+				pc = stackAddress[--top];
+				break;
+			case Opcode.OPENGROW: {
+				final int seed = seeds.getEnd(operand, pos);
+				if (seed == MemoTable.NOT_SAVED) {
+					// First call here: plant a failed seed and run the body
+					seeds.putEnd(operand, pos, MemoTable.FAILED);
+					pc++;
+				} else if (seed == MemoTable.FAILED) {
+					fail = true;
+				} else {
+					// A recursive call while growing: return with the seed
+					pos = seed;
+					pc = stackAddress[--top];
+				}
+				break;
+			}
+			case Opcode.GROW: {
+				// The body starts two instructions after OPENGROW, and the CHOICE
+				// before it saved the rule's starting position
+				final int rule = Opcode.operand(code[operand - 2]);
+				final int initial = stackPosition[top - 1];
+				if (pos > seeds.getEnd(rule, initial)) {
+					// Matched farther: save it and run the body again
+					seeds.putEnd(rule, initial, pos);
+					pc = operand;
+				} else {
+					// No progress: stop growing
+					top--;
+					pc++;
+				}
+				pos = initial;
+				break;
+			}
+			case Opcode.CLOSEGROW: {
+				final int seed = seeds.getEnd(operand, pos);
+				seeds.remove(operand, pos);
+				if (seed == MemoTable.FAILED) {
+					fail = true;
+				} else {
+					pos = seed;
+					pc++;
+				}
+				break;
+			}
+			case Opcode.END:
+				return pos;
+			default:
+				throw new IllegalStateException("Unknown instruction at " + pc);
+			}
+
+			if (fail) {
+				// Unwind calls until reaching a choice to resume at
+				while ((top > 0) && (stackPosition[top - 1] == CALL_FRAME)) {
+					top--;
+				}
+				if (top == 0) {
+					return Pattern.NO_MATCH;
+				}
+				top--;
+				pc = stackAddress[top];
+				pos = stackPosition[top];
+			}
+		}
+	}
+
+	/**
+	 * Pushes an entry onto the backtrack stack, growing it if needed.
+	 *
+	 * @param top      the current number of entries
+	 * @param address  the address to continue at
+	 * @param position the position to restore, or CALL_FRAME
+	 * @return the new number of entries
+	 */
+	private int push(final int top, final int address, final int position) {
+		if (top == stackAddress.length) {
+			stackAddress = Arrays.copyOf(stackAddress, top * 2);
+			stackPosition = Arrays.copyOf(stackPosition, top * 2);
+		}
+		stackAddress[top] = address;
+		stackPosition[top] = position;
+		return top + 1;
+	}
+
+}
@@ -0,0 +1,107 @@
+package edu.ncsu.csc499.peg_lr.pattern;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.ncsu.csc499.peg_lr.pattern.component.PatternString;
+import edu.ncsu.csc499.peg_lr.pattern.component.operator.PatternChoice;
+import edu.ncsu.csc499.peg_lr.pattern.definition.DefinedExpression;
+import edu.ncsu.csc499.peg_lr.pattern.definition.DefinedNestedExpression;
+import edu.ncsu.csc499.peg_lr.structure.InputContext;
+import edu.ncsu.csc499.peg_lr.structure.Result;
+
+public class BatchParserTest {
+
+	@Test
+	public void testSameAsSequential() {
+		final Pattern pattern = new DefinedNestedExpression();
+		final List<String> inputs = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			inputs.add(i + "+(2-" + i + ")" + ((i % 7) == 0 ? "-" : ""));
+		}
+
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			final BatchParser parser = new BatchParser(pattern, executor);
+			final List<Result> results = parser.matchAll(inputs);
+			final int[] ends = parser.recognizeAll(inputs);
+			for (int i = 0; i < inputs.size(); i++) {
+				final Result expected = pattern.lazyMatch(new InputContext(inputs.get(i)));
+				Assert.assertEquals(expected.printResultTree(true), results.get(i).printResultTree(true));
+				Assert.assertEquals(expected.getEndIdx(), ends[i]);
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testSetup() {
+		final ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			final BatchParser parser = new BatchParser(new DefinedExpression(), executor,
+					context -> context.setPosition(1));
+			Assert.assertArrayEquals(new int[] { 4, Pattern.NO_MATCH }, parser.recognizeAll(List.of("x1+2", "x+")));
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testFrozenOnConstruction() {
+		final PatternChoice choice = new PatternChoice(new PatternString("a"));
+		new BatchParser(choice);
+		Assert.assertTrue(choice.isFrozen());
+		Assert.assertThrows(IllegalStateException.class, () -> choice.add(new PatternString("b")));
+	}
+
+	@Test
+	public void testConcurrentFreeze() throws InterruptedException {
+		// Threads racing to match an unfrozen grammar all freeze it the same way
+		final Pattern pattern = new DefinedExpression();
+		final int threads = 8;
+		final CountDownLatch start = new CountDownLatch(1);
+		final AtomicReference<Throwable> failure = new AtomicReference<>();
+		final List<Thread> workers = new ArrayList<>();
+		for (int i = 0; i < threads; i++) {
+			final Thread worker = new Thread(() -> {
+				try {
+					start.await();
+					Assert.assertEquals(5, pattern.lazyRecognize(new InputContext("1+2+3")));
+				} catch (final Throwable t) {
+					failure.set(t);
+				}
+			});
+			workers.add(worker);
+			worker.start();
+		}
+		start.countDown();
+		for (final Thread worker : workers) {
+			worker.join();
+		}
+		Assert.assertNull(failure.get());
+
+		// Every reachable pattern got its own rule index
+		final List<Integer> indices = new ArrayList<>();
+		for (final Pattern p : Grammar.analyze(pattern).getPatterns()) {
+			Assert.assertTrue(p.isFrozen());
+			Assert.assertFalse(indices.contains(p.getRuleIndex()));
+			indices.add(p.getRuleIndex());
+		}
+	}
+
+	@Test
+	public void testParseErrorsRethrown() {
+		final BatchParser parser = new BatchParser(new DefinedExpression());
+		Assert.assertThrows(NullPointerException.class, () -> parser.matchAll(Arrays.asList("1", null)));
+	}
+
+}
@@ -0,0 +1,102 @@
+package edu.ncsu.csc499.peg_lr.pattern;
+
+import static edu.ncsu.csc499.peg_lr.util.PatternTestUtils.assertSameAsLazyMatch;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.ncsu.csc499.peg_lr.pattern.component.PatternString;
+import edu.ncsu.csc499.peg_lr.pattern.component.charclass.PatternCharClass;
+import edu.ncsu.csc499.peg_lr.pattern.component.operator.PatternChoice;
+import edu.ncsu.csc499.peg_lr.pattern.component.operator.PatternRepetition;
+import edu.ncsu.csc499.peg_lr.pattern.component.operator.PatternSequence;
+import edu.ncsu.csc499.peg_lr.pattern.definition.DefinedExpression;
+import edu.ncsu.csc499.peg_lr.pattern.definition.DefinedPattern;
+import edu.ncsu.csc499.peg_lr.pattern.definition.DefinedStatements;
+import edu.ncsu.csc499.peg_lr.structure.ByteInput;
+import edu.ncsu.csc499.peg_lr.structure.InputContext;
+
+public class ChunkedParserTest {
+
+	/** Runs the chunks of every test. Its threads don't keep the JVM running. */
+	private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+	@Test
+	public void testSameAsLazyMatch() {
+		// Guesses land after a "+" as often as after a ";", so most chunks have to
+		// line up again
+		final Pattern statements = new DefinedStatements();
+		final StringBuilder input = new StringBuilder();
+		for (int i = 0; i < 1_000; i++) {
+			input.append(i).append("+").append(i % 7).append("+3;");
+		}
+		final ChunkedParser chunked = new ChunkedParser(statements, POOL, 8);
+		Assert.assertEquals(input.length(),
+				assertSameAsLazyMatch(statements, input.toString(), 0, chunked::match).getEndIdx());
+	}
+
+	@Test
+	public void testNeverLinesUp() {
+		// pairs <- ("a" "b" / "b" "a")*
+		// Chunks starting on a "b" match pairs that are all off by one
+		final Pattern pairs = new PatternRepetition(new PatternChoice(
+				new PatternSequence(new PatternString("a"), new PatternString("b")),
+				new PatternSequence(new PatternString("b"), new PatternString("a"))), 0, -1);
+		final String input = "ab".repeat(4_000) + "a";
+		assertSameAsLazyMatch(pairs, input, 0, new ChunkedParser(pairs, POOL, 8)::match);
+	}
+
+	@Test
+	public void testCharClassRun() {
+		// Text <- [a-z]*, which lazyMatch() matches as one span
+		final Pattern text = new DefinedPattern("Text", new PatternRepetition(PatternCharClass.range('a', 'z'), 0, -1));
+		final String input = "abcdefghij".repeat(1_000);
+		final ChunkedParser chunked = new ChunkedParser(text, POOL, 8);
+		Assert.assertEquals(input.length(), assertSameAsLazyMatch(text, input, 0, chunked::match).getEndIdx());
+	}
+
+	@Test
+	public void testStopsPartWay() {
+		final Pattern statements = new DefinedStatements();
+		final ChunkedParser chunked = new ChunkedParser(statements, POOL, 4);
+		final String input = "1+2;".repeat(1_000) + "x" + "3+4;".repeat(1_000);
+		Assert.assertEquals(4_000, assertSameAsLazyMatch(statements, input, 0, chunked::match).getEndIdx());
+		Assert.assertEquals(input.length(),
+				assertSameAsLazyMatch(statements, input, 4_001, chunked::match).getEndIdx());
+
+		// Not even one statement
+		assertSameAsLazyMatch(statements, "x" + input, 0, chunked::match);
+	}
+
+	@Test
+	public void testShortInput() {
+		final Pattern statements = new DefinedStatements();
+		assertSameAsLazyMatch(statements, "1+2;3;", 0, new ChunkedParser(statements, POOL, 4)::match);
+	}
+
+	@Test
+	public void testRejectsOtherPatterns() {
+		Assert.assertThrows(IllegalArgumentException.class, () -> new ChunkedParser(new DefinedExpression()));
+		Assert.assertThrows(IllegalArgumentException.class,
+				() -> new ChunkedParser(new PatternRepetition(new PatternString("a"), 0, 3)));
+		Assert.assertThrows(IllegalArgumentException.class, () -> new ChunkedParser(new DefinedStatements(), POOL, 0));
+	}
+
+	@Test
+	public void testInputTypes() {
+		final Pattern statements = new DefinedStatements();
+		final ChunkedParser chunked = new ChunkedParser(statements, POOL, 4);
+		final String input = "1+2;".repeat(1_000);
+		final String expected = statements.lazyMatch(new InputContext(input)).printResultTree(true);
+
+		// Any characters held whole are chunked, and bytes are matched in one go
+		Assert.assertEquals(expected,
+				chunked.match(new InputContext(new StringBuilder(input))).printResultTree(true));
+		final InputContext bytes = new InputContext(new ByteInput(input.getBytes(StandardCharsets.UTF_8)));
+		Assert.assertEquals(input.length(), chunked.match(bytes).getEndIdx());
+		Assert.assertEquals(input.length(), bytes.getPosition());
+	}
+}
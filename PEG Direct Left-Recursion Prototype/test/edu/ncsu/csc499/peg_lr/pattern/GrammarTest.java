@@ -0,0 +1,324 @@
+package edu.ncsu.csc499.peg_lr.pattern;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.ncsu.csc499.peg_lr.pattern.component.PatternString;
+import edu.ncsu.csc499.peg_lr.pattern.component.charclass.PatternDigit;
+import edu.ncsu.csc499.peg_lr.pattern.component.operator.PatternChoice;
+import edu.ncsu.csc499.peg_lr.pattern.component.operator.PatternSequence;
+import edu.ncsu.csc499.peg_lr.pattern.definition.DefinedPattern;
+import edu.ncsu.csc499.peg_lr.structure.InputContext;
+import edu.ncsu.csc499.peg_lr.structure.LeftRecursionStrategy;
+import edu.ncsu.csc499.peg_lr.structure.Result;
+
+public class GrammarTest {
+
+	/**
+	 * A DefinedPattern whose definition can be provided after construction, so
+	 * that rules can refer to each other.
+	 */
+	private static class Rule extends DefinedPattern {
+
+		Rule(final String type) {
+			super(type);
+		}
+
+		void define(final Pattern definition) {
+			setDefinition(definition);
+		}
+	}
+
+	/**
+	 * A digit that counts how many times it has been matched.
+	 */
+	private static class CountingDigit extends PatternDigit {
+
+		/** Number of times matched or recognized. */
+		int count;
+
+		@Override
+		protected Result match(final InputContext context) {
+			count++;
+			return super.match(context);
+		}
+
+		@Override
+		protected int recognize(final InputContext context) {
+			count++;
+			return super.recognize(context);
+		}
+	}
+
+	@Test
+	public void testIndirectLeftRecursion() {
+		// A <- B "x" / "a"
+		// B <- A "y" / "b"
+		final Rule a = new Rule("A");
+		final Rule b = new Rule("B");
+		a.define(new PatternChoice(new PatternSequence(b, new PatternString("x")), new PatternString("a")));
+		b.define(new PatternChoice(new PatternSequence(a, new PatternString("y")), new PatternString("b")));
+
+		// Both rules are left-recursive through each other
+		Assert.assertTrue(a.isLeftRecursive());
+		Assert.assertTrue(b.isLeftRecursive());
+		Assert.assertFalse(a.isNullable());
+	}
+
+	@Test
+	public void testRetainingIndirectGrowth() {
+		// A <- B "x" / "a"
+		// B <- A "y" / "b"
+		final Rule a = new Rule("A");
+		final Rule b = new Rule("B");
+		a.define(new PatternChoice(new PatternSequence(b, new PatternString("x")), new PatternString("a")));
+		b.define(new PatternChoice(new PatternSequence(a, new PatternString("y")), new PatternString("b")));
+
+		final InputContext context = new InputContext("bxyx");
+		context.setRetainingGrowth(true);
+		Assert.assertEquals("bxyx", a.lazyMatch(context).getData());
+
+		// B was grown from A's seed, which was still changing, so only A is kept
+		Assert.assertEquals(4, context.resultFor(a, 0).getEndIdx());
+		Assert.assertNull(context.resultFor(b, 0));
+	}
+
+	@Test
+	public void testIndirectHead() {
+		// A <- B "x" / "y"
+		// B <- A "z"
+		final Rule a = new Rule("A");
+		final Rule b = new Rule("B");
+		a.define(new PatternChoice(new PatternSequence(b, new PatternString("x")), new PatternString("y")));
+		b.define(new PatternSequence(a, new PatternString("z")));
+
+		// Growing from A, B is involved
+		final InputContext fromA = new InputContext("yzxzxz");
+		Assert.assertEquals("yzxzx", a.lazyMatch(fromA).getData());
+		Assert.assertEquals(0, fromA.getResultCount());
+		Assert.assertEquals(5, a.lazyRecognize(new InputContext("yzxzxz")));
+		Assert.assertEquals("yzxzx", IterativeMatcher.match(a, new InputContext("yzxzxz")).getData());
+
+		// Growing from B, A is involved
+		final InputContext fromB = new InputContext("yzxzxz");
+		Assert.assertEquals("yzxzxz", b.lazyMatch(fromB).getData());
+		Assert.assertEquals(0, fromB.getResultCount());
+		Assert.assertEquals(6, b.lazyRecognize(new InputContext("yzxzxz")));
+		Assert.assertEquals("yzxzxz", IterativeMatcher.match(b, new InputContext("yzxzxz")).getData());
+	}
+
+	@Test
+	public void testIndirectGrowthIsLinear() {
+		// A <- L1 "+" d / d, L1 <- L2, ..., L16 <- A
+		final Rule a = new Rule("A");
+		Rule link = new Rule("L16");
+		link.define(a);
+		for (int i = 15; i >= 1; i--) {
+			final Rule previous = new Rule("L" + i);
+			previous.define(link);
+			link = previous;
+		}
+		final CountingDigit digit = new CountingDigit();
+		a.define(new PatternChoice(new PatternSequence(link, new PatternString("+"), digit), digit));
+
+		// Each attempt re-evaluates the chain once: one digit per term, plus the
+		// final attempt that falls back to the seed alternative
+		Assert.assertEquals(15, a.lazyMatch(new InputContext("1+2+3+4+5+6+7+8")).getEndIdx());
+		Assert.assertEquals(9, digit.count);
+		digit.count = 0;
+		Assert.assertEquals(15, a.lazyRecognize(new InputContext("1+2+3+4+5+6+7+8")));
+		Assert.assertEquals(9, digit.count);
+	}
+
+	@Test
+	public void testBoundedIndirectGrowth() {
+		// A <- L1, L1 <- L2, L2 <- L3, L3 <- A "+" d / d
+		final Rule a = new Rule("A");
+		final Rule l1 = new Rule("L1");
+		final Rule l2 = new Rule("L2");
+		final Rule l3 = new Rule("L3");
+		final CountingDigit digit = new CountingDigit();
+		a.define(l1);
+		l1.define(l2);
+		l2.define(l3);
+		l3.define(new PatternChoice(new PatternSequence(a, new PatternString("+"), digit), digit));
+
+		final String input = "1+2+3+4";
+		final Result grown = a.lazyMatch(new InputContext(input));
+		final int grownCount = digit.count;
+		digit.count = 0;
+
+		// Every link bounds itself, nesting its growth inside the others'
+		final InputContext bounded = new InputContext(input);
+		bounded.setLeftRecursionStrategy(LeftRecursionStrategy.BOUNDED);
+		Assert.assertEquals(grown.printResultTree(true), a.lazyMatch(bounded).printResultTree(true));
+		Assert.assertEquals(0, bounded.getResultCount());
+		Assert.assertTrue(digit.count > grownCount);
+
+		final InputContext recognizer = new InputContext(input);
+		recognizer.setLeftRecursionStrategy(LeftRecursionStrategy.BOUNDED);
+		Assert.assertEquals(7, a.lazyRecognize(recognizer));
+	}
+
+	@Test
+	public void testCycleNotThroughRoot() {
+		// A <- B
+		// B <- B "x" / "b"
+		final Rule a = new Rule("A");
+		final Rule b = new Rule("B");
+		a.define(b);
+		b.define(new PatternChoice(new PatternSequence(b, new PatternString("x")), new PatternString("b")));
+
+		// Only B begins with itself
+		Assert.assertFalse(a.isLeftRecursive());
+		Assert.assertTrue(b.isLeftRecursive());
+
+		// The grammar holds every reachable pattern, starting with the root
+		final Grammar grammar = Grammar.analyze(a);
+		Assert.assertSame(a, grammar.getPatterns().get(0));
+		Assert.assertTrue(grammar.getPatterns().contains(b));
+	}
+
+	@Test
+	public void testNullableFixpoint() {
+		// N <- N "a" / ""
+		final Rule n = new Rule("N");
+		n.define(new PatternChoice(new PatternSequence(n, new PatternString("a")), new PatternString("")));
+		Assert.assertTrue(n.isNullable());
+		Assert.assertTrue(n.isLeftRecursive());
+
+		// M <- M "a", which can never match anything
+		final Rule m = new Rule("M");
+		m.define(new PatternSequence(m, new PatternString("a")));
+		Assert.assertFalse(m.isNullable());
+		Assert.assertTrue(m.isLeftRecursive());
+
+		// A rule with no definition yet can't match
+		Assert.assertFalse(new Rule("Empty").isNullable());
+		Assert.assertTrue(new Rule("Empty").getLeftmostComponents().isEmpty());
+	}
+
+	@Test
+	public void testLeftmostComponents() {
+		final Pattern nullable = new PatternString("");
+		final Pattern digit = new PatternDigit();
+		final Pattern last = new PatternString("a");
+		final Pattern sequence = new PatternSequence(nullable, digit, last);
+
+		// Everything up to and including the first non-nullable element
+		Assert.assertEquals(2, sequence.getLeftmostComponents().size());
+		Assert.assertSame(nullable, sequence.getLeftmostComponents().get(0));
+		Assert.assertSame(digit, sequence.getLeftmostComponents().get(1));
+	}
+
+	@Test
+	public void testFreezeOnMatch() {
+		final PatternString string = new PatternString("a");
+		final PatternChoice choice = new PatternChoice(string, new PatternDigit());
+
+		// Asking about properties doesn't freeze anything
+		Assert.assertFalse(choice.isNullable());
+		Assert.assertFalse(choice.isFrozen());
+		choice.add(new PatternString("b"));
+
+		// Matching freezes the pattern and everything it reaches
+		choice.lazyMatch(new InputContext("b"));
+		Assert.assertTrue(choice.isFrozen());
+		Assert.assertTrue(string.isFrozen());
+
+		// Frozen patterns can't change
+		Assert.assertThrows(IllegalStateException.class, () -> choice.add(new PatternString("c")));
+	}
+
+	@Test
+	public void testRuleIndices() {
+		final PatternString first = new PatternString("a");
+		final PatternString second = new PatternString("a");
+		final Grammar grammar = Grammar.freeze(new PatternChoice(first, second, new PatternDigit()));
+
+		// Every Pattern in the grammar gets its own index
+		final long distinct = grammar.getPatterns().stream().mapToInt(Pattern::getRuleIndex).distinct().count();
+		Assert.assertEquals(grammar.getPatterns().size(), distinct);
+		Assert.assertNotEquals(first.getRuleIndex(), second.getRuleIndex());
+
+		// Freezing again keeps the indices already handed out
+		final int index = first.getRuleIndex();
+		Grammar.freeze(new PatternSequence(first, new PatternDigit()));
+		Assert.assertEquals(index, first.getRuleIndex());
+	}
+
+	@Test
+	public void testRuleIndicesPerGrammar() {
+		// A new grammar is numbered from 0
+		final PatternString first = new PatternString("a");
+		final Grammar grammar = Grammar.freeze(new PatternSequence(first, new PatternDigit()));
+		Assert.assertArrayEquals(new int[] { 0, 1, 2 },
+				grammar.getPatterns().stream().mapToInt(Pattern::getRuleIndex).sorted().toArray());
+
+		// One built on it fills in after the indices it reaches
+		final Grammar extended = Grammar.freeze(new PatternChoice(first, new PatternString("b")));
+		Assert.assertArrayEquals(new int[] { 0, 1, 2 },
+				extended.getPatterns().stream().mapToInt(Pattern::getRuleIndex).sorted().toArray());
+
+		// Joining grammars frozen separately can't renumber either of them
+		final PatternString x = new PatternString("x");
+		final PatternString y = new PatternString("y");
+		x.freeze();
+		y.freeze();
+		Assert.assertEquals(x.getRuleIndex(), y.getRuleIndex());
+		final Pattern joined = new PatternChoice(x, y);
+		Assert.assertThrows(IllegalStateException.class, joined::freeze);
+		Assert.assertFalse(joined.isFrozen());
+		Assert.assertEquals(0, y.getRuleIndex());
+
+		// Freezing the whole grammar first numbers every part apart
+		final PatternString z = new PatternString("z");
+		final Pattern whole = new PatternChoice(y, z);
+		whole.freeze();
+		Assert.assertNotEquals(y.getRuleIndex(), z.getRuleIndex());
+		final InputContext context = new InputContext("z");
+		Assert.assertFalse(y.lazyMatch(context).isSuccess());
+		Assert.assertEquals("z", whole.lazyMatch(context).getData());
+	}
+
+	@Test
+	public void testGrowingPlans() {
+		// E <- E "+" d / E "-" d / "(" E ")" / d
+		final Rule e = new Rule("E");
+		e.define(new PatternChoice(new PatternSequence(e, new PatternString("+"), new PatternDigit()),
+				new PatternSequence(e, new PatternString("-"), new PatternDigit()),
+				new PatternSequence(new PatternString("("), e, new PatternString(")")), new PatternDigit()));
+		Assert.assertEquals(2, Grammar.analyze(e).propertiesOf(e).getGrowingPlan().getAlternatives().size());
+
+		// A <- "a" / A "x" must keep trying "a" first, so it has no plan
+		final Rule a = new Rule("A");
+		a.define(new PatternChoice(new PatternString("a"), new PatternSequence(a, new PatternString("x"))));
+		Assert.assertNull(Grammar.analyze(a).propertiesOf(a).getGrowingPlan());
+		Assert.assertEquals("a", a.lazyMatch(new InputContext("axx")).getData());
+
+		// Indirect left recursion has no plan either
+		final Rule b = new Rule("B");
+		final Rule c = new Rule("C");
+		b.define(new PatternChoice(new PatternSequence(c, new PatternString("x")), new PatternString("b")));
+		c.define(new PatternChoice(new PatternSequence(b, new PatternString("y")), new PatternString("c")));
+		Assert.assertNull(Grammar.analyze(b).propertiesOf(b).getGrowingPlan());
+		Assert.assertNull(Grammar.analyze(c).propertiesOf(c).getGrowingPlan());
+	}
+
+	@Test
+	public void testGrowingSkipsSeedAlternatives() {
+		// S <- S "+" d / seed
+		final CountingDigit seed = new CountingDigit();
+		final Rule s = new Rule("S");
+		s.define(new PatternChoice(new PatternSequence(s, new PatternString("+"), new PatternDigit()), seed));
+
+		// The seed alternative is only matched for the seed, not in every attempt
+		Assert.assertEquals("1+2+3", s.lazyMatch(new InputContext("1+2+3")).getData());
+		Assert.assertEquals(1, seed.count);
+		Assert.assertEquals(5, s.lazyRecognize(new InputContext("1+2+3")));
+		Assert.assertEquals(2, seed.count);
+		Assert.assertTrue(IterativeMatcher.match(s, new InputContext("1+2+3")).isSuccess());
+		Assert.assertEquals(3, seed.count);
+	}
+
+}
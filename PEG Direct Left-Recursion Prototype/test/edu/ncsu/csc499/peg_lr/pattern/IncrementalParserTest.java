@@ -0,0 +1,167 @@
+package edu.ncsu.csc499.peg_lr.pattern;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.ncsu.csc499.peg_lr.pattern.definition.DefinedExpression;
+import edu.ncsu.csc499.peg_lr.pattern.definition.DefinedIndirectExpression;
+import edu.ncsu.csc499.peg_lr.pattern.definition.DefinedNestedExpression;
+import edu.ncsu.csc499.peg_lr.pattern.definition.DefinedStatements;
+import edu.ncsu.csc499.peg_lr.structure.InputContext;
+import edu.ncsu.csc499.peg_lr.structure.Result;
+
+public class IncrementalParserTest {
+
+	/**
+	 * Makes an edit and checks that the Result is the one a fresh parse of the
+	 * edited document gets.
+	 *
+	 * @param parser      the parser to edit through
+	 * @param root        the pattern it matches
+	 * @param start       the first position to replace
+	 * @param end         the position after the last one to replace
+	 * @param replacement the text to put in their place
+	 */
+	private static void assertEdit(final IncrementalParser parser, final Pattern root, final int start,
+			final int end, final String replacement) {
+		final String before = parser.getInput();
+		final String after = before.substring(0, start) + replacement + before.substring(end);
+		final Result result = parser.edit(start, end, replacement);
+		Assert.assertEquals(after, parser.getInput());
+
+		final Result expected = root.lazyMatch(new InputContext(after));
+		Assert.assertEquals(expected.isSuccess(), result.isSuccess());
+		Assert.assertEquals(expected.getEndIdx(), result.getEndIdx());
+		Assert.assertEquals(expected.printResultTree(true), result.printResultTree(true));
+	}
+
+	@Test
+	public void testLeftRecursiveEdits() {
+		final Pattern root = new DefinedExpression();
+		final IncrementalParser parser = new IncrementalParser(root, "1+22+333+4");
+		Assert.assertEquals(10, parser.getResult().getEndIdx());
+
+		// Within a number, across the left-recursive growth around it
+		assertEdit(parser, root, 3, 4, "5");
+		// Growth past the old end, and back again
+		assertEdit(parser, root, 10, 10, "+67");
+		assertEdit(parser, root, 8, 13, "");
+		// A break in the middle, then mended
+		assertEdit(parser, root, 4, 5, "-");
+		Assert.assertEquals(4, parser.getResult().getEndIdx());
+		assertEdit(parser, root, 4, 5, "+");
+		// From the very start
+		assertEdit(parser, root, 0, 2, "");
+		assertEdit(parser, root, 0, 0, "9+");
+	}
+
+	@Test
+	public void testIndirectAndNested() {
+		final Pattern indirect = new DefinedStatements(new DefinedIndirectExpression(2));
+		final IncrementalParser indirectParser = new IncrementalParser(indirect, "1+2;3+4+5;6;");
+		assertEdit(indirectParser, indirect, 6, 7, "8+9");
+		assertEdit(indirectParser, indirect, 3, 4, "");
+		assertEdit(indirectParser, indirect, 0, 0, "7;");
+
+		final Pattern nested = new DefinedStatements(new DefinedNestedExpression());
+		final IncrementalParser nestedParser = new IncrementalParser(nested, "1-(2+(3-4));5+(6);");
+		assertEdit(nestedParser, nested, 8, 9, "(7+8)");
+		assertEdit(nestedParser, nested, 2, 3, "");
+		assertEdit(nestedParser, nested, 2, 2, "(");
+	}
+
+	@Test
+	public void testKeepsUnaffected() {
+		final StringBuilder document = new StringBuilder();
+		for (int i = 0; i < 1_000; i++) {
+			document.append(i).append('+').append(i % 7).append("+4;");
+		}
+		final Pattern root = new DefinedStatements();
+		final IncrementalParser parser = new IncrementalParser(root, document.toString());
+
+		// An empty edit keeps the whole parse, moved by nothing
+		final Result before = parser.getResult();
+		assertEdit(parser, root, 0, 0, "");
+		Assert.assertEquals(1, parser.getKept());
+		Assert.assertSame(before, parser.getResult());
+
+		// A statement in the middle is matched again, along with the repetition,
+		// which reuses every other statement
+		final int middle = parser.getInput().indexOf(";500+") + 1;
+		assertEdit(parser, root, middle, middle + 3, "12");
+		Assert.assertTrue(parser.getKept() >= 999);
+		assertEdit(parser, root, middle, middle, "1+");
+		Assert.assertTrue(parser.getKept() >= 999);
+	}
+
+	@Test
+	public void testEarlierTreesInvalidated() {
+		final Pattern root = new DefinedStatements();
+		final IncrementalParser parser = new IncrementalParser(root, "1+2;3+4;5+6;");
+		final Result before = parser.getResult();
+		assertEdit(parser, root, 0, 1, "777");
+
+		// The old root matched what the edit replaced, so it can't be read
+		Assert.assertThrows(IllegalStateException.class, () -> before.getData());
+		Assert.assertThrows(IllegalStateException.class, () -> before.getEndIdx());
+		Assert.assertNotNull(before.toString());
+		Assert.assertEquals("777+2;3+4;5+6;", parser.getResult().getData());
+	}
+
+	@Test
+	public void testMemoBounded() {
+		final StringBuilder document = new StringBuilder();
+		for (int i = 0; i < 50; i++) {
+			document.append(i).append('+').append(i % 7).append(';');
+		}
+		final Pattern root = new DefinedStatements();
+		final IncrementalParser parser = new IncrementalParser(root, document.toString());
+		final int memoized = parser.getMemoized();
+
+		// Typing over digits, and into and back out of numbers, many times the
+		// document's length over
+		for (int i = 0; i < 1_000; i++) {
+			final String input = parser.getInput();
+			int at = (i * 37) % input.length();
+			while (!Character.isDigit(input.charAt(at))) {
+				at = (at + 1) % input.length();
+			}
+			parser.edit(at, at + 1, Integer.toString(i % 10));
+			parser.edit(at, at, "9");
+			Assert.assertEquals(input.length() + 1, parser.getResult().getEndIdx());
+			parser.edit(at, at + 1, "");
+			Assert.assertTrue(parser.getMemoized() <= (memoized * 2));
+		}
+		assertEdit(parser, root, 0, 1, "4");
+	}
+
+	@Test
+	public void testCostAfterEdit() {
+		// A right-recursive list reuses everything after an edit as one Result
+		final Pattern root = new DefinedNestedExpression();
+		int kept = -1;
+		for (final int terms : new int[] { 50, 400 }) {
+			final StringBuilder document = new StringBuilder("1");
+			for (int i = 2; i <= terms; i++) {
+				document.append(i % 2 == 0 ? '+' : '-').append(i);
+			}
+			final IncrementalParser parser = new IncrementalParser(root, document.toString());
+			assertEdit(parser, root, 0, 1, "(3+4)");
+			if (kept >= 0) {
+				Assert.assertEquals(kept, parser.getKept());
+			}
+			kept = parser.getKept();
+		}
+		Assert.assertTrue(kept > 0);
+	}
+
+	@Test
+	public void testInvalidEdit() {
+		final IncrementalParser parser = new IncrementalParser(new DefinedExpression(), "1+2");
+		Assert.assertThrows(IndexOutOfBoundsException.class, () -> parser.edit(2, 4, "3"));
+		Assert.assertThrows(IndexOutOfBoundsException.class, () -> parser.edit(2, 1, "3"));
+		Assert.assertThrows(IllegalArgumentException.class, () -> parser.edit(0, 0, null));
+		Assert.assertEquals("1+2", parser.getInput());
+	}
+
+}
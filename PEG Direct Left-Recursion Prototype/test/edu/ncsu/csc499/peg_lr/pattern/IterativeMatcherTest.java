@@ -0,0 +1,63 @@
+package edu.ncsu.csc499.peg_lr.pattern;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.ncsu.csc499.peg_lr.pattern.definition.DefinedExpression;
+import edu.ncsu.csc499.peg_lr.pattern.definition.DefinedNestedExpression;
+import edu.ncsu.csc499.peg_lr.structure.InputContext;
+import edu.ncsu.csc499.peg_lr.structure.Result;
+
+public class IterativeMatcherTest {
+
+	/** Depth of nesting for the stress test, far beyond what recursion survives. */
+	private static final int DEPTH = 1_000_000;
+
+	@Test
+	public void testPackratMatchesSameTree() {
+		final Pattern pattern = new DefinedNestedExpression();
+		final String input = "((1+2)-(3))+4x";
+
+		// Packrat memos are used and kept just as lazyMatch() does
+		final InputContext recursive = new InputContext(input);
+		recursive.setPackrat(true);
+		final Result recursiveResult = pattern.lazyMatch(recursive);
+		final InputContext iterative = new InputContext(input);
+		iterative.setPackrat(true);
+		final Result iterativeResult = IterativeMatcher.match(pattern, iterative);
+
+		Assert.assertEquals(recursiveResult.printResultTree(true), iterativeResult.printResultTree(true));
+		Assert.assertEquals(recursive.getPosition(), iterative.getPosition());
+		Assert.assertEquals(recursive.getResultCount(0), iterative.getResultCount(0));
+	}
+
+	@Test
+	public void testMatchesFromPosition() {
+		final InputContext context = new InputContext("a1+2+3b");
+		context.setPosition(1);
+
+		// Grows the sum from where the context is, and stops there
+		final Result result = IterativeMatcher.match(new DefinedExpression(), context);
+		Assert.assertTrue(result.isSuccess());
+		Assert.assertEquals("1+2+3", result.getData());
+		Assert.assertEquals(6, context.getPosition());
+
+		// A failure leaves the context alone
+		Assert.assertFalse(IterativeMatcher.match(new DefinedExpression(), context).isSuccess());
+		Assert.assertEquals(6, context.getPosition());
+	}
+
+	@Test
+	public void testDeepNesting() {
+		// e.g. "((1))", nested a million deep
+		final String input = "(".repeat(DEPTH) + "1" + ")".repeat(DEPTH);
+		final InputContext context = new InputContext(input);
+		context.setPackrat(true);
+
+		final Result result = IterativeMatcher.match(new DefinedNestedExpression(), context);
+		Assert.assertTrue(result.isSuccess());
+		Assert.assertEquals(input.length(), result.getEndIdx());
+		Assert.assertTrue(context.isAtEnd());
+	}
+
+}
@@ -0,0 +1,175 @@
+package edu.ncsu.csc499.peg_lr.pattern;
+
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.ncsu.csc499.peg_lr.pattern.component.PatternString;
+import edu.ncsu.csc499.peg_lr.pattern.component.charclass.PatternDigit;
+import edu.ncsu.csc499.peg_lr.pattern.component.operator.PatternChoice;
+import edu.ncsu.csc499.peg_lr.pattern.component.operator.PatternRepetition;
+import edu.ncsu.csc499.peg_lr.pattern.component.operator.PatternSequence;
+import edu.ncsu.csc499.peg_lr.pattern.definition.DefinedExpression;
+import edu.ncsu.csc499.peg_lr.pattern.definition.DefinedNumber;
+import edu.ncsu.csc499.peg_lr.pattern.definition.DefinedPattern;
+import edu.ncsu.csc499.peg_lr.structure.ByteInput;
+import edu.ncsu.csc499.peg_lr.structure.InputContext;
+import edu.ncsu.csc499.peg_lr.structure.Result;
+import edu.ncsu.csc499.peg_lr.structure.StreamingInput;
+
+public class PatternScannerTest {
+
+	/**
+	 * Finds every match the slow way, with a fresh context at each position.
+	 *
+	 * @param pattern the pattern to search for
+	 * @param input   the input to search
+	 * @return each match's start, end, and text
+	 */
+	private static List<String> naiveFindAll(final Pattern pattern, final String input) {
+		final List<String> matches = new ArrayList<>();
+		int position = 0;
+		while (position <= input.length()) {
+			final InputContext context = new InputContext(input);
+			context.setPosition(position);
+			final Result match = pattern.lazyMatch(context);
+			if (match.isSuccess()) {
+				matches.add(describe(match));
+				position = (match.getEndIdx() == position) ? (position + 1) : match.getEndIdx();
+			} else {
+				position++;
+			}
+		}
+		return matches;
+	}
+
+	/**
+	 * Describes a match by its span and text.
+	 *
+	 * @param match the match
+	 * @return its start, end, and text
+	 */
+	private static String describe(final Result match) {
+		return match.getStartIdx() + "-" + match.getEndIdx() + ":" + match.getData();
+	}
+
+	/**
+	 * Checks that the scanner finds the same matches as the slow way.
+	 *
+	 * @param pattern the pattern to search for
+	 * @param input   the input to search
+	 * @return the matches
+	 */
+	private static List<String> assertSameAsNaive(final Pattern pattern, final String input) {
+		final List<String> expected = naiveFindAll(pattern, input);
+		final List<String> matches = new PatternScanner(pattern).findAll(new InputContext(input))
+				.map(PatternScannerTest::describe).collect(Collectors.toList());
+		Assert.assertEquals(expected, matches);
+		return matches;
+	}
+
+	/**
+	 * Generates "ab 1+2 " over and over, without end.
+	 */
+	private static final class EndlessReader extends Reader {
+
+		/** The text repeated. */
+		private static final String UNIT = "ab 1+2 ";
+
+		/** The position in the text of the next character. */
+		private int next;
+
+		@Override
+		public int read(final char[] cbuf, final int off, final int len) {
+			for (int i = 0; i < len; i++) {
+				cbuf[off + i] = UNIT.charAt(next);
+				next = (next + 1) % UNIT.length();
+			}
+			return len;
+		}
+
+		@Override
+		public void close() {
+			// Nothing to release
+		}
+
+	}
+
+	@Test
+	public void testFirstSet() {
+		final List<String> matches = assertSameAsNaive(new DefinedExpression(), "x 1+2 yy 34+5+6 z 7+ 8");
+		Assert.assertEquals(4, matches.size());
+		Assert.assertEquals("9-15:34+5+6", matches.get(1));
+		assertSameAsNaive(new DefinedExpression(), "no digits here");
+		assertSameAsNaive(new DefinedExpression(), "");
+	}
+
+	@Test
+	public void testLiteral() {
+		// "ERROR" Number, in a log
+		final Pattern error = new DefinedPattern("Error",
+				new PatternSequence(new PatternString("ERROR "), new DefinedNumber()));
+		final StringBuilder log = new StringBuilder();
+		for (int i = 0; i < 500; i++) {
+			log.append((i % 7) == 0 ? "ERROR " : "INFO ").append(i).append(" ERROR x ERRO\n");
+		}
+		final List<String> matches = assertSameAsNaive(error, log.toString());
+		Assert.assertEquals(72, matches.size());
+
+		// Overlapping near-misses and a literal of one character
+		assertSameAsNaive(new PatternSequence(new PatternString("aab"), new PatternDigit()), "aaab1aab aab2ab3aab4");
+		assertSameAsNaive(new PatternSequence(new PatternString("+"), new PatternDigit()), "1+2++3+x+4");
+	}
+
+	@Test
+	public void testEmptyMatches() {
+		// Digits*, which matches nothing wherever there's no digit
+		final List<String> matches = assertSameAsNaive(new PatternRepetition(new PatternDigit(), 0, -1), "a12b");
+		Assert.assertEquals(4, matches.size());
+		Assert.assertEquals("1-3:12", matches.get(1));
+		assertSameAsNaive(new PatternChoice(new PatternString("x"), new PatternString("")), "axxb");
+	}
+
+	@Test
+	public void testFind() {
+		final InputContext context = new InputContext("a 12 b 3");
+		final PatternScanner scanner = new PatternScanner(new DefinedNumber());
+		Assert.assertEquals("2-4:12", describe(scanner.find(context)));
+		Assert.assertEquals(4, context.getPosition());
+		Assert.assertEquals("7-8:3", describe(scanner.find(context)));
+		Assert.assertFalse(scanner.find(context).isSuccess());
+	}
+
+	@Test
+	public void testBytes() {
+		final String text = "caf\u00E9 \u00E9t\u00E9 12 \u00E9t\u00E9 \u00E9t";
+		final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		final Pattern summer = new PatternString("\u00E9t\u00E9");
+		final List<Integer> starts = new PatternScanner(summer).findAll(new InputContext(new ByteInput(bytes)))
+				.map(Result::getStartIdx).collect(Collectors.toList());
+		Assert.assertEquals(List.of(6, 15), starts);
+
+		final List<String> numbers = new PatternScanner(new DefinedNumber())
+				.findAll(new InputContext(new ByteInput(bytes))).map(Result::getData).collect(Collectors.toList());
+		Assert.assertEquals(List.of("12"), numbers);
+	}
+
+	@Test
+	public void testLazy() {
+		// The input never ends, so only what's read of the stream can be searched
+		final InputContext context = new InputContext(new StreamingInput(new EndlessReader()));
+		final List<String> matches = new PatternScanner(new DefinedExpression()).findAll(context).limit(3)
+				.map(PatternScannerTest::describe).collect(Collectors.toList());
+		Assert.assertEquals(List.of("3-6:1+2", "10-13:1+2", "17-20:1+2"), matches);
+
+		// Far enough to discard behind the search
+		final long count = new PatternScanner(new DefinedExpression()).findAll(context).limit(50_000).count();
+		Assert.assertEquals(50_000, count);
+	}
+
+}
@@ -0,0 +1,135 @@
+package edu.ncsu.csc499.peg_lr.pattern;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.ncsu.csc499.peg_lr.pattern.component.PatternString;
+import edu.ncsu.csc499.peg_lr.pattern.component.charclass.PatternDigit;
+import edu.ncsu.csc499.peg_lr.pattern.component.operator.PatternChoice;
+import edu.ncsu.csc499.peg_lr.pattern.component.operator.PatternPredicate;
+import edu.ncsu.csc499.peg_lr.pattern.component.operator.PatternRepetition;
+import edu.ncsu.csc499.peg_lr.pattern.component.operator.PatternSequence;
+import edu.ncsu.csc499.peg_lr.pattern.definition.DefinedExpression;
+import edu.ncsu.csc499.peg_lr.pattern.definition.DefinedIndirectExpression;
+import edu.ncsu.csc499.peg_lr.pattern.definition.DefinedNestedExpression;
+import edu.ncsu.csc499.peg_lr.pattern.definition.DefinedPattern;
+import edu.ncsu.csc499.peg_lr.structure.ByteInput;
+import edu.ncsu.csc499.peg_lr.structure.InputContext;
+import edu.ncsu.csc499.peg_lr.structure.Result;
+import edu.ncsu.csc499.peg_lr.util.PatternTestUtils;
+
+public class PikaParserTest {
+
+	/**
+	 * Asserts that pika parsing builds the same tree as lazyMatch() and ends in
+	 * the same place, and that recognizing agrees.
+	 *
+	 * @param p     the pattern to match
+	 * @param input the input to match it against
+	 * @param pika  the parser for the pattern
+	 */
+	private static void assertAgrees(final Pattern p, final String input, final PikaParser pika) {
+		final Result expected = PatternTestUtils.assertSameAsLazyMatch(p, input, 0, pika::match);
+		Assert.assertEquals(expected.isSuccess() ? expected.getEndIdx() : Pattern.NO_MATCH,
+				pika.recognize(new InputContext(input)));
+	}
+
+	@Test
+	public void testLeftRecursion() {
+		final Pattern expression = new DefinedExpression();
+		final PikaParser pika = new PikaParser(expression);
+		assertAgrees(expression, "1+2-3+45", pika);
+		assertAgrees(expression, "1+2-", pika);
+
+		final Pattern indirect = new DefinedIndirectExpression(3);
+		assertAgrees(indirect, "1+2+3+4", new PikaParser(indirect));
+	}
+
+	@Test
+	public void testManyChunks() {
+		// Long enough that the terminals are matched in several tasks
+		// list <- ([0-9]+ ",")*
+		final Pattern list = new DefinedPattern("List", new PatternRepetition(
+				new PatternSequence(new PatternRepetition(new PatternDigit(), 1, -1), new PatternString(",")), 0, -1));
+		final String input = "12,3,".repeat(5_000) + "4";
+		final ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			assertAgrees(list, input, new PikaParser(list, pool));
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testSkipsFailingAlternatives() {
+		// Matching this without memoization would take about 3^20 tries of the
+		// innermost term
+		final Pattern nested = new DefinedNestedExpression();
+		final String input = "(".repeat(20) + "1-2" + ")".repeat(20);
+		assertAgrees(nested, input, new PikaParser(nested));
+	}
+
+	@Test
+	public void testPredicates() {
+		// word <- !"end" [0-9]+ / "end"
+		final Pattern word = new DefinedPattern("Word",
+				new PatternChoice(
+						new PatternSequence(new PatternPredicate(new PatternString("end"), false),
+								new PatternRepetition(new PatternDigit(), 1, -1)),
+						new PatternString("end")));
+		// words <- (word ";")* &"."
+		final Pattern words = new DefinedPattern("Words",
+				new PatternSequence(new PatternRepetition(new PatternSequence(word, new PatternString(";")), 0, -1),
+						new PatternPredicate(new PatternString("."), true)));
+		final PikaParser pika = new PikaParser(words);
+		assertAgrees(words, "12;3;end;456;.", pika);
+		assertAgrees(words, "12;3;end;456;", pika);
+		assertAgrees(words, ".", pika);
+	}
+
+	@Test
+	public void testBoundedRepetition() {
+		// pair <- [0-9]{2,3} "!"
+		final Pattern pair = new DefinedPattern("Pair",
+				new PatternSequence(new PatternRepetition(new PatternDigit(), 2, 3), new PatternString("!")));
+		final PikaParser pika = new PikaParser(pair);
+		assertAgrees(pair, "12!", pika);
+		assertAgrees(pair, "123!", pika);
+		assertAgrees(pair, "1234!", pika);
+		assertAgrees(pair, "1!", pika);
+	}
+
+	@Test
+	public void testStartsMidInput() {
+		final Pattern expression = new DefinedExpression();
+		final PikaParser pika = new PikaParser(expression);
+		final InputContext context = new InputContext("x=1+2");
+		context.setPosition(2);
+		Assert.assertEquals("1+2", pika.match(context).getData());
+		Assert.assertEquals(5, context.getPosition());
+
+		final InputContext recognizer = new InputContext("x=1+2");
+		recognizer.setPosition(2);
+		Assert.assertEquals(5, pika.recognize(recognizer));
+		Assert.assertEquals(5, recognizer.getPosition());
+	}
+
+	@Test
+	public void testInputTypes() {
+		final Pattern expression = new DefinedExpression();
+		final PikaParser pika = new PikaParser(expression);
+
+		// Any characters held whole can be swept
+		final InputContext context = new InputContext(new StringBuilder("1+2+3x"));
+		Assert.assertEquals("1+2+3", pika.match(context).getData());
+		Assert.assertEquals(5, context.getPosition());
+
+		// Bytes can't
+		final InputContext bytes = new InputContext(new ByteInput("1+2".getBytes(StandardCharsets.UTF_8)));
+		Assert.assertThrows(IllegalArgumentException.class, () -> pika.recognize(bytes));
+		Assert.assertThrows(IllegalArgumentException.class, () -> pika.match(bytes));
+	}
+}
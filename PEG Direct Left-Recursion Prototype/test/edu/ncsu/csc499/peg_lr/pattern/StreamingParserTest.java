@@ -0,0 +1,176 @@
+package edu.ncsu.csc499.peg_lr.pattern;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.ncsu.csc499.peg_lr.pattern.definition.DefinedExpression;
+import edu.ncsu.csc499.peg_lr.pattern.definition.DefinedStatements;
+import edu.ncsu.csc499.peg_lr.structure.InputContext;
+import edu.ncsu.csc499.peg_lr.structure.Result;
+import edu.ncsu.csc499.peg_lr.structure.SegmentedInput;
+import edu.ncsu.csc499.peg_lr.structure.StreamingInput;
+
+public class StreamingParserTest {
+
+	/**
+	 * Generates statements like "12+3+4;" as they're read, without ever holding
+	 * more than one.
+	 */
+	private static final class StatementReader extends Reader {
+
+		/** Number of statements left to generate. */
+		private int remaining;
+
+		/** The rest of the statement being read. */
+		private String pending = "";
+
+		/**
+		 * Constructs a StatementReader.
+		 *
+		 * @param statements the number of statements to generate
+		 */
+		private StatementReader(final int statements) {
+			this.remaining = statements;
+		}
+
+		@Override
+		public int read(final char[] cbuf, final int off, final int len) {
+			if (pending.isEmpty()) {
+				if (remaining == 0) {
+					return -1;
+				}
+				pending = remaining + "+" + (remaining % 7) + "+4;";
+				remaining--;
+			}
+			final int n = Math.min(len, pending.length());
+			pending.getChars(0, n, cbuf, off);
+			pending = pending.substring(n);
+			return n;
+		}
+
+		@Override
+		public void close() {
+			// Nothing to release
+		}
+
+	}
+
+	/**
+	 * A segment that repeats the statement "12+3;" a billion times over, without
+	 * holding more than one.
+	 */
+	private static final class RepeatedStatements implements CharSequence {
+
+		/** The statement repeated. */
+		private static final String STATEMENT = "12+3;";
+
+		@Override
+		public int length() {
+			return 1_000_000_000;
+		}
+
+		@Override
+		public char charAt(final int index) {
+			return STATEMENT.charAt(index % STATEMENT.length());
+		}
+
+		@Override
+		public CharSequence subSequence(final int start, final int end) {
+			final StringBuilder builder = new StringBuilder();
+			for (int i = start; i < end; i++) {
+				builder.append(charAt(i));
+			}
+			return builder.toString();
+		}
+
+	}
+
+	@Test
+	public void testSameAsLazyMatch() {
+		final DefinedStatements statements = new DefinedStatements();
+		final Pattern statement = statements.getStatement();
+		final String input = "1+2;3+4+5;67;8+";
+		final Result expected = statements.lazyMatch(new InputContext(input));
+
+		// Each statement the repetition matches
+		final List<String> expectedRecords = new ArrayList<>();
+		final InputContext expectedContext = new InputContext(input);
+		for (Result r = statement.lazyMatch(expectedContext); r.isSuccess(); r = statement.lazyMatch(expectedContext)) {
+			expectedRecords.add(r.printResultTree(true));
+		}
+		Assert.assertEquals(3, expectedRecords.size());
+
+		for (final boolean packrat : new boolean[] { false, true }) {
+			final InputContext context = new InputContext(new StreamingInput(new StringReader(input)));
+			context.setPackrat(packrat);
+			final List<String> records = new ArrayList<>();
+			final long end = new StreamingParser(statements).parse(context,
+					record -> records.add(record.printResultTree(true)));
+
+			Assert.assertEquals(expected.getEndIdx(), end);
+			Assert.assertEquals(expected.getEndIdx(), context.getPosition());
+			Assert.assertEquals(expectedRecords, records);
+		}
+	}
+
+	@Test
+	public void testBoundedWindow() {
+		// Many times longer than the window is allowed to get
+		final int statements = 200_000;
+		final StreamingInput input = new StreamingInput(new StatementReader(statements));
+		final InputContext context = new InputContext(input);
+		context.setPackrat(true);
+		final int[] count = { 0 };
+		final int[] largestWindow = { 0 };
+
+		final long end = new StreamingParser(new DefinedStatements()).parse(context, record -> {
+			count[0]++;
+			largestWindow[0] = Math.max(largestWindow[0], input.getWindowSize());
+		});
+
+		Assert.assertEquals(statements, count[0]);
+		Assert.assertEquals(input.length(), end);
+		Assert.assertTrue(end > 2_000_000);
+		Assert.assertTrue(largestWindow[0] <= 32_768);
+	}
+
+	@Test
+	public void testSegmented() {
+		// Five billion characters, matched from near the end
+		final SegmentedInput input = new SegmentedInput(Collections.nCopies(5, new RepeatedStatements()));
+		final long start = input.length() - 3_000_000;
+		final InputContext context = new InputContext(input, start);
+		context.setPackrat(true);
+		final int[] count = { 0 };
+		final long[] last = { 0 };
+
+		final long end = new StreamingParser(new DefinedStatements()).parse(context, record -> {
+			count[0]++;
+			// Each record starts where the last one ended
+			Assert.assertEquals(last[0], (context.getOrigin() + record.getStartIdx()) - start);
+			Assert.assertEquals("12+3;", record.getData());
+			last[0] = (context.getOrigin() + record.getEndIdx()) - start;
+		});
+
+		Assert.assertEquals(600_000, count[0]);
+		Assert.assertEquals(input.length(), end);
+		Assert.assertTrue(context.getOrigin() > start);
+		Assert.assertTrue(context.getPosition() < 3_000_000);
+	}
+
+	@Test
+	public void testTooFewRecords() {
+		final InputContext context = new InputContext(new StreamingInput(new StringReader("x")));
+		Assert.assertEquals(Pattern.NO_MATCH, new StreamingParser(new DefinedStatements()).parse(context, record -> {
+			Assert.fail();
+		}));
+		Assert.assertThrows(IllegalArgumentException.class, () -> new StreamingParser(new DefinedExpression()));
+	}
+
+}
@@ -0,0 +1,167 @@
+package edu.ncsu.csc499.peg_lr.pattern.component;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.ncsu.csc499.peg_lr.pattern.Pattern;
+import edu.ncsu.csc499.peg_lr.pattern.component.charclass.PatternCharClass;
+import edu.ncsu.csc499.peg_lr.pattern.component.charclass.PatternDigit;
+import edu.ncsu.csc499.peg_lr.pattern.component.operator.PatternRepetition;
+import edu.ncsu.csc499.peg_lr.structure.ByteInput;
+import edu.ncsu.csc499.peg_lr.structure.InputContext;
+import edu.ncsu.csc499.peg_lr.structure.Result;
+import edu.ncsu.csc499.peg_lr.util.PatternTestUtils;
+
+public class PatternCharClassTest {
+
+	private static final PatternCharClass LOWER = PatternCharClass.range('a', 'z');
+
+	/** A grinning face, outside the Basic Multilingual Plane. */
+	private static final String EMOJI = "\uD83D\uDE00";
+
+	/** Mathematical bold digit zero, which Character.isDigit() accepts. */
+	private static final String BOLD_ZERO = "\uD835\uDFCE";
+
+	@Test
+	public void testRange() {
+		PatternTestUtils.assertMatches(LOWER, "a");
+		PatternTestUtils.assertMatches(LOWER, "m");
+		PatternTestUtils.assertMatches(LOWER, "z");
+		PatternTestUtils.assertRejects(LOWER, "");
+		PatternTestUtils.assertRejects(LOWER, "A");
+		PatternTestUtils.assertRejects(LOWER, "{");
+		PatternTestUtils.assertRejects(LOWER, "\u00E9");
+	}
+
+	@Test
+	public void testNamed() {
+		PatternTestUtils.assertMatches(PatternCharClass.named("digit"), "7");
+		PatternTestUtils.assertRejects(PatternCharClass.named("digit"), "\u0663");
+		PatternTestUtils.assertMatches(PatternCharClass.named("space"), "\t");
+		PatternTestUtils.assertMatches(PatternCharClass.named("punct"), "~");
+		PatternTestUtils.assertRejects(PatternCharClass.named("punct"), "a");
+		PatternTestUtils.assertMatches(PatternCharClass.named("cntrl"), "\u007F");
+		PatternTestUtils.assertMatches(PatternCharClass.named("word"), "_");
+		Assert.assertThrows(IllegalArgumentException.class, () -> PatternCharClass.named("digits"));
+		Assert.assertThrows(IllegalArgumentException.class, () -> PatternCharClass.named(null));
+	}
+
+	@Test
+	public void testUnionAndNegation() {
+		final PatternCharClass identifier = PatternCharClass.union(LOWER, PatternCharClass.named("digit"),
+				PatternCharClass.of("_$"));
+		PatternTestUtils.assertMatches(identifier, "q");
+		PatternTestUtils.assertMatches(identifier, "5");
+		PatternTestUtils.assertMatches(identifier, "$");
+		PatternTestUtils.assertRejects(identifier, "-");
+
+		final PatternCharClass other = identifier.negate();
+		PatternTestUtils.assertMatches(other, "-");
+		PatternTestUtils.assertMatches(other, "\u0000");
+		PatternTestUtils.assertMatches(other, "\u00E9");
+		PatternTestUtils.assertRejects(other, "q");
+		PatternTestUtils.assertRejects(other, "");
+		Assert.assertEquals(identifier, other.negate());
+	}
+
+	@Test
+	public void testSupplementary() {
+		// A code point outside the BMP is matched whole, as two characters
+		final PatternCharClass notLower = LOWER.negate();
+		PatternTestUtils.assertMatches(notLower, EMOJI);
+		PatternTestUtils.assertMatches(PatternCharClass.of(EMOJI), EMOJI);
+		PatternTestUtils.assertRejects(PatternCharClass.of(BOLD_ZERO), EMOJI);
+		PatternTestUtils.assertMatches(new PatternDigit(), BOLD_ZERO);
+		PatternTestUtils.assertMatches(new PatternRepetition(new PatternDigit(), 2, 2), "4" + BOLD_ZERO);
+
+		// A high surrogate only matches on its own if it isn't half of a pair
+		final PatternCharClass high = PatternCharClass.range(0xD83D, 0xD83D);
+		PatternTestUtils.assertMatches(high, "\uD83D");
+		PatternTestUtils.assertMatchesExact(notLower, "\uD83Dx", "\uD83D");
+		PatternTestUtils.assertRejects(high, EMOJI);
+
+		// Ranges split across several high surrogates
+		final PatternCharClass astral = PatternCharClass.range(0x1F3FF, 0x1F801);
+		PatternTestUtils.assertMatches(astral, EMOJI);
+		PatternTestUtils.assertMatches(astral, new String(Character.toChars(0x1F3FF)));
+		PatternTestUtils.assertMatches(astral, new String(Character.toChars(0x1F801)));
+		PatternTestUtils.assertRejects(astral, new String(Character.toChars(0x1F802)));
+		PatternTestUtils.assertRejects(astral, BOLD_ZERO);
+	}
+
+	@Test
+	public void testBytes() {
+		// A letter, then a four-byte emoji, then an invalid byte
+		final byte[] bytes = ("x" + EMOJI + "?").getBytes(StandardCharsets.UTF_8);
+		bytes[5] = (byte) 0xFF;
+		final InputContext context = new InputContext(new ByteInput(bytes));
+		final Pattern notLower = LOWER.negate();
+
+		Assert.assertFalse(notLower.lazyMatch(context).isSuccess());
+		context.setPosition(1);
+		final Result emoji = notLower.lazyMatch(context);
+		Assert.assertEquals(5, emoji.getEndIdx());
+		Assert.assertEquals(EMOJI, emoji.getData());
+		Assert.assertEquals(6, notLower.lazyRecognize(context));
+		Assert.assertFalse(PatternCharClass.of(EMOJI).negate().lazyMatch(new InputContext(new ByteInput(
+				EMOJI.getBytes(StandardCharsets.UTF_8)))).isSuccess());
+	}
+
+	@Test
+	public void testRepetitionSpan() {
+		final Pattern word = new PatternRepetition(LOWER, 1, -1);
+		PatternTestUtils.assertMatchesExact(word, "hello world", "hello");
+		PatternTestUtils.assertRejects(word, "Hello");
+
+		// The run is one Result, without one for each character
+		final Result hello = word.lazyMatch(new InputContext("hello world"));
+		Assert.assertEquals(5, hello.getEndIdx());
+		Assert.assertFalse(hello.printResultTree(true).contains("PatternCharClass"));
+
+		final Pattern twoToThree = new PatternRepetition(LOWER, 2, 3);
+		PatternTestUtils.assertMatchesExact(twoToThree, "abcd", "abc");
+		PatternTestUtils.assertMatches(twoToThree, "ab");
+		PatternTestUtils.assertRejects(twoToThree, "a1");
+		final InputContext context = new InputContext("a1");
+		Assert.assertEquals(Pattern.NO_MATCH, twoToThree.lazyRecognize(context));
+		Assert.assertEquals(0, context.getPosition());
+	}
+
+	@Test
+	public void testDefinition() {
+		Assert.assertEquals("[a-z]", LOWER.getDefinition(false));
+		Assert.assertEquals("[+\\-\\u00E9]", PatternCharClass.of("+-\u00E9").getDefinition(false));
+		Assert.assertEquals("[:digit:]", PatternCharClass.named("digit").getDefinition(false));
+		Assert.assertEquals("[[a-z][:digit:]]",
+				PatternCharClass.union(LOWER, PatternCharClass.named("digit")).getDefinition(false));
+		Assert.assertEquals("[^[a-z]]", LOWER.negate().getDefinition(false));
+		Assert.assertEquals("[\\U0001F600]", PatternCharClass.of(EMOJI).getDefinition(false));
+	}
+
+	@Test
+	public void testProperties() {
+		Assert.assertFalse(LOWER.isNullable());
+		Assert.assertTrue(LOWER.isHidden());
+		Assert.assertEquals(PatternCharClass.of("cab"), PatternCharClass.range('a', 'c'));
+		Assert.assertEquals(PatternCharClass.of("cab").hashCode(), PatternCharClass.range('a', 'c').hashCode());
+		Assert.assertNotEquals(LOWER, LOWER.negate());
+
+		Assert.assertTrue(PatternCharClass.named("xdigit").getFirstSet().contains('f'));
+		Assert.assertFalse(PatternCharClass.named("xdigit").getFirstSet().contains('g'));
+		Assert.assertTrue(PatternCharClass.of(EMOJI).getFirstSet().contains('\uD83D'));
+		Assert.assertFalse(PatternCharClass.of(EMOJI).getFirstSet().contains('\uDE00'));
+		Assert.assertTrue(new PatternDigit().getFirstSet().contains('\uD835'));
+	}
+
+	@Test
+	public void testInvalid() {
+		Assert.assertThrows(IllegalArgumentException.class, () -> PatternCharClass.range('z', 'a'));
+		Assert.assertThrows(IllegalArgumentException.class, () -> PatternCharClass.range(-1, 'a'));
+		Assert.assertThrows(IllegalArgumentException.class, () -> PatternCharClass.range('a', 0x110000));
+		Assert.assertThrows(IllegalArgumentException.class, () -> PatternCharClass.of(null));
+		Assert.assertThrows(IllegalArgumentException.class, () -> PatternCharClass.union(LOWER, null));
+	}
+
+}
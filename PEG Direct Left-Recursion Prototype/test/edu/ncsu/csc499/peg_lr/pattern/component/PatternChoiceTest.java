@@ -7,10 +7,17 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import edu.ncsu.csc499.peg_lr.event.EventHistory;
+import edu.ncsu.csc499.peg_lr.event.ParseEvent;
+import edu.ncsu.csc499.peg_lr.event.pattern.OrderedChoiceEvent;
+import edu.ncsu.csc499.peg_lr.pattern.FirstSet;
 import edu.ncsu.csc499.peg_lr.pattern.Pattern;
 import edu.ncsu.csc499.peg_lr.pattern.component.charclass.PatternDigit;
 import edu.ncsu.csc499.peg_lr.pattern.component.operator.PatternChoice;
+import edu.ncsu.csc499.peg_lr.pattern.component.operator.PatternPredicate;
+import edu.ncsu.csc499.peg_lr.pattern.component.operator.PatternSequence;
 import edu.ncsu.csc499.peg_lr.pattern.definition.DefinedPattern;
+import edu.ncsu.csc499.peg_lr.structure.InputContext;
 import edu.ncsu.csc499.peg_lr.util.PatternTestUtils;
 
 /**
@@ -138,4 +145,70 @@ public class PatternChoiceTest {
 				new PatternChoice(new PatternDigit(), new PatternString("")));
 		Assert.assertFalse(notLRDefinition.isLeftRecursive());
 	}
+
+	@Test
+	public void testFirstSet() {
+		Assert.assertEquals("[ot]", new PatternChoice(one, three).getFirstSet().toString());
+		Assert.assertTrue(pattern.getFirstSet().contains('7'));
+		Assert.assertFalse(pattern.getFirstSet().contains('x'));
+
+		// A nullable prefix, like a predicate, lets the next element begin the match
+		final Pattern guarded = new PatternSequence(new PatternPredicate(new PatternString("x"), false),
+				new PatternString(""), new PatternString("abc"), new PatternString("d"));
+		Assert.assertEquals("[a]", guarded.getFirstSet().toString());
+		Assert.assertTrue(new PatternString("").getFirstSet().isEmpty());
+	}
+
+	@Test
+	public void testRecursiveFirstSet() {
+		// list <- "[" list "]" / item; item <- [0-9] / "-" item
+		final DefinedPattern item = new DefinedPattern("Item") {
+			{
+				super.setDefinition(
+						new PatternChoice(new PatternDigit(), new PatternSequence(new PatternString("-"), this)));
+			}
+		};
+		final Pattern list = new DefinedPattern("List") {
+			{
+				super.setDefinition(new PatternChoice(
+						new PatternSequence(new PatternString("["), this, new PatternString("]")), item));
+			}
+		};
+		Assert.assertEquals(FirstSet.DIGITS.union(FirstSet.of('-')).union(FirstSet.of('[')), list.getFirstSet());
+	}
+
+	@Test
+	public void testSkipsImpossibleAlternatives() {
+		// Keywords that each begin with a different character
+		final Pattern keyword = new PatternChoice(new PatternString("if"), new PatternString("else"),
+				new PatternString("while"), new PatternString("return"), new PatternDigit(), new PatternString(""));
+		PatternTestUtils.assertMatches(keyword, "return");
+		PatternTestUtils.assertMatches(keyword, "");
+
+		// Only the alternatives that may match are attempted
+		Assert.assertEquals(1, countAttempts(keyword, "return"));
+		Assert.assertEquals(1, countAttempts(keyword, "7"));
+		Assert.assertEquals(2, countAttempts(keyword, "whole"));
+		Assert.assertEquals(1, countAttempts(keyword, "x"));
+		Assert.assertEquals(1, countAttempts(keyword, ""));
+	}
+
+	/**
+	 * Counts the alternatives of a choice attempted while matching it.
+	 *
+	 * @param choice the choice to match
+	 * @param input  the input to match it against
+	 * @return the number of alternatives attempted
+	 */
+	private static int countAttempts(final Pattern choice, final String input) {
+		final InputContext context = new InputContext(input, new EventHistory());
+		choice.lazyMatch(context);
+		int attempts = 0;
+		for (final ParseEvent event : context.getHistory(OrderedChoiceEvent.class)) {
+			if ("Attempt".equals(event.getType())) {
+				attempts++;
+			}
+		}
+		return attempts;
+	}
 }
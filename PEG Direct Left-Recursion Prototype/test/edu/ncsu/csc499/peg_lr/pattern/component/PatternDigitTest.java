@@ -1,10 +1,15 @@
 package edu.ncsu.csc499.peg_lr.pattern.component;
 
+import java.nio.charset.StandardCharsets;
+
 import org.junit.Assert;
 import org.junit.Test;
 
 import edu.ncsu.csc499.peg_lr.pattern.Pattern;
 import edu.ncsu.csc499.peg_lr.pattern.component.charclass.PatternDigit;
+import edu.ncsu.csc499.peg_lr.structure.ByteInput;
+import edu.ncsu.csc499.peg_lr.structure.InputContext;
+import edu.ncsu.csc499.peg_lr.structure.Result;
 import edu.ncsu.csc499.peg_lr.util.PatternTestUtils;
 
 public class PatternDigitTest {
@@ -37,4 +42,22 @@ public class PatternDigitTest {
 		Assert.assertFalse(PATTERN.isLeftRecursive());
 	}
 
+	@Test
+	public void testBytes() {
+		// An ASCII digit, then an Arabic-Indic three two bytes long, then a letter
+		final ByteInput input = new ByteInput("7\u0663x".getBytes(StandardCharsets.UTF_8));
+		final InputContext context = new InputContext(input);
+
+		Assert.assertEquals(1, PATTERN.lazyMatch(context).getEndIdx());
+		final Result three = PATTERN.lazyMatch(context);
+		Assert.assertTrue(three.isSuccess());
+		Assert.assertEquals(3, three.getEndIdx());
+		Assert.assertEquals("\u0663", three.getData());
+		Assert.assertFalse(PATTERN.lazyMatch(context).isSuccess());
+
+		context.setPosition(1);
+		Assert.assertEquals(3, PATTERN.lazyRecognize(context));
+		Assert.assertEquals(Pattern.NO_MATCH, PATTERN.lazyRecognize(context));
+	}
+
 }
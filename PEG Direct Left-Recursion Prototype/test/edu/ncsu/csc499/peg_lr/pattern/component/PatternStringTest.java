@@ -3,11 +3,16 @@
  */
 package edu.ncsu.csc499.peg_lr.pattern.component;
 
+import java.nio.charset.StandardCharsets;
+
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
 import edu.ncsu.csc499.peg_lr.pattern.Pattern;
+import edu.ncsu.csc499.peg_lr.structure.ByteInput;
+import edu.ncsu.csc499.peg_lr.structure.InputContext;
+import edu.ncsu.csc499.peg_lr.structure.Result;
 import edu.ncsu.csc499.peg_lr.util.PatternTestUtils;
 
 /**
@@ -69,4 +74,24 @@ public class PatternStringTest {
 		Assert.assertFalse(pattern.isLeftRecursive());
 	}
 
+	@Test
+	public void testBytes() {
+		// "caf\u00E9" is five bytes long in UTF-8
+		pattern = new PatternString("caf\u00E9");
+		final byte[] bytes = "caf\u00E9!".getBytes(StandardCharsets.UTF_8);
+
+		final InputContext context = new InputContext(new ByteInput(bytes));
+		final Result result = pattern.lazyMatch(context);
+		Assert.assertTrue(result.isSuccess());
+		Assert.assertEquals(5, result.getEndIdx());
+		Assert.assertEquals("caf\u00E9", result.getData());
+		Assert.assertEquals(5, context.getPosition());
+		Assert.assertEquals(5, pattern.lazyRecognize(new InputContext(new ByteInput(bytes))));
+
+		// A different accent doesn't match
+		final byte[] other = "caf\u00E8".getBytes(StandardCharsets.UTF_8);
+		Assert.assertFalse(pattern.lazyMatch(new InputContext(new ByteInput(other))).isSuccess());
+		Assert.assertEquals(Pattern.NO_MATCH, pattern.lazyRecognize(new InputContext(new ByteInput(other))));
+	}
+
 }
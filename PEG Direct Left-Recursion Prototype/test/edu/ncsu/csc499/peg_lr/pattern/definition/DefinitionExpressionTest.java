@@ -10,7 +10,14 @@ import static edu.ncsu.csc499.peg_lr.util.PatternTestUtils.showExample;
 import org.junit.Assert;
 import org.junit.Test;
 
+import edu.ncsu.csc499.peg_lr.event.EventHistory;
+import edu.ncsu.csc499.peg_lr.event.control.GrowingEvent;
 import edu.ncsu.csc499.peg_lr.pattern.Pattern;
+import edu.ncsu.csc499.peg_lr.pattern.component.PatternString;
+import edu.ncsu.csc499.peg_lr.pattern.component.operator.PatternChoice;
+import edu.ncsu.csc499.peg_lr.pattern.component.operator.PatternSequence;
+import edu.ncsu.csc499.peg_lr.structure.InputContext;
+import edu.ncsu.csc499.peg_lr.structure.Result;
 
 /**
  * @author Melody Griesen
@@ -53,6 +60,40 @@ public class DefinitionExpressionTest {
 		assertRejects(PATTERN, "+5");
 	}
 
+	@Test
+	public void testRetainingGrowth() {
+		// stmt <- expr ";" / expr "."
+		final Pattern statement = new PatternChoice(new PatternSequence(PATTERN, new PatternString(";")),
+				new PatternSequence(PATTERN, new PatternString(".")));
+		final String input = "1+2+3.";
+
+		final EventHistory plainHistory = new EventHistory();
+		final InputContext plain = new InputContext(input, plainHistory);
+		final Result plainResult = statement.lazyMatch(plain);
+		final EventHistory retainingHistory = new EventHistory();
+		final InputContext retaining = new InputContext(input, retainingHistory);
+		retaining.setRetainingGrowth(true);
+		final Result retainingResult = statement.lazyMatch(retaining);
+
+		// The second alternative reuses the grown expression instead of growing it again
+		Assert.assertEquals(plainResult.printResultTree(true), retainingResult.printResultTree(true));
+		Assert.assertEquals(plainHistory.getEvents(GrowingEvent.class).size(),
+				2 * retainingHistory.getEvents(GrowingEvent.class).size());
+		Assert.assertEquals(5, retaining.resultFor(PATTERN, 0).getEndIdx());
+		Assert.assertEquals(0, plain.getResultCount(0));
+
+		// Failures are kept too
+		retaining.setPosition(5);
+		Assert.assertFalse(PATTERN.lazyMatch(retaining).isSuccess());
+		Assert.assertFalse(retaining.resultFor(PATTERN, 5).isSuccess());
+
+		// Recognizing keeps the grown end
+		final InputContext recognizer = new InputContext(input);
+		recognizer.setRetainingGrowth(true);
+		Assert.assertEquals(6, statement.lazyRecognize(recognizer));
+		Assert.assertEquals(5, recognizer.endFor(PATTERN, 0));
+	}
+
 	@Test
 	public void testProperties() {
 		Assert.assertTrue(PATTERN.isLeftRecursive());
@@ -0,0 +1,55 @@
+package edu.ncsu.csc499.peg_lr.pattern.definition;
+
+import static edu.ncsu.csc499.peg_lr.util.PatternTestUtils.assertMatches;
+import static edu.ncsu.csc499.peg_lr.util.PatternTestUtils.assertRejects;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.ncsu.csc499.peg_lr.pattern.Pattern;
+import edu.ncsu.csc499.peg_lr.structure.InputContext;
+import edu.ncsu.csc499.peg_lr.structure.Result;
+
+public class DefinitionIndirectExpressionTest {
+
+	private static final Pattern PATTERN = new DefinedIndirectExpression(3);
+
+	@Test
+	public void testMatchesExpression() {
+		assertMatches(PATTERN, "1");
+		assertMatches(PATTERN, "1+1");
+		assertMatches(PATTERN, "598+29382");
+		assertMatches(PATTERN, "1+2+34+567");
+	}
+
+	@Test
+	public void testRejects() {
+		assertRejects(PATTERN, "");
+		assertRejects(PATTERN, "a");
+		assertRejects(PATTERN, "+5");
+	}
+
+	@Test
+	public void testSameTreeAsDirect() {
+		// With a single link, the sum is the direct expression with one rule between
+		final Result indirect = new DefinedIndirectExpression(1).lazyMatch(new InputContext("1+2+3"));
+		final Result direct = new DefinedExpression().lazyMatch(new InputContext("1+2+3"));
+		Assert.assertEquals(5, indirect.getEndIdx());
+		Assert.assertEquals(direct.getData(), indirect.getData());
+	}
+
+	@Test
+	public void testLongChain() {
+		// Growing every link's seed separately would take exponential time here
+		final String input = "1" + "+2".repeat(999);
+		final Pattern pattern = new DefinedIndirectExpression(64);
+		Assert.assertEquals(input.length(), pattern.lazyMatch(new InputContext(input)).getEndIdx());
+		Assert.assertEquals(input.length(), pattern.lazyRecognize(new InputContext(input)));
+	}
+
+	@Test
+	public void testNoLinks() {
+		Assert.assertThrows(IllegalArgumentException.class, () -> new DefinedIndirectExpression(0));
+	}
+
+}
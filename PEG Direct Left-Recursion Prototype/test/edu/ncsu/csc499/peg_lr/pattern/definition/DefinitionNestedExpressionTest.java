@@ -0,0 +1,136 @@
+package edu.ncsu.csc499.peg_lr.pattern.definition;
+
+import static edu.ncsu.csc499.peg_lr.util.PatternTestUtils.assertMatches;
+import static edu.ncsu.csc499.peg_lr.util.PatternTestUtils.assertRejects;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.ncsu.csc499.peg_lr.event.EventHistory;
+import edu.ncsu.csc499.peg_lr.event.ParseEvent;
+import edu.ncsu.csc499.peg_lr.event.pattern.PatternMatchEvent;
+import edu.ncsu.csc499.peg_lr.pattern.Pattern;
+import edu.ncsu.csc499.peg_lr.structure.InputContext;
+import edu.ncsu.csc499.peg_lr.structure.Result;
+
+public class DefinitionNestedExpressionTest {
+
+	private static final Pattern PATTERN = new DefinedNestedExpression();
+
+	@Test
+	public void testMatchesExpression() {
+		assertMatches(PATTERN, "1");
+		assertMatches(PATTERN, "1+2-3");
+		assertMatches(PATTERN, "(1)");
+		assertMatches(PATTERN, "((1+2)-(3))+4");
+	}
+
+	@Test
+	public void testRejects() {
+		assertRejects(PATTERN, "");
+		assertRejects(PATTERN, "+1");
+		assertRejects(PATTERN, "(1");
+		assertRejects(PATTERN, "()");
+	}
+
+	@Test
+	public void testPackratMatchesSameTree() {
+		final String input = "((1+2)-(3))+4";
+
+		// Match once in each mode
+		final InputContext plain = new InputContext(input);
+		final Result plainResult = PATTERN.lazyMatch(plain);
+		final InputContext packrat = new InputContext(input);
+		packrat.setPackrat(true);
+		final Result packratResult = PATTERN.lazyMatch(packrat);
+
+		// Both modes should produce the same tree and consume the same input
+		Assert.assertEquals(plainResult.printResultTree(true), packratResult.printResultTree(true));
+		Assert.assertEquals(plain.getPosition(), packrat.getPosition());
+
+		// Packrat mode keeps its Results around afterwards
+		Assert.assertEquals(0, plain.getResultCount(0));
+		Assert.assertTrue(packrat.getResultCount(0) > 0);
+	}
+
+	@Test
+	public void testPackratRecognizes() {
+		final String input = "((1+2)-(3))+4";
+
+		// Recognizing in packrat mode ends where matching does
+		final InputContext packrat = new InputContext(input);
+		packrat.setPackrat(true);
+		Assert.assertEquals(input.length(), PATTERN.lazyRecognize(packrat));
+		Assert.assertEquals(input.length(), packrat.getPosition());
+
+		// It keeps its ends around afterwards, but never builds a Result
+		Assert.assertTrue(packrat.getResultCount(0) > 0);
+		Assert.assertNull(packrat.resultFor(PATTERN, 0));
+
+		// A prefix that can't match is rejected
+		Assert.assertEquals(Pattern.NO_MATCH, PATTERN.lazyRecognize(new InputContext("+1")));
+	}
+
+	@Test
+	public void testPackratAvoidsRematching() {
+		// Every alternative re-matches the same term in the default mode
+		final String input = "((((((1))))))";
+
+		final InputContext plain = new InputContext(input, new EventHistory());
+		PATTERN.lazyMatch(plain);
+		final InputContext packrat = new InputContext(input, new EventHistory());
+		packrat.setPackrat(true);
+		PATTERN.lazyMatch(packrat);
+
+		// Packrat mode attempts each rule at most once per position
+		final int plainAttempts = countAttempts(plain);
+		final int packratAttempts = countAttempts(packrat);
+		Assert.assertTrue(packratAttempts < plainAttempts);
+		Assert.assertTrue(packratAttempts <= 20 * input.length());
+	}
+
+	@Test
+	public void testHistoryOnlyWhenRecording() {
+		final String input = "(1+2)";
+
+		// By default, nothing is recorded
+		final InputContext quiet = new InputContext(input);
+		Assert.assertFalse(quiet.isTracing());
+		final Result quietResult = PATTERN.lazyMatch(quiet);
+		Assert.assertFalse(quiet.getHistory().iterator().hasNext());
+		Assert.assertEquals("", quiet.printHistory());
+
+		// A recording sink keeps every event, and doesn't change the match
+		final EventHistory history = new EventHistory();
+		final InputContext traced = new InputContext(input, history);
+		Assert.assertTrue(traced.isTracing());
+		final Result tracedResult = PATTERN.lazyMatch(traced);
+		Assert.assertTrue(history.size() > 0);
+		Assert.assertEquals(history.size(), history.getEvents(ParseEvent.class).size());
+		Assert.assertEquals(quietResult.printResultTree(true), tracedResult.printResultTree(true));
+	}
+
+	/**
+	 * Counts the number of patterns that were attempted in the given context.
+	 *
+	 * @param context the context to count attempts in
+	 * @return the number of ATTEMPT pattern match events
+	 */
+	private static int countAttempts(final InputContext context) {
+		int attempts = 0;
+		for (final ParseEvent event : context.getHistory(PatternMatchEvent.class)) {
+			if ("Attempt".equals(event.getType())) {
+				attempts++;
+			}
+		}
+		return attempts;
+	}
+
+	@Test
+	public void testProperties() {
+		Assert.assertFalse(PATTERN.isLeftRecursive());
+		Assert.assertFalse(PATTERN.isNullable());
+		Assert.assertFalse(PATTERN.isHidden());
+	}
+
+}
@@ -10,7 +10,13 @@ import static edu.ncsu.csc499.peg_lr.util.PatternTestUtils.showExample;
 import org.junit.Assert;
 import org.junit.Test;
 
+import edu.ncsu.csc499.peg_lr.event.EventHistory;
+import edu.ncsu.csc499.peg_lr.event.control.GrowingEvent;
+import edu.ncsu.csc499.peg_lr.pattern.IterativeMatcher;
 import edu.ncsu.csc499.peg_lr.pattern.Pattern;
+import edu.ncsu.csc499.peg_lr.structure.InputContext;
+import edu.ncsu.csc499.peg_lr.structure.LeftRecursionStrategy;
+import edu.ncsu.csc499.peg_lr.structure.Result;
 
 /**
  * @author Melody Griesen
@@ -53,6 +59,62 @@ public class DefinitionRightRecursiveExpressionTest {
 		assertRejects(PATTERN, "+5");
 	}
 
+	@Test
+	public void testMillionTerms() {
+		// e.g. "1+2+2", a million terms long, each nested inside the last
+		final String input = "1" + "+2".repeat(999_999);
+		final InputContext context = new InputContext(input);
+
+		final Result result = IterativeMatcher.match(PATTERN, context);
+		Assert.assertTrue(result.isSuccess());
+		Assert.assertEquals(input.length(), result.getEndIdx());
+		Assert.assertTrue(context.isAtEnd());
+		Assert.assertEquals(0, context.getResultCount(0));
+	}
+
+	@Test
+	public void testDirectAssociatesLeft() {
+		final InputContext growing = new InputContext("1+2+3");
+		final InputContext direct = new InputContext("1+2+3");
+		direct.setLeftRecursionStrategy(LeftRecursionStrategy.DIRECT);
+
+		// Seed growing lets the right-hand call grow to the end, so it associates
+		// right; the direct strategy only takes the right-hand call's seed
+		Assert.assertTrue(PATTERN.lazyMatch(growing).printResultTree().contains("\"data\": \"2+3\""));
+		final Result result = PATTERN.lazyMatch(direct);
+		Assert.assertEquals(5, result.getEndIdx());
+		Assert.assertTrue(result.printResultTree().contains("\"data\": \"1+2\""));
+		Assert.assertEquals(0, direct.getResultCount());
+
+		// Every other way of matching agrees
+		final InputContext iterative = new InputContext("1+2+3");
+		iterative.setLeftRecursionStrategy(LeftRecursionStrategy.DIRECT);
+		Assert.assertEquals(result.printResultTree(true),
+				IterativeMatcher.match(PATTERN, iterative).printResultTree(true));
+		Assert.assertEquals(0, iterative.getResultCount());
+		final InputContext retaining = new InputContext("1+2+3");
+		retaining.setLeftRecursionStrategy(LeftRecursionStrategy.DIRECT);
+		retaining.setRetainingGrowth(true);
+		Assert.assertEquals(result.printResultTree(true), PATTERN.lazyMatch(retaining).printResultTree(true));
+		final InputContext recognizer = new InputContext("1+2+3");
+		recognizer.setLeftRecursionStrategy(LeftRecursionStrategy.DIRECT);
+		Assert.assertEquals(5, PATTERN.lazyRecognize(recognizer));
+		Assert.assertEquals(0, recognizer.getResultCount());
+	}
+
+	@Test
+	public void testDirectGrowsOnce() {
+		final String input = "1" + "+2".repeat(49);
+		final EventHistory history = new EventHistory();
+		final InputContext context = new InputContext(input, history);
+		context.setLeftRecursionStrategy(LeftRecursionStrategy.DIRECT);
+		Assert.assertEquals(input.length(), PATTERN.lazyMatch(context).getEndIdx());
+
+		// Only the outermost call grows: one accepted attempt per term after the
+		// first, one failed attempt, and the end of growing
+		Assert.assertEquals(2 * 50 + 1, history.getEvents(GrowingEvent.class).size());
+	}
+
 	@Test
 	public void testProperties() {
 		Assert.assertTrue(PATTERN.isLeftRecursive());
@@ -0,0 +1,38 @@
+package edu.ncsu.csc499.peg_lr.pattern.definition;
+
+import static edu.ncsu.csc499.peg_lr.util.PatternTestUtils.assertMatches;
+import static edu.ncsu.csc499.peg_lr.util.PatternTestUtils.assertMatchesExact;
+import static edu.ncsu.csc499.peg_lr.util.PatternTestUtils.assertRejects;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.ncsu.csc499.peg_lr.structure.InputContext;
+
+public class DefinitionStatementsTest {
+
+	private static final DefinedStatements PATTERN = new DefinedStatements();
+
+	@Test
+	public void testMatchesStatements() {
+		assertMatches(PATTERN, "1;");
+		assertMatches(PATTERN, "1+2;34;5+6+7;");
+		assertMatchesExact(PATTERN, "1+2;3+", "1+2;");
+	}
+
+	@Test
+	public void testRejects() {
+		assertRejects(PATTERN, "");
+		assertRejects(PATTERN, "1");
+		assertRejects(PATTERN, ";");
+	}
+
+	@Test
+	public void testStatement() {
+		Assert.assertEquals(4, PATTERN.getStatement().lazyMatch(new InputContext("1+2;3;")).getEndIdx());
+		Assert.assertEquals(6,
+				new DefinedStatements(new DefinedNestedExpression()).lazyMatch(new InputContext("(1);2;")).getEndIdx());
+		Assert.assertThrows(IllegalArgumentException.class, () -> new DefinedStatements(null));
+	}
+
+}
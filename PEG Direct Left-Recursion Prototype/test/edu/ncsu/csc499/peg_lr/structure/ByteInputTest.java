@@ -0,0 +1,93 @@
+package edu.ncsu.csc499.peg_lr.structure;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ByteInputTest {
+
+	@Test
+	public void testDecodes() {
+		// a, e acute (2 bytes), euro sign (3 bytes), G clef (4 bytes)
+		final String text = "a\u00E9\u20AC\uD834\uDD1E";
+		final ByteInput input = new ByteInput(text.getBytes(StandardCharsets.UTF_8));
+		Assert.assertEquals(10, input.length());
+
+		Assert.assertEquals('a', input.charAt(0));
+		Assert.assertEquals(1, input.charLength(0));
+		Assert.assertEquals('\u00E9', input.charAt(1));
+		Assert.assertEquals(2, input.charLength(1));
+		Assert.assertEquals('\u20AC', input.charAt(3));
+		Assert.assertEquals(3, input.charLength(3));
+		Assert.assertEquals('\uD834', input.charAt(6));
+		Assert.assertEquals(4, input.charLength(6));
+
+		Assert.assertEquals("\u00E9\u20AC", input.subSequence(1, 6));
+		Assert.assertEquals(text, input.toString());
+	}
+
+	@Test
+	public void testAsCharSequence() {
+		// Passed as any CharSequence, it's still read a character at a time
+		final CharSequence input = new ByteInput("\u00E9a".getBytes(StandardCharsets.UTF_8));
+		final InputContext context = new InputContext(input);
+		Assert.assertFalse(context.isCharInput());
+		Assert.assertSame(input, context.getBytes());
+		Assert.assertEquals('\u00E9', context.next());
+		Assert.assertEquals(2, context.getPosition());
+		Assert.assertEquals('a', context.next());
+		Assert.assertTrue(context.isAtEnd());
+
+		Assert.assertEquals("xy", new InputContext((CharSequence) "xy").getInputString());
+	}
+
+	@Test
+	public void testInvalid() {
+		// A lone continuation byte, a truncated sequence, and an overlong "/"
+		final ByteInput input = new ByteInput(
+				new byte[] { (byte) 0x80, 'a', (byte) 0xE2, (byte) 0x82, 'b', (byte) 0xC0, (byte) 0xAF });
+		Assert.assertEquals('\uFFFD', input.charAt(0));
+		Assert.assertEquals(1, input.charLength(0));
+		Assert.assertEquals('a', input.charAt(1));
+		Assert.assertEquals('\uFFFD', input.charAt(2));
+		Assert.assertEquals(1, input.charLength(2));
+		Assert.assertEquals('\uFFFD', input.charAt(5));
+		Assert.assertEquals(1, input.charLength(5));
+	}
+
+	@Test
+	public void testBufferPosition() {
+		final ByteBuffer buffer = ByteBuffer.wrap("skip:abc".getBytes(StandardCharsets.US_ASCII));
+		buffer.position(5);
+		final ByteInput input = new ByteInput(buffer);
+		Assert.assertEquals(3, input.length());
+		Assert.assertEquals('a', input.charAt(0));
+		Assert.assertTrue(input.startsWith("bc".getBytes(StandardCharsets.US_ASCII), 1));
+		Assert.assertFalse(input.startsWith("bcd".getBytes(StandardCharsets.US_ASCII), 1));
+	}
+
+	@Test
+	public void testContext() throws IOException {
+		final Path file = Files.createTempFile("byte-input", ".txt");
+		try {
+			Files.write(file, "\u00E9t\u00E9".getBytes(StandardCharsets.UTF_8));
+			final InputContext context = new InputContext(ByteInput.map(file));
+			Assert.assertEquals(5, context.length());
+			Assert.assertEquals('\u00E9', context.next());
+			Assert.assertEquals(2, context.getPosition());
+			Assert.assertEquals('t', context.next());
+			Assert.assertTrue(context.startsWith("\u00E9", 3));
+			Assert.assertEquals('\u00E9', context.next());
+			Assert.assertTrue(context.isAtEnd());
+			Assert.assertThrows(IllegalStateException.class, () -> context.getInputString());
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+}
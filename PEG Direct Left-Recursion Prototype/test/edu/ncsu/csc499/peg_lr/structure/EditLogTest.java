@@ -0,0 +1,87 @@
+package edu.ncsu.csc499.peg_lr.structure;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class EditLogTest {
+
+	@Test
+	public void testKeys() {
+		final StringBuilder input = new StringBuilder("abcdef");
+		final EditLog edits = new EditLog(input);
+		Assert.assertEquals(1, edits.keyOf(0));
+		Assert.assertEquals(6, edits.keyOf(5));
+		Assert.assertEquals(EditLog.END, edits.keyOf(6));
+
+		// Replacing "cd" with "xyz" keeps the keys on either side
+		input.replace(2, 4, "xyz");
+		edits.replace(2, 4, 3);
+		Assert.assertEquals(2, edits.keyOf(1));
+		Assert.assertEquals(7, edits.keyOf(2));
+		Assert.assertEquals(9, edits.keyOf(4));
+		Assert.assertEquals(5, edits.keyOf(5));
+		Assert.assertEquals(6, edits.keyOf(6));
+		Assert.assertEquals(EditLog.END, edits.keyOf(7));
+		Assert.assertEquals(3, edits.pieces());
+
+		// A deletion joins nothing new, and leaves no piece of its own
+		input.delete(0, 2);
+		edits.replace(0, 2, 0);
+		Assert.assertEquals(7, edits.keyOf(0));
+		Assert.assertEquals(2, edits.pieces());
+	}
+
+	@Test
+	public void testTyping() {
+		// Characters typed one after another carry on the same piece
+		final StringBuilder input = new StringBuilder("ab");
+		final EditLog edits = new EditLog(input);
+		for (int i = 0; i < 10; i++) {
+			input.insert(1 + i, 'x');
+			edits.replace(1 + i, 1 + i, 1);
+		}
+		Assert.assertEquals(3, edits.pieces());
+		Assert.assertEquals(3, edits.keyOf(1));
+		Assert.assertEquals(12, edits.keyOf(10));
+		Assert.assertEquals(2, edits.keyOf(11));
+	}
+
+	@Test
+	public void testEditChain() {
+		final EditLog edits = new EditLog("abc");
+		final EditLog.Edit first = edits.last();
+		edits.replace(1, 2, 0);
+		Assert.assertSame(edits.last(), first.next);
+		Assert.assertEquals(-1, first.next.delta);
+		Assert.assertNull(edits.last().next);
+	}
+
+	@Test
+	public void testRemovedKeys() {
+		final StringBuilder input = new StringBuilder("abcdef");
+		final EditLog edits = new EditLog(input);
+		input.replace(2, 4, "xyz");
+		edits.replace(2, 4, 3);
+		Assert.assertArrayEquals(new int[] { 3, 5 }, edits.last().removed);
+
+		// Replacing across pieces removes a run of keys from each
+		input.replace(1, 6, "");
+		edits.replace(1, 6, 0);
+		Assert.assertArrayEquals(new int[] { 2, 3, 7, 10, 5, 6 }, edits.last().removed);
+
+		// An insertion removes nothing
+		input.insert(0, 'q');
+		edits.replace(0, 0, 1);
+		Assert.assertEquals(0, edits.last().removed.length);
+	}
+
+	@Test
+	public void testInvalid() {
+		final EditLog edits = new EditLog("abc");
+		Assert.assertThrows(IllegalArgumentException.class, () -> new EditLog(null));
+		Assert.assertThrows(IndexOutOfBoundsException.class, () -> edits.replace(2, 4, 1));
+		Assert.assertThrows(IndexOutOfBoundsException.class, () -> edits.replace(2, 1, 1));
+		Assert.assertThrows(IllegalArgumentException.class, () -> edits.replace(0, 0, -1));
+	}
+
+}
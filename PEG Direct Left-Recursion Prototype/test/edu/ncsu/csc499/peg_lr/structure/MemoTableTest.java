@@ -0,0 +1,193 @@
+package edu.ncsu.csc499.peg_lr.structure;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MemoTableTest {
+
+	/** Test object */
+	private MemoTable table;
+
+	@Before
+	public void setUp() throws Exception {
+		table = new MemoTable();
+	}
+
+	@Test
+	public void testEmpty() {
+		// A new table should hold nothing anywhere
+		Assert.assertEquals(0, table.size());
+		Assert.assertNull(table.get(0, 0));
+		Assert.assertEquals(0, table.count(0));
+		// including positions far beyond any allocated page
+		Assert.assertEquals(0, table.count(5_000_000));
+		// and removing should do nothing
+		Assert.assertNull(table.remove(3, 7));
+	}
+
+	@Test
+	public void testPutGet() {
+		final Result a = new Result("a", 0);
+		final Result b = new Result("b", 0);
+
+		// Store two rules at the same position
+		Assert.assertNull(table.put(1, 0, a));
+		Assert.assertNull(table.put(2, 0, b));
+
+		// Both should be retrievable by their own key only
+		Assert.assertSame(a, table.get(1, 0));
+		Assert.assertSame(b, table.get(2, 0));
+		Assert.assertNull(table.get(1, 1));
+		Assert.assertEquals(2, table.count(0));
+		Assert.assertEquals(0, table.count(1));
+
+		// Replacing should hand back the old Result without changing the count
+		final Result c = new Result("c", 0);
+		Assert.assertSame(a, table.put(1, 0, c));
+		Assert.assertSame(c, table.get(1, 0));
+		Assert.assertEquals(2, table.count(0));
+		Assert.assertEquals(2, table.size());
+	}
+
+	@Test
+	public void testRemove() {
+		final Result a = new Result("a", 4);
+		table.put(1, 4, a);
+
+		// Removing should hand back the Result and forget it
+		Assert.assertSame(a, table.remove(1, 4));
+		Assert.assertNull(table.get(1, 4));
+		Assert.assertEquals(0, table.count(4));
+		Assert.assertEquals(0, table.size());
+
+		// Removing again should do nothing
+		Assert.assertNull(table.remove(1, 4));
+		Assert.assertEquals(0, table.count(4));
+	}
+
+	@Test
+	public void testRemoveAll() {
+		table.put(1, 4, new Result(4));
+		table.put(30, 4, new Result(4));
+		table.put(2, 5, new Result(5));
+
+		// Every rule at the position goes, and nothing elsewhere
+		table.removeAll(4);
+		Assert.assertEquals(0, table.count(4));
+		Assert.assertNull(table.get(30, 4));
+		Assert.assertEquals(1, table.size());
+		Assert.assertNotNull(table.get(2, 5));
+		table.removeAll(7);
+		Assert.assertEquals(1, table.size());
+	}
+
+	@Test
+	public void testRemoveIf() {
+		for (int pos = 0; pos < 2_000; pos++) {
+			table.put(1, pos, new Result(pos));
+			table.put(2, pos, new Result(pos));
+		}
+
+		// Remove one rule at the even positions
+		table.removeIf((rule, position, result) -> (rule == 2) && ((position % 2) == 0));
+		Assert.assertEquals(3_000, table.size());
+		Assert.assertEquals(1, table.count(10));
+		Assert.assertEquals(2, table.count(11));
+		Assert.assertNull(table.get(2, 10));
+		Assert.assertEquals(10, table.get(1, 10).getStartIdx());
+		Assert.assertEquals(11, table.get(2, 11).getStartIdx());
+
+		// What's left can still be stored to and removed from
+		table.put(2, 10, new Result(10));
+		Assert.assertEquals(2, table.count(10));
+		Assert.assertNotNull(table.remove(1, 1_999));
+		Assert.assertEquals(1, table.count(1_999));
+		Assert.assertThrows(IllegalArgumentException.class, () -> table.removeIf(null));
+	}
+
+	@Test
+	public void testManyEntries() {
+		// Enough entries to force several resizes and long probe sequences
+		final int rules = 37;
+		final int positions = 3000;
+		for (int rule = 0; rule < rules; rule++) {
+			for (int pos = 0; pos < positions; pos++) {
+				table.put(rule, pos, new Result(pos));
+			}
+		}
+		Assert.assertEquals(rules * positions, table.size());
+		Assert.assertEquals(rules, table.count(0));
+		Assert.assertEquals(rules, table.count(positions - 1));
+
+		// Remove every other rule, which leaves gaps in the middle of probe sequences
+		for (int rule = 0; rule < rules; rule += 2) {
+			for (int pos = 0; pos < positions; pos++) {
+				Assert.assertNotNull(table.remove(rule, pos));
+			}
+		}
+
+		// Every remaining entry must still be reachable, and every removed one gone
+		for (int rule = 0; rule < rules; rule++) {
+			for (int pos = 0; pos < positions; pos++) {
+				final Result r = table.get(rule, pos);
+				if ((rule % 2) == 0) {
+					Assert.assertNull(r);
+				} else {
+					Assert.assertNotNull(r);
+					Assert.assertEquals(pos, r.getStartIdx());
+				}
+			}
+		}
+		Assert.assertEquals(rules / 2, table.count(positions / 2));
+	}
+
+	@Test
+	public void testDiscardBefore() {
+		// Entries on either side of a page boundary
+		for (int pos = 1_000; pos < 3_000; pos++) {
+			table.put(1, pos, new Result(pos));
+			table.putEnd(2, pos, pos + 1);
+		}
+
+		table.discardBefore(2_500);
+		Assert.assertEquals(1_000, table.size());
+		Assert.assertNull(table.get(1, 2_499));
+		Assert.assertEquals(MemoTable.NOT_SAVED, table.getEnd(2, 1_000));
+		Assert.assertEquals(0, table.count(2_499));
+		Assert.assertEquals(2_500, table.get(1, 2_500).getStartIdx());
+		Assert.assertEquals(3_000, table.getEnd(2, 2_999));
+		Assert.assertEquals(2, table.count(2_500));
+
+		// Storing continues after what's left
+		table.put(3, 2_500, new Result(2_500));
+		Assert.assertEquals(3, table.count(2_500));
+		table.put(1, 10_000, new Result(10_000));
+		Assert.assertEquals(1, table.count(10_000));
+
+		// Discarding everything
+		table.discardBefore(20_000);
+		Assert.assertEquals(0, table.size());
+		Assert.assertEquals(0, table.count(10_000));
+		table.put(1, 20_000, new Result(20_000));
+		Assert.assertEquals(1, table.count(20_000));
+	}
+
+	@Test
+	public void testManyRulesPerPosition() {
+		// More rules at each position than fit in any fixed run of slots
+		final int rules = 40;
+		final int positions = 8_000;
+		for (int pos = 0; pos < positions; pos++) {
+			for (int rule = 0; rule < rules; rule++) {
+				table.putEnd(rule, pos, pos + rule);
+			}
+		}
+		Assert.assertEquals(rules * positions, table.size());
+		Assert.assertEquals(positions + 1, table.getEnd(2, positions - 1));
+
+		// Neighboring positions' entries mustn't merge into one long cluster
+		Assert.assertTrue("Longest probe was " + table.longestProbe(), table.longestProbe() < 64);
+	}
+
+}
@@ -206,6 +206,53 @@ public class ResultTest {
 
 	}
 
+	@Test
+	public void testSpan() {
+		final String input = "1+23";
+
+		// A Result spanning part of the input cuts its data out of it
+		result = new Result(input, 2, 3);
+		Assert.assertEquals("2", result.getData());
+		Assert.assertEquals(3, result.getEndIdx());
+
+		// Characters that continue the input just extend the span
+		result.addChar('3');
+		Assert.assertEquals("23", result.getData());
+
+		// Children from the same input join up, however deep
+		final Result parent = new Result(0);
+		parent.addChild(new Result(input, 0, 1));
+		parent.addChild(new Result(1));
+		parent.addChild(new Result(input, 1, 2));
+		parent.addChild(result);
+		Assert.assertEquals("1+23", parent.getData());
+		Assert.assertEquals(4, parent.getEndIdx());
+
+		// Characters that don't continue the input are still added
+		parent.addChar('x');
+		Assert.assertEquals("1+23x", parent.getData());
+		Assert.assertEquals(5, parent.getEndIdx());
+	}
+
+	@Test
+	public void testDeepHiddenTree() {
+		final Result leaf = new Result("x", 0);
+		leaf.setType("Leaf");
+
+		// The leaf is buried under a million hidden Results
+		Result buried = leaf;
+		for (int i = 0; i < 1_000_000; i++) {
+			buried = new Result(0).addChild(buried);
+		}
+		final Result deep = new Result(0).addChild(buried);
+		deep.setType("Root");
+
+		// Prints as if the leaf were a direct child
+		final Result shallow = new Result(0).addChild(leaf);
+		shallow.setType("Root");
+		Assert.assertEquals(shallow.printResultTree(), deep.printResultTree());
+	}
+
 	@Test
 	public void testToString() {
 		// Ensure that string contains the data we expect it to show
@@ -0,0 +1,174 @@
+package edu.ncsu.csc499.peg_lr.structure;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.ncsu.csc499.peg_lr.pattern.component.PatternString;
+
+public class SegmentedInputTest {
+
+	/**
+	 * A segment of any length that repeats some text, without holding more than
+	 * one copy of it.
+	 */
+	private static final class Repeated implements CharSequence {
+
+		/** The text repeated. */
+		private final String unit;
+
+		/** The number of characters. */
+		private final int length;
+
+		/**
+		 * Constructs a Repeated segment.
+		 *
+		 * @param unit   the text to repeat
+		 * @param length the number of characters
+		 */
+		private Repeated(final String unit, final int length) {
+			this.unit = unit;
+			this.length = length;
+		}
+
+		@Override
+		public int length() {
+			return length;
+		}
+
+		@Override
+		public char charAt(final int index) {
+			return unit.charAt(index % unit.length());
+		}
+
+		@Override
+		public CharSequence subSequence(final int start, final int end) {
+			final StringBuilder builder = new StringBuilder();
+			for (int i = start; i < end; i++) {
+				builder.append(charAt(i));
+			}
+			return builder.toString();
+		}
+
+	}
+
+	/**
+	 * Encodes text as a ByteInput.
+	 *
+	 * @param text the text to encode
+	 * @return the text's UTF-8 bytes
+	 */
+	private static ByteInput bytes(final String text) {
+		return new ByteInput(text.getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void testSegments() {
+		final SegmentedInput input = new SegmentedInput(Arrays.asList("abc", "", "de", "", "", "fgh"));
+		Assert.assertEquals(8, input.length());
+		Assert.assertEquals('c', input.charAt(2));
+		Assert.assertEquals('d', input.charAt(3));
+		Assert.assertEquals('f', input.charAt(5));
+		Assert.assertEquals("cdefg", input.substring(2, 7));
+		Assert.assertThrows(IndexOutOfBoundsException.class, () -> input.charAt(8));
+
+		final CharSequence window = input.window(4);
+		Assert.assertEquals(4, window.length());
+		Assert.assertEquals('e', window.charAt(0));
+		Assert.assertEquals('h', window.charAt(3));
+		Assert.assertEquals("efg", window.subSequence(0, 3));
+		Assert.assertEquals("efgh", window.toString());
+		Assert.assertEquals(0, input.window(8).length());
+		Assert.assertEquals(0, new SegmentedInput(Collections.emptyList()).length());
+	}
+
+	@Test
+	public void testPastIntPositions() {
+		// Three segments of 1.5 billion characters each
+		final int size = 1_500_000_000;
+		final SegmentedInput input = new SegmentedInput(
+				Arrays.asList(new Repeated("ab", size), new Repeated("cd", size), new Repeated("ef", size)));
+		Assert.assertEquals(4_500_000_000L, input.length());
+		Assert.assertEquals('c', input.charAt(size));
+		Assert.assertEquals('f', input.charAt(4_499_999_999L));
+		Assert.assertEquals("dcdef", input.substring((2L * size) - 3, (2L * size) + 2));
+
+		// A window reaches as far as int positions do
+		final CharSequence window = input.window(size);
+		Assert.assertEquals(Integer.MAX_VALUE - 1, window.length());
+		Assert.assertEquals('e', window.charAt(size));
+		Assert.assertEquals(size, input.window(2L * size).length());
+
+		// Matching up to where the window ends doesn't mistake it for the end
+		final InputContext context = new InputContext(input);
+		Assert.assertTrue(context.hasCharAt(Integer.MAX_VALUE - 2));
+		Assert.assertThrows(IllegalStateException.class, () -> context.hasCharAt(Integer.MAX_VALUE - 1));
+		context.setPosition(Integer.MAX_VALUE - 3);
+		Assert.assertThrows(IllegalStateException.class, () -> new PatternString("cdcd").lazyMatch(context));
+	}
+
+	@Test
+	public void testContext() {
+		final SegmentedInput input = new SegmentedInput(Arrays.asList("xx", "abc", "de"));
+		final InputContext context = new InputContext(input, 2);
+		Assert.assertEquals(2, context.getOrigin());
+		Assert.assertEquals(5, context.length());
+		Assert.assertTrue(context.startsWith("bcd", 1));
+		Assert.assertFalse(context.startsWith("def", 3));
+		Assert.assertTrue(context.startsWith("", 5));
+		Assert.assertFalse(context.startsWith("", 6));
+		Assert.assertEquals('a', context.next());
+		context.setPosition(4);
+		Assert.assertEquals('e', context.next());
+		Assert.assertTrue(context.isAtEnd());
+		Assert.assertThrows(IllegalStateException.class, () -> context.getInputString());
+
+		// The origin only moves once the context has gone far enough
+		context.discardBefore(3);
+		Assert.assertEquals(2, context.getOrigin());
+		Assert.assertEquals(5, context.getPosition());
+	}
+
+	@Test
+	public void testMap() throws IOException {
+		final Path file = Files.createTempFile("segmented-input", ".txt");
+		try {
+			Files.write(file, "caf\u00E9;".getBytes(StandardCharsets.UTF_8));
+			final SegmentedInput input = SegmentedInput.map(file);
+			// Read as UTF-8, with byte offsets as positions
+			Assert.assertEquals(6, input.length());
+			Assert.assertEquals('f', input.charAt(2));
+			Assert.assertEquals('\u00E9', input.charAt(3));
+			Assert.assertEquals(';', input.charAt(5));
+			Assert.assertEquals("caf\u00E9;", input.substring(0, 6));
+			Assert.assertTrue(input.window(0) instanceof ByteInput);
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	public void testBytes() {
+		final SegmentedInput input = new SegmentedInput(
+				Arrays.asList(bytes("a\u00E9"), bytes("\u00E9\uD83D\uDE00"), bytes("b")));
+		Assert.assertEquals(10, input.length());
+		Assert.assertEquals("\u00E9\u00E9", input.substring(1, 5));
+
+		// Characters are read as they are from a single ByteInput, across segments
+		final InputContext context = new InputContext(input);
+		Assert.assertNotNull(context.getBytes());
+		context.setPosition(1);
+		Assert.assertEquals('\u00E9', context.next());
+		Assert.assertEquals(3, context.getPosition());
+		Assert.assertEquals("\u00E9\uD83D\uDE00b",
+				new PatternString("\u00E9\uD83D\uDE00b").lazyMatch(context).getData());
+		Assert.assertTrue(context.isAtEnd());
+	}
+
+}
@@ -0,0 +1,81 @@
+package edu.ncsu.csc499.peg_lr.structure;
+
+import java.io.ByteArrayInputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class StreamingInputTest {
+
+	@Test
+	public void testReadsAhead() {
+		final String text = "0123456789".repeat(5_000);
+		final StreamingInput input = new StreamingInput(new StringReader(text));
+		Assert.assertEquals(0, input.length());
+
+		Assert.assertTrue(input.reaches(0));
+		Assert.assertEquals('7', input.charAt(30_007));
+		Assert.assertTrue(input.length() > 30_007);
+		Assert.assertEquals("89012", input.subSequence(40_008, 40_013));
+		Assert.assertTrue(input.reaches(text.length() - 1));
+		Assert.assertFalse(input.reaches(text.length()));
+		Assert.assertEquals(text.length(), input.length());
+		Assert.assertThrows(IndexOutOfBoundsException.class, () -> input.charAt(text.length()));
+	}
+
+	@Test
+	public void testDiscardBefore() {
+		final StreamingInput input = new StreamingInput(new StringReader("abcdefghij".repeat(100_000)));
+
+		// Read through the input, keeping only a little behind
+		for (int i = 0; input.reaches(i); i += 100) {
+			Assert.assertEquals((char) ('a' + (i % 10)), input.charAt(i));
+			input.discardBefore(Math.max(0, i - 50));
+		}
+		Assert.assertTrue(input.getWindowSize() < 100_000);
+
+		Assert.assertThrows(IllegalStateException.class, () -> input.charAt(0));
+		Assert.assertThrows(IllegalStateException.class, () -> input.subSequence(10, 20));
+		Assert.assertThrows(IllegalArgumentException.class, () -> input.discardBefore(0));
+	}
+
+	@Test
+	public void testChannel() {
+		final byte[] bytes = "h\u00E9llo w\u00F6rld".getBytes(StandardCharsets.UTF_8);
+		final StreamingInput input = new StreamingInput(Channels.newChannel(new ByteArrayInputStream(bytes)),
+				StandardCharsets.UTF_8);
+		Assert.assertEquals("h\u00E9llo", input.subSequence(0, 5));
+		Assert.assertEquals('\u00F6', input.charAt(7));
+	}
+
+	@Test
+	public void testContext() {
+		final Reader reader = new StringReader("abc");
+		final InputContext context = new InputContext(new StreamingInput(reader));
+		Assert.assertFalse(context.isAtEnd());
+		Assert.assertTrue(context.startsWith("bc", 1));
+		Assert.assertFalse(context.startsWith("bcd", 1));
+		Assert.assertTrue(context.startsWith("", 3));
+		Assert.assertEquals('a', context.next());
+		context.setPosition(3);
+		Assert.assertTrue(context.isAtEnd());
+		Assert.assertThrows(IllegalStateException.class, () -> context.getInputString());
+
+		context.discardBefore(2);
+		Assert.assertEquals("c", context.getInput().subSequence(2, 3));
+		Assert.assertThrows(IllegalArgumentException.class, () -> context.discardBefore(1));
+
+		// Passed as any CharSequence, it's still streamed
+		final CharSequence streamed = new StreamingInput(new StringReader("abc"));
+		final InputContext general = new InputContext(streamed);
+		Assert.assertFalse(general.isCharInput());
+		Assert.assertEquals('a', general.next());
+		general.discardBefore(1);
+		Assert.assertThrows(IllegalStateException.class, () -> streamed.charAt(0));
+	}
+
+}
@@ -8,12 +8,21 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
 
 import org.junit.Assert;
 
+import edu.ncsu.csc499.peg_lr.event.EventHistory;
+import edu.ncsu.csc499.peg_lr.pattern.IterativeMatcher;
 import edu.ncsu.csc499.peg_lr.pattern.Pattern;
+import edu.ncsu.csc499.peg_lr.pattern.PikaParser;
+import edu.ncsu.csc499.peg_lr.structure.ByteInput;
 import edu.ncsu.csc499.peg_lr.structure.InputContext;
+import edu.ncsu.csc499.peg_lr.structure.LeftRecursionStrategy;
 import edu.ncsu.csc499.peg_lr.structure.Result;
+import edu.ncsu.csc499.peg_lr.vm.PatternCompiler;
+import edu.ncsu.csc499.peg_lr.vm.VirtualMachine;
 
 /**
  * @author Melody
@@ -78,6 +87,31 @@ public class PatternTestUtils {
 		assertPatternAgainstExpected(p, s, null, false);
 	}
 
+	/**
+	 * Ensures that another way of matching a pattern builds the same tree as
+	 * lazyMatch() and leaves the context in the same place.
+	 *
+	 * @param p      pattern to attempt to match
+	 * @param s      input string to use
+	 * @param start  position to match at
+	 * @param engine matches the pattern in a context at that position
+	 * @return the Result of lazyMatch()
+	 */
+	public static Result assertSameAsLazyMatch(final Pattern p, final String s, final int start,
+			final Function<InputContext, Result> engine) {
+		// Packrat, so that grammars without left recursion don't take exponential time
+		final InputContext expectedContext = new InputContext(s);
+		expectedContext.setPackrat(true);
+		expectedContext.setPosition(start);
+		final Result expected = p.lazyMatch(expectedContext);
+
+		final InputContext context = new InputContext(s);
+		context.setPosition(start);
+		Assert.assertEquals(expected.printResultTree(true), engine.apply(context).printResultTree(true));
+		Assert.assertEquals(expectedContext.getPosition(), context.getPosition());
+		return expected;
+	}
+
 	/**
 	 * Runs an example match, printing the results to stdout and to a file.
 	 *
@@ -207,6 +241,89 @@ public class PatternTestUtils {
 		for (int i = 0; i <= matcher.context.length(); i++) {
 			Assert.assertEquals(0, matcher.context.getResultCount(i));
 		}
+
+		// Retaining grown Results shouldn't change the match
+		final InputContext retaining = new InputContext(s);
+		retaining.setRetainingGrowth(true);
+		final Result retained = p.lazyMatch(retaining);
+		Assert.assertEquals(scenario + "Failure: Retaining growth did not agree with matching.",
+				matcher.r.printResultTree(true), retained.printResultTree(true));
+		Assert.assertEquals(scenario + "Failure: Retaining growth left the context elsewhere.",
+				matcher.context.getPosition(), retaining.getPosition());
+		// A left-recursive pattern's own Result is kept, and matching again reuses it
+		if (p.isLeftRecursive() && !p.isHidden()) {
+			Assert.assertSame(retained, retaining.resultFor(p, 0));
+		}
+		retaining.setPosition(0);
+		Assert.assertEquals(scenario + "Failure: Retained Results did not agree with matching.",
+				matcher.r.printResultTree(true), p.lazyMatch(retaining).printResultTree(true));
+
+		// Bounded left recursion should agree on these grammars
+		final InputContext bounded = new InputContext(s);
+		bounded.setLeftRecursionStrategy(LeftRecursionStrategy.BOUNDED);
+		Assert.assertEquals(scenario + "Failure: Bounded left recursion did not agree with matching.",
+				matcher.r.printResultTree(true), p.lazyMatch(bounded).printResultTree(true));
+		Assert.assertEquals(scenario + "Failure: Bounded left recursion left the context elsewhere.",
+				matcher.context.getPosition(), bounded.getPosition());
+		for (int i = 0; i <= bounded.length(); i++) {
+			Assert.assertEquals(0, bounded.getResultCount(i));
+		}
+
+		// Recognizing without Results should agree with matching
+		final InputContext recognizer = new InputContext(s);
+		final int end = p.lazyRecognize(recognizer);
+		Assert.assertEquals(scenario + "Failure: Recognizing did not agree with matching.",
+				matcher.r.isSuccess() ? matcher.r.getEndIdx() : Pattern.NO_MATCH, end);
+		Assert.assertEquals(scenario + "Failure: Recognizing left the context elsewhere.",
+				matcher.context.getPosition(), recognizer.getPosition());
+		for (int i = 0; i <= recognizer.length(); i++) {
+			Assert.assertEquals(0, recognizer.getResultCount(i));
+		}
+
+		// Matching without recursion should build the same tree
+		final InputContext iterative = new InputContext(s);
+		final Result iterativeResult = IterativeMatcher.match(p, iterative);
+		Assert.assertEquals(scenario + "Failure: Iterative matching did not agree with matching.",
+				matcher.r.isSuccess(), iterativeResult.isSuccess());
+		Assert.assertEquals(scenario + "Failure: Iterative matching did not agree with matching.",
+				matcher.r.printResultTree(true), iterativeResult.printResultTree(true));
+		Assert.assertEquals(scenario + "Failure: Iterative matching left the context elsewhere.",
+				matcher.context.getPosition(), iterative.getPosition());
+		Assert.assertEquals(scenario + "Failure: Iterative matching looked a different distance.",
+				matcher.r.getReach(), iterativeResult.getReach());
+		for (int i = 0; i <= iterative.length(); i++) {
+			Assert.assertEquals(0, iterative.getResultCount(i));
+		}
+
+		// The compiled grammar should agree as well
+		final InputContext vmContext = new InputContext(s);
+		Assert.assertEquals(scenario + "Failure: Virtual machine did not agree with matching.",
+				matcher.r.isSuccess() ? matcher.r.getEndIdx() : Pattern.NO_MATCH,
+				new VirtualMachine(PatternCompiler.compile(p)).run(vmContext));
+		Assert.assertEquals(scenario + "Failure: Virtual machine left the context elsewhere.",
+				matcher.context.getPosition(), vmContext.getPosition());
+
+		// ASCII read as bytes is one byte per character, so matching should agree
+		if (s.chars().allMatch(c -> c < 0x80)) {
+			final InputContext byteContext = new InputContext(new ByteInput(s.getBytes(StandardCharsets.US_ASCII)));
+			Assert.assertEquals(scenario + "Failure: Matching bytes did not agree with matching.",
+					matcher.r.printResultTree(true), p.lazyMatch(byteContext).printResultTree(true));
+			Assert.assertEquals(scenario + "Failure: Matching bytes left the context elsewhere.",
+					matcher.context.getPosition(), byteContext.getPosition());
+		}
+
+		// Pika parsing bottom-up should build the same tree, and recognize the same end
+		final PikaParser pika = new PikaParser(p);
+		final InputContext pikaContext = new InputContext(s);
+		Assert.assertEquals(scenario + "Failure: Pika parsing did not agree with matching.",
+				matcher.r.printResultTree(true), pika.match(pikaContext).printResultTree(true));
+		Assert.assertEquals(scenario + "Failure: Pika parsing left the context elsewhere.",
+				matcher.context.getPosition(), pikaContext.getPosition());
+		final InputContext pikaRecognizer = new InputContext(s);
+		Assert.assertEquals(scenario + "Failure: Pika recognizing did not agree with matching.", end,
+				pika.recognize(pikaRecognizer));
+		Assert.assertEquals(scenario + "Failure: Pika recognizing left the context elsewhere.",
+				matcher.context.getPosition(), pikaRecognizer.getPosition());
 	}
 
 	/**
@@ -301,7 +418,7 @@ public class PatternTestUtils {
 		 * @param s input string to use
 		 */
 		public KillablePatternMatcher(final String s, final Pattern p) {
-			context = new InputContext(s);
+			context = new InputContext(s, new EventHistory());
 			this.p = p;
 
 			scenario = new StringBuilder();
@@ -0,0 +1,104 @@
+package edu.ncsu.csc499.peg_lr.vm;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.ncsu.csc499.peg_lr.pattern.Pattern;
+import edu.ncsu.csc499.peg_lr.pattern.component.PatternString;
+import edu.ncsu.csc499.peg_lr.pattern.component.charclass.PatternDigit;
+import edu.ncsu.csc499.peg_lr.pattern.component.operator.PatternChoice;
+import edu.ncsu.csc499.peg_lr.pattern.component.operator.PatternPredicate;
+import edu.ncsu.csc499.peg_lr.pattern.component.operator.PatternRepetition;
+import edu.ncsu.csc499.peg_lr.pattern.component.operator.PatternSequence;
+import edu.ncsu.csc499.peg_lr.pattern.definition.DefinedExpression;
+import edu.ncsu.csc499.peg_lr.structure.ByteInput;
+import edu.ncsu.csc499.peg_lr.structure.InputContext;
+
+public class VirtualMachineTest {
+
+	/**
+	 * Compiles a pattern and runs it from the start of the input.
+	 *
+	 * @param p     the pattern to run
+	 * @param input the input to match
+	 * @return the end of the match, or Pattern.NO_MATCH
+	 */
+	private static int run(final Pattern p, final String input) {
+		return new VirtualMachine(PatternCompiler.compile(p)).run(input, 0);
+	}
+
+	@Test
+	public void testLeftRecursion() {
+		final Program program = PatternCompiler.compile(new DefinedExpression());
+
+		// The expression rule is grown, the number rules are plain calls
+		Assert.assertTrue(program.toString().contains("OPENGROW      Expression"));
+		Assert.assertTrue(program.toString().contains("CLOSEGROW     Expression"));
+
+		// Grows as far as the sum goes, and no farther
+		final VirtualMachine vm = new VirtualMachine(program);
+		Assert.assertEquals(6, vm.run("1+2+34x", 0));
+		Assert.assertEquals(1, vm.run("1+", 0));
+		Assert.assertEquals(Pattern.NO_MATCH, vm.run("+1", 0));
+
+		// The same machine can be run again, from anywhere
+		Assert.assertEquals(7, vm.run("x1+2+34", 1));
+	}
+
+	@Test
+	public void testRepetitionBounds() {
+		final Pattern twoToThree = new PatternRepetition(new PatternDigit(), 2, 3);
+		Assert.assertEquals(Pattern.NO_MATCH, run(twoToThree, "1"));
+		Assert.assertEquals(2, run(twoToThree, "12"));
+		Assert.assertEquals(3, run(twoToThree, "12345"));
+
+		final Pattern many = new PatternRepetition(new PatternString("ab"), 0, -1);
+		Assert.assertEquals(0, run(many, "x"));
+		Assert.assertEquals(4, run(many, "ababa"));
+	}
+
+	@Test
+	public void testPredicates() {
+		// A digit followed by a digit, without consuming the second
+		final Pattern and = new PatternSequence(new PatternDigit(), new PatternPredicate(new PatternDigit(), true));
+		Assert.assertEquals(1, run(and, "12"));
+		Assert.assertEquals(Pattern.NO_MATCH, run(and, "1a"));
+
+		// A digit not followed by a digit
+		final Pattern not = new PatternSequence(new PatternDigit(), new PatternPredicate(new PatternDigit(), false));
+		Assert.assertEquals(Pattern.NO_MATCH, run(not, "12"));
+		Assert.assertEquals(1, run(not, "1a"));
+	}
+
+	@Test
+	public void testContext() {
+		final InputContext context = new InputContext("a1+2");
+		context.setPosition(1);
+
+		// A match moves the context to its end, a failure leaves it alone
+		final VirtualMachine vm = new VirtualMachine(PatternCompiler.compile(new DefinedExpression()));
+		Assert.assertEquals(4, vm.run(context));
+		Assert.assertEquals(4, context.getPosition());
+		context.setPosition(0);
+		Assert.assertEquals(Pattern.NO_MATCH, vm.run(context));
+		Assert.assertEquals(0, context.getPosition());
+	}
+
+	@Test
+	public void testHiddenCycle() {
+		// A hidden pattern that contains itself has no rule to call back into
+		final PatternChoice choice = new PatternChoice(new PatternString("a"));
+		choice.add(new PatternSequence(new PatternString("b"), choice));
+		Assert.assertThrows(IllegalArgumentException.class, () -> PatternCompiler.compile(choice));
+	}
+
+	@Test
+	public void testInputTypes() {
+		final VirtualMachine vm = new VirtualMachine(PatternCompiler.compile(new DefinedExpression()));
+		Assert.assertEquals(3, vm.run(new InputContext(new StringBuilder("1+2x"))));
+		Assert.assertThrows(IllegalArgumentException.class,
+				() -> vm.run(new InputContext(new ByteInput("1+2".getBytes(StandardCharsets.UTF_8)))));
+	}
+}